@@ -0,0 +1,346 @@
+package io.jopen.core.algorithm.sort;
+
+import io.jopen.core.common.collection.primitive.IndexedLongPriorityQueue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 基于内存映射文件的并行外部归并排序  用于数据量超过堆大小的long键
+ * <p>
+ * 输入文件是连续的8字节大端long(与{@link java.io.DataOutputStream#writeLong(long)}一致)。
+ * <ol>
+ *     <li>切分: 按runLength把输入切成若干段  多个线程各自把一段映射进来  用{@link RadixSortAlgorithm}排序后写入临时文件</li>
+ *     <li>归并: 从所有段中采样得到parallelism - 1个分割键  把键空间切成互不重叠的区间；
+ *     每个区间在每一段中的位置通过二分查找确定  输出位置也随之确定  因此各区间可以并行地做k路归并并直接写入输出文件</li>
+ * </ol>
+ * 峰值堆内存约为 parallelism * runLength * 16 字节(段数据与基数排序的辅助数组)，
+ * 未指定段长时按最大堆内存的一半推算，
+ * 归并阶段只通过映射窗口读写文件，几乎不占堆内存
+ *
+ * @author maxuefeng
+ * @see RadixSortAlgorithm
+ */
+public class ExternalMergeSort {
+
+    /**
+     * 默认段长的上限  1600万个long  128MB
+     */
+    public static final int DEFAULT_RUN_LENGTH = 1 << 24;
+
+    /**
+     * 默认段长的下限  堆很小时仍保证每段至少这么多元素
+     */
+    private static final int MIN_RUN_LENGTH = 1 << 12;
+
+    /**
+     * 归并阶段每个映射窗口的元素个数
+     */
+    private static final int WINDOW = 1 << 16;
+
+    private final int runLength;
+
+    private final int parallelism;
+
+    /**
+     * 并行数取CPU核数  段长按最大堆内存推算
+     *
+     * @see #defaultRunLength(long, int)
+     */
+    public ExternalMergeSort() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 并行的线程数  段长按最大堆内存推算
+     */
+    public ExternalMergeSort(int parallelism) {
+        this(defaultRunLength(Runtime.getRuntime().maxMemory(), parallelism), parallelism);
+    }
+
+    /**
+     * @param runLength   每段在内存中排序的元素个数
+     * @param parallelism 并行的线程数
+     */
+    public ExternalMergeSort(int runLength, int parallelism) {
+        if (runLength < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("runLength and parallelism must be positive");
+        }
+        this.runLength = runLength;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 切分阶段最多占用一半的最大堆内存  每个线程的段需要 runLength * 16 字节
+     * 结果限制在[{@value #MIN_RUN_LENGTH}, {@link #DEFAULT_RUN_LENGTH}]之间
+     */
+    static int defaultRunLength(long maxMemory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        long runLength = maxMemory / 2 / parallelism / (Long.BYTES * 2);
+        return (int) Math.max(MIN_RUN_LENGTH, Math.min(DEFAULT_RUN_LENGTH, runLength));
+    }
+
+    /**
+     * 排序input中的long  结果写入output(会被覆盖)
+     *
+     * @param input  输入文件  长度必须是8的倍数
+     * @param output 输出文件  不能与input相同
+     */
+    public void sortLongs(Path input, Path output) throws IOException {
+        long size = Files.size(input);
+        if (size % Long.BYTES != 0) {
+            throw new IllegalArgumentException("file length " + size + " is not a multiple of " + Long.BYTES);
+        }
+        long count = size / Long.BYTES;
+        int runCount = (int) ((count + runLength - 1) / runLength);
+        Path parent = output.toAbsolutePath().getParent();
+        Path runs = runCount > 1 ? Files.createTempFile(parent, "runs", ".tmp") : output;
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (RandomAccessFile in = new RandomAccessFile(input.toFile(), "r");
+             RandomAccessFile runFile = new RandomAccessFile(runs.toFile(), "rw")) {
+            runFile.setLength(size);
+            FileChannel inChannel = in.getChannel();
+            FileChannel runChannel = runFile.getChannel();
+
+            List<Callable<Void>> sorts = new ArrayList<>(runCount);
+            for (int r = 0; r < runCount; r++) {
+                long start = (long) r * runLength;
+                int length = (int) Math.min(runLength, count - start);
+                sorts.add(() -> {
+                    sortRun(inChannel, runChannel, start, length);
+                    return null;
+                });
+            }
+            invokeAll(executor, sorts);
+
+            if (runCount > 1) {
+                try (RandomAccessFile out = new RandomAccessFile(output.toFile(), "rw")) {
+                    out.setLength(size);
+                    merge(executor, runChannel, out.getChannel(), count, runCount);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            if (runs != output) {
+                Files.deleteIfExists(runs);
+            }
+        }
+    }
+
+    private static void sortRun(FileChannel in, FileChannel out, long start, int length) throws IOException {
+        long[] values = new long[length];
+        in.map(FileChannel.MapMode.READ_ONLY, start * Long.BYTES, (long) length * Long.BYTES).asLongBuffer().get(values);
+        RadixSortAlgorithm.sortLongs(values);
+        out.map(FileChannel.MapMode.READ_WRITE, start * Long.BYTES, (long) length * Long.BYTES).asLongBuffer().put(values);
+    }
+
+    private void merge(ExecutorService executor, FileChannel runs, FileChannel out, long count, int runCount)
+            throws IOException {
+        long[] splitters = sampleSplitters(runs, count, runCount);
+        int partitions = splitters.length + 1;
+
+        // bounds[p][r]: 第r段中属于第p个区间的起始位置
+        long[][] bounds = new long[partitions + 1][runCount];
+        for (int r = 0; r < runCount; r++) {
+            long runStart = (long) r * runLength;
+            long runEnd = Math.min(runStart + runLength, count);
+            bounds[0][r] = runStart;
+            for (int p = 1; p < partitions; p++) {
+                bounds[p][r] = lowerBound(runs, Math.max(runStart, bounds[p - 1][r]), runEnd, splitters[p - 1]);
+            }
+            bounds[partitions][r] = runEnd;
+        }
+
+        List<Callable<Void>> merges = new ArrayList<>(partitions);
+        long outputOffset = 0;
+        for (int p = 0; p < partitions; p++) {
+            long[] from = bounds[p];
+            long[] to = bounds[p + 1];
+            long offset = outputOffset;
+            for (int r = 0; r < runCount; r++) {
+                outputOffset += to[r] - from[r];
+            }
+            long length = outputOffset - offset;
+            if (length > 0) {
+                merges.add(() -> {
+                    mergePartition(runs, out, from, to, offset, length);
+                    return null;
+                });
+            }
+        }
+        invokeAll(executor, merges);
+    }
+
+    /**
+     * 从每段中等间隔采样  取样本的分位数作为分割键
+     */
+    private long[] sampleSplitters(FileChannel runs, long count, int runCount) throws IOException {
+        if (parallelism == 1) {
+            return new long[0];
+        }
+        int perRun = parallelism * 8;
+        long[] samples = new long[runCount * perRun];
+        int n = 0;
+        for (int r = 0; r < runCount; r++) {
+            long runStart = (long) r * runLength;
+            long runLen = Math.min(runLength, count - runStart);
+            for (int i = 0; i < perRun; i++) {
+                samples[n++] = readLong(runs, runStart + runLen * i / perRun);
+            }
+        }
+        RadixSortAlgorithm.sortLongs(samples);
+        long[] splitters = new long[parallelism - 1];
+        for (int p = 1; p < parallelism; p++) {
+            splitters[p - 1] = samples[(int) ((long) n * p / parallelism)];
+        }
+        return splitters;
+    }
+
+    /**
+     * 每段的[from[r], to[r])做k路归并  写入输出文件的[offset, offset + length)
+     */
+    private static void mergePartition(FileChannel runs, FileChannel out, long[] from, long[] to,
+                                       long offset, long length) throws IOException {
+        int runCount = from.length;
+        RunCursor[] cursors = new RunCursor[runCount];
+        IndexedLongPriorityQueue queue = new IndexedLongPriorityQueue(runCount);
+        for (int r = 0; r < runCount; r++) {
+            if (from[r] < to[r]) {
+                cursors[r] = new RunCursor(runs, from[r], to[r]);
+                queue.insert(r, cursors[r].next());
+            }
+        }
+        WindowWriter writer = new WindowWriter(out, offset, offset + length);
+        while (!queue.isEmpty()) {
+            int r = queue.peekId();
+            writer.write(queue.peekKey());
+            RunCursor cursor = cursors[r];
+            if (cursor.hasNext()) {
+                queue.increaseKey(r, cursor.next());
+            } else {
+                queue.pollId();
+            }
+        }
+    }
+
+    /**
+     * @return [lo, hi)中第一个 &gt;= key 的位置
+     */
+    private static long lowerBound(FileChannel runs, long lo, long hi, long key) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (readLong(runs, mid, buffer) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long readLong(FileChannel channel, long index) throws IOException {
+        return readLong(channel, index, ByteBuffer.allocate(Long.BYTES));
+    }
+
+    private static long readLong(FileChannel channel, long index, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = index * Long.BYTES;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file at " + position);
+            }
+        }
+        return buffer.getLong(0);
+    }
+
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 按窗口映射读取一段已排序的数据
+     */
+    private static final class RunCursor {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private LongBuffer window;
+
+        RunCursor(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        boolean hasNext() {
+            return (window != null && window.hasRemaining()) || position < end;
+        }
+
+        long next() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                int n = (int) Math.min(WINDOW, end - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position * Long.BYTES, (long) n * Long.BYTES).asLongBuffer();
+                position += n;
+            }
+            return window.get();
+        }
+    }
+
+    /**
+     * 按窗口映射顺序写入输出文件的一个区间
+     */
+    private static final class WindowWriter {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private LongBuffer window;
+
+        WindowWriter(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        void write(long value) throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                int n = (int) Math.min(WINDOW, end - position);
+                window = channel.map(FileChannel.MapMode.READ_WRITE, position * Long.BYTES, (long) n * Long.BYTES).asLongBuffer();
+                position += n;
+            }
+            window.put(value);
+        }
+    }
+}
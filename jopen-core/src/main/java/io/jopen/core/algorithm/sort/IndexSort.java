@@ -0,0 +1,149 @@
+package io.jopen.core.algorithm.sort;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 下标(置换)排序  不移动记录本身  只计算按键列排序后的下标顺序
+ * <p>
+ * 适合记录较大或者同一批记录需要按多个键列分别排序的场景：按键列计算一次置换，
+ * 再用{@link #permute(Object[], int[])}或直接按置换顺序访问原始记录。
+ * 基于{@link RadixSortAlgorithm}  结果稳定(键相同的记录保持原来的先后顺序)
+ *
+ * @author maxuefeng
+ * @see RadixSortAlgorithm
+ */
+public final class IndexSort {
+
+    private IndexSort() {
+    }
+
+    /**
+     * @return 置换perm  keys[perm[0]] &lt;= keys[perm[1]] &lt;= ...
+     */
+    public static int[] argsort(int[] keys) {
+        int n = keys.length;
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = keys[i] ^ Integer.MIN_VALUE;
+        }
+        int[] index = identity(n);
+        if (n > 1) {
+            RadixSortAlgorithm.radixSort(sorted, new int[n], index, new int[n]);
+        }
+        return index;
+    }
+
+    public static int[] argsort(long[] keys) {
+        int n = keys.length;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = keys[i] ^ Long.MIN_VALUE;
+        }
+        return argsortUnsigned(sorted);
+    }
+
+    public static int[] argsort(double[] keys) {
+        int n = keys.length;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = RadixSortAlgorithm.doubleKey(keys[i]);
+        }
+        return argsortUnsigned(sorted);
+    }
+
+    /**
+     * 按记录的long键列排序
+     */
+    public static <T> int[] argsort(T[] records, ToLongFunction<? super T> keyColumn) {
+        int n = records.length;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = keyColumn.applyAsLong(records[i]) ^ Long.MIN_VALUE;
+        }
+        return argsortUnsigned(sorted);
+    }
+
+    /**
+     * 按记录的double键列排序
+     */
+    public static <T> int[] argsortByDouble(T[] records, ToDoubleFunction<? super T> keyColumn) {
+        int n = records.length;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = RadixSortAlgorithm.doubleKey(keyColumn.applyAsDouble(records[i]));
+        }
+        return argsortUnsigned(sorted);
+    }
+
+    /**
+     * 按键列原地排序记录  每个键只计算一次
+     */
+    public static <T> void sortBy(T[] records, ToLongFunction<? super T> keyColumn) {
+        permute(records, argsort(records, keyColumn));
+    }
+
+    /**
+     * 按置换原地重排  records[i] = 原records[perm[i]]  沿置换环移动  不需要额外的记录数组
+     *
+     * @param perm 置换  调用期间会被临时修改  返回前恢复
+     */
+    public static <T> void permute(T[] records, int[] perm) {
+        checkPermutation(records.length, perm);
+        for (int start = 0; start < perm.length; start++) {
+            if (perm[start] < 0) {
+                continue;
+            }
+            T first = records[start];
+            int i = start;
+            int next = perm[i];
+            while (next != start) {
+                records[i] = records[next];
+                // 标记为已处理
+                perm[i] = ~next;
+                i = next;
+                next = perm[i];
+            }
+            records[i] = first;
+            perm[i] = ~next;
+        }
+        for (int i = 0; i < perm.length; i++) {
+            perm[i] = ~perm[i];
+        }
+    }
+
+    /**
+     * @return 按置换重排后的新数组  原数组不变
+     */
+    public static long[] gather(long[] column, int[] perm) {
+        checkPermutation(column.length, perm);
+        long[] result = new long[perm.length];
+        for (int i = 0; i < perm.length; i++) {
+            result[i] = column[perm[i]];
+        }
+        return result;
+    }
+
+    private static int[] argsortUnsigned(long[] sorted) {
+        int n = sorted.length;
+        int[] index = identity(n);
+        if (n > 1) {
+            RadixSortAlgorithm.radixSort(sorted, new long[n], index, new int[n]);
+        }
+        return index;
+    }
+
+    private static int[] identity(int n) {
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+        }
+        return index;
+    }
+
+    private static void checkPermutation(int length, int[] perm) {
+        if (perm.length != length) {
+            throw new IllegalArgumentException("permutation length " + perm.length + " != " + length);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package io.jopen.core.algorithm.sort;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于Fork/Join的并行归并排序
+ * <p>
+ * 区间长度不超过cutoff时直接顺序排序(双轴快排)，否则拆成两半并行排序，再并行归并：
+ * 把较长一半的中位元素在另一半中二分查找，得到两对可以独立归并的子区间。
+ * 归并在辅助数组与原数组之间来回进行，每层只需要一次拷贝
+ *
+ * @author maxuefeng
+ * @see java.util.Arrays#parallelSort(int[])
+ * @see RadixSortAlgorithm
+ */
+public class ParallelSortAlgorithm implements SortAlgorithm {
+
+    /**
+     * 默认的顺序排序阈值  太小会产生过多的任务  太大则无法利用多核
+     */
+    public static final int DEFAULT_CUTOFF = 1 << 13;
+
+    private final ForkJoinPool pool;
+
+    private final int cutoff;
+
+    public ParallelSortAlgorithm() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CUTOFF);
+    }
+
+    /**
+     * @param pool   执行排序任务的线程池
+     * @param cutoff 顺序排序阈值  至少为2
+     */
+    public ParallelSortAlgorithm(ForkJoinPool pool, int cutoff) {
+        if (cutoff < 2) {
+            throw new IllegalArgumentException("cutoff must be >= 2");
+        }
+        this.pool = pool;
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * 原地升序排序
+     *
+     * @param origin 原始数组
+     * @return 排好序的原数组
+     */
+    @Override
+    public int[] sort(int[] origin) {
+        sort(origin, 0, origin.length);
+        return origin;
+    }
+
+    public void sort(int[] array, int fromIndex, int toIndex) {
+        checkRange(array.length, fromIndex, toIndex);
+        if (toIndex - fromIndex <= cutoff || pool.getParallelism() <= 1) {
+            Arrays.sort(array, fromIndex, toIndex);
+            return;
+        }
+        int[] buffer = new int[toIndex - fromIndex];
+        pool.invoke(new IntSortTask(array, buffer, fromIndex, toIndex, fromIndex, cutoff));
+    }
+
+    public long[] sort(long[] origin) {
+        sort(origin, 0, origin.length);
+        return origin;
+    }
+
+    public void sort(long[] array, int fromIndex, int toIndex) {
+        checkRange(array.length, fromIndex, toIndex);
+        if (toIndex - fromIndex <= cutoff || pool.getParallelism() <= 1) {
+            Arrays.sort(array, fromIndex, toIndex);
+            return;
+        }
+        long[] buffer = new long[toIndex - fromIndex];
+        pool.invoke(new LongSortTask(array, buffer, fromIndex, toIndex, fromIndex, cutoff));
+    }
+
+    static void checkRange(int length, int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", length: " + length);
+        }
+    }
+
+    /**
+     * 排序array[lo, hi)  buffer[lo - base, hi - base)为对应的辅助空间
+     */
+    private static final class IntSortTask extends RecursiveAction {
+
+        private final int[] array;
+        private final int[] buffer;
+        private final int lo;
+        private final int hi;
+        private final int base;
+        private final int cutoff;
+
+        IntSortTask(int[] array, int[] buffer, int lo, int hi, int base, int cutoff) {
+            this.array = array;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.base = base;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                Arrays.sort(array, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new IntSortTask(array, buffer, lo, mid, base, cutoff),
+                    new IntSortTask(array, buffer, mid, hi, base, cutoff));
+            if (array[mid - 1] <= array[mid]) {
+                // 两半已经整体有序
+                return;
+            }
+            System.arraycopy(array, lo, buffer, lo - base, hi - lo);
+            new IntMergeTask(buffer, lo - base, mid - base, mid - base, hi - base, array, lo, cutoff).compute();
+        }
+    }
+
+    /**
+     * 把src[lo1, hi1)与src[lo2, hi2)归并到dst[to, ...)
+     */
+    private static final class IntMergeTask extends RecursiveAction {
+
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int to;
+        private final int cutoff;
+
+        IntMergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int to, int cutoff) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.to = to;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= cutoff) {
+                merge();
+                return;
+            }
+            if (n1 >= n2) {
+                int m1 = (lo1 + hi1) >>> 1;
+                // 第二段中第一个 >= src[m1] 的位置  相等元素留在左边  保持稳定
+                int m2 = lowerBound(src, lo2, hi2, src[m1]);
+                split(m1, m2);
+            } else {
+                int m2 = (lo2 + hi2) >>> 1;
+                // 第一段中第一个 > src[m2] 的位置
+                int m1 = upperBound(src, lo1, hi1, src[m2]);
+                split(m1, m2);
+            }
+        }
+
+        private void split(int m1, int m2) {
+            int rightTo = to + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new IntMergeTask(src, lo1, m1, lo2, m2, dst, to, cutoff),
+                    new IntMergeTask(src, m1, hi1, m2, hi2, dst, rightTo, cutoff));
+        }
+
+        private void merge() {
+            int i = lo1, j = lo2, k = to;
+            while (i < hi1 && j < hi2) {
+                dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+            }
+            System.arraycopy(src, i, dst, k, hi1 - i);
+            System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+        }
+
+        private static int lowerBound(int[] a, int lo, int hi, int key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static int upperBound(int[] a, int lo, int hi, int key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static final class LongSortTask extends RecursiveAction {
+
+        private final long[] array;
+        private final long[] buffer;
+        private final int lo;
+        private final int hi;
+        private final int base;
+        private final int cutoff;
+
+        LongSortTask(long[] array, long[] buffer, int lo, int hi, int base, int cutoff) {
+            this.array = array;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.base = base;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= cutoff) {
+                Arrays.sort(array, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new LongSortTask(array, buffer, lo, mid, base, cutoff),
+                    new LongSortTask(array, buffer, mid, hi, base, cutoff));
+            if (array[mid - 1] <= array[mid]) {
+                return;
+            }
+            System.arraycopy(array, lo, buffer, lo - base, hi - lo);
+            new LongMergeTask(buffer, lo - base, mid - base, mid - base, hi - base, array, lo, cutoff).compute();
+        }
+    }
+
+    private static final class LongMergeTask extends RecursiveAction {
+
+        private final long[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final long[] dst;
+        private final int to;
+        private final int cutoff;
+
+        LongMergeTask(long[] src, int lo1, int hi1, int lo2, int hi2, long[] dst, int to, int cutoff) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.to = to;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= cutoff) {
+                merge();
+                return;
+            }
+            if (n1 >= n2) {
+                int m1 = (lo1 + hi1) >>> 1;
+                int m2 = lowerBound(src, lo2, hi2, src[m1]);
+                split(m1, m2);
+            } else {
+                int m2 = (lo2 + hi2) >>> 1;
+                int m1 = upperBound(src, lo1, hi1, src[m2]);
+                split(m1, m2);
+            }
+        }
+
+        private void split(int m1, int m2) {
+            int rightTo = to + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new LongMergeTask(src, lo1, m1, lo2, m2, dst, to, cutoff),
+                    new LongMergeTask(src, m1, hi1, m2, hi2, dst, rightTo, cutoff));
+        }
+
+        private void merge() {
+            int i = lo1, j = lo2, k = to;
+            while (i < hi1 && j < hi2) {
+                dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+            }
+            System.arraycopy(src, i, dst, k, hi1 - i);
+            System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+        }
+
+        private static int lowerBound(long[] a, int lo, int hi, long key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static int upperBound(long[] a, int lo, int hi, long key) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.jopen.core.algorithm.sort;
+
+import java.util.Arrays;
+
+/**
+ * LSD基数排序  每轮按8位分桶  int需要4轮  long需要8轮
+ * <p>
+ * 所有轮次的直方图在第一次遍历时一起统计，所有键在某一字节上都相同时跳过该轮，
+ * 因此取值范围较小的键(如自增ID、时间截)实际只需要很少的轮次。
+ * 有符号数通过翻转符号位、浮点数通过翻转位模式映射为无符号键，排序结果与{@link Arrays#sort(float[])}一致
+ * (-0.0在0.0之前，NaN排在最后)。需要与原数组等长的辅助数组
+ *
+ * @author maxuefeng
+ * @see ParallelSortAlgorithm
+ * @see IndexSort
+ */
+public class RadixSortAlgorithm implements SortAlgorithm {
+
+    /**
+     * 小于该长度时基数排序的直方图开销不划算  直接使用比较排序
+     */
+    private static final int SMALL = 64;
+
+    private static final int RADIX_BITS = 8;
+
+    private static final int BUCKETS = 1 << RADIX_BITS;
+
+    /**
+     * 原地升序排序
+     *
+     * @param origin 原始数组
+     * @return 排好序的原数组
+     */
+    @Override
+    public int[] sort(int[] origin) {
+        sortInts(origin);
+        return origin;
+    }
+
+    public static void sortInts(int[] array) {
+        if (array.length < SMALL) {
+            Arrays.sort(array);
+            return;
+        }
+        // 翻转符号位后按无符号比较
+        flipSign(array);
+        radixSort(array, new int[array.length], null, null);
+        flipSign(array);
+    }
+
+    public static void sortLongs(long[] array) {
+        if (array.length < SMALL) {
+            Arrays.sort(array);
+            return;
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] ^= Long.MIN_VALUE;
+        }
+        radixSort(array, new long[array.length], null, null);
+        for (int i = 0; i < array.length; i++) {
+            array[i] ^= Long.MIN_VALUE;
+        }
+    }
+
+    public static void sortFloats(float[] array) {
+        if (array.length < SMALL) {
+            Arrays.sort(array);
+            return;
+        }
+        int[] keys = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            keys[i] = floatKey(array[i]);
+        }
+        radixSort(keys, new int[keys.length], null, null);
+        for (int i = 0; i < keys.length; i++) {
+            array[i] = keyToFloat(keys[i]);
+        }
+    }
+
+    public static void sortDoubles(double[] array) {
+        if (array.length < SMALL) {
+            Arrays.sort(array);
+            return;
+        }
+        long[] keys = new long[array.length];
+        for (int i = 0; i < array.length; i++) {
+            keys[i] = doubleKey(array[i]);
+        }
+        radixSort(keys, new long[keys.length], null, null);
+        for (int i = 0; i < keys.length; i++) {
+            array[i] = keyToDouble(keys[i]);
+        }
+    }
+
+    /**
+     * 浮点数映射为可按无符号整数比较的键  NaN统一为正的canonical NaN  排在最后
+     */
+    static int floatKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    static float keyToFloat(int key) {
+        int bits = key ^ (((~key) >> 31) | Integer.MIN_VALUE);
+        return Float.intBitsToFloat(bits);
+    }
+
+    static long doubleKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    static double keyToDouble(long key) {
+        long bits = key ^ (((~key) >> 63) | Long.MIN_VALUE);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static void flipSign(int[] array) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] ^= Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 按无符号键排序keys  index不为null时同步移动index(稳定)
+     *
+     * @param keys        无符号键  排序后仍在该数组中
+     * @param keyBuffer   与keys等长的辅助数组
+     * @param index       随键移动的下标  可以为null
+     * @param indexBuffer 与index等长的辅助数组
+     */
+    static void radixSort(int[] keys, int[] keyBuffer, int[] index, int[] indexBuffer) {
+        int n = keys.length;
+        int passes = Integer.SIZE / RADIX_BITS;
+        int[][] counts = new int[passes][BUCKETS];
+        for (int key : keys) {
+            for (int p = 0; p < passes; p++) {
+                counts[p][(key >>> (p * RADIX_BITS)) & (BUCKETS - 1)]++;
+            }
+        }
+        int[] src = keys, dst = keyBuffer;
+        int[] srcIndex = index, dstIndex = indexBuffer;
+        for (int p = 0; p < passes; p++) {
+            int[] count = counts[p];
+            int shift = p * RADIX_BITS;
+            if (count[(src[0] >>> shift) & (BUCKETS - 1)] == n) {
+                // 所有键在该字节上相同
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int key = src[i];
+                int pos = count[(key >>> shift) & (BUCKETS - 1)]++;
+                dst[pos] = key;
+                if (srcIndex != null) {
+                    dstIndex[pos] = srcIndex[i];
+                }
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+            t = srcIndex;
+            srcIndex = dstIndex;
+            dstIndex = t;
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            if (index != null) {
+                System.arraycopy(srcIndex, 0, index, 0, n);
+            }
+        }
+    }
+
+    static void radixSort(long[] keys, long[] keyBuffer, int[] index, int[] indexBuffer) {
+        int n = keys.length;
+        int passes = Long.SIZE / RADIX_BITS;
+        int[][] counts = new int[passes][BUCKETS];
+        for (long key : keys) {
+            for (int p = 0; p < passes; p++) {
+                counts[p][(int) (key >>> (p * RADIX_BITS)) & (BUCKETS - 1)]++;
+            }
+        }
+        long[] src = keys, dst = keyBuffer;
+        int[] srcIndex = index, dstIndex = indexBuffer;
+        for (int p = 0; p < passes; p++) {
+            int[] count = counts[p];
+            int shift = p * RADIX_BITS;
+            if (count[(int) (src[0] >>> shift) & (BUCKETS - 1)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                long key = src[i];
+                int pos = count[(int) (key >>> shift) & (BUCKETS - 1)]++;
+                dst[pos] = key;
+                if (srcIndex != null) {
+                    dstIndex[pos] = srcIndex[i];
+                }
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+            int[] ti = srcIndex;
+            srcIndex = dstIndex;
+            dstIndex = ti;
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            if (index != null) {
+                System.arraycopy(srcIndex, 0, index, 0, n);
+            }
+        }
+    }
+
+    /**
+     * 计数转换为每个桶的起始位置
+     */
+    private static void toOffsets(int[] count) {
+        int sum = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            int c = count[b];
+            count[b] = sum;
+            sum += c;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.jopen.core.algorithm.tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 基于64位汉明距离的BK树(Burkhard-Keller tree)  用于查找距离不超过r的所有指纹
+ * <p>
+ * 每个子节点按它与父节点的距离挂在父节点下，查询时根据三角不等式只需访问距离在[d - r, d + r]内的子树。
+ * r较小时只访问很少的节点；r较大时(超过16左右)剪枝效果变差，此时多索引哈希通常更快
+ * <p>
+ * 非线程安全  构建完成后可以多线程并发查询
+ *
+ * @param <T> 指纹关联的值  例如图片ID
+ * @author maxuefeng
+ * @see io.jopen.core.common.io.PerceptualHash
+ * @see io.jopen.core.common.io.ImageHashIndex
+ */
+public class BKTree<T> {
+
+    private Node<T> root;
+
+    private int size;
+
+    /**
+     * 添加一个指纹  相同的指纹共用一个节点
+     */
+    public void add(long hash, T value) {
+        size++;
+        if (root == null) {
+            root = new Node<>(hash, value);
+            return;
+        }
+        Node<T> node = root;
+        while (true) {
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance == 0) {
+                node.values.add(value);
+                return;
+            }
+            Node<T> child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node<>(hash, value));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * 查找与hash的汉明距离不超过maxDistance的所有值
+     *
+     * @return 匹配结果  按遍历顺序  不保证按距离排序
+     */
+    public List<Match<T>> search(long hash, int maxDistance) {
+        List<Match<T>> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance <= maxDistance) {
+                for (T value : node.values) {
+                    matches.add(new Match<>(node.hash, distance, value));
+                }
+            }
+            int low = distance - maxDistance;
+            int high = distance + maxDistance;
+            for (int i = 0; i < node.childCount; i++) {
+                int d = node.distances[i];
+                if (d >= low && d <= high) {
+                    stack.push(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 一条匹配结果
+     */
+    public static final class Match<T> {
+
+        private final long hash;
+
+        private final int distance;
+
+        private final T value;
+
+        public Match(long hash, int distance, T value) {
+            this.hash = hash;
+            this.distance = distance;
+            this.value = value;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{" +
+                    "hash=" + Long.toHexString(hash) +
+                    ", distance=" + distance +
+                    ", value=" + value +
+                    '}';
+        }
+    }
+
+    /**
+     * 子节点用两个紧凑数组存放  大多数节点只有少数几个子节点  不为每个节点分配65个槽位
+     */
+    private static final class Node<T> {
+
+        private final long hash;
+
+        private final List<T> values = new ArrayList<>(1);
+
+        private byte[] distances;
+
+        private Node<T>[] children;
+
+        private int childCount;
+
+        Node(long hash, T value) {
+            this.hash = hash;
+            this.values.add(value);
+        }
+
+        Node<T> child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        void addChild(int distance, Node<T> child) {
+            if (children == null) {
+                distances = new byte[2];
+                children = (Node<T>[]) new Node<?>[2];
+            } else if (childCount == children.length) {
+                distances = Arrays.copyOf(distances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            distances[childCount] = (byte) distance;
+            children[childCount++] = child;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.jopen.core.common.collection;
+
+import io.jopen.core.common.concurrent.WaitStrategy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于环形数组的有界并发队列
+ * <p>
+ * 子类只需实现非阻塞的{@link #offer(Object)}/{@link #poll()}；阻塞版本的put/take以及超时版本
+ * 在此基础上按{@link WaitStrategy}空转等待，不使用锁和Condition。元素不能为null
+ * <p>
+ * {@link #enQueue(Object)}在队列满时抛出{@link IllegalStateException}，{@link #deQueue()}在队列为空时返回null；
+ * 需要阻塞的流水线交接请使用{@link #put(Object)}/{@link #take()}
+ *
+ * @param <T> 元素类型
+ * @author maxuefeng
+ * @see MpmcArrayQueue
+ * @see SpscArrayQueue
+ */
+public abstract class ConcurrentArrayQueue<T> extends AbstractQueue<T> {
+
+    protected final Object[] buffer;
+
+    protected final int mask;
+
+    protected final WaitStrategy waitStrategy;
+
+    /**
+     * @param capacity     容量  向上取整为2的幂
+     * @param waitStrategy 阻塞操作的等待策略
+     */
+    protected ConcurrentArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [2, 2^30]");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 非阻塞入队
+     *
+     * @return false 队列已满
+     */
+    public abstract boolean offer(T e);
+
+    /**
+     * 非阻塞出队
+     *
+     * @return 队列为空时返回null
+     */
+    public abstract T poll();
+
+    /**
+     * 并发修改时只是一个近似值
+     */
+    public abstract int size();
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * 入队  队列满时抛出异常
+     *
+     * @throws IllegalStateException 队列已满
+     */
+    @Override
+    public void enQueue(T data) {
+        if (!offer(data)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    /**
+     * 出队  队列为空时返回null
+     */
+    @Override
+    public T deQueue() {
+        return poll();
+    }
+
+    /**
+     * 阻塞入队  直到有空位
+     */
+    public void put(T e) throws InterruptedException {
+        for (int round = 0; !offer(e); round++) {
+            checkInterrupted();
+            waitStrategy.idle(round);
+        }
+    }
+
+    /**
+     * 阻塞入队  最多等待timeout
+     *
+     * @return false 超时仍没有空位
+     */
+    public boolean offer(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int round = 0; !offer(e); round++) {
+            checkInterrupted();
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            waitStrategy.idle(round);
+        }
+        return true;
+    }
+
+    /**
+     * 阻塞出队  直到有元素
+     */
+    public T take() throws InterruptedException {
+        T e;
+        for (int round = 0; (e = poll()) == null; round++) {
+            checkInterrupted();
+            waitStrategy.idle(round);
+        }
+        return e;
+    }
+
+    /**
+     * 阻塞出队  最多等待timeout
+     *
+     * @return 超时仍没有元素时返回null
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        T e;
+        for (int round = 0; (e = poll()) == null; round++) {
+            checkInterrupted();
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+            waitStrategy.idle(round);
+        }
+        return e;
+    }
+
+    /**
+     * 按顺序非阻塞地批量入队  遇到队列已满时停止
+     *
+     * @return 成功入队的元素个数  即elements中前n个元素已入队
+     */
+    public int offerAll(List<? extends T> elements) {
+        int n = 0;
+        for (T e : elements) {
+            if (!offer(e)) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 非阻塞地批量出队  最多maxElements个
+     *
+     * @return 出队的元素个数
+     */
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        int n = 0;
+        T e;
+        while (n < maxElements && (e = poll()) != null) {
+            consumer.accept(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int drainTo(Collection<? super T> collection, int maxElements) {
+        return drainTo(collection::add, maxElements);
+    }
+
+    public int drainTo(Collection<? super T> collection) {
+        return drainTo(collection::add, Integer.MAX_VALUE);
+    }
+
+    protected static void checkNotNull(Object e) {
+        if (e == null) {
+            throw new NullPointerException("null elements are not permitted");
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
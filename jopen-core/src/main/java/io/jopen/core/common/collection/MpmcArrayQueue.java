@@ -0,0 +1,96 @@
+package io.jopen.core.common.collection;
+
+import io.jopen.core.common.concurrent.WaitStrategy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的有界多生产者多消费者队列 (Dmitry Vyukov的bounded MPMC queue)
+ * <p>
+ * 每个槽位带一个序号：序号 == 下标时槽位可写，序号 == 下标 + 1 时槽位可读，读完后序号推进一圈(+容量)。
+ * 生产者/消费者只需一次CAS抢占各自的计数器，之后读写槽位不再竞争；两个计数器各自填充到独占的缓存行
+ *
+ * @param <T> 元素类型
+ * @author maxuefeng
+ * @see java.util.concurrent.ArrayBlockingQueue
+ */
+public class MpmcArrayQueue<T> extends ConcurrentArrayQueue<T> {
+
+    private final AtomicLongArray sequences;
+
+    private final PaddedAtomicLong producerIndex = new PaddedAtomicLong(0L);
+
+    private final PaddedAtomicLong consumerIndex = new PaddedAtomicLong(0L);
+
+    public MpmcArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    public MpmcArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.sequences = new AtomicLongArray(buffer.length);
+        for (int i = 0; i < buffer.length; i++) {
+            sequences.lazySet(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(T e) {
+        checkNotNull(e);
+        long index;
+        int slot;
+        while (true) {
+            index = producerIndex.get();
+            slot = (int) index & mask;
+            long diff = sequences.get(slot) - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // 槽位还没被上一圈的消费者读走  队列已满
+                return false;
+            }
+            // diff > 0 其他生产者已抢占  重新读取计数器
+        }
+        buffer[slot] = e;
+        sequences.lazySet(slot, index + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long index;
+        int slot;
+        while (true) {
+            index = consumerIndex.get();
+            slot = (int) index & mask;
+            long diff = sequences.get(slot) - (index + 1);
+            if (diff == 0) {
+                if (consumerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // 槽位还没有被写入  队列为空
+                return null;
+            }
+        }
+        T e = (T) buffer[slot];
+        buffer[slot] = null;
+        sequences.lazySet(slot, index + buffer.length);
+        return e;
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long before = consumerIndex.get();
+            long producer = producerIndex.get();
+            long after = consumerIndex.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(producer - after, buffer.length));
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.jopen.core.common.collection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 填充到独占一个缓存行的AtomicLong  避免生产者与消费者的计数器互相伪共享
+ * <p>
+ * {@link #cache}是只由拥有者线程读写的普通字段  用来缓存对方的计数器  与计数器共享同一个缓存行
+ *
+ * @author maxuefeng
+ */
+@SuppressWarnings("unused")
+final class PaddedAtomicLong extends AtomicLong {
+
+    long cache;
+
+    private long p1, p2, p3, p4, p5, p6;
+
+    PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+}
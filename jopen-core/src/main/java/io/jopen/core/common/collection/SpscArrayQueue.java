@@ -0,0 +1,129 @@
+package io.jopen.core.common.collection;
+
+import io.jopen.core.common.concurrent.WaitStrategy;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 无锁的有界单生产者单消费者队列  用于流水线中相邻两个阶段之间的交接
+ * <p>
+ * 只允许一个线程入队、一个线程出队(可以是不同线程)。计数器只由各自的线程写入，
+ * 不需要CAS，发布时使用lazySet；对方的计数器缓存在本地，只有看起来满/空时才重新读取。
+ * 批量操作{@link #offerAll(List)}/{@link #drainTo(Consumer, int)}整批只发布一次计数器
+ *
+ * @param <T> 元素类型
+ * @author maxuefeng
+ * @see MpmcArrayQueue
+ */
+public class SpscArrayQueue<T> extends ConcurrentArrayQueue<T> {
+
+    /**
+     * cache字段为生产者缓存的消费者计数
+     */
+    private final PaddedAtomicLong producerIndex = new PaddedAtomicLong(0L);
+
+    /**
+     * cache字段为消费者缓存的生产者计数
+     */
+    private final PaddedAtomicLong consumerIndex = new PaddedAtomicLong(0L);
+
+    public SpscArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    public SpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(T e) {
+        checkNotNull(e);
+        long index = producerIndex.get();
+        if (available(index, 1) < 1) {
+            return false;
+        }
+        buffer[(int) index & mask] = e;
+        producerIndex.lazySet(index + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long index = consumerIndex.get();
+        if (index >= consumerIndex.cache && index >= (consumerIndex.cache = producerIndex.get())) {
+            return null;
+        }
+        int slot = (int) index & mask;
+        T e = (T) buffer[slot];
+        buffer[slot] = null;
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    @Override
+    public int offerAll(List<? extends T> elements) {
+        long index = producerIndex.get();
+        int n = (int) Math.min(elements.size(), available(index, elements.size()));
+        for (int i = 0; i < n; i++) {
+            T e = elements.get(i);
+            checkNotNull(e);
+            buffer[(int) (index + i) & mask] = e;
+        }
+        if (n > 0) {
+            producerIndex.lazySet(index + n);
+        }
+        return n;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super T> consumer, int maxElements) {
+        long index = consumerIndex.get();
+        long limit = consumerIndex.cache = producerIndex.get();
+        int n = (int) Math.min(limit - index, maxElements);
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                int slot = (int) (index + i) & mask;
+                T e = (T) buffer[slot];
+                buffer[slot] = null;
+                consumer.accept(e);
+            }
+        } finally {
+            // consumer抛出异常时  已交给consumer的元素仍视为已出队
+            if (i < n) {
+                i++;
+            }
+            if (i > 0) {
+                consumerIndex.lazySet(index + i);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long before = consumerIndex.get();
+            long producer = producerIndex.get();
+            long after = consumerIndex.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(producer - after, buffer.length));
+            }
+        }
+    }
+
+    /**
+     * @return 生产者视角下的空位数  缓存的消费者计数不够wanted个空位时才重新读取
+     */
+    private long available(long index, int wanted) {
+        long free = buffer.length - (index - producerIndex.cache);
+        if (free < wanted) {
+            producerIndex.cache = consumerIndex.get();
+            free = buffer.length - (index - producerIndex.cache);
+        }
+        return free;
+    }
+}
@@ -0,0 +1,197 @@
+package io.jopen.core.common.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 基本类型double的d叉堆  元素直接存放在double[]中  不装箱
+ * <p>
+ * 默认是小顶堆；d越大树越矮，插入越快、弹出时比较次数越多，d=4时通常对缓存最友好。
+ * 不支持NaN
+ *
+ * @author maxuefeng
+ * @see io.jopen.core.algorithm.heap.MinHeap
+ * @see java.util.PriorityQueue
+ */
+public class DoubleHeap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int arity;
+
+    /**
+     * true 大顶堆
+     */
+    private final boolean max;
+
+    private double[] elements;
+
+    private int size;
+
+    /**
+     * 4叉小顶堆
+     */
+    public DoubleHeap() {
+        this(4, false, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param arity    每个节点的子节点个数  至少为2
+     * @param max      true 大顶堆  false 小顶堆
+     * @param capacity 初始容量
+     */
+    public DoubleHeap(int arity, boolean max, int capacity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be >= 2");
+        }
+        this.arity = arity;
+        this.max = max;
+        this.elements = new double[Math.max(1, capacity)];
+    }
+
+    public void push(double value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        siftUp(size++, value);
+    }
+
+    /**
+     * @return 堆顶元素
+     * @throws NoSuchElementException 堆为空
+     */
+    public double peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[0];
+    }
+
+    /**
+     * 弹出堆顶元素
+     *
+     * @throws NoSuchElementException 堆为空
+     */
+    public double pop() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        double top = elements[0];
+        double last = elements[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    /**
+     * 弹出堆顶并压入新元素  比pop + push少一次调整  常用于固定大小的Top-K
+     *
+     * @return 原来的堆顶
+     */
+    public double replaceTop(double value) {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        double top = elements[0];
+        siftDown(0, value);
+        return top;
+    }
+
+    /**
+     * 固定大小的Top-K：堆未满时压入，否则只有比堆顶"更优"的值才替换堆顶
+     * (小顶堆保留最大的k个值，大顶堆保留最小的k个值)
+     *
+     * @return 是否保留了该值
+     */
+    public boolean offerBounded(double value, int k) {
+        if (size < k) {
+            push(value);
+            return true;
+        }
+        if (size > 0 && before(elements[0], value)) {
+            replaceTop(value);
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return 堆中元素的拷贝  不保证顺序
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * 依次弹出所有元素
+     *
+     * @return 按出堆顺序排列的元素
+     */
+    public double[] drain() {
+        double[] result = new double[size];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pop();
+        }
+        return result;
+    }
+
+    /**
+     * @return a是否应该排在b之前
+     */
+    private boolean before(double a, double b) {
+        return max ? a > b : a < b;
+    }
+
+    private void siftUp(int index, double value) {
+        double[] es = elements;
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            double p = es[parent];
+            if (!before(value, p)) {
+                break;
+            }
+            es[index] = p;
+            index = parent;
+        }
+        es[index] = value;
+    }
+
+    private void siftDown(int index, double value) {
+        double[] es = elements;
+        int n = size;
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= n) {
+                break;
+            }
+            int last = Math.min(first + arity, n);
+            int best = first;
+            double bestValue = es[first];
+            for (int c = first + 1; c < last; c++) {
+                if (before(es[c], bestValue)) {
+                    best = c;
+                    bestValue = es[c];
+                }
+            }
+            if (!before(bestValue, value)) {
+                break;
+            }
+            es[index] = bestValue;
+            index = best;
+        }
+        es[index] = value;
+    }
+}
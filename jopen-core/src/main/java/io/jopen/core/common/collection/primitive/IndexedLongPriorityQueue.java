@@ -0,0 +1,279 @@
+package io.jopen.core.common.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 索引优先队列  元素是[0, capacity)范围内的int id  优先级是long  键值越小越先出队
+ * <p>
+ * 基于d叉堆，额外维护 id -&gt; 堆位置 的反向索引，因此可以在O(log n)内
+ * {@link #decreaseKey(int, long)}/{@link #increaseKey(int, long)}/{@link #remove(int)}任意元素，
+ * 适用于定时任务调度、Dijkstra等需要修改优先级的场景；id、位置与键值全部存放在基本类型数组中
+ *
+ * @author maxuefeng
+ * @see LongHeap
+ */
+public class IndexedLongPriorityQueue {
+
+    private final int arity;
+
+    /**
+     * 堆位置 -&gt; id
+     */
+    private int[] heap;
+
+    /**
+     * id -&gt; 堆位置  不在队列中为-1
+     */
+    private int[] positions;
+
+    /**
+     * id -&gt; 键值
+     */
+    private long[] keys;
+
+    private int size;
+
+    public IndexedLongPriorityQueue(int capacity) {
+        this(4, capacity);
+    }
+
+    /**
+     * @param arity    每个节点的子节点个数  至少为2
+     * @param capacity id的上限(不含)  可以通过{@link #ensureCapacity(int)}扩大
+     */
+    public IndexedLongPriorityQueue(int arity, int capacity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be >= 2");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * 扩大id的上限
+     */
+    public void ensureCapacity(int capacity) {
+        int old = positions.length;
+        if (capacity <= old) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, old + (old >> 1));
+        heap = Arrays.copyOf(heap, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        Arrays.fill(positions, old, newCapacity, -1);
+    }
+
+    public int capacity() {
+        return positions.length;
+    }
+
+    /**
+     * @throws IllegalArgumentException id已经在队列中
+     */
+    public void insert(int id, long key) {
+        checkId(id);
+        if (positions[id] >= 0) {
+            throw new IllegalArgumentException("id " + id + " is already in the queue");
+        }
+        keys[id] = key;
+        siftUp(size++, id);
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] >= 0;
+    }
+
+    /**
+     * @throws NoSuchElementException id不在队列中
+     */
+    public long keyOf(int id) {
+        positionOf(id);
+        return keys[id];
+    }
+
+    /**
+     * 修改键值  根据变化方向上浮或下沉
+     */
+    public void changeKey(int id, long key) {
+        int position = positionOf(id);
+        long old = keys[id];
+        keys[id] = key;
+        if (key < old) {
+            siftUp(position, id);
+        } else if (key > old) {
+            siftDown(position, id);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException 新键值大于原键值
+     */
+    public void decreaseKey(int id, long key) {
+        int position = positionOf(id);
+        if (key > keys[id]) {
+            throw new IllegalArgumentException("new key " + key + " is greater than current key " + keys[id]);
+        }
+        keys[id] = key;
+        siftUp(position, id);
+    }
+
+    /**
+     * @throws IllegalArgumentException 新键值小于原键值
+     */
+    public void increaseKey(int id, long key) {
+        int position = positionOf(id);
+        if (key < keys[id]) {
+            throw new IllegalArgumentException("new key " + key + " is less than current key " + keys[id]);
+        }
+        keys[id] = key;
+        siftDown(position, id);
+    }
+
+    /**
+     * 插入或修改键值
+     */
+    public void upsert(int id, long key) {
+        if (contains(id)) {
+            changeKey(id, key);
+        } else {
+            insert(id, key);
+        }
+    }
+
+    /**
+     * 删除任意元素
+     *
+     * @return 元素是否在队列中
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int position = positions[id];
+        positions[id] = -1;
+        int lastId = heap[--size];
+        if (position < size) {
+            positions[lastId] = position;
+            if (keys[lastId] < keys[id]) {
+                siftUp(position, lastId);
+            } else {
+                siftDown(position, lastId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 键值最小的id
+     * @throws NoSuchElementException 队列为空
+     */
+    public int peekId() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+
+    /**
+     * @return 最小的键值
+     * @throws NoSuchElementException 队列为空
+     */
+    public long peekKey() {
+        return keys[peekId()];
+    }
+
+    /**
+     * 弹出键值最小的id
+     *
+     * @throws NoSuchElementException 队列为空
+     */
+    public int pollId() {
+        int id = peekId();
+        remove(id);
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= positions.length) {
+            throw new IndexOutOfBoundsException("id " + id + " out of range [0, " + positions.length + ")");
+        }
+    }
+
+    private int positionOf(int id) {
+        checkId(id);
+        int position = positions[id];
+        if (position < 0) {
+            throw new NoSuchElementException("id " + id + " is not in the queue");
+        }
+        return position;
+    }
+
+    private void siftUp(int index, int id) {
+        long key = keys[id];
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[index] = parentId;
+            positions[parentId] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void siftDown(int index, int id) {
+        long key = keys[id];
+        int n = size;
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= n) {
+                break;
+            }
+            int last = Math.min(first + arity, n);
+            int best = first;
+            long bestKey = keys[heap[first]];
+            for (int c = first + 1; c < last; c++) {
+                long k = keys[heap[c]];
+                if (k < bestKey) {
+                    best = c;
+                    bestKey = k;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int bestId = heap[best];
+            heap[index] = bestId;
+            positions[bestId] = index;
+            index = best;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+}
@@ -0,0 +1,287 @@
+package io.jopen.core.common.collection.primitive;
+
+import java.util.Arrays;
+
+/**
+ * long -&gt; long 的开放寻址哈希表(线性探测)
+ * <p>
+ * 键和值分别存放在两个long[]中，没有Entry对象也不装箱；键0占用单独的槽位，
+ * 删除时使用后移(backward shift)而不是墓碑，长时间增删后探测长度不会退化。
+ * 不存在的键返回构造时指定的noEntryValue(默认0)
+ *
+ * @author maxuefeng
+ * @see java.util.HashMap
+ */
+public class LongLongHashMap {
+
+    /**
+     * 数组中表示空槽位的键  真正的键0存放在zeroValue中
+     */
+    private static final long FREE_KEY = 0L;
+
+    private final float loadFactor;
+
+    private final long noEntryValue;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private int mask;
+
+    private int threshold;
+
+    /**
+     * 不包括键0
+     */
+    private int assigned;
+
+    private boolean hasZeroKey;
+
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(16, 0.75f, 0L);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        this(expectedSize, 0.75f, 0L);
+    }
+
+    /**
+     * @param expectedSize 预期的元素个数  按此预分配避免扩容
+     * @param loadFactor   负载因子 (0, 1)
+     * @param noEntryValue 键不存在时{@link #get(long)}的返回值
+     */
+    public LongLongHashMap(int expectedSize, float loadFactor, long noEntryValue) {
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * @return 键对应的值  不存在时返回noEntryValue
+     */
+    public long get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        long[] ks = keys;
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = ks[slot]) != FREE_KEY) {
+            if (k == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & m;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @return 原来的值  不存在时返回noEntryValue
+     */
+    public long put(long key, long value) {
+        if (key == FREE_KEY) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return previous;
+        }
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = keys[slot]) != FREE_KEY) {
+            if (k == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & m;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= threshold) {
+            rehash(keys.length << 1);
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * 在原值(不存在时为0)上累加  常用于计数
+     *
+     * @return 累加后的值
+     */
+    public long addTo(long key, long delta) {
+        if (key == FREE_KEY) {
+            zeroValue = (hasZeroKey ? zeroValue : 0L) + delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = keys[slot]) != FREE_KEY) {
+            if (k == key) {
+                return values[slot] += delta;
+            }
+            slot = (slot + 1) & m;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++assigned >= threshold) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * @return 被删除的值  不存在时返回noEntryValue
+     */
+    public long remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            return zeroValue;
+        }
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        long previous = values[slot];
+        shiftConflictingKeys(slot);
+        assigned--;
+        return previous;
+    }
+
+    public int size() {
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        assigned = 0;
+        hasZeroKey = false;
+    }
+
+    public void forEach(LongLongConsumer action) {
+        if (hasZeroKey) {
+            action.accept(FREE_KEY, zeroValue);
+        }
+        long[] ks = keys;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != FREE_KEY) {
+                action.accept(ks[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return 所有键  顺序不确定
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n++] = FREE_KEY;
+        }
+        for (long k : keys) {
+            if (k != FREE_KEY) {
+                result[n++] = k;
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+
+    private int slotOf(long key) {
+        long[] ks = keys;
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = ks[slot]) != FREE_KEY) {
+            if (k == key) {
+                return slot;
+            }
+            slot = (slot + 1) & m;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除slot上的键  并把后面探测链上的键前移  保证查找不会被空槽位提前截断
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        long[] ks = keys;
+        long[] vs = values;
+        int m = mask;
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + (++distance)) & m;
+            long existing = ks[slot];
+            if (existing == FREE_KEY) {
+                break;
+            }
+            int idealSlot = PrimitiveHashing.mix(existing) & m;
+            int shift = (slot - idealSlot) & m;
+            if (shift >= distance) {
+                // 该键可以移动到空出的位置
+                ks[gapSlot] = existing;
+                vs[gapSlot] = vs[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        ks[gapSlot] = FREE_KEY;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) Math.min(capacity - 1L, (long) Math.ceil(capacity * loadFactor));
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        int m = mask;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int slot = PrimitiveHashing.mix(key) & m;
+                while (keys[slot] != FREE_KEY) {
+                    slot = (slot + 1) & m;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.jopen.core.common.collection.primitive;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * long -&gt; Object 的开放寻址哈希表(线性探测)
+ * <p>
+ * 与{@link LongLongHashMap}相同的布局：键存放在long[]中，不装箱也没有Entry对象；
+ * 键0占用单独的槽位，删除使用后移而不是墓碑。不存在的键返回null，因此值不允许为null
+ *
+ * @param <V> 值类型
+ * @author maxuefeng
+ * @see LongLongHashMap
+ */
+public class LongObjectHashMap<V> {
+
+    private static final long FREE_KEY = 0L;
+
+    private final float loadFactor;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int threshold;
+
+    private int assigned;
+
+    private V zeroValue;
+
+    public LongObjectHashMap() {
+        this(16, 0.75f);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        this(expectedSize, 0.75f);
+    }
+
+    /**
+     * @param expectedSize 预期的元素个数  按此预分配避免扩容
+     * @param loadFactor   负载因子 (0, 1)
+     */
+    public LongObjectHashMap(int expectedSize, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * @return 键对应的值  不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == FREE_KEY) {
+            return zeroValue;
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE_KEY ? zeroValue != null : slotOf(key) >= 0;
+    }
+
+    /**
+     * @return 原来的值  不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        if (key == FREE_KEY) {
+            V previous = zeroValue;
+            zeroValue = value;
+            return previous;
+        }
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = keys[slot]) != FREE_KEY) {
+            if (k == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & m;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= threshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * 键不存在时用mappingFunction计算值并放入  mappingFunction返回null时不放入
+     *
+     * @return 已存在的值或新计算的值
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return 被删除的值  不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE_KEY) {
+            V previous = zeroValue;
+            zeroValue = null;
+            return previous;
+        }
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        shiftConflictingKeys(slot);
+        assigned--;
+        return previous;
+    }
+
+    public int size() {
+        return assigned + (zeroValue != null ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        assigned = 0;
+        zeroValue = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        if (zeroValue != null) {
+            action.accept(FREE_KEY, zeroValue);
+        }
+        long[] ks = keys;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != FREE_KEY) {
+                action.accept(ks[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return 所有键  顺序不确定
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int n = 0;
+        if (zeroValue != null) {
+            result[n++] = FREE_KEY;
+        }
+        for (long k : keys) {
+            if (k != FREE_KEY) {
+                result[n++] = k;
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private int slotOf(long key) {
+        long[] ks = keys;
+        int m = mask;
+        int slot = PrimitiveHashing.mix(key) & m;
+        long k;
+        while ((k = ks[slot]) != FREE_KEY) {
+            if (k == key) {
+                return slot;
+            }
+            slot = (slot + 1) & m;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除slot上的键  并把后面探测链上的键前移  保证查找不会被空槽位提前截断
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        long[] ks = keys;
+        Object[] vs = values;
+        int m = mask;
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + (++distance)) & m;
+            long existing = ks[slot];
+            if (existing == FREE_KEY) {
+                break;
+            }
+            int idealSlot = PrimitiveHashing.mix(existing) & m;
+            int shift = (slot - idealSlot) & m;
+            if (shift >= distance) {
+                ks[gapSlot] = existing;
+                vs[gapSlot] = vs[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        ks[gapSlot] = FREE_KEY;
+        vs[gapSlot] = null;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) Math.min(capacity - 1L, (long) Math.ceil(capacity * loadFactor));
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int m = mask;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int slot = PrimitiveHashing.mix(key) & m;
+                while (keys[slot] != FREE_KEY) {
+                    slot = (slot + 1) & m;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
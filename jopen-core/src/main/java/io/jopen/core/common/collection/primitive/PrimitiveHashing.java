@@ -0,0 +1,37 @@
+package io.jopen.core.common.collection.primitive;
+
+/**
+ * 开放寻址哈希表共用的哈希函数与容量计算
+ *
+ * @author maxuefeng
+ */
+final class PrimitiveHashing {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private PrimitiveHashing() {
+    }
+
+    /**
+     * 斐波那契散列  把long的高位也混合到低位  连续的键不会聚集在相邻槽位
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return 能容纳expectedSize个元素的2的幂容量
+     */
+    static int tableSize(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0");
+        }
+        long required = (long) Math.ceil(Math.max(expectedSize, 4) / (double) loadFactor) + 1;
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expectedSize too large: " + expectedSize);
+        }
+        int capacity = Integer.highestOneBit((int) required);
+        return capacity < required ? capacity << 1 : capacity;
+    }
+}
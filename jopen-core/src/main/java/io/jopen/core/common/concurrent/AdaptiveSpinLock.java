@@ -0,0 +1,176 @@
+package io.jopen.core.common.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 自适应的可重入锁  先自旋一小段时间  拿不到锁再进入等待队列park
+ * <p>
+ * 自旋的上限根据历史情况自适应调整：自旋期间成功拿到锁则上调上限，
+ * 自旋失败(最终需要park)则下调，临界区很短时几乎不会park，临界区较长时几乎不会空转；
+ * 排队与唤醒交给{@link AbstractQueuedSynchronizer}，因此支持{@link Condition}
+ *
+ * @author maxuefeng
+ * @see java.util.concurrent.locks.ReentrantLock
+ * @see SpinLock
+ */
+public class AdaptiveSpinLock implements Lock {
+
+    private static final int MIN_SPINS = 16;
+
+    private static final int MAX_SPINS = 1 << 12;
+
+    private final Sync sync = new Sync();
+
+    /**
+     * 当前的自旋上限  允许数据竞争  只是一个启发值
+     */
+    private volatile int spinLimit = MAX_SPINS >>> 4;
+
+    private static final class Sync extends AbstractQueuedSynchronizer {
+
+        private static final long serialVersionUID = 3487205739213758470L;
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                int next = c + acquires;
+                if (next < 0) {
+                    throw new Error("Maximum lock count exceeded");
+                }
+                setState(next);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (Thread.currentThread() != getExclusiveOwnerThread()) {
+                throw new IllegalMonitorStateException("current thread does not hold the lock");
+            }
+            int c = getState() - releases;
+            boolean free = c == 0;
+            if (free) {
+                setExclusiveOwnerThread(null);
+            }
+            setState(c);
+            return free;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        boolean isLocked() {
+            return getState() != 0;
+        }
+
+        Thread owner() {
+            return getState() == 0 ? null : getExclusiveOwnerThread();
+        }
+
+        Condition newCondition() {
+            return new ConditionObject();
+        }
+    }
+
+    @Override
+    public void lock() {
+        if (!spinAcquire()) {
+            sync.acquire(1);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!spinAcquire()) {
+            sync.acquireInterruptibly(1);
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        return sync.tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return spinAcquire() || sync.tryAcquireNanos(1, unit.toNanos(time));
+    }
+
+    @Override
+    public void unlock() {
+        sync.release(1);
+    }
+
+    @Override
+    public Condition newCondition() {
+        return sync.newCondition();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return sync.isHeldExclusively();
+    }
+
+    public boolean isLocked() {
+        return sync.isLocked();
+    }
+
+    /**
+     * @return 当前的自旋上限
+     */
+    public int getSpinLimit() {
+        return spinLimit;
+    }
+
+    /**
+     * 自旋阶段  单核机器或已有线程排队时不再自旋  后者避免插队饿死队列中的线程
+     *
+     * @return true 自旋期间拿到了锁
+     */
+    private boolean spinAcquire() {
+        if (sync.tryAcquire(1)) {
+            return true;
+        }
+        if (!SpinWaits.MULTIPROCESSOR || sync.hasQueuedThreads()) {
+            return false;
+        }
+        int limit = spinLimit;
+        for (int i = 0; i < limit; i++) {
+            SpinWaits.onSpinWait();
+            if (!sync.isLocked() && sync.tryAcquire(1)) {
+                if (limit < MAX_SPINS) {
+                    spinLimit = Math.min(MAX_SPINS, limit << 1);
+                }
+                return true;
+            }
+        }
+        if (limit > MIN_SPINS) {
+            spinLimit = limit >>> 1;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        Thread owner = sync.owner();
+        return super.toString() + (owner == null ? "[Unlocked]" : "[Locked by thread " + owner.getName() + "]");
+    }
+}
@@ -0,0 +1,157 @@
+package io.jopen.core.common.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * 支持乐观读的读写锁  基于{@link StampedLock}
+ * <p>
+ * 读多写少的场景下，{@link #read(Supplier)}先以乐观读(不加锁、不写共享变量)执行读操作，
+ * 校验期间没有写入才返回结果，失败若干次后再退化为悲观读锁；写操作独占。
+ * <p>
+ * 乐观读期间可能读到不一致的中间状态，传入的读操作只能读取字段，不能依赖读到的值做有副作用的操作；
+ * 该锁不可重入
+ *
+ * @author maxuefeng
+ * @see StampedLock
+ * @see AdaptiveSpinLock
+ */
+public class OptimisticReadWriteLock {
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * 乐观读失败后的重试次数
+     */
+    private final int optimisticRetries;
+
+    public OptimisticReadWriteLock() {
+        this(2);
+    }
+
+    /**
+     * @param optimisticRetries 乐观读的尝试次数  用完后使用悲观读锁
+     */
+    public OptimisticReadWriteLock(int optimisticRetries) {
+        if (optimisticRetries < 0) {
+            throw new IllegalArgumentException("optimisticRetries must be >= 0");
+        }
+        this.optimisticRetries = optimisticRetries;
+    }
+
+    /**
+     * 执行读操作  优先乐观读
+     *
+     * @param reader 只读取共享状态的操作
+     * @param <T>    结果类型
+     * @return 与某一次写入之后的一致状态对应的结果
+     */
+    public <T> T read(Supplier<T> reader) {
+        for (int i = 0; i < optimisticRetries; i++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0L) {
+                // 正在写入
+                SpinWaits.onSpinWait();
+                continue;
+            }
+            T result = reader.get();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 独占执行写操作
+     */
+    public void write(Runnable writer) {
+        long stamp = lock.writeLock();
+        try {
+            writer.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 独占执行写操作并返回结果
+     */
+    public <T> T write(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return 乐观读的戳  正在写入时返回0
+     */
+    public long tryOptimisticRead() {
+        return lock.tryOptimisticRead();
+    }
+
+    /**
+     * @return 自stamp发放以来没有发生写入
+     */
+    public boolean validate(long stamp) {
+        return lock.validate(stamp);
+    }
+
+    public long readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * @return 获得锁时返回戳  超时返回0
+     */
+    public long tryReadLock(long time, TimeUnit unit) throws InterruptedException {
+        return lock.tryReadLock(time, unit);
+    }
+
+    public void unlockRead(long stamp) {
+        lock.unlockRead(stamp);
+    }
+
+    public long writeLock() {
+        return lock.writeLock();
+    }
+
+    /**
+     * @return 获得锁时返回戳  超时返回0
+     */
+    public long tryWriteLock(long time, TimeUnit unit) throws InterruptedException {
+        return lock.tryWriteLock(time, unit);
+    }
+
+    public void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * @return 读锁的{@link Lock}视图(不支持Condition)
+     */
+    public Lock asReadLock() {
+        return lock.asReadLock();
+    }
+
+    /**
+     * @return 写锁的{@link Lock}视图(不支持Condition)
+     */
+    public Lock asWriteLock() {
+        return lock.asWriteLock();
+    }
+
+    public boolean isWriteLocked() {
+        return lock.isWriteLocked();
+    }
+}
@@ -1,47 +1,140 @@
 package io.jopen.core.common.concurrent;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 
 /**
- * 原子操作      基于CAS机制
+ * 原子操作      基于CAS机制的可重入自旋锁
+ * <p>
+ * 竞争时先以{@code onSpinWait}忙等，随后退避为{@link Thread#yield()}与短暂park，
+ * 不会无限制地占满CPU；临界区较长或竞争激烈时请使用{@link AdaptiveSpinLock}
  *
  * @author maxuefeng
  * @see java.util.concurrent.locks.Lock
+ * @see AdaptiveSpinLock
+ * @see TicketLock
  * @see io.jopen.core.common.concurrent.SpinLockTest  SpinLock test pass
  */
-public class SpinLock {
+public class SpinLock implements Lock {
 
     // 锁拥有者的线程
-    private AtomicReference<Thread> owner = new AtomicReference<>();
+    private final AtomicReference<Thread> owner = new AtomicReference<>();
 
-    // 计数器
+    // 重入计数器  只有owner线程会读写
     private int count;
 
     /**
      * 加锁
      */
+    @Override
     public void lock() {
 
         // 当前线程
         Thread currentThread = Thread.currentThread();
 
+        // 重入
+        if (owner.get() == currentThread) {
+            count++;
+            return;
+        }
+
         // 进行自旋
-        while (!owner.compareAndSet(null, currentThread)) {
-            // lock函数将owner设置为当前线程，并且预测原来的值为空。
-            // unlock函数将owner设置为null，并且预测值为当前线程。
-            // 当有第二个线程调用lock操作时由于owner值不为空，导致循环
+        // lock函数将owner设置为当前线程，并且预测原来的值为空。
+        // unlock函数将owner设置为null，并且预测值为当前线程。
+        // 当有第二个线程调用lock操作时由于owner值不为空，导致循环
+        for (int round = 0; !tryAcquire(currentThread); round++) {
+            SpinWaits.backoff(round);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        Thread currentThread = Thread.currentThread();
+        if (owner.get() == currentThread) {
+            count++;
+            return;
+        }
+        for (int round = 0; !tryAcquire(currentThread); round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            SpinWaits.backoff(round);
         }
     }
 
+    @Override
+    public boolean tryLock() {
+        Thread currentThread = Thread.currentThread();
+        if (owner.get() == currentThread) {
+            count++;
+            return true;
+        }
+        return tryAcquire(currentThread);
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        Thread currentThread = Thread.currentThread();
+        if (owner.get() == currentThread) {
+            count++;
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        for (int round = 0; !tryAcquire(currentThread); round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return false;
+            }
+            SpinWaits.backoff(round);
+        }
+        return true;
+    }
+
     /**
      * 释放锁
+     *
+     * @throws IllegalMonitorStateException 当前线程不持有该锁
      */
+    @Override
     public void unlock() {
 
         Thread currentThread = Thread.currentThread();
 
+        if (owner.get() != currentThread) {
+            throw new IllegalMonitorStateException("current thread does not hold the lock");
+        }
+
+        if (count > 0) {
+            count--;
+            return;
+        }
+
         // unlock函数将owner设置为null，并且预测值为当前线程。
-        // 当有第二个线程调用lock操作时由于owner值不为空，导致循环
-        owner.compareAndSet(currentThread, null);
+        owner.set(null);
+    }
+
+    /**
+     * 自旋锁不支持条件队列
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return owner.get() == Thread.currentThread();
+    }
+
+    public boolean isLocked() {
+        return owner.get() != null;
+    }
+
+    private boolean tryAcquire(Thread currentThread) {
+        // test-and-test-and-set  先读再CAS 减少缓存行失效
+        return owner.get() == null && owner.compareAndSet(null, currentThread);
     }
 }
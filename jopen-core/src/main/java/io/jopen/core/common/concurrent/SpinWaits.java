@@ -0,0 +1,67 @@
+package io.jopen.core.common.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自旋等待的辅助方法
+ * <p>
+ * 运行在JDK9+时调用{@code Thread.onSpinWait()}(x86上对应PAUSE指令)，JDK8上退化为空操作
+ *
+ * @author maxuefeng
+ */
+final class SpinWaits {
+
+    /**
+     * 单核机器上忙等没有意义  持有锁的线程只有在当前线程让出CPU后才能继续执行
+     */
+    static final boolean MULTIPROCESSOR = Runtime.getRuntime().availableProcessors() > 1;
+
+    private static final MethodHandle ON_SPIN_WAIT;
+
+    static {
+        MethodHandle handle = null;
+        try {
+            handle = MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException ignored) {
+            // JDK8
+        }
+        ON_SPIN_WAIT = handle;
+    }
+
+    private SpinWaits() {
+    }
+
+    /**
+     * 提示CPU当前处于忙等待
+     */
+    static void onSpinWait() {
+        if (ON_SPIN_WAIT != null) {
+            try {
+                ON_SPIN_WAIT.invokeExact();
+            } catch (Throwable ignored) {
+                // Thread.onSpinWait不会抛出异常
+            }
+        }
+    }
+
+    /**
+     * 指数退避  前若干轮只做onSpinWait  随后让出CPU  最后短暂park  单核机器上跳过忙等
+     *
+     * @param round 当前是第几轮等待(从0开始)
+     */
+    static void backoff(int round) {
+        if (!MULTIPROCESSOR) {
+            round += 64;
+        }
+        if (round < 64) {
+            onSpinWait();
+        } else if (round < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1L << Math.min(round - 128, 10));
+        }
+    }
+}
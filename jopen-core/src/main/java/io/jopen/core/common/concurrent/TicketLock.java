@@ -0,0 +1,148 @@
+package io.jopen.core.common.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 公平的可重入排队自旋锁(ticket lock)
+ * <p>
+ * 每个线程取一个号，按号的顺序获得锁，竞争激烈时不会饿死任何线程。
+ * 排在下一位的线程只做忙等以便尽快接手，排得较远的线程按距离退避(yield/短暂park)，
+ * 避免所有等待者同时空转占满CPU。线程数超过CPU核数时，每次交接都要等下一位被调度，
+ * 吞吐量会明显低于非公平锁，只在确实需要公平性时使用。
+ * <p>
+ * 注意：号一旦取出就不能放弃，因此{@link #tryLock()}与{@link #tryLock(long, TimeUnit)}
+ * 只在锁空闲的瞬间直接取号获得锁，不参与排队，这两者不保证公平；
+ * {@link #lockInterruptibly()}被中断时会先等到自己的号再立刻释放，然后抛出{@link InterruptedException}
+ *
+ * @author maxuefeng
+ * @see SpinLock
+ * @see AdaptiveSpinLock
+ */
+public class TicketLock implements Lock {
+
+    /**
+     * 下一个待发放的号
+     */
+    private final AtomicInteger nextTicket = new AtomicInteger();
+
+    /**
+     * 当前正在服务的号  只有持有锁的线程会修改
+     */
+    private volatile int nowServing;
+
+    private volatile Thread owner;
+
+    // 重入计数器  只有owner线程会读写
+    private int count;
+
+    @Override
+    public void lock() {
+        Thread current = Thread.currentThread();
+        if (owner == current) {
+            count++;
+            return;
+        }
+        int ticket = nextTicket.getAndIncrement();
+        awaitTurn(ticket);
+        owner = current;
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        lock();
+        if (Thread.interrupted()) {
+            unlock();
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        Thread current = Thread.currentThread();
+        if (owner == current) {
+            count++;
+            return true;
+        }
+        int serving = nowServing;
+        if (nextTicket.get() == serving && nextTicket.compareAndSet(serving, serving + 1)) {
+            owner = current;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        for (int round = 0; !tryLock(); round++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return false;
+            }
+            SpinWaits.backoff(round);
+        }
+        return true;
+    }
+
+    /**
+     * @throws IllegalMonitorStateException 当前线程不持有该锁
+     */
+    @Override
+    public void unlock() {
+        if (owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("current thread does not hold the lock");
+        }
+        if (count > 0) {
+            count--;
+            return;
+        }
+        owner = null;
+        // 只有持有锁的线程会写nowServing  volatile写即可发布
+        nowServing = nowServing + 1;
+    }
+
+    /**
+     * 自旋锁不支持条件队列
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    public boolean isLocked() {
+        return nextTicket.get() != nowServing;
+    }
+
+    /**
+     * @return 正在排队等待的线程数量(近似值)
+     */
+    public int getQueueLength() {
+        return Math.max(0, nextTicket.get() - nowServing - 1);
+    }
+
+    private void awaitTurn(int ticket) {
+        int round = 0;
+        int distance;
+        while ((distance = ticket - nowServing) != 0) {
+            if (distance == 1) {
+                // 下一位  保持忙等  锁释放后能立刻接手  持有者迟迟不释放时让出CPU
+                if (SpinWaits.MULTIPROCESSOR && round++ < 1024) {
+                    SpinWaits.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            } else {
+                SpinWaits.backoff(round++);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.jopen.core.common.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 线程等待某个条件(队列非空/非满等)成立时的空转策略
+ * <p>
+ * 调用方在每次检查条件失败后调用{@link #idle(int)}，round从0开始递增，条件成立后重新从0计数
+ *
+ * @author maxuefeng
+ * @see io.jopen.core.common.collection.ConcurrentArrayQueue
+ */
+public enum WaitStrategy {
+
+    /**
+     * 一直忙等  延迟最低  但会占满一个CPU  适合线程数不超过核数且对延迟敏感的场景
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int round) {
+            if (SpinWaits.MULTIPROCESSOR) {
+                SpinWaits.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * 短暂忙等后让出CPU  在延迟与CPU占用之间折中
+     */
+    YIELD {
+        @Override
+        public void idle(int round) {
+            if (round < 100 && SpinWaits.MULTIPROCESSOR) {
+                SpinWaits.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * 忙等 -&gt; 让出CPU -&gt; park  空闲时几乎不占CPU  适合流水线各阶段速度不均衡的场景
+     */
+    PARK {
+        @Override
+        public void idle(int round) {
+            if (round < 256) {
+                SpinWaits.backoff(round);
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    /**
+     * 长时间等待时每次park的时长
+     */
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * 等待一轮
+     *
+     * @param round 当前是第几轮等待(从0开始)
+     */
+    public abstract void idle(int round);
+}
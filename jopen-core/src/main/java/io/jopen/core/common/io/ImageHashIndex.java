@@ -0,0 +1,214 @@
+package io.jopen.core.common.io;
+
+import io.jopen.core.algorithm.tree.BKTree;
+import io.jopen.core.common.collection.primitive.IntArrayList;
+import io.jopen.core.common.collection.primitive.LongArrayList;
+import io.jopen.core.common.collection.primitive.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于多索引哈希(multi-index hashing)的64位指纹近邻索引  用于海量图片的近似去重
+ * <p>
+ * 把64位指纹切成m ≈ 64 / log2(N)段(N为预计的指纹数量)，每段建一张精确匹配的哈希表，每段约log2(N)位，
+ * 平均每个桶只有常数个指纹。查询半径r = q * m + a (0 &lt;= a &lt; m)时，由鸽巢原理，
+ * 距离不超过r的指纹至少有一段与查询的距离不超过对应的段半径(前a + 1段为q，其余段为q - 1)，
+ * 因此只需在每段中枚举段半径以内的所有桶键，再逐个校验候选的完整距离。
+ * <p>
+ * 枚举的桶键数量随段半径组合式增长，估算的查找次数接近线性扫描的代价时直接线性扫描所有指纹，
+ * 所以半径很大时不会比线性扫描更慢
+ * <p>
+ * 非线程安全  构建完成后可以多线程并发查询
+ *
+ * @param <T> 指纹关联的值  例如图片ID
+ * @author maxuefeng
+ * @see PerceptualHash
+ * @see BKTree
+ */
+public class ImageHashIndex<T> {
+
+    /**
+     * 默认的预计指纹数量
+     */
+    public static final int DEFAULT_EXPECTED_SIZE = 1 << 20;
+
+    /**
+     * 一次哈希表查找的代价约等于线性扫描这么多个指纹
+     */
+    private static final int PROBE_COST = 64;
+
+    private final int maxDistance;
+
+    private final int[] shifts;
+
+    private final int[] bits;
+
+    private final long[] masks;
+
+    private final LongObjectHashMap<IntArrayList>[] tables;
+
+    private final LongArrayList hashes = new LongArrayList();
+
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * @param maxDistance 支持查询的最大汉明距离  0~63
+     */
+    public ImageHashIndex(int maxDistance) {
+        this(maxDistance, DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param maxDistance  支持查询的最大汉明距离  0~63
+     * @param expectedSize 预计的指纹数量  决定分段数  实际数量偏离较大时结果仍然正确  只是查询变慢
+     */
+    @SuppressWarnings("unchecked")
+    public ImageHashIndex(int maxDistance, int expectedSize) {
+        if (maxDistance < 0 || maxDistance >= Long.SIZE) {
+            throw new IllegalArgumentException("maxDistance must be in [0, 63]");
+        }
+        if (expectedSize <= 0) {
+            throw new IllegalArgumentException("expectedSize must be positive");
+        }
+        this.maxDistance = maxDistance;
+        int segments = segments(expectedSize);
+        this.shifts = new int[segments];
+        this.bits = new int[segments];
+        this.masks = new long[segments];
+        this.tables = (LongObjectHashMap<IntArrayList>[]) new LongObjectHashMap<?>[segments];
+        int shift = 0;
+        for (int i = 0; i < segments; i++) {
+            // 64位尽量均分  前 64 % segments 段多一位
+            bits[i] = Long.SIZE / segments + (i < Long.SIZE % segments ? 1 : 0);
+            shifts[i] = shift;
+            masks[i] = bits[i] == Long.SIZE ? -1L : (1L << bits[i]) - 1;
+            tables[i] = new LongObjectHashMap<>();
+            shift += bits[i];
+        }
+    }
+
+    /**
+     * m ≈ 64 / log2(N)  每段的位数约等于log2(N)
+     */
+    static int segments(int expectedSize) {
+        double log2 = Math.log(Math.max(expectedSize, 2)) / Math.log(2);
+        return (int) Math.max(1, Math.min(Long.SIZE, Math.round(Long.SIZE / log2)));
+    }
+
+    public void add(long hash, T value) {
+        int id = values.size();
+        hashes.add(hash);
+        values.add(value);
+        for (int i = 0; i < tables.length; i++) {
+            tables[i].computeIfAbsent(segment(hash, i), k -> new IntArrayList(2)).add(id);
+        }
+    }
+
+    /**
+     * 查找与hash的汉明距离不超过distance的所有值
+     *
+     * @param distance 不能超过构造时的maxDistance
+     */
+    public List<BKTree.Match<T>> search(long hash, int distance) {
+        if (distance < 0 || distance > maxDistance) {
+            throw new IllegalArgumentException("distance must be in [0, " + maxDistance + "]");
+        }
+        List<BKTree.Match<T>> matches = new ArrayList<>();
+        int[] radii = segmentRadii(distance);
+        if (probeCount(radii) * PROBE_COST >= hashes.size()) {
+            for (int id = 0; id < hashes.size(); id++) {
+                check(id, hash, distance, matches);
+            }
+            return matches;
+        }
+        for (int i = 0; i < tables.length; i++) {
+            if (radii[i] >= 0) {
+                probe(i, radii, hash, segment(hash, i), 0, radii[i], distance, matches);
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * r = q * m + a  前a + 1段的半径为q  其余段为q - 1  -1表示该段不需要查找
+     */
+    int[] segmentRadii(int distance) {
+        int m = tables.length;
+        int q = distance / m;
+        int a = distance % m;
+        int[] radii = new int[m];
+        for (int i = 0; i < m; i++) {
+            radii[i] = i <= a ? q : q - 1;
+        }
+        return radii;
+    }
+
+    /**
+     * 各段枚举的桶键总数  sum(C(bits, 0) + ... + C(bits, radius))
+     */
+    private long probeCount(int[] radii) {
+        long count = 0;
+        for (int i = 0; i < radii.length; i++) {
+            long combinations = 1;
+            for (int k = 1; k <= radii[i] + 1; k++) {
+                count += combinations;
+                if (count >= Integer.MAX_VALUE) {
+                    return count;
+                }
+                combinations = combinations * (bits[i] - k + 1) / k;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 枚举与key相差不超过remaining位(只翻转fromBit及之后的位)的所有桶键
+     */
+    private void probe(int segment, int[] radii, long hash, long key, int fromBit, int remaining, int distance,
+                       List<BKTree.Match<T>> matches) {
+        IntArrayList candidates = tables[segment].get(key);
+        if (candidates != null) {
+            for (int c = 0; c < candidates.size(); c++) {
+                int id = candidates.get(c);
+                if (!foundInEarlierSegment(hashes.get(id), hash, segment, radii)) {
+                    check(id, hash, distance, matches);
+                }
+            }
+        }
+        if (remaining == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < bits[segment]; bit++) {
+            probe(segment, radii, hash, key ^ (1L << bit), bit + 1, remaining - 1, distance, matches);
+        }
+    }
+
+    private void check(int id, long hash, int distance, List<BKTree.Match<T>> matches) {
+        long candidate = hashes.get(id);
+        int d = Long.bitCount(candidate ^ hash);
+        if (d <= distance) {
+            matches.add(new BKTree.Match<>(candidate, d, values.get(id)));
+        }
+    }
+
+    /**
+     * 候选在前面某一段的距离不超过该段半径时  已经在那一段中校验过
+     */
+    private boolean foundInEarlierSegment(long candidate, long hash, int segment, int[] radii) {
+        for (int j = 0; j < segment; j++) {
+            if (Long.bitCount(segment(candidate, j) ^ segment(hash, j)) <= radii[j]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long segment(long hash, int i) {
+        return (hash >>> shifts[i]) & masks[i];
+    }
+}
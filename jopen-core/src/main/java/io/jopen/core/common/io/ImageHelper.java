@@ -56,7 +56,7 @@ public class ImageHelper {
      * @param startY        裁剪开始y坐标  56-1918
      * @param endX          裁剪结束x坐标
      * @param endY          裁剪结束y坐标
-     * @return BufferedImage
+     * @return 新图片  源图片有alpha通道时为TYPE_INT_ARGB  否则为TYPE_INT_RGB
      */
     public static BufferedImage cropImage(BufferedImage bufferedImage, int startX, int startY, int endX, int endY) {
 
@@ -79,16 +79,7 @@ public class ImageHelper {
             endY = height - 1;
         }
 
-        BufferedImage result = new BufferedImage(endX - startX, endY - startY, 4);
-
-        for (int x = startX; x < endX; ++x) {
-            for (int y = startY; y < endY; ++y) {
-                int rgb = bufferedImage.getRGB(x, y);
-                result.setRGB(x - startX, y - startY, rgb);
-            }
-        }
-
-        return result;
+        return ImageRasters.crop(bufferedImage, startX, startY, endX, endY);
     }
 
     /**
@@ -107,22 +98,7 @@ public class ImageHelper {
      */
     public static BufferedImage grayImage(BufferedImage image) {
 
-        int width = image.getWidth();
-
-        int height = image.getHeight();
-
-        BufferedImage grayImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY); //重点，技巧在这个参数BufferedImage.TYPE_BYTE_GRAY
-
-        for (int i = 0; i < width; i++) {
-
-            for (int j = 0; j < height; j++) {
-
-                int rgb = image.getRGB(i, j);
-                grayImage.setRGB(i, j, rgb);
-            }
-        }
-
-        return grayImage;
+        return ImageRasters.toGray(image);
     }
 
     /**
@@ -135,21 +111,9 @@ public class ImageHelper {
      */
     public static boolean isSimilar(int pixel1, int pixel2) {
 
-        int[] rgb1 = new int[3];
-        rgb1[0] = (pixel1 & 0xff0000) >> 16;
-        rgb1[1] = (pixel1 & 0xff00) >> 8;
-        rgb1[2] = (pixel1 & 0xff);
-
-        int[] rgb2 = new int[3];
-        rgb2[0] = (pixel2 & 0xff0000) >> 16;
-        rgb2[1] = (pixel2 & 0xff00) >> 8;
-        rgb2[2] = (pixel2 & 0xff);
-
-        if (Math.abs(rgb1[0] - rgb2[0]) > 10 && Math.abs(rgb1[1] - rgb2[1]) > 10 && Math.abs(rgb1[2] - rgb2[2]) > 10) {
-            return true;
-        }
-
-        return false;
+        return Math.abs(((pixel1 >> 16) & 0xff) - ((pixel2 >> 16) & 0xff)) > 10
+                && Math.abs(((pixel1 >> 8) & 0xff) - ((pixel2 >> 8) & 0xff)) > 10
+                && Math.abs((pixel1 & 0xff) - (pixel2 & 0xff)) > 10;
     }
 
     /**
@@ -163,28 +127,25 @@ public class ImageHelper {
     public static boolean isSame(BufferedImage bi1, BufferedImage bi2) {
 
         // 两个图片长宽不相等 返回 false
-        if (bi1.getHeight() != bi2.getHeight() || bi1.getWidth() != bi2.getWidth()) {
+        long unlikeCount = ImageRasters.countDifferentPixels(bi1, bi2);
+        if (unlikeCount < 0) {
             return false;
         }
 
-        int unlikeCount = 0;
-
-        for (int x = 0; x < bi1.getWidth(); x++) {
-
-            for (int y = 0; y < bi1.getHeight(); y++) {
-
-                int pixel1 = bi1.getRGB(x, y);
-                int pixel2 = bi2.getRGB(x, y);
-
-                if (isSimilar(pixel1, pixel2)) {
-                    unlikeCount++;
-                }
-            }
-        }
-
-        if ((double) unlikeCount / (bi1.getWidth() * bi1.getHeight()) > 0.01) return false;
+        return (double) unlikeCount / ((long) bi1.getWidth() * bi1.getHeight()) <= 0.01;
+    }
 
-        return true;
+    /**
+     * 通过感知哈希判断两张图片是否近似重复  尺寸可以不同
+     *
+     * @param bi1         图片1
+     * @param bi2         图片2
+     * @param maxDistance pHash允许的最大汉明距离  一般取6~10
+     * @return true 近似重复
+     * @see PerceptualHash
+     */
+    public static boolean isNearDuplicate(BufferedImage bi1, BufferedImage bi2, int maxDistance) {
+        return PerceptualHash.hammingDistance(PerceptualHash.pHash(bi1), PerceptualHash.pHash(bi2)) <= maxDistance;
     }
 
     /**
@@ -0,0 +1,271 @@
+package io.jopen.core.common.io;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.stream.IntStream;
+
+/**
+ * 直接读写{@link DataBufferInt}/{@link DataBufferByte}底层数组的图片处理
+ * <p>
+ * {@link BufferedImage#getRGB(int, int)}每个像素都要经过ColorModel转换与边界检查，
+ * 这里对常见的像素布局(INT_RGB/INT_ARGB/3BYTE_BGR/4BYTE_ABGR/BYTE_GRAY)直接访问数组，
+ * 其他布局退化为按行批量调用getRGB。像素较多时按行分带并行处理
+ *
+ * @author maxuefeng
+ * @see ImageHelper
+ * @see PerceptualHash
+ */
+public final class ImageRasters {
+
+    /**
+     * 像素数超过该值时才并行处理  小图并行的调度开销大于收益
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * 每个并行带的最少行数
+     */
+    private static final int MIN_BAND_ROWS = 16;
+
+    private ImageRasters() {
+    }
+
+    /**
+     * 行处理函数  处理[fromRow, toRow)行
+     */
+    @FunctionalInterface
+    interface RowBand {
+        void process(int fromRow, int toRow);
+    }
+
+    /**
+     * 读取所有像素  按行优先存放为0xAARRGGBB
+     * <p>
+     * 对于没有偏移的INT_ARGB图片直接返回底层数组(不拷贝)，调用方不能修改返回的数组；
+     * BYTE_GRAY直接使用灰度值，不经过getRGB的线性灰度到sRGB的转换
+     *
+     * @param image 图片
+     * @return 长度为width * height的像素数组
+     */
+    public static int[] argb(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Raster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        int type = image.getType();
+
+        if (buffer instanceof DataBufferInt && isPackedWithoutOffset(raster, width)
+                && (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)) {
+            int[] data = ((DataBufferInt) buffer).getData();
+            if (type == BufferedImage.TYPE_INT_ARGB) {
+                return data;
+            }
+            int[] pixels = new int[width * height];
+            forEachBand(width, height, (from, to) -> {
+                for (int i = from * width, end = to * width; i < end; i++) {
+                    pixels[i] = 0xFF000000 | data[i];
+                }
+            });
+            return pixels;
+        }
+
+        int[] pixels = new int[width * height];
+        if (buffer instanceof DataBufferByte && isInterleavedWithoutOffset(raster, width)) {
+            byte[] data = ((DataBufferByte) buffer).getData();
+            switch (type) {
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    forEachBand(width, height, (from, to) -> {
+                        for (int i = from * width, j = i * 3, end = to * width; i < end; i++, j += 3) {
+                            pixels[i] = 0xFF000000 | (data[j + 2] & 0xFF) << 16 | (data[j + 1] & 0xFF) << 8 | (data[j] & 0xFF);
+                        }
+                    });
+                    return pixels;
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    forEachBand(width, height, (from, to) -> {
+                        for (int i = from * width, j = i * 4, end = to * width; i < end; i++, j += 4) {
+                            pixels[i] = (data[j] & 0xFF) << 24 | (data[j + 3] & 0xFF) << 16 | (data[j + 2] & 0xFF) << 8 | (data[j + 1] & 0xFF);
+                        }
+                    });
+                    return pixels;
+                case BufferedImage.TYPE_BYTE_GRAY:
+                    forEachBand(width, height, (from, to) -> {
+                        for (int i = from * width, end = to * width; i < end; i++) {
+                            int g = data[i] & 0xFF;
+                            pixels[i] = 0xFF000000 | g << 16 | g << 8 | g;
+                        }
+                    });
+                    return pixels;
+                default:
+                    break;
+            }
+        }
+
+        // 索引色、16位等其他布局  按行批量读取  仍由ColorModel负责转换
+        forEachBand(width, height, (from, to) -> image.getRGB(0, from, width, to - from, pixels, from * width, width));
+        return pixels;
+    }
+
+    /**
+     * 计算亮度(ITU-R BT.601  0.299R + 0.587G + 0.114B)  结果为0~255
+     *
+     * @param image 图片
+     * @return 长度为width * height的亮度数组
+     */
+    public static byte[] luminance(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Raster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY && buffer instanceof DataBufferByte
+                && isInterleavedWithoutOffset(raster, width)) {
+            return ((DataBufferByte) buffer).getData().clone();
+        }
+        int[] pixels = argb(image);
+        byte[] gray = new byte[width * height];
+        forEachBand(width, height, (from, to) -> {
+            for (int i = from * width, end = to * width; i < end; i++) {
+                gray[i] = (byte) luminance(pixels[i]);
+            }
+        });
+        return gray;
+    }
+
+    /**
+     * 单个像素的亮度  整数运算  避免浮点乘法
+     */
+    static int luminance(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (r * 19595 + g * 38470 + b * 7471 + 0x8000) >> 16;
+    }
+
+    /**
+     * 灰度化  结果为TYPE_BYTE_GRAY  直接写入目标图片的字节数组
+     */
+    public static BufferedImage toGray(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] target = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+        byte[] source = luminance(image);
+        System.arraycopy(source, 0, target, 0, source.length);
+        return gray;
+    }
+
+    /**
+     * 裁剪  按行拷贝像素数组  源图片有alpha通道时结果为TYPE_INT_ARGB  否则为TYPE_INT_RGB(可以直接写成jpg)
+     *
+     * @param image  图片
+     * @param startX 开始x坐标(包含)
+     * @param startY 开始y坐标(包含)
+     * @param endX   结束x坐标(不包含)
+     * @param endY   结束y坐标(不包含)
+     */
+    public static BufferedImage crop(BufferedImage image, int startX, int startY, int endX, int endY) {
+        int width = image.getWidth();
+        if (startX < 0 || startY < 0 || endX > width || endY > image.getHeight() || startX >= endX || startY >= endY) {
+            throw new IllegalArgumentException(String.format("invalid crop region [%d, %d) x [%d, %d)", startX, endX, startY, endY));
+        }
+        int cropWidth = endX - startX;
+        int cropHeight = endY - startY;
+        int[] source = argb(image);
+        // TYPE_INT_RGB的颜色模型忽略最高8位  argb像素可以直接拷贝
+        BufferedImage result = new BufferedImage(cropWidth, cropHeight,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] target = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < cropHeight; y++) {
+            System.arraycopy(source, (startY + y) * width + startX, target, y * cropWidth, cropWidth);
+        }
+        return result;
+    }
+
+    /**
+     * 统计两张同尺寸图片中颜色差异明显的像素个数  差异的定义与{@link ImageHelper#isSimilar(int, int)}相同
+     *
+     * @return 尺寸不同时返回-1
+     */
+    public static long countDifferentPixels(BufferedImage image1, BufferedImage image2) {
+        int width = image1.getWidth();
+        int height = image1.getHeight();
+        if (width != image2.getWidth() || height != image2.getHeight()) {
+            return -1;
+        }
+        int[] pixels1 = argb(image1);
+        int[] pixels2 = argb(image2);
+        long[] counts = new long[bandCount(width, height)];
+        int rowsPerBand = (height + counts.length - 1) / counts.length;
+        IntStream bands = IntStream.range(0, counts.length);
+        (counts.length > 1 ? bands.parallel() : bands).forEach(band -> {
+            int from = band * rowsPerBand;
+            int to = Math.min(height, from + rowsPerBand);
+            long count = 0;
+            for (int i = from * width, end = to * width; i < end; i++) {
+                if (ImageHelper.isSimilar(pixels1[i], pixels2[i])) {
+                    count++;
+                }
+            }
+            counts[band] = count;
+        });
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 按行分带执行  像素较少时在当前线程顺序执行
+     */
+    static void forEachBand(int width, int height, RowBand band) {
+        int bands = bandCount(width, height);
+        if (bands == 1) {
+            band.process(0, height);
+            return;
+        }
+        int rowsPerBand = (height + bands - 1) / bands;
+        IntStream.range(0, bands).parallel().forEach(i -> {
+            int from = i * rowsPerBand;
+            int to = Math.min(height, from + rowsPerBand);
+            if (from < to) {
+                band.process(from, to);
+            }
+        });
+    }
+
+    private static int bandCount(int width, int height) {
+        if ((long) width * height < PARALLEL_THRESHOLD) {
+            return 1;
+        }
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(parallelism * 4, height / MIN_BAND_ROWS));
+    }
+
+    /**
+     * INT_RGB/INT_ARGB 并且没有子图偏移  数组下标即 y * width + x
+     */
+    private static boolean isPackedWithoutOffset(Raster raster, int width) {
+        SampleModel model = raster.getSampleModel();
+        return model instanceof SinglePixelPackedSampleModel
+                && ((SinglePixelPackedSampleModel) model).getScanlineStride() == width
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getOffset() == 0;
+    }
+
+    /**
+     * 3BYTE_BGR/4BYTE_ABGR/BYTE_GRAY 并且没有子图偏移  每行紧密排列
+     */
+    private static boolean isInterleavedWithoutOffset(Raster raster, int width) {
+        SampleModel model = raster.getSampleModel();
+        return model instanceof ComponentSampleModel
+                && ((ComponentSampleModel) model).getScanlineStride() == width * ((ComponentSampleModel) model).getPixelStride()
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getOffset() == 0;
+    }
+}
@@ -0,0 +1,155 @@
+package io.jopen.core.common.io;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 图片感知哈希  把图片压缩成64位指纹  相似图片的指纹汉明距离很小
+ * <ul>
+ *     <li>{@link #aHash(BufferedImage)} 均值哈希  缩放到8x8  像素亮度是否高于均值  最快  对亮度/对比度调整敏感</li>
+ *     <li>{@link #dHash(BufferedImage)} 差值哈希  缩放到9x8  相邻像素的亮度梯度  对整体亮度变化不敏感</li>
+ *     <li>{@link #pHash(BufferedImage)} DCT哈希  缩放到32x32  取低频8x8的DCT系数与中位数比较  最稳健</li>
+ * </ul>
+ * 亮度与缩放都直接在像素数组上计算(见{@link ImageRasters})，不经过Graphics2D
+ *
+ * @author maxuefeng
+ * @see ImageHashIndex
+ * @see io.jopen.core.algorithm.tree.BKTree
+ */
+public final class PerceptualHash {
+
+    private static final int DCT_SIZE = 32;
+
+    private static final int HASH_SIZE = 8;
+
+    /**
+     * DCT-II的余弦系数表  COS[u][x] = cos((2x + 1) * u * PI / 64)
+     */
+    private static final double[][] COS = new double[HASH_SIZE][DCT_SIZE];
+
+    static {
+        for (int u = 0; u < HASH_SIZE; u++) {
+            for (int x = 0; x < DCT_SIZE; x++) {
+                COS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * DCT_SIZE));
+            }
+        }
+    }
+
+    private PerceptualHash() {
+    }
+
+    public static long aHash(BufferedImage image) {
+        double[] pixels = resize(image, HASH_SIZE, HASH_SIZE);
+        double mean = 0;
+        for (double p : pixels) {
+            mean += p;
+        }
+        mean /= pixels.length;
+        long hash = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] > mean) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[] pixels = resize(image, HASH_SIZE + 1, HASH_SIZE);
+        long hash = 0;
+        int bit = 0;
+        for (int y = 0; y < HASH_SIZE; y++) {
+            int row = y * (HASH_SIZE + 1);
+            for (int x = 0; x < HASH_SIZE; x++) {
+                if (pixels[row + x] < pixels[row + x + 1]) {
+                    hash |= 1L << bit;
+                }
+                bit++;
+            }
+        }
+        return hash;
+    }
+
+    public static long pHash(BufferedImage image) {
+        double[] pixels = resize(image, DCT_SIZE, DCT_SIZE);
+        // 可分离的二维DCT  只计算左上角8x8的低频系数
+        double[] rows = new double[DCT_SIZE * HASH_SIZE];
+        for (int y = 0; y < DCT_SIZE; y++) {
+            for (int u = 0; u < HASH_SIZE; u++) {
+                double sum = 0;
+                double[] cos = COS[u];
+                for (int x = 0; x < DCT_SIZE; x++) {
+                    sum += pixels[y * DCT_SIZE + x] * cos[x];
+                }
+                rows[y * HASH_SIZE + u] = sum;
+            }
+        }
+        double[] coefficients = new double[HASH_SIZE * HASH_SIZE];
+        for (int v = 0; v < HASH_SIZE; v++) {
+            double[] cos = COS[v];
+            for (int u = 0; u < HASH_SIZE; u++) {
+                double sum = 0;
+                for (int y = 0; y < DCT_SIZE; y++) {
+                    sum += rows[y * HASH_SIZE + u] * cos[y];
+                }
+                coefficients[v * HASH_SIZE + u] = sum;
+            }
+        }
+        // 直流分量(0, 0)只反映平均亮度  不参与中位数的计算
+        double[] sorted = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+        Arrays.sort(sorted);
+        double median = (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+        long hash = 0;
+        for (int i = 1; i < coefficients.length; i++) {
+            if (coefficients[i] > median) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return 两个指纹不同的位数  0~64
+     */
+    public static int hammingDistance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    /**
+     * 亮度图按面积平均缩放(box filter)到targetWidth x targetHeight
+     */
+    static double[] resize(BufferedImage image, int targetWidth, int targetHeight) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = ImageRasters.luminance(image);
+        double[] sums = new double[targetWidth * targetHeight];
+        double[] weights = new double[targetWidth * targetHeight];
+        // 每个源像素累加到覆盖它中心的目标像素  目标比源大时退化为最近邻
+        int[] columnOf = new int[width];
+        for (int x = 0; x < width; x++) {
+            columnOf[x] = (int) ((long) x * targetWidth / width);
+        }
+        for (int y = 0; y < height; y++) {
+            int row = (int) ((long) y * targetHeight / height) * targetWidth;
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int target = row + columnOf[x];
+                sums[target] += gray[offset + x] & 0xFF;
+                weights[target]++;
+            }
+        }
+        for (int ty = 0; ty < targetHeight; ty++) {
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int target = ty * targetWidth + tx;
+                if (weights[target] == 0) {
+                    int sx = Math.min(width - 1, (int) ((tx + 0.5) * width / targetWidth));
+                    int sy = Math.min(height - 1, (int) ((ty + 0.5) * height / targetHeight));
+                    sums[target] = gray[sy * width + sx] & 0xFF;
+                } else {
+                    sums[target] /= weights[target];
+                }
+            }
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,525 @@
+package io.jopen.core.common.json;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次扫描从原始JSON中提取多个路径的值  不构建完整的对象树
+ * <p>
+ * 路径只支持JSONPath的子集：根节点{@code $}、属性{@code .name}或{@code ['name']}、数组下标{@code [0]}。
+ * 扫描时只解析路径上的节点，其余子树只做括号匹配跳过；所有路径都找到后立即停止扫描。
+ * 命中的标量值按fastjson的规则转换(整数为Integer/Long/BigInteger，小数为BigDecimal)，
+ * 命中的对象与数组交给{@link JSON#parse(String)}解析为JSONObject/JSONArray。
+ * <p>
+ * 同一个对象中有重复的属性名时取第一次出现的值，而fastjson解析时后出现的覆盖先出现的；
+ * 取第一个值才能在找到所有路径后立即停止扫描，输入可能含重复属性名时需要与fastjson一致的话请使用{@link JSON#parse(String)}。
+ * <p>
+ * 编译后的实例不可变，可以在多线程间共享
+ * <pre>
+ * JsonPathExtractor extractor = JsonPathExtractor.compile("$.user.id", "$.items[0].price");
+ * Map&lt;String, Object&gt; values = extractor.extract(bytes);
+ * </pre>
+ *
+ * @author maxuefeng
+ * @see JsonElesParser
+ */
+public final class JsonPathExtractor {
+
+    private final String[] paths;
+
+    private final Node root;
+
+    private JsonPathExtractor(String[] paths, Node root) {
+        this.paths = paths;
+        this.root = root;
+    }
+
+    /**
+     * @param paths 要提取的路径
+     * @return 可复用的提取器
+     * @throws IllegalArgumentException 路径包含不支持的语法(通配符、过滤器、递归下降等)
+     */
+    public static JsonPathExtractor compile(String... paths) {
+        Node root = new Node();
+        for (int i = 0; i < paths.length; i++) {
+            Node node = root;
+            for (Object segment : parse(paths[i])) {
+                node = segment instanceof Integer
+                        ? node.indexChild((Integer) segment)
+                        : node.propertyChild((String) segment);
+            }
+            node.targets.add(i);
+        }
+        return new JsonPathExtractor(paths.clone(), root);
+    }
+
+    public List<String> getPaths() {
+        return Arrays.asList(paths);
+    }
+
+    /**
+     * @param json UTF-8编码的JSON
+     * @return 路径 -&gt; 值  不存在的路径不包含在结果中  值为JSON null的路径映射到null
+     */
+    public Map<String, Object> extract(byte[] json) {
+        Object[] values = new Object[paths.length];
+        boolean[] found = new boolean[paths.length];
+        extract(json, values, found);
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            if (found[i]) {
+                result.put(paths[i], values[i]);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> extract(String json) {
+        return extract(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param json UTF-8编码的JSON
+     * @return 按{@link #compile(String...)}的参数顺序排列的值  不存在的路径为null
+     */
+    public Object[] extractValues(byte[] json) {
+        Object[] values = new Object[paths.length];
+        extract(json, values, new boolean[paths.length]);
+        return values;
+    }
+
+    private void extract(byte[] json, Object[] values, boolean[] found) {
+        Scanner scanner = new Scanner(json, values, found, paths.length);
+        scanner.skipWhitespace();
+        scanner.value(root);
+    }
+
+    // ---------------------------------------------------------------------
+    // path
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return 属性名(String)与下标(Integer)组成的路径段
+     */
+    static List<Object> parse(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw new IllegalArgumentException("Path must start with '$': " + path);
+        }
+        List<Object> segments = new ArrayList<>();
+        int i = 1;
+        int length = path.length();
+        while (i < length) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                while (i < length && path.charAt(i) != '.' && path.charAt(i) != '[') {
+                    i++;
+                }
+                String name = path.substring(start, i);
+                if (name.isEmpty() || "*".equals(name)) {
+                    throw new IllegalArgumentException("Unsupported path (wildcard or deep scan): " + path);
+                }
+                segments.add(name);
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' in path: " + path);
+                }
+                String inner = path.substring(i + 1, end).trim();
+                if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else {
+                    try {
+                        int index = Integer.parseInt(inner);
+                        if (index < 0) {
+                            throw new NumberFormatException();
+                        }
+                        segments.add(index);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Unsupported path segment [" + inner + "]: " + path);
+                    }
+                }
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in path: " + path);
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> properties = new HashMap<>();
+
+        /**
+         * 属性名的UTF-8编码  与properties的key一一对应  用于不解码直接比较
+         */
+        private final List<byte[]> propertyBytes = new ArrayList<>();
+
+        private final List<Node> propertyNodes = new ArrayList<>();
+
+        private final Map<Integer, Node> indices = new HashMap<>();
+
+        private final List<Integer> targets = new ArrayList<>(1);
+
+        Node propertyChild(String name) {
+            Node child = properties.get(name);
+            if (child == null) {
+                child = new Node();
+                properties.put(name, child);
+                propertyBytes.add(name.getBytes(StandardCharsets.UTF_8));
+                propertyNodes.add(child);
+            }
+            return child;
+        }
+
+        Node indexChild(int index) {
+            return indices.computeIfAbsent(index, i -> new Node());
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // scanner
+    // ---------------------------------------------------------------------
+
+    private static final class Scanner {
+
+        private final byte[] json;
+
+        private final Object[] values;
+
+        private final boolean[] found;
+
+        private int remaining;
+
+        private int pos;
+
+        Scanner(byte[] json, Object[] values, boolean[] found, int remaining) {
+            this.json = json;
+            this.values = values;
+            this.found = found;
+            this.remaining = remaining;
+        }
+
+        /**
+         * 扫描一个值  node为null时直接跳过
+         */
+        void value(Node node) {
+            if (node == null) {
+                skipValue();
+                return;
+            }
+            int start = pos;
+            byte c = peek();
+            if (c == '{' && !node.properties.isEmpty()) {
+                object(node);
+            } else if (c == '[' && !node.indices.isEmpty()) {
+                array(node);
+            } else if (node.targets.isEmpty()) {
+                skipValue();
+                return;
+            } else if (c == '{' || c == '[') {
+                skipValue();
+            } else {
+                Object scalar = scalar();
+                capture(node, scalar);
+                return;
+            }
+            // 节点自身是目标时remaining至少为1  因此子节点不会提前结束  容器文本是完整的
+            if (!node.targets.isEmpty()) {
+                capture(node, JSON.parse(new String(json, start, pos - start, StandardCharsets.UTF_8)));
+            }
+        }
+
+        private void capture(Node node, Object value) {
+            // 已经找到的路径不再覆盖  重复的属性名取第一次出现的值
+            for (Integer target : node.targets) {
+                if (!found[target]) {
+                    found[target] = true;
+                    values[target] = value;
+                    remaining--;
+                }
+            }
+        }
+
+        private void object(Node node) {
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return;
+            }
+            while (true) {
+                expect('"');
+                int keyStart = pos;
+                boolean escaped = skipStringBody();
+                int keyEnd = pos - 1;
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                value(match(node, keyStart, keyEnd, escaped));
+                if (remaining == 0) {
+                    return;
+                }
+                skipWhitespace();
+                byte c = next();
+                if (c == '}') {
+                    return;
+                }
+                if (c != ',') {
+                    throw error("',' or '}'");
+                }
+                skipWhitespace();
+            }
+        }
+
+        private void array(Node node) {
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return;
+            }
+            int index = 0;
+            while (true) {
+                value(node.indices.get(index++));
+                if (remaining == 0) {
+                    return;
+                }
+                skipWhitespace();
+                byte c = next();
+                if (c == ']') {
+                    return;
+                }
+                if (c != ',') {
+                    throw error("',' or ']'");
+                }
+                skipWhitespace();
+            }
+        }
+
+        private Node match(Node node, int start, int end, boolean escaped) {
+            if (escaped) {
+                return node.properties.get(decodeString(start, end));
+            }
+            int length = end - start;
+            List<byte[]> names = node.propertyBytes;
+            for (int i = 0, size = names.size(); i < size; i++) {
+                byte[] name = names.get(i);
+                if (name.length == length && regionEquals(name, start)) {
+                    return node.propertyNodes.get(i);
+                }
+            }
+            return null;
+        }
+
+        private boolean regionEquals(byte[] name, int start) {
+            for (int i = 0; i < name.length; i++) {
+                if (json[start + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object scalar() {
+            byte c = peek();
+            if (c == '"') {
+                pos++;
+                int start = pos;
+                boolean escaped = skipStringBody();
+                return escaped
+                        ? decodeString(start, pos - 1)
+                        : new String(json, start, pos - 1 - start, StandardCharsets.UTF_8);
+            }
+            if (c == 't') {
+                literal("true");
+                return Boolean.TRUE;
+            }
+            if (c == 'f') {
+                literal("false");
+                return Boolean.FALSE;
+            }
+            if (c == 'n') {
+                literal("null");
+                return null;
+            }
+            return number();
+        }
+
+        private Object number() {
+            int start = pos;
+            boolean decimal = false;
+            while (pos < json.length) {
+                byte c = json[pos];
+                if (c >= '0' && c <= '9' || c == '-' || c == '+') {
+                    pos++;
+                } else if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos == start) {
+                throw error("value");
+            }
+            String text = new String(json, start, pos - start, StandardCharsets.US_ASCII);
+            try {
+                if (decimal) {
+                    return new BigDecimal(text);
+                }
+                long value = Long.parseLong(text);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                if (!decimal) {
+                    return new BigInteger(text);
+                }
+                throw error("number");
+            }
+        }
+
+        private void literal(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (pos >= json.length || json[pos++] != literal.charAt(i)) {
+                    throw error(literal);
+                }
+            }
+        }
+
+        void skipValue() {
+            byte c = peek();
+            if (c == '"') {
+                pos++;
+                skipStringBody();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                while (pos < json.length) {
+                    byte b = json[pos++];
+                    if (b == '"') {
+                        skipStringBody();
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        if (--depth == 0) {
+                            return;
+                        }
+                    }
+                }
+                throw error("end of container");
+            } else {
+                while (pos < json.length) {
+                    byte b = json[pos];
+                    if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    pos++;
+                }
+            }
+        }
+
+        /**
+         * pos位于开头的引号之后  结束时pos位于结尾的引号之后
+         *
+         * @return 字符串中是否包含转义
+         */
+        private boolean skipStringBody() {
+            boolean escaped = false;
+            while (pos < json.length) {
+                byte b = json[pos++];
+                if (b == '"') {
+                    return escaped;
+                }
+                if (b == '\\') {
+                    escaped = true;
+                    pos++;
+                }
+            }
+            throw error("'\"'");
+        }
+
+        private String decodeString(int start, int end) {
+            String raw = new String(json, start, end - start, StandardCharsets.UTF_8);
+            StringBuilder sb = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = raw.charAt(++i);
+                switch (e) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default:
+                        sb.append(e);
+                }
+            }
+            return sb.toString();
+        }
+
+        void skipWhitespace() {
+            while (pos < json.length) {
+                byte b = json[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private byte peek() {
+            if (pos >= json.length) {
+                throw error("value");
+            }
+            return json[pos];
+        }
+
+        private byte next() {
+            byte b = peek();
+            pos++;
+            return b;
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        private JSONException error(String expected) {
+            return new JSONException("Malformed JSON, expect " + expected + " at position " + Math.max(0, pos - 1));
+        }
+    }
+}
@@ -16,7 +16,7 @@ import java.util.stream.IntStream;
  */
 public class BeanProxySchema {
 
-    private static final Function<Class<?>, BeanProxySchema> CACHED = Memoizer.memoize(BeanProxySchema::forClassUncached);
+    private static final Function<Class<?>, BeanProxySchema> CACHED = Memoizer.memoizeWeakly(BeanProxySchema::forClassUncached);
 
     public static BeanProxySchema forClass(Class<?> iFace) {
         return CACHED.apply(iFace);
@@ -20,7 +20,7 @@ final class DefaultMethodCallHandler {
     /**
      *
      */
-    private static final Function<Method, MethodCallHandler> CACHE = Memoizer.memoize(m -> {
+    private static final Function<Method, MethodCallHandler> CACHE = Memoizer.memoizeWeakly(m -> {
 
         MethodHandle handle = getMethodHandle(m);
 
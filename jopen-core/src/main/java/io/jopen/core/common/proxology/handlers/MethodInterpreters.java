@@ -17,7 +17,7 @@ public final class MethodInterpreters {
     }
 
     public static MethodInterpreter caching(MethodInterpreter interpreter) {
-        return Memoizer.memoize(interpreter::interpret)::apply;
+        return Memoizer.memoizeWeakly(interpreter::interpret)::apply;
     }
 
     public static MethodInterpreter binding(Object target) {
@@ -16,7 +16,7 @@ import java.util.stream.Collectors;
 public interface ClassInterpreter<T> {
 
     static <T> ClassInterpreter<T> cached(ClassInterpreter<T> interpreter) {
-        return Memoizer.memoize(interpreter::interpret)::apply;
+        return Memoizer.memoizeWeakly(interpreter::interpret)::apply;
     }
 
     static <T> ClassInterpreter<T> mappingWith(UnboundMethodInterpreter<T> interpreter) {
@@ -0,0 +1,94 @@
+package io.jopen.core.common.proxology.memoization;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 带容量/过期/统计的记忆化函数  由{@link Memoizer.Builder#build(Function)}创建
+ * <p>
+ * 同一个key并发调用时只有一个线程执行原函数，其余线程等待该结果(single-flight)；
+ * 等待发生在该key自己的加载占位上，不会阻塞其他key的读取与加载
+ *
+ * @author maxuefeng
+ * @see Memoizer
+ */
+public final class MemoizedFunction<I, O> implements Function<I, O> {
+
+    /**
+     * 值包装为Optional  原函数返回null时与{@link java.util.Map#computeIfAbsent}一样返回null(但会被缓存)
+     */
+    private final LoadingCache<I, Optional<O>> cache;
+
+    MemoizedFunction(LoadingCache<I, Optional<O>> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public O apply(I input) {
+        try {
+            return cache.get(input).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return 已缓存的值  未缓存时不触发计算
+     */
+    public Optional<O> getIfPresent(I input) {
+        Optional<O> value = cache.getIfPresent(input);
+        return value == null ? Optional.empty() : value;
+    }
+
+    /**
+     * 异步刷新指定key  刷新期间旧值仍然可读
+     */
+    public void refresh(I input) {
+        cache.refresh(input);
+    }
+
+    public void invalidate(I input) {
+        cache.invalidate(input);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return 近似的缓存条目数
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * 命中/未命中/淘汰/加载耗时等统计  需要通过{@link Memoizer.Builder#recordStats()}开启
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 清理已过期或已被回收的条目  通常不需要手动调用  读写时会顺带清理
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+}
@@ -1,12 +1,22 @@
 package io.jopen.core.common.proxology.memoization;
 
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
  * {@link Function}
+ * <p>
+ * {@link #memoize(Function)}不限制大小，只适用于key的取值有限的场景(例如接口Class)；
+ * 其他场景使用{@link #newBuilder()}构建有容量上限、过期时间或弱引用key的{@link MemoizedFunction}
  *
  * @author maxuefeng
  */
@@ -27,4 +37,139 @@ public final class Memoizer {
         return input -> cache.computeIfAbsent(input, mappingFunction);
     }
 
+    /**
+     * 以弱引用持有key、软引用持有value的记忆化函数  key按引用(==)比较
+     * <p>
+     * 适用于{@link Class}与{@link java.lang.reflect.Method}等元数据作为key的场景：key不再被引用时条目随之回收；
+     * value通常会间接引用key(例如方法句柄)，因此value使用软引用，保证缓存不会阻止类卸载。
+     * 注意{@link Class#getMethod}每次返回新的Method对象，同一方法的不同Method实例会各自计算一次；
+     * 动态代理传入{@link java.lang.reflect.InvocationHandler}的Method实例是固定的，不受影响
+     */
+    public static <I, O> MemoizedFunction<I, O> memoizeWeakly(Function<I, O> mappingFunction) {
+        return Memoizer.<I, O>newBuilder().weakKeys().softValues().build(mappingFunction);
+    }
+
+    public static <I, O> Builder<I, O> newBuilder() {
+        return new Builder<>();
+    }
+
+    /**
+     * {@link MemoizedFunction}的构建器  基于guava {@link CacheBuilder}
+     */
+    public static final class Builder<I, O> {
+
+        private long maximumSize = -1L;
+
+        private long expireAfterWriteNanos = -1L;
+
+        private long expireAfterAccessNanos = -1L;
+
+        private long refreshAfterWriteNanos = -1L;
+
+        private Executor refreshExecutor;
+
+        private boolean weakKeys;
+
+        private boolean softValues;
+
+        private boolean recordStats;
+
+        private Builder() {
+        }
+
+        /**
+         * 最大条目数  超过后按近似LRU淘汰
+         */
+        public Builder<I, O> maximumSize(long maximumSize) {
+            Preconditions.checkArgument(maximumSize >= 0, "maximumSize must be >= 0");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * 写入后经过指定时间过期
+         */
+        public Builder<I, O> expireAfterWrite(long duration, TimeUnit unit) {
+            Preconditions.checkArgument(duration >= 0, "duration must be >= 0");
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * 最后一次读写后经过指定时间过期
+         */
+        public Builder<I, O> expireAfterAccess(long duration, TimeUnit unit) {
+            Preconditions.checkArgument(duration >= 0, "duration must be >= 0");
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * 写入后经过指定时间  下一次读取时在executor上异步重新计算  计算完成前返回旧值
+         *
+         * @param executor 执行刷新的线程池
+         */
+        public Builder<I, O> refreshAfterWrite(long duration, TimeUnit unit, Executor executor) {
+            Preconditions.checkArgument(duration > 0, "duration must be > 0");
+            this.refreshAfterWriteNanos = unit.toNanos(duration);
+            this.refreshExecutor = Preconditions.checkNotNull(executor);
+            return this;
+        }
+
+        /**
+         * 弱引用持有key  key按引用(==)比较
+         */
+        public Builder<I, O> weakKeys() {
+            this.weakKeys = true;
+            return this;
+        }
+
+        /**
+         * 软引用持有value  内存紧张时由GC回收  下次访问重新计算
+         */
+        public Builder<I, O> softValues() {
+            this.softValues = true;
+            return this;
+        }
+
+        /**
+         * 记录命中/未命中/淘汰统计  见{@link MemoizedFunction#stats()}
+         */
+        public Builder<I, O> recordStats() {
+            this.recordStats = true;
+            return this;
+        }
+
+        public MemoizedFunction<I, O> build(Function<I, O> mappingFunction) {
+            Preconditions.checkNotNull(mappingFunction);
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+            if (maximumSize >= 0) {
+                builder.maximumSize(maximumSize);
+            }
+            if (expireAfterWriteNanos >= 0) {
+                builder.expireAfterWrite(expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+            }
+            if (expireAfterAccessNanos >= 0) {
+                builder.expireAfterAccess(expireAfterAccessNanos, TimeUnit.NANOSECONDS);
+            }
+            if (refreshAfterWriteNanos > 0) {
+                builder.refreshAfterWrite(refreshAfterWriteNanos, TimeUnit.NANOSECONDS);
+            }
+            if (weakKeys) {
+                builder.weakKeys();
+            }
+            if (softValues) {
+                builder.softValues();
+            }
+            if (recordStats) {
+                builder.recordStats();
+            }
+
+            CacheLoader<I, Optional<O>> loader = CacheLoader.from(input -> Optional.ofNullable(mappingFunction.apply(input)));
+            if (refreshExecutor != null) {
+                loader = CacheLoader.asyncReloading(loader, refreshExecutor);
+            }
+            return new MemoizedFunction<>(builder.build(loader));
+        }
+    }
 }
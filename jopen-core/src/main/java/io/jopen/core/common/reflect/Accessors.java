@@ -0,0 +1,305 @@
+package io.jopen.core.common.reflect;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 成员访问器缓存
+ * <p>
+ * 按 (Class, 成员名, 参数类型) 缓存解析结果：方法/字段只在第一次访问时按{@link Reflect}的规则搜索，
+ * 之后直接复用解析好的{@link MethodHandle}；缓存挂在{@link ClassValue}上，随Class一起回收，不影响类卸载。
+ * <p>
+ * {@link #getter(Class, String)} {@link #setter(Class, String, Class)} {@link #constructor(Class)}
+ * 在可能的情况下通过{@link LambdaMetafactory}生成函数式接口的实现，调用开销与直接调用相当；
+ * 目标成员不可见时(非public或类加载器不可见)退化为基于{@link MethodHandle}的实现
+ *
+ * @author maxuefeng
+ * @see Reflect
+ * @see MethodAccessor
+ * @see FieldAccessor
+ */
+public final class Accessors {
+
+    static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final ClassValue<ConcurrentMap<MemberKey, MethodAccessor>> METHODS = new ClassValue<ConcurrentMap<MemberKey, MethodAccessor>>() {
+        @Override
+        protected ConcurrentMap<MemberKey, MethodAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<ConcurrentMap<String, FieldAccessor>> FIELDS = new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+        @Override
+        protected ConcurrentMap<String, FieldAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private Accessors() {
+    }
+
+    /**
+     * 解析并缓存方法  先按参数类型精确匹配  再按装箱后可赋值匹配
+     *
+     * @param type           方法所在的类型(包括父类)
+     * @param name           方法名
+     * @param parameterTypes 实参类型  null实参使用{@code null}
+     * @return 方法调用器
+     * @throws ReflectException 没有匹配的方法
+     */
+    public static MethodAccessor method(Class<?> type, String name, Class<?>... parameterTypes) throws ReflectException {
+        parameterTypes = nullSafe(parameterTypes);
+        MemberKey key = new MemberKey(name, parameterTypes);
+        ConcurrentMap<MemberKey, MethodAccessor> methods = METHODS.get(type);
+        MethodAccessor accessor = methods.get(key);
+        if (accessor == null) {
+            // 不在computeIfAbsent里做搜索  避免慢解析期间持有桶锁  重复解析的结果是等价的
+            accessor = createMethodAccessor(type, name, parameterTypes);
+            MethodAccessor previous = methods.putIfAbsent(key, accessor);
+            if (previous != null) {
+                accessor = previous;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * 解析并缓存字段  先找public字段  再沿继承链找非public字段
+     *
+     * @throws ReflectException 没有该字段
+     */
+    public static FieldAccessor field(Class<?> type, String name) throws ReflectException {
+        ConcurrentMap<String, FieldAccessor> fields = FIELDS.get(type);
+        FieldAccessor accessor = fields.get(name);
+        if (accessor == null) {
+            try {
+                accessor = new FieldAccessor(Reflect.findField(type, name));
+            } catch (IllegalAccessException e) {
+                throw new ReflectException(e);
+            }
+            FieldAccessor previous = fields.putIfAbsent(name, accessor);
+            if (previous != null) {
+                accessor = previous;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * 无参实例方法(通常是getter)的函数式访问器
+     *
+     * @param type       目标类型
+     * @param methodName 方法名
+     * @param <T>        目标类型
+     * @param <R>        返回值类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> Function<T, R> getter(Class<T> type, String methodName) throws ReflectException {
+        MethodAccessor accessor = method(type, methodName);
+        Method method = accessor.getMethod();
+        if (isInstance(method) && method.getReturnType() != void.class && canSpin(method)) {
+            try {
+                MethodHandle impl = MethodHandles.lookup().unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        impl,
+                        MethodType.methodType(Reflect.wrapper(method.getReturnType()), type));
+                return (Function<T, R>) site.getTarget().invoke();
+            } catch (Throwable ignore) {
+                // 退化为MethodHandle实现
+            }
+        }
+        return target -> (R) invoke(accessor, target, EMPTY_ARGS);
+    }
+
+    /**
+     * 单参数实例方法(通常是setter)的函数式访问器  方法的返回值被忽略
+     *
+     * @param type       目标类型
+     * @param methodName 方法名
+     * @param valueType  参数类型  基本类型使用对应的基本类型Class
+     * @param <T>        目标类型
+     * @param <V>        参数类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, V> BiConsumer<T, V> setter(Class<T> type, String methodName, Class<?> valueType) throws ReflectException {
+        MethodAccessor accessor = method(type, methodName, valueType);
+        Method method = accessor.getMethod();
+        if (isInstance(method) && canSpin(method)) {
+            try {
+                MethodHandle impl = MethodHandles.lookup().unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        impl,
+                        MethodType.methodType(void.class, type, Reflect.wrapper(method.getParameterTypes()[0])));
+                return (BiConsumer<T, V>) site.getTarget().invoke();
+            } catch (Throwable ignore) {
+                // 退化为MethodHandle实现
+            }
+        }
+        return (target, value) -> invoke(accessor, target, new Object[]{value});
+    }
+
+    /**
+     * 无参构造器的函数式访问器
+     *
+     * @param type 目标类型
+     * @param <T>  目标类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> constructor(Class<T> type) throws ReflectException {
+        Constructor<T> constructor;
+        try {
+            constructor = Reflect.accessible(type.getDeclaredConstructor());
+        } catch (NoSuchMethodException e) {
+            throw new ReflectException(e);
+        }
+        if (canSpin(constructor.getModifiers(), type)) {
+            try {
+                MethodHandle impl = MethodHandles.lookup().unreflectConstructor(constructor);
+                CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        impl,
+                        MethodType.methodType(type));
+                return (Supplier<T>) site.getTarget().invoke();
+            } catch (Throwable ignore) {
+                // 退化为MethodHandle实现
+            }
+        }
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (IllegalAccessException e) {
+            throw new ReflectException(e);
+        }
+        return () -> {
+            try {
+                return (T) (Object) handle.invokeExact();
+            } catch (Throwable e) {
+                throw e instanceof RuntimeException ? (RuntimeException) e : new ReflectException(e);
+            }
+        };
+    }
+
+    private static MethodAccessor createMethodAccessor(Class<?> type, String name, Class<?>[] parameterTypes) {
+        Method method;
+        try {
+            method = Reflect.exactMethod(type, name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            try {
+                method = Reflect.similarMethod(type, name, parameterTypes);
+            } catch (NoSuchMethodException e1) {
+                throw new ReflectException(e1);
+            }
+        }
+        try {
+            return new MethodAccessor(method);
+        } catch (IllegalAccessException e) {
+            throw new ReflectException(e);
+        }
+    }
+
+    /**
+     * null实参类型替换为{@link Reflect.NULL}  与{@link Reflect#call(String, Object...)}的匹配规则一致
+     */
+    private static Class<?>[] nullSafe(Class<?>[] parameterTypes) {
+        if (parameterTypes == null) {
+            return new Class<?>[0];
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == null) {
+                Class<?>[] copy = parameterTypes.clone();
+                for (int j = i; j < copy.length; j++) {
+                    if (copy[j] == null) {
+                        copy[j] = Reflect.NULL.class;
+                    }
+                }
+                return copy;
+            }
+        }
+        return parameterTypes;
+    }
+
+    private static Object invoke(MethodAccessor accessor, Object target, Object[] args) {
+        try {
+            return accessor.invoke(target, args);
+        } catch (Throwable e) {
+            throw e instanceof RuntimeException ? (RuntimeException) e : new ReflectException(e);
+        }
+    }
+
+    private static boolean isInstance(Method method) {
+        return !Modifier.isStatic(method.getModifiers());
+    }
+
+    private static boolean canSpin(Method method) {
+        return canSpin(method.getModifiers(), method.getDeclaringClass());
+    }
+
+    /**
+     * LambdaMetafactory生成的类定义在本类的类加载器中  直接链接到目标成员  因此要求成员public且类对本类可见
+     */
+    private static boolean canSpin(int modifiers, Class<?> declaringClass) {
+        if (!Modifier.isPublic(modifiers) || !Modifier.isPublic(declaringClass.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(declaringClass.getName(), false, Accessors.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 缓存key  成员名 + 参数类型
+     */
+    private static final class MemberKey {
+
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        private final int hash;
+
+        MemberKey(String name, Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(this.parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MemberKey)) {
+                return false;
+            }
+            MemberKey that = (MemberKey) o;
+            return name.equals(that.name) && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
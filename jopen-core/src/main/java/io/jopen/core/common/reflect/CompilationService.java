@@ -0,0 +1,360 @@
+package io.jopen.core.common.reflect;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 运行时批量编译服务
+ * <p>
+ * 与{@link Reflect#compile(String, String)}逐个调用javac不同：
+ * <ul>
+ *     <li>{@link #compileAll(Map)}只要有源码未命中缓存，就把整批源码放进同一个javac任务编译，同一批的类可以互相引用</li>
+ *     <li>生成的字节码按源码哈希(类名 + 源码 + 编译参数 + JDK版本)缓存在内存中，可选地缓存到磁盘目录，
+ *     重启后命中磁盘缓存的源码不再调用javac</li>
+ *     <li>JavaCompiler与文件管理器在服务内复用，类通过服务持有的{@link ClassLoader}加载</li>
+ * </ul>
+ * 同一批的类总是由同一个类加载器加载；同一个类名再次以不同的源码编译时，服务会切换到一个新的类加载器，
+ * 整批类在新的类加载器中重新加载，旧的Class对象仍然可用；不同批次之间的类只能通过父类加载器互相可见。
+ * <p>
+ * 该类是线程安全的，javac调用是串行的
+ *
+ * @author maxuefeng
+ * @see Compile
+ */
+public class CompilationService {
+
+    private static final String CACHE_FILE_SUFFIX = ".classes";
+
+    private final ClassLoader parent;
+
+    /**
+     * 磁盘缓存目录  为null时只使用内存缓存
+     */
+    private final Path cacheDirectory;
+
+    private final CompileOptions compileOptions;
+
+    /**
+     * 源码哈希 -> 该源码生成的所有类(包括内部类)
+     */
+    private final Map<String, Map<String, byte[]>> bytecodeCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private final AtomicLong compiledSources = new AtomicLong();
+
+    private final AtomicLong javacTasks = new AtomicLong();
+
+    private volatile CompiledClassLoader classLoader;
+
+    private Compile.ClassFileManager fileManager;
+
+    public CompilationService() {
+        this(CompilationService.class.getClassLoader(), null, new CompileOptions());
+    }
+
+    /**
+     * @param parent         已编译类的父类加载器  源码中引用的类必须对它可见
+     * @param cacheDirectory 磁盘缓存目录  为null时不使用磁盘缓存
+     * @param compileOptions 编译参数
+     */
+    public CompilationService(ClassLoader parent, File cacheDirectory, CompileOptions compileOptions) {
+        this.parent = parent;
+        this.cacheDirectory = cacheDirectory == null ? null : cacheDirectory.toPath();
+        this.compileOptions = compileOptions;
+        this.classLoader = new CompiledClassLoader(parent);
+        if (this.cacheDirectory != null) {
+            try {
+                Files.createDirectories(this.cacheDirectory);
+            } catch (IOException e) {
+                throw new ReflectException("Can not create compilation cache directory " + cacheDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * 编译单个类
+     *
+     * @param className 全限定类名
+     * @param content   源码
+     * @return 编译并加载后的类
+     */
+    public Class<?> compile(String className, String content) {
+        return compileAll(Collections.singletonMap(className, content)).get(className);
+    }
+
+    /**
+     * 批量编译  有源码未命中缓存时整批源码在同一个javac任务中编译  javac可以看到批内所有类
+     *
+     * @param sources 全限定类名 -> 源码
+     * @return 全限定类名 -> 加载后的类  顺序与参数一致
+     * @throws ReflectException 编译失败  异常信息包含javac的诊断信息
+     */
+    public Map<String, Class<?>> compileAll(Map<String, String> sources) {
+        Map<String, String> hashes = new LinkedHashMap<>(sources.size());
+        boolean missing = false;
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            String hash = hash(source.getKey(), source.getValue());
+            hashes.put(source.getKey(), hash);
+            if (bytecodeCache.containsKey(hash)) {
+                memoryHits.incrementAndGet();
+            } else if (loadFromDisk(hash)) {
+                diskHits.incrementAndGet();
+            } else {
+                missing = true;
+            }
+        }
+
+        if (missing) {
+            compileBatch(sources, hashes);
+        }
+
+        return load(hashes);
+    }
+
+    /**
+     * 清空内存缓存与已加载的类  之后编译的类使用新的类加载器  磁盘缓存保留
+     */
+    public void clearCache() {
+        synchronized (this) {
+            bytecodeCache.clear();
+            classLoader = new CompiledClassLoader(parent);
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * @return 实际交给javac编译的源码数量
+     */
+    public long getCompiledSources() {
+        return compiledSources.get();
+    }
+
+    /**
+     * @return javac任务的执行次数
+     */
+    public long getJavacTasks() {
+        return javacTasks.get();
+    }
+
+    /**
+     * 已缓存的源码也交给javac  否则未缓存的源码引用它们时找不到符号
+     */
+    private synchronized void compileBatch(Map<String, String> sources, Map<String, String> hashes) {
+        // 等待锁期间其他线程可能已经编译过
+        if (bytecodeCache.keySet().containsAll(hashes.values())) {
+            return;
+        }
+        Map<String, Compile.CharSequenceJavaFileObject> files = new LinkedHashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            files.put(source.getKey(), new Compile.CharSequenceJavaFileObject(source.getKey(), source.getValue()));
+        }
+
+        JavaCompiler compiler = Compile.compiler();
+        if (fileManager == null) {
+            fileManager = new Compile.ClassFileManager(compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8));
+        }
+        fileManager.reset();
+
+        StringWriter out = new StringWriter();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = Compile.options(compileOptions, parent);
+        JavaCompiler.CompilationTask task = compiler.getTask(out, fileManager, diagnostics, options, null, new ArrayList<>(files.values()));
+        if (!compileOptions.processors.isEmpty()) {
+            task.setProcessors(compileOptions.processors);
+        }
+
+        javacTasks.incrementAndGet();
+        boolean success = task.call();
+        if (!success) {
+            throw new ReflectException("Compilation error: " + out + diagnostics.getDiagnostics());
+        }
+        compiledSources.addAndGet(files.size());
+
+        for (Map.Entry<String, Compile.CharSequenceJavaFileObject> file : files.entrySet()) {
+            Map<String, byte[]> classes = fileManager.classesOf(file.getValue());
+            if (!classes.containsKey(file.getKey())) {
+                throw new ReflectException("Source of " + file.getKey() + " does not declare class " + file.getKey());
+            }
+            String hash = hashes.get(file.getKey());
+            bytecodeCache.put(hash, classes);
+            storeToDisk(hash, classes);
+        }
+    }
+
+    private synchronized Map<String, Class<?>> load(Map<String, String> hashes) {
+        CompiledClassLoader loader = classLoader;
+
+        // 当前类加载器中同名类的源码不同时切换类加载器  整批类都在新的类加载器中加载
+        for (String hash : hashes.values()) {
+            if (loader.conflicts(hash, bytecodeCache.get(hash))) {
+                loader = new CompiledClassLoader(parent);
+                classLoader = loader;
+                break;
+            }
+        }
+
+        for (String hash : hashes.values()) {
+            loader.register(hash, bytecodeCache.get(hash));
+        }
+
+        Map<String, Class<?>> result = new LinkedHashMap<>(hashes.size());
+        for (String className : hashes.keySet()) {
+            try {
+                // 已经define过的类直接返回
+                result.put(className, loader.loadClass(className));
+            } catch (ClassNotFoundException e) {
+                throw new ReflectException(e);
+            }
+        }
+        return result;
+    }
+
+    private String hash(String className, String content) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(System.getProperty("java.version", ""), StandardCharsets.UTF_8)
+                .putString(className, StandardCharsets.UTF_8)
+                .putString(content, StandardCharsets.UTF_8);
+        for (String option : compileOptions.options) {
+            hasher.putString(option, StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 磁盘缓存格式  类个数  (类名  字节码长度  字节码)*
+     */
+    private boolean loadFromDisk(String hash) {
+        if (cacheDirectory == null) {
+            return false;
+        }
+        Path file = cacheDirectory.resolve(hash + CACHE_FILE_SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            // 长度不能超过文件大小  避免损坏的文件导致分配过大的数组
+            long size = Files.size(file);
+            int count = in.readInt();
+            if (count <= 0 || count > size) {
+                return false;
+            }
+            Map<String, byte[]> classes = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || length > size) {
+                    return false;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            bytecodeCache.put(hash, classes);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // 缓存文件损坏时重新编译
+            return false;
+        }
+    }
+
+    private void storeToDisk(String hash, Map<String, byte[]> classes) {
+        if (cacheDirectory == null) {
+            return;
+        }
+        try {
+            Path tmp = Files.createTempFile(cacheDirectory, hash, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            Files.move(tmp, cacheDirectory.resolve(hash + CACHE_FILE_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignore) {
+            // 磁盘缓存只是优化  写入失败不影响本次编译结果
+        }
+    }
+
+    /**
+     * 持有编译结果的类加载器  类在第一次被加载时才define
+     */
+    static final class CompiledClassLoader extends ClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+        /**
+         * 类名 -> 生成它的源码哈希
+         */
+        private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+        CompiledClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        /**
+         * @return compiled中有类已经由其他源码注册
+         */
+        boolean conflicts(String hash, Map<String, byte[]> compiled) {
+            for (String name : compiled.keySet()) {
+                String registered = hashes.get(name);
+                if (registered != null && !registered.equals(hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void register(String hash, Map<String, byte[]> compiled) {
+            classes.putAll(compiled);
+            for (String name : compiled.keySet()) {
+                hashes.put(name, hash);
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
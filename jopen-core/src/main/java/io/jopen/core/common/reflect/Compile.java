@@ -16,6 +16,23 @@ import java.util.*;
  */
 class Compile {
 
+    /**
+     * javac实例可以复用  每次调用ToolProvider都会重新查找
+     */
+    private static volatile JavaCompiler compiler;
+
+    static JavaCompiler compiler() {
+        JavaCompiler result = compiler;
+        if (result == null) {
+            result = ToolProvider.getSystemJavaCompiler();
+            if (result == null) {
+                throw new ReflectException("No system java compiler available, a JDK is required at runtime");
+            }
+            compiler = result;
+        }
+        return result;
+    }
+
     static Class<?> compile(String className, String content, CompileOptions compileOptions) {
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
@@ -27,7 +44,7 @@ class Compile {
 
         } catch (ClassNotFoundException ignore) {
 
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            JavaCompiler compiler = compiler();
 
             try {
                 ClassFileManager fileManager = new ClassFileManager(compiler.getStandardFileManager(null, null, null));
@@ -36,28 +53,7 @@ class Compile {
                 files.add(new CharSequenceJavaFileObject(className, content));
                 StringWriter out = new StringWriter();
 
-                List<String> options = new ArrayList<>(compileOptions.options);
-
-                if (!options.contains("-classpath")) {
-                    StringBuilder classpath = new StringBuilder();
-                    String separator = System.getProperty("path.separator");
-                    String prop = System.getProperty("java.class.path");
-
-                    if (prop != null && !"".equals(prop))
-                        classpath.append(prop);
-
-                    if (cl instanceof URLClassLoader) {
-                        for (URL url : ((URLClassLoader) cl).getURLs()) {
-                            if (classpath.length() > 0)
-                                classpath.append(separator);
-
-                            if ("file".equals(url.getProtocol()))
-                                classpath.append(new File(url.getFile()));
-                        }
-                    }
-
-                    options.addAll(Arrays.asList("-classpath", classpath.toString()));
-                }
+                List<String> options = options(compileOptions, cl);
 
                 JavaCompiler.CompilationTask task = compiler.getTask(out, fileManager, null, options, null, files);
 
@@ -88,6 +84,35 @@ class Compile {
     }
 
 
+    /**
+     * 编译参数  未指定classpath时使用当前进程的classpath加上类加载器的URL
+     */
+    static List<String> options(CompileOptions compileOptions, ClassLoader cl) {
+        List<String> options = new ArrayList<>(compileOptions.options);
+
+        if (!options.contains("-classpath")) {
+            StringBuilder classpath = new StringBuilder();
+            String separator = System.getProperty("path.separator");
+            String prop = System.getProperty("java.class.path");
+
+            if (prop != null && !"".equals(prop))
+                classpath.append(prop);
+
+            if (cl instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) cl).getURLs()) {
+                    if (classpath.length() > 0)
+                        classpath.append(separator);
+
+                    if ("file".equals(url.getProtocol()))
+                        classpath.append(new File(url.getFile()));
+                }
+            }
+
+            options.addAll(Arrays.asList("-classpath", classpath.toString()));
+        }
+        return options;
+    }
+
     /**
      *
      */
@@ -112,13 +137,14 @@ class Compile {
 
     static final class ClassFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
         private final Map<String, JavaFileObject> fileObjectMap;
+        private final Map<FileObject, List<String>> classNamesBySource;
         private Map<String, byte[]> classes;
 
         ClassFileManager(StandardJavaFileManager standardManager) {
             super(standardManager);
 
             fileObjectMap = new HashMap<>();
-
+            classNamesBySource = new HashMap<>();
         }
 
         @Override
@@ -130,6 +156,30 @@ class Compile {
         ) {
             JavaFileObject result = new JavaFileObject(className, kind);
             fileObjectMap.put(className, result);
+            if (sibling != null) {
+                classNamesBySource.computeIfAbsent(sibling, s -> new ArrayList<>()).add(className);
+            }
+            return result;
+        }
+
+        /**
+         * 清空上一次编译的输出  使文件管理器可以在多次编译之间复用
+         */
+        void reset() {
+            fileObjectMap.clear();
+            classNamesBySource.clear();
+            classes = null;
+        }
+
+        /**
+         * @param source 源文件
+         * @return 由该源文件生成的所有类(包括内部类)
+         */
+        Map<String, byte[]> classesOf(FileObject source) {
+            Map<String, byte[]> result = new HashMap<>();
+            for (String className : classNamesBySource.getOrDefault(source, Collections.emptyList())) {
+                result.put(className, fileObjectMap.get(className).getBytes());
+            }
             return result;
         }
 
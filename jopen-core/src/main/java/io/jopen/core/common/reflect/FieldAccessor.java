@@ -0,0 +1,81 @@
+package io.jopen.core.common.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * 解析好的字段读写器  由{@link Accessors#field(Class, String)}创建并缓存
+ * <p>
+ * 读写通过{@link MethodHandle}完成；final字段没有可用的setter句柄，写入时退化为{@link Field#set(Object, Object)}
+ *
+ * @author maxuefeng
+ * @see Accessors
+ */
+public final class FieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Field field;
+
+    private final MethodHandle getter;
+
+    /**
+     * final字段为null
+     */
+    private final MethodHandle setter;
+
+    FieldAccessor(Field field) throws IllegalAccessException {
+        this.field = Reflect.accessible(field);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+
+        MethodHandle get = lookup.unreflectGetter(field);
+        if (isStatic) {
+            get = MethodHandles.dropArguments(get, 0, Object.class);
+        }
+        this.getter = get.asType(GETTER_TYPE);
+
+        if (Modifier.isFinal(field.getModifiers())) {
+            this.setter = null;
+        } else {
+            MethodHandle set = lookup.unreflectSetter(field);
+            if (isStatic) {
+                set = MethodHandles.dropArguments(set, 0, Object.class);
+            }
+            this.setter = set.asType(SETTER_TYPE);
+        }
+    }
+
+    /**
+     * @param target 字段所属对象  静态字段时忽略
+     */
+    public Object get(Object target) throws Throwable {
+        return (Object) getter.invokeExact(target);
+    }
+
+    /**
+     * @param target 字段所属对象  静态字段时忽略
+     */
+    public void set(Object target, Object value) throws Throwable {
+        if (setter == null) {
+            field.set(target, value);
+        } else {
+            setter.invokeExact(target, value);
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldAccessor{" + field + "}";
+    }
+}
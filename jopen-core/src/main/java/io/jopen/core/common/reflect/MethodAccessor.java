@@ -0,0 +1,63 @@
+package io.jopen.core.common.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 解析好的方法调用器  由{@link Accessors#method(Class, String, Class[])}创建并缓存
+ * <p>
+ * 内部是统一为{@code (Object target, Object[] args)Object}签名的{@link MethodHandle}，
+ * 静态方法忽略target，void方法返回null
+ *
+ * @author maxuefeng
+ * @see Accessors
+ */
+public final class MethodAccessor {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Method method;
+
+    private final MethodHandle invoker;
+
+    MethodAccessor(Method method) throws IllegalAccessException {
+        this.method = Reflect.accessible(method);
+
+        MethodHandle handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        int parameterCount = method.getParameterCount();
+        this.invoker = handle
+                .asSpreader(Object[].class, parameterCount)
+                .asType(INVOKER_TYPE);
+    }
+
+    /**
+     * 调用方法  目标方法抛出的异常原样抛出
+     *
+     * @param target 实例方法的调用对象  静态方法时忽略
+     * @param args   参数  参数个数必须与方法一致
+     * @return 返回值  void方法返回null
+     */
+    public Object invoke(Object target, Object... args) throws Throwable {
+        Object[] arguments = args == null ? Accessors.EMPTY_ARGS : args;
+        return (Object) invoker.invokeExact(target, arguments);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public boolean isVoid() {
+        return method.getReturnType() == void.class;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodAccessor{" + method + "}";
+    }
+}
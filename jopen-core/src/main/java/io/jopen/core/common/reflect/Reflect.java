@@ -32,6 +32,7 @@ public class Reflect {
      * @param content The source code for the class
      * @return A wrapped {@link Class}
      * @throws ReflectException if anything went wrong compiling the class.
+     * @see CompilationService for compiling many classes in one javac task with a bytecode cache
      */
     public static Reflect compile(String name, String content) throws ReflectException {
         return compile(name, content, new CompileOptions());
@@ -330,7 +331,8 @@ public class Reflect {
      */
     public Reflect set(String name, Object value) throws ReflectException {
         try {
-            Field field = field0(name);
+            FieldAccessor accessor = Accessors.field(type(), name);
+            Field field = accessor.getField();
 
             if ((field.getModifiers() & Modifier.FINAL) == Modifier.FINAL) {
                 try {
@@ -344,9 +346,11 @@ public class Reflect {
                 }
             }
 
-            field.set(object, unwrap(value));
+            accessor.set(object, unwrap(value));
             return this;
-        } catch (Exception e) {
+        } catch (ReflectException e) {
+            throw e;
+        } catch (Throwable e) {
             throw new ReflectException(e);
         }
     }
@@ -384,16 +388,22 @@ public class Reflect {
      * @throws ReflectException If any reflection io.jopen.springboot.encryption.exception occurred.
      */
     public Reflect field(String name) throws ReflectException {
+        FieldAccessor accessor = Accessors.field(type(), name);
         try {
-            Field field = field0(name);
-            return on(field.getType(), field.get(object));
-        } catch (Exception e) {
+            return on(accessor.getField().getType(), accessor.get(object));
+        } catch (Throwable e) {
             throw new ReflectException(e);
         }
     }
 
-    private Field field0(String name) throws ReflectException {
-        Class<?> t = type();
+    /**
+     * Searches a field, first a public one in the class hierarchy, then a
+     * non-public one on the declaring class.
+     * <p>
+     * Lookups are cached by {@link Accessors#field(Class, String)}.
+     */
+    static Field findField(Class<?> type, String name) throws ReflectException {
+        Class<?> t = type;
 
         // Try getting a public field
         try {
@@ -498,6 +508,10 @@ public class Reflect {
      * <li>public method with similar signature in class hierarchy</li>
      * <li>non-public method with similar signature on declaring class</li>
      * </ol>
+     * <p>
+     * The resolved method is cached per (type, name, argument types) and
+     * invoked through a {@link java.lang.invoke.MethodHandle}, see
+     * {@link Accessors#method(Class, String, Class[])}.
      *
      * @param name The method name
      * @param args The method arguments
@@ -509,23 +523,11 @@ public class Reflect {
     public Reflect call(String name, Object... args) throws ReflectException {
         Class<?>[] types = types(args);
 
-        // Try invoking the "canonical" method, i.e. the one with exact
-        // matching argument types
-        try {
-            Method method = exactMethod(name, types);
-            return on(method, object, args);
-        }
-
-        // If there is no exact match, try to find a method that has a "similar"
-        // signature if primitive argument types are converted to their wrappers
-        catch (NoSuchMethodException e) {
-            try {
-                Method method = similarMethod(name, types);
-                return on(method, object, args);
-            } catch (NoSuchMethodException e1) {
-                throw new ReflectException(e1);
-            }
-        }
+        // Try the "canonical" method, i.e. the one with exact matching argument
+        // types, then a "similar" one if primitive argument types are converted
+        // to their wrappers. The result of the search is cached.
+        MethodAccessor accessor = Accessors.method(type(), name, types);
+        return on(accessor, object, args);
     }
 
     /**
@@ -535,8 +537,8 @@ public class Reflect {
      * Otherwise a private method with the exact same signature is returned.
      * If no exact match could be found, we let the {@code NoSuchMethodException} pass through.
      */
-    private Method exactMethod(String name, Class<?>[] types) throws NoSuchMethodException {
-        Class<?> t = type();
+    static Method exactMethod(Class<?> type, String name, Class<?>[] types) throws NoSuchMethodException {
+        Class<?> t = type;
 
         // first priority: find a public method with exact signature match in class hierarchy
         try {
@@ -567,8 +569,8 @@ public class Reflect {
      * methods on the declaring class. If a method could be found, it is
      * returned, otherwise a {@code NoSuchMethodException} is thrown.
      */
-    private Method similarMethod(String name, Class<?>[] types) throws NoSuchMethodException {
-        Class<?> t = type();
+    static Method similarMethod(Class<?> type, String name, Class<?>[] types) throws NoSuchMethodException {
+        Class<?> t = type;
 
         // first priority: find a public method with a "similar" signature in class hierarchy
         // similar interpreted in when primitive argument types are converted to their wrappers
@@ -590,14 +592,14 @@ public class Reflect {
         }
         while (t != null);
 
-        throw new NoSuchMethodException("No similar method " + name + " with params " + Arrays.toString(types) + " could be found on type " + type() + ".");
+        throw new NoSuchMethodException("No similar method " + name + " with params " + Arrays.toString(types) + " could be found on type " + type + ".");
     }
 
     /**
      * Determines if a method has a "similar" signature, especially if wrapping
      * primitive argument types would result in an exactly matching signature.
      */
-    private boolean isSimilarSignature(Method possiblyMatchingMethod, String desiredMethodName, Class<?>[] desiredParamTypes) {
+    private static boolean isSimilarSignature(Method possiblyMatchingMethod, String desiredMethodName, Class<?>[] desiredParamTypes) {
         return possiblyMatchingMethod.getName().equals(desiredMethodName) && match(possiblyMatchingMethod.getParameterTypes(), desiredParamTypes);
     }
 
@@ -743,7 +745,7 @@ public class Reflect {
      * Check whether two arrays of types match, converting primitive types to
      * their corresponding wrappers.
      */
-    private boolean match(Class<?>[] declaredTypes, Class<?>[] actualTypes) {
+    private static boolean match(Class<?>[] declaredTypes, Class<?>[] actualTypes) {
         if (declaredTypes.length == actualTypes.length) {
             for (int i = 0; i < actualTypes.length; i++) {
                 if (actualTypes[i] == NULL.class)
@@ -807,17 +809,15 @@ public class Reflect {
     /**
      * Wrap an object returned from a method
      */
-    private static Reflect on(Method method, Object object, Object... args) throws ReflectException {
+    private static Reflect on(MethodAccessor accessor, Object object, Object... args) throws ReflectException {
         try {
-            accessible(method);
-
-            if (method.getReturnType() == void.class) {
-                method.invoke(object, args);
+            if (accessor.isVoid()) {
+                accessor.invoke(object, args);
                 return on(object);
             } else {
-                return on(method.invoke(object, args));
+                return on(accessor.invoke(object, args));
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             throw new ReflectException(e);
         }
     }
@@ -914,6 +914,6 @@ public class Reflect {
         return type;
     }
 
-    private static class NULL {
+    static class NULL {
     }
 }
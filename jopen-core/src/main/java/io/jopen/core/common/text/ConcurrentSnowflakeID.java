@@ -0,0 +1,275 @@
+package io.jopen.core.common.text;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁的Snowflake ID生成器  ID结构与{@link SnowflakeID}一致<br>
+ * 0 - 41位时间截 - 5位数据中心ID - 5位机器ID - 12位序列<br>
+ * <p>
+ * 时间截与序列被打包进同一个{@link AtomicLong}(时间截 &lt;&lt; 12 | 序列)，通过CAS推进，
+ * 多线程生成ID时不再竞争同一个monitor。打包后的状态 +1 时，序列溢出会自然进位到下一毫秒，
+ * 即"向未来借用"时间；借用的上限以及时钟回拨时的行为由{@link ClockSkewPolicy}决定。
+ * <p>
+ * 除了单个ID，还支持：
+ * <ul>
+ *     <li>{@link #nextIds(int)} 一次CAS预留一段连续ID  超过{@link #maxReservation()}时分段预留</li>
+ *     <li>{@link #nextLeasedId()} 每个线程按块租用ID，块内分配不访问共享状态，适合极热的调用方</li>
+ * </ul>
+ *
+ * @author maxuefeng
+ * @see SnowflakeID
+ * @see SequenceGeneratorID
+ */
+public class ConcurrentSnowflakeID {
+
+    /**
+     * 时钟回拨/序列耗尽时的处理策略
+     */
+    public enum ClockSkewPolicy {
+        /**
+         * 继续在逻辑时钟上分配(借用未来的时间截)，超过最大借用时间后等待
+         */
+        BORROW,
+        /**
+         * 等待系统时钟追上最后一次分配的时间截
+         */
+        WAIT,
+        /**
+         * 时钟回拨时直接抛出异常(与{@link SnowflakeID}行为一致)，序列耗尽时等待下一毫秒
+         */
+        FAIL
+    }
+
+    /**
+     * 开始时间截 (2015-01-01)
+     */
+    private static final long TW_EPOCH = 1420070400000L;
+
+    private static final long WORKER_ID_BITS = 5L;
+
+    private static final long DATA_CENTER_ID_BITS = 5L;
+
+    private static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    private static final long MAX_DATA_CENTER_ID = ~(-1L << DATA_CENTER_ID_BITS);
+
+    private static final long SEQUENCE_BITS = 12L;
+
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+    private static final long DATA_CENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATA_CENTER_ID_BITS;
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    /**
+     * 打包状态  (时间截 - TW_EPOCH) &lt;&lt; 12 | 序列  表示最后一个已分配的ID
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    /**
+     * 机器ID与数据中心ID拼接后的固定位
+     */
+    private final long nodeBits;
+
+    private final ClockSkewPolicy policy;
+
+    private final long maxBorrowMillis;
+
+    private final int leaseSize;
+
+    /**
+     * 一次预留的最大数量  保证预留的ID不会超出策略允许领先系统时钟的范围
+     */
+    private final int maxReservation;
+
+    private final long leaseTtlMillis;
+
+    private final ThreadLocal<long[]> lease = ThreadLocal.withInitial(() -> new long[]{0L, -1L});
+
+    /**
+     * 默认策略: 允许借用100毫秒  每个线程每次租用256个ID  租约1秒过期
+     *
+     * @param workerId     工作ID (0~31)
+     * @param dataCenterId 数据中心ID (0~31)
+     */
+    public ConcurrentSnowflakeID(long workerId, long dataCenterId) {
+        this(workerId, dataCenterId, ClockSkewPolicy.BORROW, 100L, 256, 1000L);
+    }
+
+    /**
+     * @param workerId        工作ID (0~31)
+     * @param dataCenterId    数据中心ID (0~31)
+     * @param policy          时钟回拨/序列耗尽时的处理策略
+     * @param maxBorrowMillis {@link ClockSkewPolicy#BORROW}下逻辑时钟最多领先系统时钟的毫秒数
+     * @param leaseSize       {@link #nextLeasedId()}每次租用的ID数量  不能超过{@link #maxReservation()}
+     * @param leaseTtlMillis  租约过期时间  过期后剩余的ID被丢弃  避免ID的时间截过旧
+     */
+    public ConcurrentSnowflakeID(long workerId, long dataCenterId, ClockSkewPolicy policy,
+                                 long maxBorrowMillis, int leaseSize, long leaseTtlMillis) {
+        if (workerId > MAX_WORKER_ID || workerId < 0) {
+            throw new IllegalArgumentException(String.format("worker PrimaryKey can't be greater than %d or less than 0", MAX_WORKER_ID));
+        }
+        if (dataCenterId > MAX_DATA_CENTER_ID || dataCenterId < 0) {
+            throw new IllegalArgumentException(String.format("datacenter PrimaryKey can't be greater than %d or less than 0", MAX_DATA_CENTER_ID));
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        if (maxBorrowMillis < 0 || leaseSize <= 0 || leaseTtlMillis <= 0) {
+            throw new IllegalArgumentException("maxBorrowMillis must be >= 0, leaseSize and leaseTtlMillis must be > 0");
+        }
+        // BORROW下一次最多预留(maxBorrowMillis + 1)毫秒的序列  其他策略只能预留一毫秒的序列
+        long maxReservationMillis = policy == ClockSkewPolicy.BORROW ? maxBorrowMillis + 1 : 1;
+        this.maxReservation = maxReservationMillis > (Integer.MAX_VALUE >>> SEQUENCE_BITS)
+                ? Integer.MAX_VALUE : (int) (maxReservationMillis << SEQUENCE_BITS);
+        if (leaseSize > maxReservation) {
+            throw new IllegalArgumentException(String.format("leaseSize can't be greater than %d under %s with maxBorrowMillis %d",
+                    maxReservation, policy, maxBorrowMillis));
+        }
+        this.nodeBits = (dataCenterId << DATA_CENTER_ID_SHIFT) | (workerId << WORKER_ID_SHIFT);
+        this.policy = policy;
+        this.maxBorrowMillis = maxBorrowMillis;
+        this.leaseSize = leaseSize;
+        this.leaseTtlMillis = leaseTtlMillis;
+    }
+
+    /**
+     * 获得下一个ID (线程安全  无锁)
+     *
+     * @return SnowflakeId
+     */
+    public long nextId() {
+        return toId(reserve(1));
+    }
+
+    /**
+     * 预留n个ID  n不超过{@link #maxReservation()}时一次CAS预留一段连续ID；
+     * 否则按{@link #maxReservation()}分段预留，段内连续，段与段之间可能穿插其他线程分配的ID
+     *
+     * @param n 数量
+     * @return 递增的ID
+     */
+    public long[] nextIds(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        long[] ids = new long[n];
+        for (int offset = 0; offset < n; ) {
+            int chunk = Math.min(n - offset, maxReservation);
+            long first = reserve(chunk) - chunk + 1;
+            for (int i = 0; i < chunk; i++) {
+                ids[offset++] = toId(first + i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return 一次CAS最多预留的ID数量  {@link ClockSkewPolicy#BORROW}下为(maxBorrowMillis + 1) * 4096，其他策略为4096
+     */
+    public int maxReservation() {
+        return maxReservation;
+    }
+
+    /**
+     * 从当前线程租用的ID块中分配  块用完或过期后再从共享状态预留下一块
+     * <p>
+     * 同一线程内ID递增；不同线程之间的ID不保证按分配的先后顺序递增
+     *
+     * @return SnowflakeId
+     */
+    public long nextLeasedId() {
+        long[] block = lease.get();
+        long next = block[0];
+        if (next > block[1] || ((next >>> SEQUENCE_BITS) + leaseTtlMillis) < currentMillis()) {
+            long last = reserve(leaseSize);
+            next = last - leaseSize + 1;
+            block[1] = last;
+        }
+        block[0] = next + 1;
+        return toId(next);
+    }
+
+    /**
+     * 从ID中解析出生成时的时间截(毫秒)
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_LEFT_SHIFT) + TW_EPOCH;
+    }
+
+    /**
+     * 预留n个连续的打包状态
+     * <p>
+     * n不超过maxReservation时，系统时钟追上最后一次分配的时间截后从当前毫秒开始分配，
+     * 领先的毫秒数在策略允许的范围内，所以等待之后一定能完成
+     *
+     * @return 预留的最后一个打包状态
+     */
+    private long reserve(int n) {
+        if (n > maxReservation) {
+            throw new IllegalArgumentException(String.format("can't reserve more than %d ids at once", maxReservation));
+        }
+        for (; ; ) {
+            long current = state.get();
+            long now = currentMillis();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long first = now > lastTimestamp || current < 0 ? now << SEQUENCE_BITS : current + 1;
+            long last = first + n - 1;
+            long ahead = (last >>> SEQUENCE_BITS) - now;
+            if (ahead > 0 && !mayRunAhead(ahead, now < lastTimestamp)) {
+                awaitMillis(now + ahead);
+                continue;
+            }
+            if (state.compareAndSet(current, last)) {
+                return last;
+            }
+        }
+    }
+
+    /**
+     * @param ahead           逻辑时钟领先系统时钟的毫秒数
+     * @param clockMovedBack  系统时钟是否回拨
+     * @return true 允许在逻辑时钟上继续分配  false 需要等待
+     */
+    private boolean mayRunAhead(long ahead, boolean clockMovedBack) {
+        switch (policy) {
+            case BORROW:
+                return ahead <= maxBorrowMillis;
+            case FAIL:
+                if (clockMovedBack) {
+                    throw new IllegalStateException(String.format("Clock moved backwards.  Refusing to generate idVal for %d milliseconds", ahead));
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private void awaitMillis(long targetMillis) {
+        long remaining;
+        while ((remaining = targetMillis - currentMillis()) > 0) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remaining));
+        }
+    }
+
+    private long toId(long packed) {
+        return ((packed >>> SEQUENCE_BITS) << TIMESTAMP_LEFT_SHIFT) | nodeBits | (packed & SEQUENCE_MASK);
+    }
+
+    private long currentMillis() {
+        return generateTimes() - TW_EPOCH;
+    }
+
+    /**
+     * 返回以毫秒为单位的当前时间
+     *
+     * @return 当前时间(毫秒)
+     */
+    protected long generateTimes() {
+        return System.currentTimeMillis();
+    }
+}
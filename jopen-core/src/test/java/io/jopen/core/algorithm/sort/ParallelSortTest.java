@@ -0,0 +1,129 @@
+package io.jopen.core.algorithm.sort;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author maxuefeng
+ */
+public class ParallelSortTest {
+
+    private final Random random = new Random(17);
+
+    @Test
+    public void testParallelSort() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelSortAlgorithm algorithm = new ParallelSortAlgorithm(pool, 1000);
+            int[] ints = random.ints(200_000).toArray();
+            int[] expectedInts = ints.clone();
+            Arrays.sort(expectedInts);
+            Assert.assertArrayEquals(expectedInts, algorithm.sort(ints));
+
+            long[] longs = random.longs(200_000, -50, 50).toArray();
+            long[] expectedLongs = longs.clone();
+            Arrays.sort(expectedLongs, 100, 150_000);
+            algorithm.sort(longs, 100, 150_000);
+            Assert.assertArrayEquals(expectedLongs, longs);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRadixSort() {
+        int[] ints = random.ints(100_000).toArray();
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        Assert.assertArrayEquals(expectedInts, new RadixSortAlgorithm().sort(ints));
+
+        long[] longs = random.longs(100_000).toArray();
+        longs[0] = Long.MIN_VALUE;
+        longs[1] = Long.MAX_VALUE;
+        long[] expectedLongs = longs.clone();
+        Arrays.sort(expectedLongs);
+        RadixSortAlgorithm.sortLongs(longs);
+        Assert.assertArrayEquals(expectedLongs, longs);
+
+        float[] floats = new float[1000];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = (random.nextFloat() - 0.5f) * 1e6f;
+        }
+        floats[0] = Float.NaN;
+        floats[1] = -0.0f;
+        floats[2] = 0.0f;
+        floats[3] = Float.NEGATIVE_INFINITY;
+        float[] expectedFloats = floats.clone();
+        Arrays.sort(expectedFloats);
+        RadixSortAlgorithm.sortFloats(floats);
+        Assert.assertArrayEquals(expectedFloats, floats, 0f);
+    }
+
+    @Test
+    public void testIndexSortIsStable() {
+        long[] keys = {5, 3, 5, 1, 3};
+        int[] perm = IndexSort.argsort(keys);
+        Assert.assertArrayEquals(new int[]{3, 1, 4, 0, 2}, perm);
+        Assert.assertArrayEquals(new long[]{1, 3, 3, 5, 5}, IndexSort.gather(keys, perm));
+
+        String[] records = {"ccc", "a", "bb", "dddd", "e"};
+        IndexSort.sortBy(records, String::length);
+        Assert.assertArrayEquals(new String[]{"a", "e", "bb", "ccc", "dddd"}, records);
+
+        double[] doubles = {0.5, -1.5, Double.NaN, 2.0};
+        Assert.assertArrayEquals(new int[]{1, 0, 3, 2}, IndexSort.argsort(doubles));
+    }
+
+    @Test
+    public void testExternalMergeSort() throws IOException {
+        Path dir = Files.createTempDirectory("external-sort");
+        Path input = dir.resolve("input.bin");
+        Path output = dir.resolve("output.bin");
+        long[] values = random.longs(100_003, -1000, 1000).toArray();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(input)))) {
+            for (long value : values) {
+                out.writeLong(value);
+            }
+        }
+        try {
+            // 段长度很小  强制多段并行归并
+            new ExternalMergeSort(7_000, 3).sortLongs(input, output);
+            Arrays.sort(values);
+            Assert.assertEquals(values.length * 8L, Files.size(output));
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(output))) {
+                for (long value : values) {
+                    Assert.assertEquals(value, in.readLong());
+                }
+            }
+            try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+                Assert.assertEquals("temporary runs must be removed", 2, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testDefaultRunLengthFitsInHeap() {
+        // 8个线程  512MB堆  一半给段: 256MB / 8 / 16B
+        Assert.assertEquals(1 << 21, ExternalMergeSort.defaultRunLength(512L << 20, 8));
+        Assert.assertEquals(ExternalMergeSort.DEFAULT_RUN_LENGTH, ExternalMergeSort.defaultRunLength(Long.MAX_VALUE, 1));
+        Assert.assertEquals(1 << 12, ExternalMergeSort.defaultRunLength(1 << 20, 64));
+        for (int parallelism = 1; parallelism <= 64; parallelism *= 2) {
+            long maxMemory = 256L << 20;
+            Assert.assertTrue(parallelism * (long) ExternalMergeSort.defaultRunLength(maxMemory, parallelism) * 16 <= maxMemory / 2);
+        }
+    }
+}
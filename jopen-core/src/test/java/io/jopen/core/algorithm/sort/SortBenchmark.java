@@ -0,0 +1,64 @@
+package io.jopen.core.algorithm.sort;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * 排序吞吐量对比  每个场景先预热再计时  打印每秒排序的元素个数
+ *
+ * @author maxuefeng
+ * @see ParallelSortAlgorithm
+ * @see RadixSortAlgorithm
+ */
+public class SortBenchmark {
+
+    private static final int N = 10_000_000;
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int[] ints = random.ints(N).toArray();
+        long[] longs = random.longs(N).toArray();
+        // 取值范围较小的键(如时间截)  基数排序可以跳过大部分轮次
+        long[] narrowLongs = random.longs(N, 0, 1L << 24).toArray();
+
+        System.out.println("threads: " + Runtime.getRuntime().availableProcessors());
+        bench("int   Arrays.sort", ints, Arrays::sort);
+        bench("int   Arrays.parallelSort", ints, Arrays::parallelSort);
+        bench("int   ParallelSortAlgorithm", ints, new ParallelSortAlgorithm()::sort);
+        bench("int   RadixSortAlgorithm", ints, RadixSortAlgorithm::sortInts);
+        bench("long  Arrays.sort", longs, Arrays::sort);
+        bench("long  ParallelSortAlgorithm", longs, new ParallelSortAlgorithm()::sort);
+        bench("long  RadixSortAlgorithm", longs, RadixSortAlgorithm::sortLongs);
+        bench("long24 Arrays.sort", narrowLongs, Arrays::sort);
+        bench("long24 RadixSortAlgorithm", narrowLongs, RadixSortAlgorithm::sortLongs);
+    }
+
+    private static void bench(String name, int[] data, Consumer<int[]> sorter) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            int[] copy = data.clone();
+            long start = System.nanoTime();
+            sorter.accept(copy);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        print(name, best);
+    }
+
+    private static void bench(String name, long[] data, Consumer<long[]> sorter) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long[] copy = data.clone();
+            long start = System.nanoTime();
+            sorter.accept(copy);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        print(name, best);
+    }
+
+    private static void print(String name, long nanos) {
+        System.out.printf("%-30s %8.1f ms %10.1f M elements/s%n", name, nanos / 1e6, N * 1e3 / nanos);
+    }
+}
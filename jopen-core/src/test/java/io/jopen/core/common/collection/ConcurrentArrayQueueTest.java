@@ -0,0 +1,118 @@
+package io.jopen.core.common.collection;
+
+import io.jopen.core.common.concurrent.WaitStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author maxuefeng
+ */
+public class ConcurrentArrayQueueTest {
+
+    @Test
+    public void testMpmcBasic() {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(3);
+        Assert.assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertEquals(4, queue.size());
+        Assert.assertEquals(Integer.valueOf(0), queue.deQueue());
+        queue.enQueue(4);
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(4, queue.drainTo(drained));
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4), drained);
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEnQueueFull() {
+        SpscArrayQueue<String> queue = new SpscArrayQueue<>(2);
+        queue.enQueue("a");
+        queue.enQueue("b");
+        queue.enQueue("c");
+    }
+
+    @Test
+    public void testSpscBatch() {
+        SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(8);
+        Assert.assertEquals(8, queue.offerAll(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(3, queue.drainTo(drained, 3));
+        Assert.assertEquals(Arrays.asList(0, 1, 2), drained);
+        Assert.assertEquals(3, queue.offerAll(Arrays.asList(8, 9, 10, 11)));
+        drained.clear();
+        Assert.assertEquals(8, queue.drainTo(drained));
+        Assert.assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9, 10), drained);
+    }
+
+    @Test
+    public void testTimedPoll() throws InterruptedException {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(2, WaitStrategy.YIELD);
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        queue.put(1);
+        queue.put(2);
+        Assert.assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testMpmcConcurrent() throws InterruptedException {
+        transfer(new MpmcArrayQueue<>(64), 3, 3, 50_000);
+    }
+
+    @Test
+    public void testSpscConcurrent() throws InterruptedException {
+        transfer(new SpscArrayQueue<>(64), 1, 1, 200_000);
+    }
+
+    /**
+     * 每个生产者放入1..perProducer  所有消费者取出的元素之和必须等于放入的总和
+     */
+    private static void transfer(ConcurrentArrayQueue<Long> queue, int producers, int consumers, int perProducer)
+            throws InterruptedException {
+        long total = (long) producers * perProducer;
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong sum = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (long v = 1; v <= perProducer; v++) {
+                        queue.put(v);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                long local = 0;
+                while (consumed.get() < total) {
+                    Long v = queue.poll();
+                    if (v != null) {
+                        local += v;
+                        consumed.incrementAndGet();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                sum.addAndGet(local);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(total, consumed.get());
+        Assert.assertEquals(producers * ((long) perProducer * (perProducer + 1) / 2), sum.get());
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
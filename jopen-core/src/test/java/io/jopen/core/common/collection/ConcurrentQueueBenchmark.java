@@ -0,0 +1,147 @@
+package io.jopen.core.common.collection;
+
+import io.jopen.core.common.concurrent.WaitStrategy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * 生产者/消费者交接的吞吐量对比
+ * <p>
+ * 每个场景传递固定数量的元素  先预热一轮再计时  打印每秒交接的元素个数
+ *
+ * @author maxuefeng
+ * @see MpmcArrayQueue
+ * @see SpscArrayQueue
+ */
+public class ConcurrentQueueBenchmark {
+
+    private static final int CAPACITY = 1024;
+
+    private static final int MESSAGES = 2_000_000;
+
+    private static final Integer ITEM = 1;
+
+    /**
+     * 被测队列的最小公共操作  阻塞入队  阻塞出队
+     */
+    private interface Channel {
+        void put(Integer e) throws InterruptedException;
+
+        Integer take() throws InterruptedException;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int[][] shapes = {{1, 1}, {2, 2}, {4, 4}};
+        for (int[] shape : shapes) {
+            int producers = shape[0];
+            int consumers = shape[1];
+            System.out.printf("== %d producer(s) / %d consumer(s) ==%n", producers, consumers);
+            if (producers == 1 && consumers == 1) {
+                for (WaitStrategy strategy : WaitStrategy.values()) {
+                    run("SpscArrayQueue/" + strategy, () -> of(new SpscArrayQueue<>(CAPACITY, strategy)), producers, consumers);
+                }
+            }
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                run("MpmcArrayQueue/" + strategy, () -> of(new MpmcArrayQueue<>(CAPACITY, strategy)), producers, consumers);
+            }
+            run("ArrayBlockingQueue", () -> of(new ArrayBlockingQueue<>(CAPACITY)), producers, consumers);
+            run("LinkedBlockingQueue", () -> of(new LinkedBlockingQueue<>(CAPACITY)), producers, consumers);
+            run("ConcurrentLinkedQueue(unbounded)", ConcurrentQueueBenchmark::concurrentLinkedQueue, producers, consumers);
+        }
+    }
+
+    private static void run(String name, Supplier<Channel> factory, int producers, int consumers)
+            throws InterruptedException {
+        transfer(factory.get(), producers, consumers);
+        long elapsed = transfer(factory.get(), producers, consumers);
+        System.out.printf("%-36s %14.0f ops/s%n", name, MESSAGES * 1e9 / elapsed);
+    }
+
+    private static long transfer(Channel channel, int producers, int consumers) throws InterruptedException {
+        int perProducer = MESSAGES / producers;
+        int perConsumer = MESSAGES / consumers;
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        channel.put(ITEM);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perConsumer; i++) {
+                        channel.take();
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Channel of(ConcurrentArrayQueue<Integer> queue) {
+        return new Channel() {
+            @Override
+            public void put(Integer e) throws InterruptedException {
+                queue.put(e);
+            }
+
+            @Override
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    private static Channel of(BlockingQueue<Integer> queue) {
+        return new Channel() {
+            @Override
+            public void put(Integer e) throws InterruptedException {
+                queue.put(e);
+            }
+
+            @Override
+            public Integer take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+
+    /**
+     * ConcurrentLinkedQueue没有阻塞操作  出队为空时让出CPU
+     */
+    private static Channel concurrentLinkedQueue() {
+        ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+        return new Channel() {
+            @Override
+            public void put(Integer e) {
+                queue.offer(e);
+            }
+
+            @Override
+            public Integer take() {
+                Integer e;
+                while ((e = queue.poll()) == null) {
+                    Thread.yield();
+                }
+                return e;
+            }
+        };
+    }
+}
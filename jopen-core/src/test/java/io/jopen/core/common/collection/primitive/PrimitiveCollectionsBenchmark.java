@@ -0,0 +1,179 @@
+package io.jopen.core.common.collection.primitive;
+
+import io.jopen.core.common.collection.PriorityArrayQueue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * 基本类型集合与现有实现/JDK集合的对比
+ * <p>
+ * 每个场景先预热若干轮再计时  打印每个元素的平均纳秒数；结果会被累加到sink中防止被JIT消除
+ *
+ * @author maxuefeng
+ * @see io.jopen.core.algorithm.heap.MinHeap
+ */
+public class PrimitiveCollectionsBenchmark {
+
+    private static final int N = 100_000;
+
+    private static final int ROUNDS = 10;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        long[] data = new long[N];
+        for (int i = 0; i < N; i++) {
+            data[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+
+        System.out.println("== heap push + pop ==");
+        bench("LongHeap(4-ary)", () -> {
+            LongHeap heap = new LongHeap();
+            for (long v : data) {
+                heap.push(v);
+            }
+            long s = 0;
+            while (!heap.isEmpty()) {
+                s += heap.pop();
+            }
+            return s;
+        });
+        bench("java.util.PriorityQueue<Long>", () -> {
+            PriorityQueue<Long> heap = new PriorityQueue<>();
+            for (long v : data) {
+                heap.add(v);
+            }
+            long s = 0;
+            while (!heap.isEmpty()) {
+                s += heap.poll();
+            }
+            return s;
+        });
+        // algorithm.heap.MinHeap的toggleUp在元素上浮到根时访问下标-1  插入第一个元素即抛出异常  无法参与对比
+
+        System.out.println("== top-100 ==");
+        bench("LongHeap.offerBounded", () -> {
+            LongHeap heap = new LongHeap();
+            for (long v : data) {
+                heap.offerBounded(v, 100);
+            }
+            return heap.peek();
+        });
+
+        System.out.println("== insert 10k ==");
+        // PriorityArrayQueue插入是O(n)  只在小规模下比较
+        bench("PriorityArrayQueue (10k)", () -> {
+            PriorityArrayQueue<Integer> queue = new PriorityArrayQueue<>(10_000);
+            for (int i = 0; i < 10_000; i++) {
+                queue.insert((int) data[i]);
+            }
+            return queue.peek();
+        }, 10_000);
+        bench("IntHeap (10k)", () -> {
+            IntHeap heap = new IntHeap(4, true, 10_000);
+            for (int i = 0; i < 10_000; i++) {
+                heap.push((int) data[i]);
+            }
+            return heap.peek();
+        }, 10_000);
+
+        System.out.println("== indexed decrease-key ==");
+        bench("IndexedLongPriorityQueue", () -> {
+            IndexedLongPriorityQueue queue = new IndexedLongPriorityQueue(N);
+            for (int id = 0; id < N; id++) {
+                queue.insert(id, data[id]);
+            }
+            for (int id = 0; id < N; id++) {
+                queue.decreaseKey(id, data[id] >> 1);
+            }
+            return queue.peekKey();
+        });
+
+        System.out.println("== map put + get ==");
+        bench("LongLongHashMap", () -> {
+            LongLongHashMap map = new LongLongHashMap();
+            for (long v : data) {
+                map.addTo(v, 1);
+            }
+            long s = 0;
+            for (long v : data) {
+                s += map.get(v);
+            }
+            return s;
+        });
+        bench("HashMap<Long, Long>", () -> {
+            Map<Long, Long> map = new HashMap<>();
+            for (long v : data) {
+                map.merge(v, 1L, Long::sum);
+            }
+            long s = 0;
+            for (long v : data) {
+                s += map.get(v);
+            }
+            return s;
+        });
+        bench("LongObjectHashMap", () -> {
+            LongObjectHashMap<Object> map = new LongObjectHashMap<>();
+            for (long v : data) {
+                map.put(v, data);
+            }
+            return map.size();
+        });
+
+        System.out.println("== list add + sum ==");
+        bench("LongArrayList", () -> {
+            LongArrayList list = new LongArrayList();
+            for (long v : data) {
+                list.add(v);
+            }
+            long s = 0;
+            for (int i = 0; i < list.size(); i++) {
+                s += list.get(i);
+            }
+            return s;
+        });
+        bench("ArrayList<Long>", () -> {
+            List<Long> list = new ArrayList<>();
+            for (long v : data) {
+                list.add(v);
+            }
+            long s = 0;
+            for (Long v : list) {
+                s += v;
+            }
+            return s;
+        });
+        bench("collection.LinkedList (int)", () -> {
+            io.jopen.core.common.collection.LinkedList list = new io.jopen.core.common.collection.LinkedList();
+            for (long v : data) {
+                list.insertHead((int) v);
+            }
+            return list.getSize();
+        });
+
+        System.out.println(sink);
+    }
+
+    private static void bench(String name, LongSupplier task) {
+        bench(name, task, N);
+    }
+
+    private static void bench(String name, LongSupplier task, int elements) {
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += task.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += task.getAsLong();
+        }
+        double nsPerOp = (System.nanoTime() - start) / (double) ROUNDS / elements;
+        System.out.printf("%-32s %10.1f ns/element%n", name, nsPerOp);
+    }
+}
@@ -0,0 +1,84 @@
+package io.jopen.core.common.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author maxuefeng
+ */
+public class PrimitiveHashMapTest {
+
+    @Test
+    public void testLongLongMapAgainstHashMap() {
+        Random random = new Random(3);
+        LongLongHashMap map = new LongLongHashMap(4, 0.75f, -1L);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // 键范围较小  保证有大量的覆盖与删除
+            long key = random.nextInt(5000) - 100;
+            long value = random.nextLong();
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                Assert.assertEquals(removed == null ? -1L : removed, map.remove(key));
+            } else {
+                Long previous = expected.put(key, value);
+                Assert.assertEquals(previous == null ? -1L : previous, map.put(key, value));
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4900; key++) {
+            Long value = expected.get(key);
+            Assert.assertEquals(value != null, map.containsKey(key));
+            Assert.assertEquals(value == null ? -1L : value, map.get(key));
+        }
+        long[] sum = new long[1];
+        map.forEach((k, v) -> sum[0]++);
+        Assert.assertEquals(expected.size(), sum[0]);
+    }
+
+    @Test
+    public void testZeroKeyAndAddTo() {
+        LongLongHashMap map = new LongLongHashMap();
+        Assert.assertFalse(map.containsKey(0));
+        Assert.assertEquals(3, map.addTo(0, 3));
+        Assert.assertEquals(5, map.addTo(0, 2));
+        Assert.assertEquals(1, map.addTo(Long.MIN_VALUE, 1));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(5, map.remove(0));
+        Assert.assertFalse(map.containsKey(0));
+        Assert.assertEquals(1, map.size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testLongObjectMap() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertNull(map.put(i * 1024, "v" + i));
+        }
+        Assert.assertEquals(1000, map.size());
+        Assert.assertEquals("v0", map.get(0));
+        Assert.assertEquals("v999", map.get(999 * 1024));
+        Assert.assertEquals("x", map.computeIfAbsent(7, k -> "x"));
+        Assert.assertEquals("v1", map.computeIfAbsent(1024, k -> "y"));
+
+        for (long i = 0; i < 1000; i += 2) {
+            Assert.assertEquals("v" + i, map.remove(i * 1024));
+        }
+        for (long i = 1; i < 1000; i += 2) {
+            Assert.assertEquals("v" + i, map.get(i * 1024));
+        }
+        Assert.assertEquals(501, map.size());
+        Assert.assertEquals(501, map.keys().length);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() {
+        new LongObjectHashMap<String>().put(1, null);
+    }
+}
@@ -0,0 +1,117 @@
+package io.jopen.core.common.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * @author maxuefeng
+ */
+public class PrimitiveHeapTest {
+
+    @Test
+    public void testLongHeapOrder() {
+        Random random = new Random(7);
+        long[] values = new long[10000];
+        LongHeap heap = new LongHeap();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+            heap.push(values[i]);
+        }
+        Arrays.sort(values);
+        Assert.assertArrayEquals(values, heap.drain());
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testMaxHeapTopK() {
+        // 大顶堆保留最小的k个  小顶堆保留最大的k个
+        IntHeap smallest = new IntHeap(2, true, 4);
+        IntHeap largest = new IntHeap(4, false, 4);
+        for (int i = 0; i < 1000; i++) {
+            int v = (i * 7919) % 1000;
+            smallest.offerBounded(v, 3);
+            largest.offerBounded(v, 3);
+        }
+        Assert.assertArrayEquals(new int[]{2, 1, 0}, smallest.drain());
+        Assert.assertArrayEquals(new int[]{997, 998, 999}, largest.drain());
+    }
+
+    @Test
+    public void testDoubleHeapReplaceTop() {
+        DoubleHeap heap = new DoubleHeap();
+        heap.push(3.0);
+        heap.push(1.0);
+        heap.push(2.0);
+        Assert.assertEquals(1.0, heap.replaceTop(5.0), 0.0);
+        Assert.assertEquals(2.0, heap.pop(), 0.0);
+        Assert.assertEquals(3.0, heap.pop(), 0.0);
+        Assert.assertEquals(5.0, heap.pop(), 0.0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testPopEmpty() {
+        new LongHeap().pop();
+    }
+
+    @Test
+    public void testIndexedQueueChangeKey() {
+        IndexedLongPriorityQueue queue = new IndexedLongPriorityQueue(4);
+        queue.insert(0, 50);
+        queue.insert(1, 40);
+        queue.insert(2, 30);
+        queue.insert(3, 20);
+        Assert.assertEquals(3, queue.peekId());
+
+        queue.decreaseKey(0, 10);
+        Assert.assertEquals(0, queue.peekId());
+        queue.increaseKey(0, 60);
+        Assert.assertEquals(3, queue.peekId());
+        Assert.assertEquals(60, queue.keyOf(0));
+
+        Assert.assertTrue(queue.remove(3));
+        Assert.assertFalse(queue.contains(3));
+        queue.upsert(3, 35);
+        queue.upsert(1, 5);
+
+        Assert.assertEquals(1, queue.pollId());
+        Assert.assertEquals(2, queue.pollId());
+        Assert.assertEquals(3, queue.pollId());
+        Assert.assertEquals(0, queue.pollId());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testIndexedQueueDijkstraStyle() {
+        Random random = new Random(11);
+        int n = 2000;
+        long[] expected = new long[n];
+        IndexedDoublePriorityQueue queue = new IndexedDoublePriorityQueue(0);
+        for (int id = 0; id < n; id++) {
+            queue.ensureCapacity(id + 1);
+            double key = random.nextInt(100000);
+            queue.insert(id, key);
+            // 随机更新一半的键
+            if (id % 2 == 0) {
+                key = random.nextInt(100000);
+                queue.changeKey(id, key);
+            }
+            expected[id] = (long) key;
+        }
+        Arrays.sort(expected);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(expected[i], (long) queue.peekKey());
+            queue.pollId();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexedQueueDuplicateInsert() {
+        IndexedLongPriorityQueue queue = new IndexedLongPriorityQueue(2);
+        queue.insert(1, 1);
+        queue.insert(1, 2);
+    }
+}
@@ -0,0 +1,49 @@
+package io.jopen.core.common.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author maxuefeng
+ */
+public class PrimitiveListTest {
+
+    @Test
+    public void testLongArrayList() {
+        LongArrayList list = new LongArrayList(2);
+        for (long i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        list.add(0, -1);
+        Assert.assertEquals(101, list.size());
+        Assert.assertEquals(-1, list.get(0));
+        Assert.assertEquals(99, list.removeLast());
+        Assert.assertEquals(-1, list.removeAt(0));
+        Assert.assertEquals(10, list.indexOf(10));
+        Assert.assertEquals(99 * 98 / 2, list.stream().sum());
+
+        list.set(0, 1000);
+        list.sort();
+        Assert.assertEquals(1000, list.get(list.size() - 1));
+        Assert.assertEquals(0, list.binarySearch(1));
+        Assert.assertEquals(LongArrayList.of(1, 2, 3), LongArrayList.of(1, 2, 3));
+    }
+
+    @Test
+    public void testIntAndDoubleArrayList() {
+        IntArrayList ints = IntArrayList.of(3, 1, 2);
+        ints.sort();
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, ints.toArray());
+
+        DoubleArrayList doubles = DoubleArrayList.of(0.5, Double.NaN);
+        Assert.assertTrue(doubles.contains(Double.NaN));
+        Assert.assertEquals(DoubleArrayList.of(0.5, Double.NaN), doubles);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        LongArrayList list = new LongArrayList();
+        list.add(1);
+        list.get(1);
+    }
+}
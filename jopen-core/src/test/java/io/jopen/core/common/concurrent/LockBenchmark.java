@@ -0,0 +1,101 @@
+package io.jopen.core.common.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 锁的吞吐量对比  短临界区  1~64个线程
+ * <p>
+ * 每轮先预热再计时  结果为所有线程每秒完成的加锁/解锁次数  同时打印进程CPU时间以观察空转
+ *
+ * @author maxuefeng
+ * @see SpinLock
+ * @see AdaptiveSpinLock
+ * @see TicketLock
+ * @see ReentrantLock
+ */
+public class LockBenchmark {
+
+    private static final long WARMUP_MILLIS = 500;
+
+    private static final long MEASURE_MILLIS = 2000;
+
+    private static long shared;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] threadCounts = {1, 2, 4, 8, 16, 32, 64};
+        String[] names = {"ReentrantLock", "SpinLock", "AdaptiveSpinLock", "TicketLock"};
+        @SuppressWarnings("unchecked")
+        Supplier<Lock>[] factories = new Supplier[]{ReentrantLock::new, SpinLock::new, AdaptiveSpinLock::new, TicketLock::new};
+
+        System.out.printf("%-18s %8s %16s %12s%n", "lock", "threads", "ops/s", "cpu ms");
+        for (int threads : threadCounts) {
+            for (int i = 0; i < names.length; i++) {
+                run(names[i], factories[i].get(), threads);
+            }
+        }
+    }
+
+    private static void run(String name, Lock lock, int threads) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] phase = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                while (true) {
+                    long p;
+                    lock.lock();
+                    try {
+                        shared++;
+                        p = phase[0];
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (p == 1) {
+                        local++;
+                    } else if (p == 2) {
+                        break;
+                    }
+                }
+                ops.add(local);
+            });
+            workers[t].start();
+        }
+
+        long cpuBefore = processCpuNanos();
+        start.countDown();
+        TimeUnit.MILLISECONDS.sleep(WARMUP_MILLIS);
+        lock.lock();
+        phase[0] = 1;
+        lock.unlock();
+        TimeUnit.MILLISECONDS.sleep(MEASURE_MILLIS);
+        lock.lock();
+        phase[0] = 2;
+        lock.unlock();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long cpuMillis = TimeUnit.NANOSECONDS.toMillis(processCpuNanos() - cpuBefore);
+
+        System.out.printf("%-18s %8d %16d %12d%n", name, threads, ops.sum() * 1000 / MEASURE_MILLIS, cpuMillis);
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = java.lang.management.ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0L;
+    }
+}
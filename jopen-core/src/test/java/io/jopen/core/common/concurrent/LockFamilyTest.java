@@ -0,0 +1,178 @@
+package io.jopen.core.common.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link SpinLock} {@link AdaptiveSpinLock} {@link TicketLock} {@link OptimisticReadWriteLock} 测试
+ *
+ * @author maxuefeng
+ */
+public class LockFamilyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ITERATIONS = 20000;
+
+    private int counter;
+
+    @Test
+    public void testMutualExclusion() throws InterruptedException {
+        for (Lock lock : new Lock[]{new SpinLock(), new AdaptiveSpinLock(), new TicketLock()}) {
+            counter = 0;
+            runConcurrently(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    lock.lock();
+                    try {
+                        counter++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            Assert.assertEquals(lock.getClass().getSimpleName(), THREADS * ITERATIONS, counter);
+        }
+    }
+
+    @Test
+    public void testReentrant() {
+        for (Lock lock : new Lock[]{new SpinLock(), new AdaptiveSpinLock(), new TicketLock()}) {
+            lock.lock();
+            lock.lock();
+            Assert.assertTrue(lock.tryLock());
+            lock.unlock();
+            lock.unlock();
+            Assert.assertFalse(tryLockFromAnotherThread(lock));
+            lock.unlock();
+            Assert.assertTrue(tryLockFromAnotherThread(lock));
+        }
+    }
+
+    @Test
+    public void testUnlockByNonOwner() {
+        for (Lock lock : new Lock[]{new SpinLock(), new AdaptiveSpinLock(), new TicketLock()}) {
+            try {
+                lock.unlock();
+                Assert.fail(lock.getClass().getSimpleName() + " accepted unlock from a non-owner");
+            } catch (IllegalMonitorStateException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testTryLockTimeout() throws InterruptedException {
+        for (Lock lock : new Lock[]{new SpinLock(), new AdaptiveSpinLock(), new TicketLock()}) {
+            CountDownLatch locked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread holder = new Thread(() -> {
+                lock.lock();
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    lock.unlock();
+                }
+            });
+            holder.start();
+            locked.await();
+
+            long start = System.nanoTime();
+            Assert.assertFalse(lock.tryLock(50, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+            release.countDown();
+            Assert.assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+            lock.unlock();
+            holder.join();
+        }
+    }
+
+    @Test
+    public void testAdaptiveSpinLockCondition() throws InterruptedException {
+        AdaptiveSpinLock lock = new AdaptiveSpinLock();
+        Condition ready = lock.newCondition();
+        AtomicBoolean flag = new AtomicBoolean();
+
+        Thread waiter = new Thread(() -> {
+            lock.lock();
+            try {
+                while (!flag.get()) {
+                    ready.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        waiter.start();
+
+        lock.lock();
+        try {
+            flag.set(true);
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        waiter.join(5000);
+        Assert.assertFalse(waiter.isAlive());
+    }
+
+    @Test
+    public void testOptimisticRead() throws InterruptedException {
+        OptimisticReadWriteLock lock = new OptimisticReadWriteLock();
+        long[] pair = new long[2];
+        AtomicBoolean torn = new AtomicBoolean();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (i % 10 == 0) {
+                    lock.write(() -> {
+                        pair[0]++;
+                        pair[1]++;
+                    });
+                } else {
+                    long diff = lock.read(() -> pair[0] - pair[1]);
+                    if (diff != 0) {
+                        torn.set(true);
+                    }
+                }
+            }
+        });
+        Assert.assertFalse(torn.get());
+        Assert.assertEquals(THREADS * ITERATIONS / 10, pair[0]);
+    }
+
+    private static boolean tryLockFromAnotherThread(Lock lock) {
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            if (lock.tryLock()) {
+                acquired.set(true);
+                lock.unlock();
+            }
+        });
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return acquired.get();
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(task);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.jopen.core.common.io;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 逐像素getRGB与直接访问像素数组的对比  以及各感知哈希的耗时
+ *
+ * @author maxuefeng
+ * @see ImageRasters
+ * @see PerceptualHash
+ */
+public class ImageBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        BufferedImage image1 = ImageRastersTest.randomImage(1920, 1080, BufferedImage.TYPE_3BYTE_BGR, 1);
+        BufferedImage image2 = ImageRastersTest.randomImage(1920, 1080, BufferedImage.TYPE_3BYTE_BGR, 1);
+
+        bench("isSame getRGB(x, y)", () -> {
+            int unlike = 0;
+            for (int x = 0; x < image1.getWidth(); x++) {
+                for (int y = 0; y < image1.getHeight(); y++) {
+                    if (ImageHelper.isSimilar(image1.getRGB(x, y), image2.getRGB(x, y))) {
+                        unlike++;
+                    }
+                }
+            }
+            return unlike;
+        });
+        bench("isSame raster", () -> ImageHelper.isSame(image1, image2) ? 1 : 0);
+        bench("grayImage", () -> ImageHelper.grayImage(image1).getWidth());
+        bench("aHash", () -> PerceptualHash.aHash(image1));
+        bench("dHash", () -> PerceptualHash.dHash(image1));
+        bench("pHash", () -> PerceptualHash.pHash(image1));
+        System.out.println(sink);
+    }
+
+    private static void bench(String name, java.util.function.LongSupplier task) {
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += task.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += task.getAsLong();
+        }
+        System.out.printf("%-24s %8.2f ms/image (1920x1080)%n", name, (System.nanoTime() - start) / 1e6 / ROUNDS);
+    }
+}
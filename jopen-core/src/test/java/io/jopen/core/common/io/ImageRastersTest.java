@@ -0,0 +1,96 @@
+package io.jopen.core.common.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * @author maxuefeng
+ */
+public class ImageRastersTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_INT_BGR,
+            BufferedImage.TYPE_USHORT_565_RGB
+    };
+
+    @Test
+    public void testArgbMatchesGetRGB() {
+        for (int type : TYPES) {
+            // 超过并行阈值  覆盖分带路径
+            BufferedImage image = randomImage(400, 300, type, 1);
+            int[] pixels = ImageRasters.argb(image);
+            for (int y = 0; y < image.getHeight(); y += 7) {
+                for (int x = 0; x < image.getWidth(); x += 5) {
+                    Assert.assertEquals("type " + type, image.getRGB(x, y), pixels[y * image.getWidth() + x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCropAndGray() {
+        BufferedImage image = randomImage(50, 40, BufferedImage.TYPE_3BYTE_BGR, 2);
+        BufferedImage cropped = ImageRasters.crop(image, 10, 5, 30, 25);
+        Assert.assertEquals(20, cropped.getWidth());
+        Assert.assertEquals(20, cropped.getHeight());
+        Assert.assertEquals(image.getRGB(10, 5), cropped.getRGB(0, 0));
+        Assert.assertEquals(image.getRGB(29, 24), cropped.getRGB(19, 19));
+
+        BufferedImage gray = ImageHelper.grayImage(image);
+        Assert.assertEquals(BufferedImage.TYPE_BYTE_GRAY, gray.getType());
+        byte[] luminance = ImageRasters.luminance(gray);
+        Assert.assertEquals(ImageRasters.luminance(image.getRGB(3, 4)), luminance[4 * 50 + 3] & 0xFF);
+    }
+
+    @Test
+    public void testCropKeepsAlphaOnlyWhenSourceHasAlpha() throws IOException {
+        BufferedImage opaque = ImageHelper.cropImage(randomImage(50, 40, BufferedImage.TYPE_3BYTE_BGR, 5), 0, 0, 20, 20);
+        Assert.assertEquals(BufferedImage.TYPE_INT_RGB, opaque.getType());
+        // jpg没有alpha通道  ARGB图片写入时ImageIO.write返回false
+        ByteArrayOutputStream jpg = new ByteArrayOutputStream();
+        Assert.assertTrue(ImageIO.write(opaque, "jpg", jpg));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpg.toByteArray()));
+        Assert.assertEquals(20, decoded.getWidth());
+        Assert.assertEquals(20, decoded.getHeight());
+
+        BufferedImage translucent = randomImage(50, 40, BufferedImage.TYPE_INT_ARGB, 6);
+        BufferedImage cropped = ImageRasters.crop(translucent, 10, 10, 30, 30);
+        Assert.assertEquals(BufferedImage.TYPE_INT_ARGB, cropped.getType());
+        Assert.assertEquals(translucent.getRGB(10, 10), cropped.getRGB(0, 0));
+    }
+
+    @Test
+    public void testIsSame() {
+        BufferedImage image = randomImage(200, 200, BufferedImage.TYPE_INT_RGB, 3);
+        BufferedImage copy = new BufferedImage(200, 200, BufferedImage.TYPE_3BYTE_BGR);
+        copy.getGraphics().drawImage(image, 0, 0, null);
+        Assert.assertTrue(ImageHelper.isSame(image, copy));
+        Assert.assertEquals(0, ImageRasters.countDifferentPixels(image, copy));
+
+        BufferedImage other = randomImage(200, 200, BufferedImage.TYPE_INT_RGB, 4);
+        Assert.assertFalse(ImageHelper.isSame(image, other));
+        Assert.assertFalse(ImageHelper.isSame(image, randomImage(10, 10, BufferedImage.TYPE_INT_RGB, 4)));
+    }
+
+    static BufferedImage randomImage(int width, int height, int type, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
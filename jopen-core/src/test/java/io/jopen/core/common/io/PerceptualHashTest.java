@@ -0,0 +1,107 @@
+package io.jopen.core.common.io;
+
+import io.jopen.core.algorithm.tree.BKTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * @author maxuefeng
+ */
+public class PerceptualHashTest {
+
+    @Test
+    public void testResizedImageKeepsHash() {
+        BufferedImage image = shapes(256, 256, 1);
+        BufferedImage smaller = new BufferedImage(128, 128, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = smaller.createGraphics();
+        g.drawImage(image, 0, 0, 128, 128, null);
+        g.dispose();
+        BufferedImage different = shapes(256, 256, 2);
+
+        Assert.assertTrue(PerceptualHash.hammingDistance(PerceptualHash.pHash(image), PerceptualHash.pHash(smaller)) <= 6);
+        Assert.assertTrue(PerceptualHash.hammingDistance(PerceptualHash.dHash(image), PerceptualHash.dHash(smaller)) <= 6);
+        Assert.assertTrue(PerceptualHash.hammingDistance(PerceptualHash.aHash(image), PerceptualHash.aHash(smaller)) <= 6);
+        Assert.assertTrue(ImageHelper.isNearDuplicate(image, smaller, 6));
+        Assert.assertFalse(ImageHelper.isNearDuplicate(image, different, 6));
+    }
+
+    @Test
+    public void testIndexesAgreeWithLinearScan() {
+        Random random = new Random(5);
+        long[] hashes = new long[20000];
+        BKTree<Integer> tree = new BKTree<>();
+        // 默认分段(3段)、按实际数量分段(4段)、很多段  距离较大时退化为线性扫描
+        List<ImageHashIndex<Integer>> indexes = Arrays.asList(
+                new ImageHashIndex<>(40), new ImageHashIndex<>(40, hashes.length), new ImageHashIndex<>(40, 4));
+        for (int i = 0; i < hashes.length; i++) {
+            // 一部分指纹是已有指纹翻转少数几位得到的近似重复
+            hashes[i] = i > 0 && i % 3 == 0 ? flip(hashes[random.nextInt(i)], random.nextInt(10), random) : random.nextLong();
+            tree.add(hashes[i], i);
+            for (ImageHashIndex<Integer> index : indexes) {
+                index.add(hashes[i], i);
+            }
+        }
+        Assert.assertEquals(hashes.length, tree.size());
+        Assert.assertEquals(hashes.length, indexes.get(0).size());
+
+        for (int q = 0; q < 200; q++) {
+            long query = flip(hashes[random.nextInt(hashes.length)], random.nextInt(4), random);
+            for (int distance : new int[]{0, 3, 8, 10, 13, 40}) {
+                List<Integer> expected = new java.util.ArrayList<>();
+                for (int i = 0; i < hashes.length; i++) {
+                    if (PerceptualHash.hammingDistance(query, hashes[i]) <= distance) {
+                        expected.add(i);
+                    }
+                }
+                Assert.assertEquals(expected, values(tree.search(query, distance)));
+                for (ImageHashIndex<Integer> index : indexes) {
+                    Assert.assertEquals(expected, values(index.search(query, distance)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentsFollowExpectedSize() {
+        Assert.assertEquals(3, ImageHashIndex.segments(1 << 20));
+        Assert.assertEquals(6, ImageHashIndex.segments(1000));
+        Assert.assertEquals(2, ImageHashIndex.segments(Integer.MAX_VALUE));
+
+        // r = 10 分3段: 10 = 3 * 3 + 1  前两段半径3  第三段半径2
+        Assert.assertArrayEquals(new int[]{3, 3, 2}, new ImageHashIndex<>(10).segmentRadii(10));
+        // r小于段数时只需精确查找前r + 1段
+        Assert.assertArrayEquals(new int[]{0, 0, -1}, new ImageHashIndex<>(10).segmentRadii(1));
+    }
+
+    private static List<Integer> values(List<BKTree.Match<Integer>> matches) {
+        return matches.stream().map(BKTree.Match::getValue).sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+    }
+
+    private static long flip(long hash, int bits, Random random) {
+        for (int i = 0; i < bits; i++) {
+            hash ^= 1L << random.nextInt(64);
+        }
+        return hash;
+    }
+
+    private static BufferedImage shapes(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        for (int i = 0; i < 12; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillOval(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(width / 2), 20 + random.nextInt(height / 2));
+        }
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,81 @@
+package io.jopen.core.common.json;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * {@link JsonPathExtractor}测试
+ *
+ * @author maxuefeng
+ */
+public class JsonPathExtractorTest {
+
+    private static final String JSON = "{\n" +
+            "  \"code\": 200,\n" +
+            "  \"msg\": \"ok \\\"quoted\\\" \\u4e2d\",\n" +
+            "  \"skip\": {\"a\": [1, 2, {\"b\": \"}]\"}], \"c\": null},\n" +
+            "  \"data\": {\n" +
+            "    \"user\": {\"id\": 12345678901, \"name\": \"jack\", \"vip\": true},\n" +
+            "    \"items\": [{\"price\": 9.90}, {\"price\": 19.5, \"tags\": [\"x\", \"y\"]}],\n" +
+            "    \"empty\": {},\n" +
+            "    \"nothing\": null\n" +
+            "  },\n" +
+            "  \"tail\": \"never read\"\n" +
+            "}";
+
+    @Test
+    public void testExtract() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(
+                "$.code", "$.msg", "$.data.user.id", "$['data']['user'].name", "$.data.user.vip",
+                "$.data.items[0].price", "$.data.items[1].tags[1]", "$.data.nothing", "$.data.missing");
+
+        Map<String, Object> values = extractor.extract(JSON);
+
+        Assert.assertEquals(200, values.get("$.code"));
+        Assert.assertEquals("ok \"quoted\" 中", values.get("$.msg"));
+        Assert.assertEquals(12345678901L, values.get("$.data.user.id"));
+        Assert.assertEquals("jack", values.get("$['data']['user'].name"));
+        Assert.assertEquals(Boolean.TRUE, values.get("$.data.user.vip"));
+        Assert.assertEquals(new BigDecimal("9.90"), values.get("$.data.items[0].price"));
+        Assert.assertEquals("y", values.get("$.data.items[1].tags[1]"));
+        Assert.assertTrue(values.containsKey("$.data.nothing"));
+        Assert.assertNull(values.get("$.data.nothing"));
+        Assert.assertFalse(values.containsKey("$.data.missing"));
+    }
+
+    @Test
+    public void testStopsAfterAllPathsFound() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile("$.code");
+        // 第一个字段之后是不完整的JSON  找到所有路径后不再继续扫描
+        Object[] values = extractor.extractValues("{\"code\": 1, \"broken\": [".getBytes());
+        Assert.assertEquals(1, values[0]);
+    }
+
+    @Test
+    public void testDuplicateKeyReturnsFirstOccurrence() {
+        String json = "{\"id\": 1, \"user\": {\"name\": \"a\"}, \"id\": 2, \"user\": {\"name\": \"b\"}}";
+        Map<String, Object> values = JsonPathExtractor.compile("$.id", "$.user.name").extract(json);
+        Assert.assertEquals(1, values.get("$.id"));
+        // 与fastjson不同  JSON.parseObject(json)中id为2
+        Assert.assertEquals("a", values.get("$.user.name"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPath() {
+        JsonPathExtractor.compile("$..price");
+    }
+
+    @Test
+    public void testTypedAccessorConvertsNumbers() {
+        Assert.assertEquals(Long.valueOf(1), JsonElesParser.convert("$.a", 1, Long.class));
+        Assert.assertEquals(Double.valueOf(1.5), JsonElesParser.convert("$.a", new BigDecimal("1.5"), Double.class));
+        try {
+            JsonElesParser.convert("$.a", "text", Long.class);
+            Assert.fail();
+        } catch (JsonElesParser.ParamTypeException ignored) {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.jopen.core.common.proxology;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.jopen.core.common.proxology.memoization.MemoizedFunction;
+import io.jopen.core.common.proxology.memoization.Memoizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Memoizer}测试
+ *
+ * @author maxuefeng
+ */
+public class MemoizerTest {
+
+    @Test
+    public void testMaximumSizeAndStats() {
+        AtomicInteger calls = new AtomicInteger();
+        MemoizedFunction<Integer, String> f = Memoizer.<Integer, String>newBuilder()
+                .maximumSize(10)
+                .recordStats()
+                .build(i -> {
+                    calls.incrementAndGet();
+                    return String.valueOf(i);
+                });
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(String.valueOf(i), f.apply(i));
+        }
+        Assert.assertEquals("99", f.apply(99));
+
+        Assert.assertTrue(f.size() <= 10);
+        Assert.assertEquals(100, calls.get());
+        Assert.assertEquals(1, f.stats().hitCount());
+        Assert.assertEquals(100, f.stats().missCount());
+        Assert.assertEquals(90, f.stats().evictionCount());
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        MemoizedFunction<String, Integer> f = Memoizer.<String, Integer>newBuilder()
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .build(s -> calls.incrementAndGet());
+
+        Assert.assertEquals(Integer.valueOf(1), f.apply("a"));
+        Assert.assertEquals(Integer.valueOf(1), f.apply("a"));
+        Thread.sleep(100);
+        Assert.assertEquals(Integer.valueOf(2), f.apply("a"));
+    }
+
+    @Test
+    public void testSingleFlight() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        MemoizedFunction<String, Integer> f = Memoizer.<String, Integer>newBuilder().build(s -> {
+            if ("slow".equals(s)) {
+                loading.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return calls.incrementAndGet();
+        });
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> f.apply("slow"));
+            threads[i].start();
+        }
+        loading.await();
+        // 慢加载期间其他key不受影响
+        Assert.assertEquals(Integer.valueOf(1), f.apply("fast"));
+        finish.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testRefreshAfterWrite() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        MemoizedFunction<String, Integer> f = Memoizer.<String, Integer>newBuilder()
+                .refreshAfterWrite(20, TimeUnit.MILLISECONDS, MoreExecutors.directExecutor())
+                .build(s -> calls.incrementAndGet());
+
+        Assert.assertEquals(Integer.valueOf(1), f.apply("a"));
+        Thread.sleep(50);
+        f.apply("a");
+        Assert.assertEquals(Integer.valueOf(2), f.apply("a"));
+    }
+
+    @Test
+    public void testNullAndException() {
+        MemoizedFunction<String, String> f = Memoizer.<String, String>newBuilder().build(s -> {
+            if (s.isEmpty()) {
+                throw new IllegalArgumentException("empty");
+            }
+            return null;
+        });
+        Assert.assertNull(f.apply("a"));
+        try {
+            f.apply("");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("empty", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWeakKeys() {
+        MemoizedFunction<Class<?>, String> f = Memoizer.memoizeWeakly(Class::getSimpleName);
+        Assert.assertEquals("String", f.apply(String.class));
+        Assert.assertTrue(f.getIfPresent(String.class).isPresent());
+    }
+}
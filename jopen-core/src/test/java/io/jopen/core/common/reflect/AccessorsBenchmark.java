@@ -0,0 +1,71 @@
+package io.jopen.core.common.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+/**
+ * 动态调用方式的耗时对比  每种方式先预热  再计时调用同一个getter
+ * <p>
+ * 对比：每次搜索的反射  缓存的{@link Method}  {@link MethodHandle}  {@link Accessors}生成的访问器  直接调用
+ *
+ * @author maxuefeng
+ * @see Accessors
+ */
+public class AccessorsBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+
+    private static final int ITERATIONS = 10_000_000;
+
+    public static class Bean {
+
+        private final long value;
+
+        public Bean(long value) {
+            this.value = value;
+        }
+
+        public long getValue() {
+            return value;
+        }
+    }
+
+    private static long sink;
+
+    public static void main(String[] args) throws Throwable {
+        Bean bean = new Bean(1L);
+
+        Method method = Bean.class.getMethod("getValue");
+        MethodHandle handle = MethodHandles.lookup().findVirtual(Bean.class, "getValue", MethodType.methodType(long.class))
+                .asType(MethodType.methodType(Object.class, Object.class));
+        MethodAccessor accessor = Accessors.method(Bean.class, "getValue");
+        Function<Bean, Long> getter = Accessors.getter(Bean.class, "getValue");
+
+        run("Reflect.call", ITERATIONS / 10, () -> Reflect.on(bean).call("getValue").<Long>get());
+        run("Method.invoke (cached Method)", ITERATIONS, () -> (Long) method.invoke(bean));
+        run("MethodHandle.invokeExact", ITERATIONS, () -> (Long) (Object) handle.invokeExact((Object) bean));
+        run("MethodAccessor.invoke", ITERATIONS, () -> (Long) accessor.invoke(bean));
+        run("Accessors.getter (lambda)", ITERATIONS, () -> getter.apply(bean));
+        run("direct", ITERATIONS, bean::getValue);
+    }
+
+    private static void run(String name, int iterations, Call call) throws Throwable {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += call.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += call.call();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-34s %8.2f ns/op%n", name, (double) elapsed / iterations);
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        long call() throws Throwable;
+    }
+}
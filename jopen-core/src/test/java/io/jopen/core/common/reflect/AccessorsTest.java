@@ -0,0 +1,134 @@
+package io.jopen.core.common.reflect;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link Accessors}与{@link Reflect}缓存调用测试
+ *
+ * @author maxuefeng
+ */
+public class AccessorsTest {
+
+    public static class Person {
+
+        public static int created;
+
+        private String name;
+
+        private int age;
+
+        private final String id = "p";
+
+        public Person() {
+            created++;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public Person setAge(int age) {
+            this.age = age;
+            return this;
+        }
+
+        public String greet(Object other) {
+            return "hello " + other;
+        }
+
+        private String secret(int n) {
+            return name + n;
+        }
+
+        public static int twice(int n) {
+            return n * 2;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+
+    @Test
+    public void testReflectCall() {
+        Person person = new Person();
+        Reflect reflect = Reflect.on(person);
+
+        reflect.call("setName", "jack").call("setAge", 18);
+        Assert.assertEquals("jack", reflect.call("getName").get());
+        Assert.assertEquals(Integer.valueOf(18), reflect.call("getAge").get());
+        Assert.assertEquals("jack7", reflect.call("secret", 7).get());
+        Assert.assertEquals("hello null", reflect.call("greet", (Object) null).get());
+        Assert.assertEquals(Integer.valueOf(6), Reflect.onClass(Person.class).call("twice", 3).get());
+
+        // 第二次命中缓存
+        Assert.assertSame(Accessors.method(Person.class, "getName"), Accessors.method(Person.class, "getName"));
+    }
+
+    @Test
+    public void testReflectField() {
+        Person person = new Person();
+        Reflect reflect = Reflect.on(person);
+
+        reflect.set("name", "rose").set("age", 20);
+        Assert.assertEquals("rose", reflect.get("name"));
+        Assert.assertEquals(Integer.valueOf(20), reflect.get("age"));
+        Assert.assertEquals("p", reflect.get("id"));
+    }
+
+    @Test
+    public void testExceptionIsWrapped() {
+        try {
+            Reflect.on(new Person()).call("fail");
+            Assert.fail();
+        } catch (ReflectException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            Reflect.on(new Person()).call("missing");
+            Assert.fail();
+        } catch (ReflectException e) {
+            Assert.assertTrue(e.getCause() instanceof NoSuchMethodException);
+        }
+    }
+
+    @Test
+    public void testGeneratedAccessors() {
+        Supplier<Person> constructor = Accessors.constructor(Person.class);
+        Function<Person, String> getName = Accessors.getter(Person.class, "getName");
+        Function<Person, Integer> getAge = Accessors.getter(Person.class, "getAge");
+        BiConsumer<Person, String> setName = Accessors.setter(Person.class, "setName", String.class);
+        BiConsumer<Person, Integer> setAge = Accessors.setter(Person.class, "setAge", int.class);
+
+        int created = Person.created;
+        Person person = constructor.get();
+        Assert.assertEquals(created + 1, Person.created);
+
+        setName.accept(person, "tom");
+        setAge.accept(person, 30);
+        Assert.assertEquals("tom", getName.apply(person));
+        Assert.assertEquals(Integer.valueOf(30), getAge.apply(person));
+    }
+
+    @Test
+    public void testFieldAccessor() throws Throwable {
+        Person person = new Person();
+        FieldAccessor age = Accessors.field(Person.class, "age");
+        age.set(person, 42);
+        Assert.assertEquals(42, age.get(person));
+        Assert.assertEquals(42, person.getAge());
+    }
+}
@@ -0,0 +1,130 @@
+package io.jopen.core.common.reflect;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link CompilationService}测试
+ *
+ * @author maxuefeng
+ */
+public class CompilationServiceTest {
+
+    private static String rule(String name, String body) {
+        return "package io.jopen.rules;\n" +
+                "public class " + name + " implements java.util.function.Supplier<String> {\n" +
+                "  public String get() { " + body + " }\n" +
+                "}\n";
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchCompileInOneTask() throws Exception {
+        CompilationService service = new CompilationService();
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            sources.put("io.jopen.rules.Rule" + i, rule("Rule" + i, "return \"rule" + i + "\";"));
+        }
+        // 同一批中互相引用
+        sources.put("io.jopen.rules.Composite", rule("Composite", "return new Rule1().get() + new Rule2().get();"));
+
+        Map<String, Class<?>> classes = service.compileAll(sources);
+        Assert.assertEquals(21, classes.size());
+        Assert.assertEquals(1, service.getJavacTasks());
+        Assert.assertEquals("rule7", ((Supplier<String>) classes.get("io.jopen.rules.Rule7").newInstance()).get());
+        Assert.assertEquals("rule1rule2", ((Supplier<String>) classes.get("io.jopen.rules.Composite").newInstance()).get());
+
+        // 第二次全部命中内存缓存
+        Map<String, Class<?>> again = service.compileAll(sources);
+        Assert.assertEquals(1, service.getJavacTasks());
+        Assert.assertSame(classes.get("io.jopen.rules.Rule3"), again.get("io.jopen.rules.Rule3"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangedSourceUsesNewClassLoader() throws Exception {
+        CompilationService service = new CompilationService();
+        Class<?> v1 = service.compile("io.jopen.rules.Versioned", rule("Versioned", "return \"v1\";"));
+        Class<?> v2 = service.compile("io.jopen.rules.Versioned", rule("Versioned", "return \"v2\";"));
+
+        Assert.assertNotSame(v1, v2);
+        Assert.assertEquals("v1", ((Supplier<String>) v1.newInstance()).get());
+        Assert.assertEquals("v2", ((Supplier<String>) v2.newInstance()).get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangedSourceRecompiledWithCachedReference() throws Exception {
+        CompilationService service = new CompilationService();
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("io.jopen.rules.Caller", rule("Caller", "return \"v1:\" + new Callee().get();"));
+        sources.put("io.jopen.rules.Callee", rule("Callee", "return \"callee\";"));
+        Map<String, Class<?>> first = service.compileAll(sources);
+
+        // Callee命中缓存  仍然要和新的Caller一起编译并在同一个类加载器中加载
+        sources.put("io.jopen.rules.Caller", rule("Caller",
+                "Callee callee = new Callee(); return \"v2:\" + callee.get();"));
+        Map<String, Class<?>> second = service.compileAll(sources);
+        Assert.assertEquals(2, service.getJavacTasks());
+
+        Class<?> caller = second.get("io.jopen.rules.Caller");
+        Class<?> callee = second.get("io.jopen.rules.Callee");
+        Assert.assertSame(caller.getClassLoader(), callee.getClassLoader());
+        Assert.assertNotSame(first.get("io.jopen.rules.Callee"), callee);
+        Assert.assertSame(callee, caller.getClassLoader().loadClass("io.jopen.rules.Callee"));
+        Assert.assertEquals("v2:callee", ((Supplier<String>) caller.newInstance()).get());
+        Assert.assertEquals("v1:callee", ((Supplier<String>) first.get("io.jopen.rules.Caller").newInstance()).get());
+    }
+
+    @Test
+    public void testCorruptDiskCacheRecompiled() throws Exception {
+        File directory = Files.createTempDirectory("jopen-compile").toFile();
+        String source = rule("Corrupt", "return \"ok\";");
+        new CompilationService(getClass().getClassLoader(), directory, new CompileOptions()).compile("io.jopen.rules.Corrupt", source);
+
+        File[] files = directory.listFiles();
+        Assert.assertNotNull(files);
+        Assert.assertEquals(1, files.length);
+        // 类个数损坏
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(files[0]))) {
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        CompilationService service = new CompilationService(getClass().getClassLoader(), directory, new CompileOptions());
+        Assert.assertNotNull(service.compile("io.jopen.rules.Corrupt", source));
+        Assert.assertEquals(0, service.getDiskHits());
+        Assert.assertEquals(1, service.getCompiledSources());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDiskCache() throws Exception {
+        File directory = Files.createTempDirectory("jopen-compile").toFile();
+        String source = rule("Cached", "return new Object() { public String toString() { return \"inner\"; } }.toString();");
+
+        CompilationService first = new CompilationService(getClass().getClassLoader(), directory, new CompileOptions());
+        first.compile("io.jopen.rules.Cached", source);
+        Assert.assertEquals(1, first.getCompiledSources());
+
+        // 模拟重启
+        CompilationService second = new CompilationService(getClass().getClassLoader(), directory, new CompileOptions());
+        Class<?> cached = second.compile("io.jopen.rules.Cached", source);
+        Assert.assertEquals(0, second.getCompiledSources());
+        Assert.assertEquals(1, second.getDiskHits());
+        Assert.assertEquals("inner", ((Supplier<String>) cached.newInstance()).get());
+    }
+
+    @Test(expected = ReflectException.class)
+    public void testCompilationError() {
+        new CompilationService().compile("io.jopen.rules.Broken", rule("Broken", "return 1;"));
+    }
+}
@@ -0,0 +1,139 @@
+package io.jopen.core.common.text;
+
+import com.google.common.collect.Sets;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author maxuefeng
+ * @see ConcurrentSnowflakeID
+ */
+public class ConcurrentSnowflakeIDTest {
+
+    /**
+     * 可手动拨动的时钟
+     */
+    static class ManualClockSnowflakeID extends ConcurrentSnowflakeID {
+
+        final AtomicLong millis = new AtomicLong(System.currentTimeMillis());
+
+        ManualClockSnowflakeID(ClockSkewPolicy policy, long maxBorrowMillis) {
+            super(1, 1, policy, maxBorrowMillis, 16, 1000L);
+        }
+
+        @Override
+        protected long generateTimes() {
+            return millis.get();
+        }
+    }
+
+    @Test
+    public void testConcurrentUnique() throws InterruptedException {
+        ConcurrentSnowflakeID generator = new ConcurrentSnowflakeID(1, 1);
+        Set<Long> ids = Sets.newConcurrentHashSet();
+        int threads = 8;
+        int perThread = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final boolean leased = i % 2 == 0;
+            executor.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    ids.add(leased ? generator.nextLeasedId() : generator.nextId());
+                }
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.MINUTES));
+        executor.shutdown();
+        Assert.assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void testNextIdsAreConsecutive() {
+        ConcurrentSnowflakeID generator = new ConcurrentSnowflakeID(3, 4);
+        long before = generator.nextId();
+        long[] ids = generator.nextIds(10000);
+        Assert.assertTrue(ids[0] > before);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    public void testSequenceOverflowBorrowsNextMillisecond() {
+        ManualClockSnowflakeID generator = new ManualClockSnowflakeID(ConcurrentSnowflakeID.ClockSkewPolicy.BORROW, 10);
+        long now = generator.millis.get();
+        long[] ids = generator.nextIds(4096 + 1);
+        Assert.assertEquals(now, ConcurrentSnowflakeID.timestampOf(ids[0]));
+        Assert.assertEquals(now + 1, ConcurrentSnowflakeID.timestampOf(ids[4096]));
+    }
+
+    @Test
+    public void testClockMovedBackBorrow() {
+        ManualClockSnowflakeID generator = new ManualClockSnowflakeID(ConcurrentSnowflakeID.ClockSkewPolicy.BORROW, 10);
+        long first = generator.nextId();
+        generator.millis.addAndGet(-5);
+        Assert.assertTrue(generator.nextId() > first);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClockMovedBackFail() {
+        ManualClockSnowflakeID generator = new ManualClockSnowflakeID(ConcurrentSnowflakeID.ClockSkewPolicy.FAIL, 10);
+        generator.nextId();
+        generator.millis.addAndGet(-5);
+        generator.nextId();
+    }
+
+    private static void assertIncreasing(long[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testNextIdsLargerThanOneMillisecondUnderWait() {
+        ConcurrentSnowflakeID generator = new ConcurrentSnowflakeID(1, 1, ConcurrentSnowflakeID.ClockSkewPolicy.WAIT, 0, 16, 1000L);
+        Assert.assertEquals(4096, generator.maxReservation());
+        long[] ids = generator.nextIds(5000);
+        Assert.assertEquals(5000, ids.length);
+        assertIncreasing(ids);
+    }
+
+    @Test(timeout = 10000)
+    public void testNextIdsLargerThanBorrowLimit() {
+        ConcurrentSnowflakeID generator = new ConcurrentSnowflakeID(1, 1);
+        Assert.assertEquals(101 * 4096, generator.maxReservation());
+        long[] ids = generator.nextIds(1_000_000);
+        Assert.assertEquals(1_000_000, ids.length);
+        assertIncreasing(ids);
+        Assert.assertTrue(generator.nextId() > ids[ids.length - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLeaseSizeAboveLimitUnderWaitRejected() {
+        new ConcurrentSnowflakeID(1, 1, ConcurrentSnowflakeID.ClockSkewPolicy.WAIT, 100L, 4097, 1000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLeaseSizeAboveLimitUnderBorrowRejected() {
+        new ConcurrentSnowflakeID(1, 1, ConcurrentSnowflakeID.ClockSkewPolicy.BORROW, 1L, 2 * 4096 + 1, 1000L);
+    }
+
+    @Test(timeout = 10000)
+    public void testLeaseAtLimitUnderWait() {
+        ConcurrentSnowflakeID generator = new ConcurrentSnowflakeID(1, 1, ConcurrentSnowflakeID.ClockSkewPolicy.WAIT, 0, 4096, 1000L);
+        long[] ids = new long[3 * 4096];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextLeasedId();
+        }
+        assertIncreasing(ids);
+    }
+}
@@ -1,18 +1,99 @@
 package io.jopen.dataframe;
 
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.plan.Join;
+
+import java.util.List;
+import java.util.Map;
+
 /**
+ * 惰性求值的数据集  get/remove/map/filter/count/groupBy/join/sort只构建逻辑计划，
+ * {@link #collect()}、{@link #toTable()}时才优化并执行
+ * <p>
+ * DSL语法见{@link io.jopen.dataframe.expr.ExprParser}
+ *
  * @author maxuefeng
  * @since 2019/12/22
  */
 public interface DataFrame {
 
+    /**
+     * @param dsl 逗号分隔的列名  例如 name, age
+     * @return 只包含这些列的DataFrame
+     */
     DataFrame get(String dsl);
 
+    /**
+     * @param dsl 逗号分隔的列名
+     * @return 去掉这些列的DataFrame
+     */
     DataFrame remove(String dsl);
 
+    /**
+     * @param dsl 逗号分隔的赋值  例如 total = price * qty, vip = level &gt;= 3  已存在的列被替换
+     */
     DataFrame map(String dsl);
 
+    /**
+     * @param dsl 布尔表达式  例如 age &gt; 18 and city in ('bj', 'sh')
+     */
     DataFrame filter(String dsl);
 
+    /**
+     * @param dsl 布尔表达式  为空时统计所有行
+     * @return 一行一列(count)的DataFrame
+     */
     DataFrame count(String dsl);
+
+    /**
+     * 哈希分组聚合  支持count、sum、avg、min、max  聚合忽略null值
+     *
+     * @param keys       逗号分隔的分组键  为空时对所有行聚合  输出一行
+     * @param aggregates 逗号分隔的聚合  例如 n = count(*), total = sum(price), avg_age = avg(age)
+     * @return 分组键列和聚合列  分组之间没有顺序
+     */
+    DataFrame groupBy(String keys, String aggregates);
+
+    /**
+     * 哈希内连接
+     *
+     * @see #join(DataFrame, String, Join.Type, Join.Strategy)
+     */
+    DataFrame join(DataFrame other, String on);
+
+    /**
+     * 等值连接  null键不与任何行匹配
+     * <p>
+     * 输出本DataFrame的所有列，然后是other的列；两边同名的连接键只输出一次，其他重名的other列加上"_right"后缀
+     *
+     * @param on 逗号分隔的连接键  例如 id = user_id, day  只写一个名字表示两边列名相同
+     */
+    DataFrame join(DataFrame other, String on, Join.Type type, Join.Strategy strategy);
+
+    /**
+     * 多键排序  null值总是排在最后
+     *
+     * @param dsl 逗号分隔的排序键  例如 age desc, name
+     */
+    DataFrame sort(String dsl);
+
+    /**
+     * 执行并返回每行一个Map
+     */
+    List<Map<String, Object>> collect();
+
+    /**
+     * 执行并返回列式的结果
+     */
+    Table toTable();
+
+    /**
+     * 执行并把结果作为新的数据源  之后的操作不再重复计算之前的步骤
+     */
+    DataFrame cache();
+
+    /**
+     * @return 优化前后的逻辑计划
+     */
+    String explain();
 }
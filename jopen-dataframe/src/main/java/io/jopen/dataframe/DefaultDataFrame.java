@@ -1,18 +1,64 @@
 package io.jopen.dataframe;
 
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.ColumnRef;
+import io.jopen.dataframe.expr.Expr;
+import io.jopen.dataframe.expr.ExprParser;
+import io.jopen.dataframe.plan.Aggregate;
+import io.jopen.dataframe.plan.Count;
+import io.jopen.dataframe.plan.Executor;
+import io.jopen.dataframe.plan.Filter;
+import io.jopen.dataframe.plan.Join;
+import io.jopen.dataframe.plan.Optimizer;
+import io.jopen.dataframe.plan.PlanNode;
+import io.jopen.dataframe.plan.Project;
+import io.jopen.dataframe.plan.Scan;
+import io.jopen.dataframe.plan.Sort;
+
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
+ * 基于列存储的{@link DataFrame}实现
+ * <p>
+ * 每个操作在调用时就完成DSL解析和类型检查(错误的DSL立即抛出{@link IllegalArgumentException})，
+ * 并返回一个新的DataFrame；执行时经过{@link Optimizer}做谓词下推和投影裁剪，由{@link Executor}分批并行计算
+ *
  * @author maxuefeng
  * @since 2019/12/22
  */
 public class DefaultDataFrame implements DataFrame {
 
+    private final PlanNode plan;
 
-    // 数组  对象
+    /**
+     * 行数据按列存储  列的类型由值推断
+     */
     public DefaultDataFrame(Collection<Map<String, Object>> collection) {
-        // 如果数据是基本类型
+        this(Table.fromRows(collection));
+    }
+
+    /**
+     * 行数据按列存储  schema中的列使用指定的类型  其他列的类型由值推断
+     *
+     * @see Table#fromRows(Collection, Map)
+     */
+    public DefaultDataFrame(Collection<Map<String, Object>> collection, Map<String, DataType> schema) {
+        this(Table.fromRows(collection, schema));
+    }
+
+    public DefaultDataFrame(Table table) {
+        this(Scan.of(table));
+    }
+
+    private DefaultDataFrame(PlanNode plan) {
+        this.plan = plan;
     }
 
     /**
@@ -21,26 +67,102 @@ public class DefaultDataFrame implements DataFrame {
      */
     @Override
     public DataFrame get(String dsl) {
-        return null;
+        Map<String, DataType> schema = plan.schema();
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (String name : ExprParser.parseNames(dsl)) {
+            outputs.put(name, new ColumnRef(name, null).bind(schema));
+        }
+        return new DefaultDataFrame(new Project(plan, outputs));
     }
 
     @Override
     public DataFrame remove(String dsl) {
-        return null;
+        Map<String, DataType> schema = plan.schema();
+        Set<String> removed = new HashSet<>(ExprParser.parseNames(dsl));
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (Map.Entry<String, DataType> column : schema.entrySet()) {
+            if (!removed.remove(column.getKey())) {
+                outputs.put(column.getKey(), new ColumnRef(column.getKey(), column.getValue()));
+            }
+        }
+        if (!removed.isEmpty()) {
+            throw new IllegalArgumentException("unknown column " + removed + ", available columns " + schema.keySet());
+        }
+        return new DefaultDataFrame(new Project(plan, outputs));
     }
 
     @Override
     public DataFrame map(String dsl) {
-        return null;
+        Map<String, DataType> schema = plan.schema();
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (Map.Entry<String, DataType> column : schema.entrySet()) {
+            outputs.put(column.getKey(), new ColumnRef(column.getKey(), column.getValue()));
+        }
+        // 所有赋值都基于map之前的列计算
+        for (Map.Entry<String, Expr> assignment : ExprParser.parseAssignments(dsl).entrySet()) {
+            outputs.put(assignment.getKey(), assignment.getValue().bind(schema));
+        }
+        return new DefaultDataFrame(new Project(plan, outputs));
     }
 
     @Override
     public DataFrame filter(String dsl) {
-        return null;
+        return new DefaultDataFrame(new Filter(plan, ExprParser.parseExpression(dsl).bind(plan.schema())));
     }
 
     @Override
     public DataFrame count(String dsl) {
-        return null;
+        PlanNode input = dsl == null || dsl.trim().isEmpty()
+                ? plan
+                : new Filter(plan, ExprParser.parseExpression(dsl).bind(plan.schema()));
+        return new DefaultDataFrame(new Count(input));
+    }
+
+    @Override
+    public DataFrame groupBy(String keys, String aggregates) {
+        List<String> keyNames = keys == null || keys.trim().isEmpty()
+                ? Collections.emptyList()
+                : ExprParser.parseNames(keys);
+        Map<String, String[]> calls = aggregates == null || aggregates.trim().isEmpty()
+                ? Collections.emptyMap()
+                : ExprParser.parseAggregates(aggregates);
+        return new DefaultDataFrame(Aggregate.of(plan, keyNames, calls));
+    }
+
+    @Override
+    public DataFrame join(DataFrame other, String on) {
+        return join(other, on, Join.Type.INNER, Join.Strategy.HASH);
+    }
+
+    @Override
+    public DataFrame join(DataFrame other, String on, Join.Type type, Join.Strategy strategy) {
+        // 其他实现的DataFrame先执行  作为扫描的数据源
+        PlanNode right = other instanceof DefaultDataFrame ? ((DefaultDataFrame) other).plan : Scan.of(other.toTable());
+        return new DefaultDataFrame(Join.of(plan, right, ExprParser.parseJoinKeys(on), type, strategy));
+    }
+
+    @Override
+    public DataFrame sort(String dsl) {
+        return new DefaultDataFrame(new Sort(plan, ExprParser.parseSortKeys(dsl)));
+    }
+
+    @Override
+    public List<Map<String, Object>> collect() {
+        return toTable().toRows();
+    }
+
+    @Override
+    public Table toTable() {
+        return Executor.execute(plan);
+    }
+
+    @Override
+    public DataFrame cache() {
+        return new DefaultDataFrame(toTable());
+    }
+
+    @Override
+    public String explain() {
+        return "== Logical Plan ==\n" + plan.explain() + "== Optimized Plan ==\n" + Optimizer.optimize(plan).explain();
     }
 }
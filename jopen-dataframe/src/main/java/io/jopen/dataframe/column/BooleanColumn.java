@@ -0,0 +1,49 @@
+package io.jopen.dataframe.column;
+
+import java.util.BitSet;
+
+/**
+ * boolean类型的列
+ *
+ * @author maxuefeng
+ */
+public final class BooleanColumn extends Column {
+
+    private final boolean[] values;
+
+    /**
+     * @param values 值  null行的值无意义
+     * @param nulls  null值位图  可以为null
+     */
+    public BooleanColumn(boolean[] values, int size, BitSet nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataType type() {
+        return DataType.BOOLEAN;
+    }
+
+    public boolean[] values() {
+        return values;
+    }
+
+    public boolean getBoolean(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public BooleanColumn gather(int offset, int[] rows, int count) {
+        boolean[] gathered = new boolean[count];
+        for (int k = 0; k < count; k++) {
+            gathered[k] = values[offset + rows[k]];
+        }
+        return new BooleanColumn(gathered, count, gatherNulls(offset, rows, count));
+    }
+}
@@ -0,0 +1,85 @@
+package io.jopen.dataframe.column;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 不可变的列  值保存在基本类型数组中  null值用{@link BitSet}标记
+ * <p>
+ * 执行引擎直接读写各子类的数组(values())以避免装箱，调用方不能修改这些数组
+ *
+ * @author maxuefeng
+ */
+public abstract class Column {
+
+    /**
+     * null值位图  没有null时为null
+     */
+    protected final BitSet nulls;
+
+    protected final int size;
+
+    protected Column(int size, BitSet nulls) {
+        this.size = size;
+        this.nulls = nulls == null || nulls.isEmpty() ? null : nulls;
+    }
+
+    public abstract DataType type();
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls != null && nulls.get(row);
+    }
+
+    public boolean hasNulls() {
+        return nulls != null;
+    }
+
+    /**
+     * @return null值位图  没有null时返回null
+     */
+    public BitSet nulls() {
+        return nulls;
+    }
+
+    /**
+     * @return 装箱后的值  null值返回null
+     */
+    public abstract Object get(int row);
+
+    /**
+     * 取出 offset + rows[0..count) 行  组成一个新的列
+     */
+    public abstract Column gather(int offset, int[] rows, int count);
+
+    /**
+     * 按顺序拼接同类型的列
+     */
+    public static Column concat(DataType type, List<Column> parts) {
+        int total = 0;
+        for (Column part : parts) {
+            total += part.size();
+        }
+        ColumnBuilder builder = new ColumnBuilder(type, total);
+        for (Column part : parts) {
+            builder.appendAll(part);
+        }
+        return builder.build();
+    }
+
+    protected BitSet gatherNulls(int offset, int[] rows, int count) {
+        if (nulls == null) {
+            return null;
+        }
+        BitSet gathered = new BitSet(count);
+        for (int k = 0; k < count; k++) {
+            if (nulls.get(offset + rows[k])) {
+                gathered.set(k);
+            }
+        }
+        return gathered;
+    }
+}
@@ -0,0 +1,182 @@
+package io.jopen.dataframe.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 逐个追加值构建{@link Column}
+ *
+ * @author maxuefeng
+ */
+public final class ColumnBuilder {
+
+    private final DataType type;
+
+    private long[] longs;
+
+    private double[] doubles;
+
+    private boolean[] booleans;
+
+    private String[] strings;
+
+    private final BitSet nulls = new BitSet();
+
+    private int size;
+
+    public ColumnBuilder(DataType type, int expectedSize) {
+        this.type = type;
+        int capacity = Math.max(expectedSize, 16);
+        switch (type) {
+            case LONG:
+                longs = new long[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case BOOLEAN:
+                booleans = new boolean[capacity];
+                break;
+            default:
+                strings = new String[capacity];
+        }
+    }
+
+    /**
+     * 追加一个值  值会被转换成列的类型
+     */
+    public ColumnBuilder append(Object value) {
+        ensureCapacity(size + 1);
+        Object converted = type.convert(value);
+        if (converted == null) {
+            nulls.set(size);
+        } else {
+            switch (type) {
+                case LONG:
+                    longs[size] = (Long) converted;
+                    break;
+                case DOUBLE:
+                    doubles[size] = (Double) converted;
+                    break;
+                case BOOLEAN:
+                    booleans[size] = (Boolean) converted;
+                    break;
+                default:
+                    strings[size] = (String) converted;
+            }
+        }
+        size++;
+        return this;
+    }
+
+    /**
+     * 追加一个null
+     */
+    public ColumnBuilder appendNull() {
+        ensureCapacity(size + 1);
+        nulls.set(size++);
+        return this;
+    }
+
+    /**
+     * 追加column的第row行  column必须与构建的列类型相同  不装箱
+     */
+    public ColumnBuilder appendFrom(Column column, int row) {
+        ensureCapacity(size + 1);
+        if (column.isNull(row)) {
+            nulls.set(size++);
+            return this;
+        }
+        switch (type) {
+            case LONG:
+                longs[size] = ((LongColumn) column).getLong(row);
+                break;
+            case DOUBLE:
+                doubles[size] = ((DoubleColumn) column).getDouble(row);
+                break;
+            case BOOLEAN:
+                booleans[size] = ((BooleanColumn) column).getBoolean(row);
+                break;
+            default:
+                strings[size] = ((StringColumn) column).values()[row];
+        }
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 追加一个列的所有值  类型相同时直接复制数组
+     */
+    public ColumnBuilder appendAll(Column column) {
+        int n = column.size();
+        if (column.type() != type) {
+            for (int i = 0; i < n; i++) {
+                append(column.get(i));
+            }
+            return this;
+        }
+        ensureCapacity(size + n);
+        switch (type) {
+            case LONG:
+                System.arraycopy(((LongColumn) column).values(), 0, longs, size, n);
+                break;
+            case DOUBLE:
+                System.arraycopy(((DoubleColumn) column).values(), 0, doubles, size, n);
+                break;
+            case BOOLEAN:
+                System.arraycopy(((BooleanColumn) column).values(), 0, booleans, size, n);
+                break;
+            default:
+                System.arraycopy(((StringColumn) column).values(), 0, strings, size, n);
+        }
+        BitSet columnNulls = type == DataType.STRING ? null : column.nulls();
+        if (columnNulls != null) {
+            for (int i = columnNulls.nextSetBit(0); i >= 0; i = columnNulls.nextSetBit(i + 1)) {
+                nulls.set(size + i);
+            }
+        }
+        size += n;
+        return this;
+    }
+
+    public Column build() {
+        switch (type) {
+            case LONG:
+                return new LongColumn(longs, size, nulls);
+            case DOUBLE:
+                return new DoubleColumn(doubles, size, nulls);
+            case BOOLEAN:
+                return new BooleanColumn(booleans, size, nulls);
+            default:
+                return new StringColumn(strings, size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        int current = type == DataType.LONG ? longs.length
+                : type == DataType.DOUBLE ? doubles.length
+                : type == DataType.BOOLEAN ? booleans.length
+                : strings.length;
+        if (capacity <= current) {
+            return;
+        }
+        int grown = Math.max(capacity, current + (current >> 1));
+        switch (type) {
+            case LONG:
+                longs = Arrays.copyOf(longs, grown);
+                break;
+            case DOUBLE:
+                doubles = Arrays.copyOf(doubles, grown);
+                break;
+            case BOOLEAN:
+                booleans = Arrays.copyOf(booleans, grown);
+                break;
+            default:
+                strings = Arrays.copyOf(strings, grown);
+        }
+    }
+}
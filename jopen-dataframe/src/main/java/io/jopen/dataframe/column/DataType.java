@@ -0,0 +1,80 @@
+package io.jopen.dataframe.column;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 列的类型
+ *
+ * @author maxuefeng
+ */
+public enum DataType {
+
+    LONG,
+
+    DOUBLE,
+
+    BOOLEAN,
+
+    STRING;
+
+    public boolean isNumeric() {
+        return this == LONG || this == DOUBLE;
+    }
+
+    /**
+     * @return 值对应的类型  null返回null
+     */
+    public static DataType of(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return LONG;
+        }
+        if (value instanceof Number) {
+            return DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        return STRING;
+    }
+
+    /**
+     * 两个类型共同的类型  LONG与DOUBLE合并为DOUBLE  其他不同的类型合并为STRING
+     */
+    public static DataType widen(DataType a, DataType b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null || a == b) {
+            return a;
+        }
+        if (a.isNumeric() && b.isNumeric()) {
+            return DOUBLE;
+        }
+        return STRING;
+    }
+
+    /**
+     * 把值转换成该类型的Java对象(Long/Double/Boolean/String)
+     */
+    public Object convert(Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (this) {
+            case LONG:
+                return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+            case DOUBLE:
+                return value instanceof Number && !(value instanceof BigDecimal)
+                        ? ((Number) value).doubleValue() : new BigDecimal(value.toString().trim()).doubleValue();
+            case BOOLEAN:
+                return value instanceof Boolean ? value : Boolean.parseBoolean(value.toString().trim());
+            default:
+                return value.toString();
+        }
+    }
+}
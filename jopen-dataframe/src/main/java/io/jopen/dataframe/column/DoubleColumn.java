@@ -0,0 +1,49 @@
+package io.jopen.dataframe.column;
+
+import java.util.BitSet;
+
+/**
+ * double类型的列
+ *
+ * @author maxuefeng
+ */
+public final class DoubleColumn extends Column {
+
+    private final double[] values;
+
+    /**
+     * @param values 值  null行的值无意义
+     * @param nulls  null值位图  可以为null
+     */
+    public DoubleColumn(double[] values, int size, BitSet nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataType type() {
+        return DataType.DOUBLE;
+    }
+
+    public double[] values() {
+        return values;
+    }
+
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public DoubleColumn gather(int offset, int[] rows, int count) {
+        double[] gathered = new double[count];
+        for (int k = 0; k < count; k++) {
+            gathered[k] = values[offset + rows[k]];
+        }
+        return new DoubleColumn(gathered, count, gatherNulls(offset, rows, count));
+    }
+}
@@ -0,0 +1,49 @@
+package io.jopen.dataframe.column;
+
+import java.util.BitSet;
+
+/**
+ * long类型的列
+ *
+ * @author maxuefeng
+ */
+public final class LongColumn extends Column {
+
+    private final long[] values;
+
+    /**
+     * @param values 值  null行的值无意义
+     * @param nulls  null值位图  可以为null
+     */
+    public LongColumn(long[] values, int size, BitSet nulls) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public DataType type() {
+        return DataType.LONG;
+    }
+
+    public long[] values() {
+        return values;
+    }
+
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public LongColumn gather(int offset, int[] rows, int count) {
+        long[] gathered = new long[count];
+        for (int k = 0; k < count; k++) {
+            gathered[k] = values[offset + rows[k]];
+        }
+        return new LongColumn(gathered, count, gatherNulls(offset, rows, count));
+    }
+}
@@ -0,0 +1,187 @@
+package io.jopen.dataframe.column;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 按分区缓存列块  占用的内存超过预算时把最大的分区溢写到磁盘
+ * <p>
+ * 多个线程可以同时{@link #add(Column[], int[])}；全部写入后再逐个分区{@link #read(int)}
+ *
+ * @author maxuefeng
+ */
+public final class PartitionedBuffer implements Closeable {
+
+    private final DataType[] types;
+
+    private final long memoryBudget;
+
+    private final File spillDirectory;
+
+    private final List<List<Column[]>> memory;
+
+    private final long[] memoryBytes;
+
+    private final SpillFile[] spills;
+
+    private long totalMemoryBytes;
+
+    private int spillCount;
+
+    private long spilledBytes;
+
+    public PartitionedBuffer(DataType[] types, int partitions, long memoryBudget, File spillDirectory) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        this.types = types.clone();
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+        this.memory = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            memory.add(new ArrayList<>());
+        }
+        this.memoryBytes = new long[partitions];
+        this.spills = new SpillFile[partitions];
+    }
+
+    public int partitions() {
+        return spills.length;
+    }
+
+    /**
+     * 按partitionOfRow把块拆分到各分区
+     */
+    public void add(Column[] chunk, int[] partitionOfRow) {
+        int rows = chunk.length == 0 ? 0 : chunk[0].size();
+        int partitions = spills.length;
+        // 计数排序  得到按分区连续排列的行号
+        int[] starts = new int[partitions + 1];
+        for (int r = 0; r < rows; r++) {
+            starts[partitionOfRow[r] + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            starts[p + 1] += starts[p];
+        }
+        int[] cursor = starts.clone();
+        int[] order = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            order[cursor[partitionOfRow[r]]++] = r;
+        }
+        for (int p = 0; p < partitions; p++) {
+            int count = starts[p + 1] - starts[p];
+            if (count == 0) {
+                continue;
+            }
+            if (count == rows) {
+                add(p, chunk);
+                continue;
+            }
+            int[] rowsOfPartition = new int[count];
+            System.arraycopy(order, starts[p], rowsOfPartition, 0, count);
+            Column[] part = new Column[chunk.length];
+            for (int c = 0; c < chunk.length; c++) {
+                part[c] = chunk[c].gather(0, rowsOfPartition, count);
+            }
+            add(p, part);
+        }
+    }
+
+    public synchronized void add(int partition, Column[] chunk) {
+        long bytes = SpillFile.estimateBytes(chunk);
+        memory.get(partition).add(chunk);
+        memoryBytes[partition] += bytes;
+        totalMemoryBytes += bytes;
+        while (totalMemoryBytes > memoryBudget) {
+            spill(largestPartition());
+        }
+    }
+
+    /**
+     * 读出一个分区的全部数据(内存中的块与溢写的块)  并释放该分区
+     *
+     * @return 各列  分区为空时每列都是0行
+     */
+    public Column[] read(int partition) {
+        List<Column[]> chunks;
+        SpillFile spill;
+        synchronized (this) {
+            chunks = new ArrayList<>(memory.get(partition));
+            memory.get(partition).clear();
+            totalMemoryBytes -= memoryBytes[partition];
+            memoryBytes[partition] = 0;
+            spill = spills[partition];
+            spills[partition] = null;
+        }
+        if (spill != null) {
+            try {
+                List<Column[]> spilled = new ArrayList<>();
+                for (Iterator<Column[]> it = spill.read(); it.hasNext(); ) {
+                    spilled.add(it.next());
+                }
+                spilled.addAll(chunks);
+                chunks = spilled;
+            } finally {
+                spill.close();
+            }
+        }
+        Column[] columns = new Column[types.length];
+        for (int c = 0; c < types.length; c++) {
+            List<Column> parts = new ArrayList<>(chunks.size());
+            for (Column[] chunk : chunks) {
+                parts.add(chunk[c]);
+            }
+            columns[c] = parts.size() == 1 ? parts.get(0) : Column.concat(types[c], parts);
+        }
+        return columns;
+    }
+
+    public synchronized int spillCount() {
+        return spillCount;
+    }
+
+    public synchronized long spilledBytes() {
+        return spilledBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int p = 0; p < spills.length; p++) {
+            if (spills[p] != null) {
+                spills[p].close();
+                spills[p] = null;
+            }
+            memory.get(p).clear();
+        }
+        totalMemoryBytes = 0;
+    }
+
+    private int largestPartition() {
+        int largest = 0;
+        for (int p = 1; p < memoryBytes.length; p++) {
+            if (memoryBytes[p] > memoryBytes[largest]) {
+                largest = p;
+            }
+        }
+        return largest;
+    }
+
+    private void spill(int partition) {
+        if (spills[partition] == null) {
+            spills[partition] = new SpillFile(types, spillDirectory);
+        }
+        SpillFile spill = spills[partition];
+        long before = spill.bytes();
+        for (Column[] chunk : memory.get(partition)) {
+            spill.write(chunk);
+        }
+        memory.get(partition).clear();
+        totalMemoryBytes -= memoryBytes[partition];
+        memoryBytes[partition] = 0;
+        spillCount++;
+        spilledBytes += spill.bytes() - before;
+    }
+}
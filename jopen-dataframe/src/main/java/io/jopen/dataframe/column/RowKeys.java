@@ -0,0 +1,148 @@
+package io.jopen.dataframe.column;
+
+import java.util.List;
+
+/**
+ * 多列组成的行键的哈希、相等和比较  按列类型分别处理  不装箱
+ *
+ * @author maxuefeng
+ */
+public final class RowKeys {
+
+    private static final int NULL_HASH = 0x9E3779B9;
+
+    private RowKeys() {
+    }
+
+    /**
+     * @return 每行的键哈希  按列计算后组合
+     */
+    public static int[] hash(List<Column> keys, int rows) {
+        int[] hashes = new int[rows];
+        for (Column key : keys) {
+            switch (key.type()) {
+                case LONG: {
+                    long[] values = ((LongColumn) key).values();
+                    for (int r = 0; r < rows; r++) {
+                        hashes[r] = hashes[r] * 31 + (key.isNull(r) ? NULL_HASH : hashLong(values[r]));
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    double[] values = ((DoubleColumn) key).values();
+                    for (int r = 0; r < rows; r++) {
+                        // +0.0与-0.0相等  哈希也要相同
+                        double value = values[r] == 0.0 ? 0.0 : values[r];
+                        hashes[r] = hashes[r] * 31 + (key.isNull(r) ? NULL_HASH : hashLong(Double.doubleToLongBits(value)));
+                    }
+                    break;
+                }
+                case BOOLEAN: {
+                    boolean[] values = ((BooleanColumn) key).values();
+                    for (int r = 0; r < rows; r++) {
+                        hashes[r] = hashes[r] * 31 + (key.isNull(r) ? NULL_HASH : values[r] ? 1231 : 1237);
+                    }
+                    break;
+                }
+                default: {
+                    String[] values = ((StringColumn) key).values();
+                    for (int r = 0; r < rows; r++) {
+                        hashes[r] = hashes[r] * 31 + (values[r] == null ? NULL_HASH : mix(values[r].hashCode()));
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            hashes[r] = mix(hashes[r]);
+        }
+        return hashes;
+    }
+
+    /**
+     * @return 哈希值的高位决定的分区  与哈希表使用的低位无关
+     */
+    public static int partition(int hash, int partitions) {
+        return (int) (((hash & 0xFFFFFFFFL) * partitions) >>> 32);
+    }
+
+    /**
+     * @param nullsEqual null是否与null相等  分组时为true  连接时为false
+     */
+    public static boolean equal(List<Column> a, int i, List<Column> b, int j, boolean nullsEqual) {
+        for (int k = 0; k < a.size(); k++) {
+            Column x = a.get(k);
+            Column y = b.get(k);
+            boolean xNull = x.isNull(i);
+            boolean yNull = y.isNull(j);
+            if (xNull || yNull) {
+                if (!(nullsEqual && xNull && yNull)) {
+                    return false;
+                }
+                continue;
+            }
+            if (compareValues(x, i, y, j) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 比较两个非null的值  两列类型必须相同
+     */
+    public static int compareValues(Column x, int i, Column y, int j) {
+        switch (x.type()) {
+            case LONG:
+                return Long.compare(((LongColumn) x).getLong(i), ((LongColumn) y).getLong(j));
+            case DOUBLE: {
+                double a = ((DoubleColumn) x).getDouble(i);
+                double b = ((DoubleColumn) y).getDouble(j);
+                return a == b ? 0 : Double.compare(a, b);
+            }
+            case BOOLEAN:
+                return Boolean.compare(((BooleanColumn) x).getBoolean(i), ((BooleanColumn) y).getBoolean(j));
+            default:
+                return ((StringColumn) x).values()[i].compareTo(((StringColumn) y).values()[j]);
+        }
+    }
+
+    /**
+     * 多列比较  null排在最后(不论升序降序)
+     *
+     * @param ascending 每列是否升序
+     */
+    public static int compare(List<Column> a, int i, List<Column> b, int j, boolean[] ascending) {
+        for (int k = 0; k < a.size(); k++) {
+            Column x = a.get(k);
+            Column y = b.get(k);
+            boolean xNull = x.isNull(i);
+            boolean yNull = y.isNull(j);
+            if (xNull || yNull) {
+                if (xNull && yNull) {
+                    continue;
+                }
+                return xNull ? 1 : -1;
+            }
+            int c = compareValues(x, i, y, j);
+            if (c != 0) {
+                return ascending[k] ? c : -c;
+            }
+        }
+        return 0;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static int hashLong(long x) {
+        long mixed = mix(x);
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static int mix(int h) {
+        return (int) mix((long) h);
+    }
+}
@@ -0,0 +1,255 @@
+package io.jopen.dataframe.column;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 溢写到本地磁盘的列块  按写入顺序逐块读回
+ * <p>
+ * 每块的格式: 行数  然后逐列写null位图与值(字符串列用长度-1表示null)
+ *
+ * @author maxuefeng
+ */
+public final class SpillFile implements Closeable {
+
+    private final DataType[] types;
+
+    private final File file;
+
+    private DataOutputStream out;
+
+    private long bytes;
+
+    public SpillFile(DataType[] types, File directory) {
+        this.types = types.clone();
+        try {
+            this.file = File.createTempFile("jopen-dataframe-", ".spill", directory);
+            this.file.deleteOnExit();
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not create spill file in " + directory, e);
+        }
+    }
+
+    /**
+     * 追加一块  各列行数必须相同
+     */
+    public void write(Column[] chunk) {
+        if (out == null) {
+            throw new IllegalStateException("spill file " + file + " is already being read");
+        }
+        int rows = chunk.length == 0 ? 0 : chunk[0].size();
+        try {
+            out.writeInt(rows);
+            for (int c = 0; c < types.length; c++) {
+                writeColumn(chunk[c], rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not write spill file " + file, e);
+        }
+        bytes += estimateBytes(chunk);
+    }
+
+    /**
+     * @return 已写入数据的估算大小(按{@link #estimateBytes(Column[])}累计)
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * 结束写入并按顺序读回所有块  读取期间不能再写入
+     */
+    public Iterator<Column[]> read() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            return new Iterator<Column[]>() {
+
+                private Column[] next = advance();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Column[] next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Column[] current = next;
+                    next = advance();
+                    return current;
+                }
+
+                private Column[] advance() {
+                    try {
+                        int rows;
+                        try {
+                            rows = in.readInt();
+                        } catch (EOFException end) {
+                            in.close();
+                            return null;
+                        }
+                        Column[] chunk = new Column[types.length];
+                        for (int c = 0; c < types.length; c++) {
+                            chunk[c] = readColumn(in, types[c], rows);
+                        }
+                        return chunk;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("can not read spill file " + file, e);
+                    }
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read spill file " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } catch (IOException ignored) {
+            // 文件随后被删除
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private void writeColumn(Column column, int rows) throws IOException {
+        if (column.type() != DataType.STRING) {
+            long[] words = column.hasNulls() ? column.nulls().toLongArray() : new long[0];
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        switch (column.type()) {
+            case LONG: {
+                long[] values = ((LongColumn) column).values();
+                for (int r = 0; r < rows; r++) {
+                    out.writeLong(values[r]);
+                }
+                break;
+            }
+            case DOUBLE: {
+                double[] values = ((DoubleColumn) column).values();
+                for (int r = 0; r < rows; r++) {
+                    out.writeDouble(values[r]);
+                }
+                break;
+            }
+            case BOOLEAN: {
+                boolean[] values = ((BooleanColumn) column).values();
+                for (int r = 0; r < rows; r++) {
+                    out.writeBoolean(values[r]);
+                }
+                break;
+            }
+            default: {
+                String[] values = ((StringColumn) column).values();
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] == null) {
+                        out.writeInt(-1);
+                    } else {
+                        byte[] utf8 = values[r].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(utf8.length);
+                        out.write(utf8);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Column readColumn(DataInputStream in, DataType type, int rows) throws IOException {
+        BitSet nulls = null;
+        if (type != DataType.STRING) {
+            long[] words = new long[in.readInt()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readLong();
+            }
+            nulls = BitSet.valueOf(words);
+        }
+        switch (type) {
+            case LONG: {
+                long[] values = new long[rows];
+                for (int r = 0; r < rows; r++) {
+                    values[r] = in.readLong();
+                }
+                return new LongColumn(values, rows, nulls);
+            }
+            case DOUBLE: {
+                double[] values = new double[rows];
+                for (int r = 0; r < rows; r++) {
+                    values[r] = in.readDouble();
+                }
+                return new DoubleColumn(values, rows, nulls);
+            }
+            case BOOLEAN: {
+                boolean[] values = new boolean[rows];
+                for (int r = 0; r < rows; r++) {
+                    values[r] = in.readBoolean();
+                }
+                return new BooleanColumn(values, rows, nulls);
+            }
+            default: {
+                String[] values = new String[rows];
+                for (int r = 0; r < rows; r++) {
+                    int length = in.readInt();
+                    if (length >= 0) {
+                        byte[] utf8 = new byte[length];
+                        in.readFully(utf8);
+                        values[r] = new String(utf8, StandardCharsets.UTF_8);
+                    }
+                }
+                return new StringColumn(values, rows);
+            }
+        }
+    }
+
+    /**
+     * 估算一块列数据占用的堆内存  用于决定何时溢写
+     */
+    public static long estimateBytes(Column[] chunk) {
+        long total = 0;
+        for (Column column : chunk) {
+            switch (column.type()) {
+                case LONG:
+                case DOUBLE:
+                    total += 8L * column.size();
+                    break;
+                case BOOLEAN:
+                    total += column.size();
+                    break;
+                default: {
+                    String[] values = ((StringColumn) column).values();
+                    for (int r = 0; r < column.size(); r++) {
+                        total += values[r] == null ? 4 : 48 + 2L * values[r].length();
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,62 @@
+package io.jopen.dataframe.column;
+
+import java.util.BitSet;
+
+/**
+ * 字符串类型的列  null值就是数组中的null
+ *
+ * @author maxuefeng
+ */
+public final class StringColumn extends Column {
+
+    private final String[] values;
+
+    public StringColumn(String[] values, int size) {
+        super(size, null);
+        this.values = values;
+    }
+
+    @Override
+    public DataType type() {
+        return DataType.STRING;
+    }
+
+    public String[] values() {
+        return values;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return values[row] == null;
+    }
+
+    @Override
+    public boolean hasNulls() {
+        return true;
+    }
+
+    @Override
+    public BitSet nulls() {
+        BitSet nulls = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null) {
+                nulls.set(i);
+            }
+        }
+        return nulls.isEmpty() ? null : nulls;
+    }
+
+    @Override
+    public Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public StringColumn gather(int offset, int[] rows, int count) {
+        String[] gathered = new String[count];
+        for (int k = 0; k < count; k++) {
+            gathered[k] = values[offset + rows[k]];
+        }
+        return new StringColumn(gathered, count);
+    }
+}
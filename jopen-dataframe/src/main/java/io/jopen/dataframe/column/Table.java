@@ -0,0 +1,141 @@
+package io.jopen.dataframe.column;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存储的不可变数据表
+ *
+ * @author maxuefeng
+ */
+public final class Table {
+
+    private final List<String> names;
+
+    private final List<Column> columns;
+
+    private final Map<String, Integer> index;
+
+    private final int rowCount;
+
+    public Table(List<String> names, List<Column> columns, int rowCount) {
+        if (names.size() != columns.size()) {
+            throw new IllegalArgumentException("names and columns must have the same size");
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.rowCount = rowCount;
+        this.index = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (columns.get(i).size() != rowCount) {
+                throw new IllegalArgumentException("column " + names.get(i) + " has " + columns.get(i).size()
+                        + " rows, expected " + rowCount);
+            }
+            if (index.put(names.get(i), i) != null) {
+                throw new IllegalArgumentException("duplicate column " + names.get(i));
+            }
+        }
+    }
+
+    /**
+     * 从行数据构建  列的顺序为第一次出现的顺序  类型由所有非null值推断
+     * (整数与小数混合为DOUBLE  其他混合为STRING  全为null时为STRING)
+     *
+     * @see #fromRows(Collection, Map)
+     */
+    public static Table fromRows(Collection<? extends Map<String, ?>> rows) {
+        return fromRows(rows, Collections.emptyMap());
+    }
+
+    /**
+     * 从行数据构建  schema中的列使用指定的类型并排在最前面(行中没有的列全为null)，其他列的类型由值推断
+     * <p>
+     * 值可能全为null的列(例如稀疏的数值字段)应当在schema中声明类型，否则被推断为STRING而不能参与数值运算和聚合
+     *
+     * @param schema 列名到类型  按迭代顺序输出
+     * @throws IllegalArgumentException 值不能转换成声明的类型
+     */
+    public static Table fromRows(Collection<? extends Map<String, ?>> rows, Map<String, DataType> schema) {
+        Map<String, DataType> types = new LinkedHashMap<>(schema);
+        if (types.containsValue(null)) {
+            throw new IllegalArgumentException("schema type must not be null " + schema);
+        }
+        for (Map<String, ?> row : rows) {
+            for (Map.Entry<String, ?> entry : row.entrySet()) {
+                if (schema.containsKey(entry.getKey())) {
+                    continue;
+                }
+                DataType type = DataType.of(entry.getValue());
+                if (type == null) {
+                    types.putIfAbsent(entry.getKey(), null);
+                } else {
+                    types.merge(entry.getKey(), type, DataType::widen);
+                }
+            }
+        }
+        List<String> names = new ArrayList<>(types.keySet());
+        List<ColumnBuilder> builders = new ArrayList<>(names.size());
+        for (String name : names) {
+            DataType type = types.get(name);
+            builders.add(new ColumnBuilder(type == null ? DataType.STRING : type, rows.size()));
+        }
+        for (Map<String, ?> row : rows) {
+            for (int i = 0; i < names.size(); i++) {
+                builders.get(i).append(row.get(names.get(i)));
+            }
+        }
+        List<Column> columns = new ArrayList<>(names.size());
+        for (ColumnBuilder builder : builders) {
+            columns.add(builder.build());
+        }
+        return new Table(names, columns, rows.size());
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * @return 列  不存在时返回null
+     */
+    public Column column(String name) {
+        Integer i = index.get(name);
+        return i == null ? null : columns.get(i);
+    }
+
+    /**
+     * @return 每行一个Map  键的顺序与列的顺序一致
+     */
+    public List<Map<String, Object>> toRows() {
+        List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            Map<String, Object> row = new LinkedHashMap<>(names.size() * 4 / 3 + 1);
+            for (int c = 0; c < names.size(); c++) {
+                row.put(names.get(c), columns.get(c).get(r));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Table{rows=").append(rowCount).append(", columns=[");
+        for (int i = 0; i < names.size(); i++) {
+            builder.append(i == 0 ? "" : ", ").append(names.get(i)).append(' ').append(columns.get(i).type());
+        }
+        return builder.append("]}").toString();
+    }
+}
@@ -0,0 +1,92 @@
+package io.jopen.dataframe.expr;
+
+import java.util.Map;
+
+/**
+ * 一个批次  最多{@link Vector#MAX_LENGTH}行
+ * <p>
+ * 过滤不复制数据，只缩小选择向量：selection()[0..selectionSize())是仍然存活的行(递增)，
+ * 表达式只计算这些行
+ *
+ * @author maxuefeng
+ */
+public final class Batch {
+
+    private final int length;
+
+    private final Map<String, Vector> columns;
+
+    private final int[] selection;
+
+    private final int selectionSize;
+
+    public Batch(int length, Map<String, Vector> columns, int[] selection, int selectionSize) {
+        this.length = length;
+        this.columns = columns;
+        this.selection = selection;
+        this.selectionSize = selectionSize;
+    }
+
+    /**
+     * 选中所有行
+     */
+    public static int[] identity(int length) {
+        int[] selection = new int[length];
+        for (int i = 0; i < length; i++) {
+            selection[i] = i;
+        }
+        return selection;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public Map<String, Vector> columns() {
+        return columns;
+    }
+
+    public Vector column(String name) {
+        Vector vector = columns.get(name);
+        if (vector == null) {
+            throw new IllegalStateException("column " + name + " is not available in batch " + columns.keySet());
+        }
+        return vector;
+    }
+
+    public int[] selection() {
+        return selection;
+    }
+
+    public int selectionSize() {
+        return selectionSize;
+    }
+
+    public Batch withSelection(int[] selection, int selectionSize) {
+        return new Batch(length, columns, selection, selectionSize);
+    }
+
+    public Batch withColumns(Map<String, Vector> columns) {
+        return new Batch(length, columns, selection, selectionSize);
+    }
+
+    /**
+     * 只保留predicate为true的行
+     *
+     * @param predicate BOOLEAN向量
+     */
+    public Batch filter(Vector predicate) {
+        boolean[] values = predicate.booleans();
+        int offset = predicate.offset();
+        boolean nulls = predicate.mayHaveNulls();
+        int[] kept = new int[selectionSize];
+        int n = 0;
+        for (int k = 0; k < selectionSize; k++) {
+            int i = selection[k];
+            if (values[offset + i] && !(nulls && predicate.isNull(i))) {
+                kept[n++] = i;
+            }
+        }
+        return withSelection(kept, n);
+    }
+}
@@ -0,0 +1,452 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.DoubleColumn;
+import io.jopen.dataframe.column.LongColumn;
+import io.jopen.dataframe.column.StringColumn;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 二元运算
+ * <ul>
+ *     <li>算术: + - * / %  整数运算结果为LONG(除法结果总是DOUBLE)  +的任意一边是字符串时为字符串拼接</li>
+ *     <li>比较: == != &lt; &lt;= &gt; &gt;=  数值之间、字符串之间、布尔之间(仅== !=)</li>
+ *     <li>逻辑: and or  三值逻辑  and右边只计算左边不为false的行  or右边只计算左边不为true的行</li>
+ * </ul>
+ * 任意一边为null时结果为null(逻辑运算除外)
+ *
+ * @author maxuefeng
+ */
+public final class BinaryExpr extends Expr {
+
+    public enum Op {
+        ADD("+"), SUB("-"), MUL("*"), DIV("/"), MOD("%"),
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="),
+        AND("and"), OR("or");
+
+        private final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean isArithmetic() {
+            return ordinal() <= MOD.ordinal();
+        }
+
+        boolean isComparison() {
+            return ordinal() >= EQ.ordinal() && ordinal() <= GE.ordinal();
+        }
+    }
+
+    private final Op op;
+
+    private final Expr left;
+
+    private final Expr right;
+
+    private final DataType type;
+
+    public BinaryExpr(Op op, Expr left, Expr right, DataType type) {
+        this.op = op;
+        this.left = left;
+        this.right = right;
+        this.type = type;
+    }
+
+    public Op op() {
+        return op;
+    }
+
+    public Expr left() {
+        return left;
+    }
+
+    public Expr right() {
+        return right;
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        left.collectColumns(columns);
+        right.collectColumns(columns);
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        Expr l = left.bind(schema);
+        Expr r = right.bind(schema);
+        if (op == Op.AND || op == Op.OR) {
+            requireType(l, DataType.BOOLEAN, op.symbol);
+            requireType(r, DataType.BOOLEAN, op.symbol);
+            return new BinaryExpr(op, l, r, DataType.BOOLEAN);
+        }
+        DataType lt = l.type();
+        DataType rt = r.type();
+        if (op == Op.ADD && (lt == DataType.STRING || rt == DataType.STRING)) {
+            return new BinaryExpr(op, l, r, DataType.STRING);
+        }
+        if (op.isArithmetic()) {
+            if (!lt.isNumeric() || !rt.isNumeric()) {
+                throw new IllegalArgumentException("operator " + op.symbol + " requires numbers: " + this);
+            }
+            DataType result = op == Op.DIV ? DataType.DOUBLE : DataType.widen(lt, rt);
+            return new BinaryExpr(op, l, r, result);
+        }
+        // 比较
+        if (lt.isNumeric() && rt.isNumeric()) {
+            // 整数列与整数值的小数常量比较时  把常量转成整数  避免整列转换成DOUBLE
+            if (lt == DataType.LONG && rt == DataType.DOUBLE) {
+                r = integralLiteral(r);
+            } else if (rt == DataType.LONG && lt == DataType.DOUBLE) {
+                l = integralLiteral(l);
+            }
+            return new BinaryExpr(op, l, r, DataType.BOOLEAN);
+        }
+        if (lt != rt || (lt == DataType.BOOLEAN && op != Op.EQ && op != Op.NE)) {
+            throw new IllegalArgumentException("cannot compare " + lt + " with " + rt + ": " + this);
+        }
+        return new BinaryExpr(op, l, r, DataType.BOOLEAN);
+    }
+
+    private static Expr integralLiteral(Expr expr) {
+        if (expr instanceof Literal) {
+            double value = (Double) ((Literal) expr).value();
+            if (value == Math.rint(value) && Math.abs(value) < 1L << 53) {
+                return new Literal((long) value);
+            }
+        }
+        return expr;
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        return new BinaryExpr(op, left.substitute(definitions), right.substitute(definitions), type);
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        if (op == Op.AND || op == Op.OR) {
+            return evaluateLogical(batch);
+        }
+        Vector l = left.evaluate(batch);
+        Vector r = right.evaluate(batch);
+        if (op.isArithmetic()) {
+            if (type == DataType.STRING) {
+                return concat(l, r, batch);
+            }
+            if (type == DataType.LONG) {
+                return arithmetic(l, r, batch);
+            }
+            return arithmetic(Vector.toDouble(l, batch), Vector.toDouble(r, batch), batch);
+        }
+        DataType lt = l.type();
+        DataType rt = r.type();
+        if (lt == DataType.LONG && rt == DataType.LONG) {
+            return compareLongs(l, r, batch);
+        }
+        if (lt.isNumeric()) {
+            return compareDoubles(Vector.toDouble(l, batch), Vector.toDouble(r, batch), batch);
+        }
+        return compareObjects(l, r, batch);
+    }
+
+    private Vector arithmetic(Vector l, Vector r, Batch batch) {
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        int length = batch.length();
+        BitSet nulls = Vector.unionNulls(l, r, batch);
+        int lo = l.offset();
+        int ro = r.offset();
+        if (l.type() == DataType.LONG) {
+            long[] a = l.longs();
+            long[] b = r.longs();
+            long[] out = new long[length];
+            switch (op) {
+                case ADD:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = a[lo + i] + b[ro + i];
+                    }
+                    break;
+                case SUB:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = a[lo + i] - b[ro + i];
+                    }
+                    break;
+                case MUL:
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = a[lo + i] * b[ro + i];
+                    }
+                    break;
+                default:
+                    // MOD  除数为0时结果为null
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        long divisor = b[ro + i];
+                        if (divisor == 0) {
+                            if (nulls == null) {
+                                nulls = new BitSet(length);
+                            }
+                            nulls.set(i);
+                        } else {
+                            out[i] = a[lo + i] % divisor;
+                        }
+                    }
+            }
+            return new Vector(new LongColumn(out, length, nulls), 0);
+        }
+        double[] a = l.doubles();
+        double[] b = r.doubles();
+        double[] out = new double[length];
+        switch (op) {
+            case ADD:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] + b[ro + i];
+                }
+                break;
+            case SUB:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] - b[ro + i];
+                }
+                break;
+            case MUL:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] * b[ro + i];
+                }
+                break;
+            case DIV:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] / b[ro + i];
+                }
+                break;
+            default:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] % b[ro + i];
+                }
+        }
+        return new Vector(new DoubleColumn(out, length, nulls), 0);
+    }
+
+    private Vector concat(Vector l, Vector r, Batch batch) {
+        int[] sel = batch.selection();
+        String[] out = new String[batch.length()];
+        for (int k = 0, n = batch.selectionSize(); k < n; k++) {
+            int i = sel[k];
+            Object a = l.get(i);
+            Object b = r.get(i);
+            if (a != null && b != null) {
+                out[i] = a.toString() + b;
+            }
+        }
+        return new Vector(new StringColumn(out, batch.length()), 0);
+    }
+
+    private Vector compareLongs(Vector l, Vector r, Batch batch) {
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        long[] a = l.longs();
+        long[] b = r.longs();
+        int lo = l.offset();
+        int ro = r.offset();
+        boolean[] out = new boolean[batch.length()];
+        switch (op) {
+            case EQ:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] == b[ro + i];
+                }
+                break;
+            case NE:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] != b[ro + i];
+                }
+                break;
+            case LT:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] < b[ro + i];
+                }
+                break;
+            case LE:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] <= b[ro + i];
+                }
+                break;
+            case GT:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] > b[ro + i];
+                }
+                break;
+            default:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] >= b[ro + i];
+                }
+        }
+        return new Vector(new BooleanColumn(out, batch.length(), Vector.unionNulls(l, r, batch)), 0);
+    }
+
+    private Vector compareDoubles(Vector l, Vector r, Batch batch) {
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        double[] a = l.doubles();
+        double[] b = r.doubles();
+        int lo = l.offset();
+        int ro = r.offset();
+        boolean[] out = new boolean[batch.length()];
+        switch (op) {
+            case EQ:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] == b[ro + i];
+                }
+                break;
+            case NE:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] != b[ro + i];
+                }
+                break;
+            case LT:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] < b[ro + i];
+                }
+                break;
+            case LE:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] <= b[ro + i];
+                }
+                break;
+            case GT:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] > b[ro + i];
+                }
+                break;
+            default:
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = a[lo + i] >= b[ro + i];
+                }
+        }
+        return new Vector(new BooleanColumn(out, batch.length(), Vector.unionNulls(l, r, batch)), 0);
+    }
+
+    /**
+     * 字符串和布尔的比较
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Vector compareObjects(Vector l, Vector r, Batch batch) {
+        int[] sel = batch.selection();
+        boolean[] out = new boolean[batch.length()];
+        BitSet nulls = Vector.unionNulls(l, r, batch);
+        for (int k = 0, n = batch.selectionSize(); k < n; k++) {
+            int i = sel[k];
+            Comparable a = (Comparable) l.get(i);
+            Object b = r.get(i);
+            if (a == null || b == null) {
+                continue;
+            }
+            int c = a.compareTo(b);
+            switch (op) {
+                case EQ:
+                    out[i] = c == 0;
+                    break;
+                case NE:
+                    out[i] = c != 0;
+                    break;
+                case LT:
+                    out[i] = c < 0;
+                    break;
+                case LE:
+                    out[i] = c <= 0;
+                    break;
+                case GT:
+                    out[i] = c > 0;
+                    break;
+                default:
+                    out[i] = c >= 0;
+            }
+        }
+        return new Vector(new BooleanColumn(out, batch.length(), nulls), 0);
+    }
+
+    /**
+     * 三值逻辑  右边只在左边不能决定结果的行上计算
+     */
+    private Vector evaluateLogical(Batch batch) {
+        boolean and = op == Op.AND;
+        Vector l = left.evaluate(batch);
+        boolean[] a = l.booleans();
+        int lo = l.offset();
+        boolean lNulls = l.mayHaveNulls();
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        int length = batch.length();
+
+        boolean[] out = new boolean[length];
+        BitSet nulls = null;
+        int[] undecided = new int[n];
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            int i = sel[k];
+            boolean isNull = lNulls && l.isNull(i);
+            if (!isNull && a[lo + i] != and) {
+                // and: 左边为false  or: 左边为true  结果已确定
+                out[i] = !and;
+            } else {
+                undecided[m++] = i;
+            }
+        }
+        if (m == 0) {
+            return new Vector(new BooleanColumn(out, length, null), 0);
+        }
+        Vector r = right.evaluate(batch.withSelection(undecided, m));
+        boolean[] b = r.booleans();
+        int ro = r.offset();
+        boolean rNulls = r.mayHaveNulls();
+        for (int k = 0; k < m; k++) {
+            int i = undecided[k];
+            boolean leftNull = lNulls && l.isNull(i);
+            boolean rightNull = rNulls && r.isNull(i);
+            if (!rightNull && b[ro + i] != and) {
+                out[i] = !and;
+            } else if (leftNull || rightNull) {
+                if (nulls == null) {
+                    nulls = new BitSet(length);
+                }
+                nulls.set(i);
+            } else {
+                out[i] = and;
+            }
+        }
+        return new Vector(new BooleanColumn(out, length, nulls), 0);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " " + op.symbol + " " + right + ")";
+    }
+}
@@ -0,0 +1,175 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.DoubleColumn;
+import io.jopen.dataframe.column.LongColumn;
+import io.jopen.dataframe.column.StringColumn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 函数调用  支持abs(x)、length(s)、lower(s)、upper(s)、contains(s, sub)
+ *
+ * @author maxuefeng
+ */
+public final class CallExpr extends Expr {
+
+    public enum Function {
+        ABS(1), LENGTH(1), LOWER(1), UPPER(1), CONTAINS(2);
+
+        private final int arity;
+
+        Function(int arity) {
+            this.arity = arity;
+        }
+
+        static Function of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown function " + name);
+            }
+        }
+    }
+
+    private final Function function;
+
+    private final List<Expr> args;
+
+    private final DataType type;
+
+    public CallExpr(Function function, List<Expr> args, DataType type) {
+        if (args.size() != function.arity) {
+            throw new IllegalArgumentException(function.name().toLowerCase(Locale.ROOT) + " takes "
+                    + function.arity + " argument(s)");
+        }
+        this.function = function;
+        this.args = args;
+        this.type = type;
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        for (Expr arg : args) {
+            arg.collectColumns(columns);
+        }
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        List<Expr> bound = new ArrayList<>(args.size());
+        for (Expr arg : args) {
+            bound.add(arg.bind(schema));
+        }
+        String name = function.name().toLowerCase(Locale.ROOT);
+        switch (function) {
+            case ABS:
+                if (!bound.get(0).type().isNumeric()) {
+                    throw new IllegalArgumentException("abs requires a number: " + bound.get(0));
+                }
+                return new CallExpr(function, bound, bound.get(0).type());
+            case LENGTH:
+                requireType(bound.get(0), DataType.STRING, name);
+                return new CallExpr(function, bound, DataType.LONG);
+            case CONTAINS:
+                requireType(bound.get(0), DataType.STRING, name);
+                requireType(bound.get(1), DataType.STRING, name);
+                return new CallExpr(function, bound, DataType.BOOLEAN);
+            default:
+                requireType(bound.get(0), DataType.STRING, name);
+                return new CallExpr(function, bound, DataType.STRING);
+        }
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        List<Expr> substituted = new ArrayList<>(args.size());
+        for (Expr arg : args) {
+            substituted.add(arg.substitute(definitions));
+        }
+        return new CallExpr(function, substituted, type);
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        Vector v = args.get(0).evaluate(batch);
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        int length = batch.length();
+        int offset = v.offset();
+        switch (function) {
+            case ABS:
+                if (v.type() == DataType.LONG) {
+                    long[] a = v.longs();
+                    long[] out = new long[length];
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = Math.abs(a[offset + i]);
+                    }
+                    return new Vector(new LongColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+                } else {
+                    double[] a = v.doubles();
+                    double[] out = new double[length];
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = Math.abs(a[offset + i]);
+                    }
+                    return new Vector(new DoubleColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+                }
+            case LENGTH: {
+                String[] a = v.strings();
+                long[] out = new long[length];
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    String s = a[offset + i];
+                    out[i] = s == null ? 0 : s.length();
+                }
+                return new Vector(new LongColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+            }
+            case CONTAINS: {
+                Vector sub = args.get(1).evaluate(batch);
+                String[] a = v.strings();
+                String[] b = sub.strings();
+                int subOffset = sub.offset();
+                boolean[] out = new boolean[length];
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    String s = a[offset + i];
+                    String t = b[subOffset + i];
+                    out[i] = s != null && t != null && s.contains(t);
+                }
+                return new Vector(new BooleanColumn(out, length, Vector.unionNulls(v, sub, batch)), 0);
+            }
+            default: {
+                boolean lower = function == Function.LOWER;
+                String[] a = v.strings();
+                String[] out = new String[length];
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    String s = a[offset + i];
+                    out[i] = s == null ? null : lower ? s.toLowerCase(Locale.ROOT) : s.toUpperCase(Locale.ROOT);
+                }
+                return new Vector(new StringColumn(out, length), 0);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<String> rendered = new ArrayList<>(args.size());
+        for (Expr arg : args) {
+            rendered.add(arg.toString());
+        }
+        return function.name().toLowerCase(Locale.ROOT) + "(" + String.join(", ", rendered) + ")";
+    }
+}
@@ -0,0 +1,62 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 列引用
+ *
+ * @author maxuefeng
+ */
+public final class ColumnRef extends Expr {
+
+    private final String name;
+
+    private final DataType type;
+
+    public ColumnRef(String name, DataType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        columns.add(name);
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        DataType bound = schema.get(name);
+        if (bound == null) {
+            throw new IllegalArgumentException("unknown column " + name + ", available columns " + schema.keySet());
+        }
+        return new ColumnRef(name, bound);
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        Expr definition = definitions.get(name);
+        return definition == null ? this : definition;
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        return batch.column(name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,88 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DSL表达式
+ * <p>
+ * {@link ExprParser}解析得到的表达式是未绑定的(没有类型)；{@link #bind(Map)}按输入的列类型做类型检查，
+ * 返回绑定后的表达式，只有绑定后的表达式可以{@link #evaluate(Batch)}。表达式不可变，可以被多个线程同时计算
+ *
+ * @author maxuefeng
+ */
+public abstract class Expr {
+
+    /**
+     * @return 结果类型  未绑定时为null
+     */
+    public abstract DataType type();
+
+    /**
+     * 收集表达式引用的列
+     */
+    public abstract void collectColumns(Set<String> columns);
+
+    /**
+     * @param schema 输入的列名到类型的映射
+     * @return 绑定后的表达式
+     * @throws IllegalArgumentException 列不存在或类型不匹配
+     */
+    public abstract Expr bind(Map<String, DataType> schema);
+
+    /**
+     * 把对列的引用替换成definitions中的表达式  用于把过滤条件下推到定义这些列的投影之下
+     */
+    public abstract Expr substitute(Map<String, Expr> definitions);
+
+    /**
+     * 计算批次中被选中的行  结果向量的长度为batch.length()  未选中的行的值无意义
+     */
+    public abstract Vector evaluate(Batch batch);
+
+    public Set<String> columns() {
+        Set<String> columns = new LinkedHashSet<>();
+        collectColumns(columns);
+        return columns;
+    }
+
+    /**
+     * 把AND连接的表达式拆开
+     */
+    public static List<Expr> conjuncts(Expr expr) {
+        List<Expr> conjuncts = new ArrayList<>();
+        addConjuncts(expr, conjuncts);
+        return conjuncts;
+    }
+
+    private static void addConjuncts(Expr expr, List<Expr> conjuncts) {
+        if (expr instanceof BinaryExpr && ((BinaryExpr) expr).op() == BinaryExpr.Op.AND) {
+            addConjuncts(((BinaryExpr) expr).left(), conjuncts);
+            addConjuncts(((BinaryExpr) expr).right(), conjuncts);
+        } else {
+            conjuncts.add(expr);
+        }
+    }
+
+    /**
+     * 用AND连接  conjuncts为空时返回null
+     */
+    public static Expr and(List<Expr> conjuncts) {
+        Expr result = null;
+        for (Expr conjunct : conjuncts) {
+            result = result == null ? conjunct : new BinaryExpr(BinaryExpr.Op.AND, result, conjunct, DataType.BOOLEAN);
+        }
+        return result;
+    }
+
+    static void requireType(Expr expr, DataType expected, String context) {
+        if (expr.type() != expected) {
+            throw new IllegalArgumentException(context + " requires " + expected + " but " + expr + " is " + expr.type());
+        }
+    }
+}
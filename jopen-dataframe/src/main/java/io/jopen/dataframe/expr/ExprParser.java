@@ -0,0 +1,464 @@
+package io.jopen.dataframe.expr;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * DSL解析
+ * <pre>
+ * 表达式     expr     := or
+ *            or       := and (('or' | '||') and)*
+ *            and      := not (('and' | '&amp;&amp;') not)*
+ *            not      := ('not' | '!') not | cmp
+ *            cmp      := add [('==' | '=' | '!=' | '&lt;&gt;' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') add
+ *                             | 'is' ['not'] 'null' | ['not'] 'in' '(' literal (',' literal)* ')']
+ *            add      := mul (('+' | '-') mul)*
+ *            mul      := unary (('*' | '/' | '%') unary)*
+ *            unary    := '-' unary | primary
+ *            primary  := number | 'string' | "string" | true | false | name | name '(' args ')' | '(' expr ')'
+ * 列名列表   names    := name (',' name)*
+ * 赋值列表   assigns  := name '=' expr (',' name '=' expr)*
+ * 聚合列表   aggs     := name '=' function '(' [name | '*'] ')' (',' ...)*
+ * 排序键     sorts    := name ['asc' | 'desc'] (',' ...)*
+ * 连接键     joins    := name [('=' | '==') name] (',' ...)*
+ * </pre>
+ * 列名可以是Java标识符(包括中文)，其他列名用反引号括起来，例如 `order id`
+ *
+ * @author maxuefeng
+ */
+public final class ExprParser {
+
+    private enum Kind {
+        NAME, NUMBER, STRING, SYMBOL, END
+    }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        final int position;
+        /**
+         * 反引号括起来的名字不是关键字
+         */
+        final boolean quoted;
+
+        Token(Kind kind, String text, int position, boolean quoted) {
+            this.kind = kind;
+            this.text = text;
+            this.position = position;
+            this.quoted = quoted;
+        }
+    }
+
+    private final String dsl;
+
+    private final List<Token> tokens;
+
+    private int current;
+
+    private ExprParser(String dsl) {
+        this.dsl = dsl;
+        this.tokens = tokenize(dsl);
+    }
+
+    /**
+     * 解析一个表达式
+     */
+    public static Expr parseExpression(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        Expr expr = parser.expression();
+        parser.expectEnd();
+        return expr;
+    }
+
+    /**
+     * 解析逗号分隔的列名
+     */
+    public static List<String> parseNames(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        List<String> names = new ArrayList<>();
+        do {
+            names.add(parser.name());
+        } while (parser.acceptSymbol(","));
+        parser.expectEnd();
+        return names;
+    }
+
+    /**
+     * 解析逗号分隔的赋值  例如 total = price * qty, vip = level &gt;= 3
+     */
+    public static LinkedHashMap<String, Expr> parseAssignments(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        LinkedHashMap<String, Expr> assignments = new LinkedHashMap<>();
+        do {
+            String name = parser.name();
+            parser.expectSymbol("=");
+            if (assignments.put(name, parser.expression()) != null) {
+                throw new IllegalArgumentException("column " + name + " is assigned twice in: " + dsl);
+            }
+        } while (parser.acceptSymbol(","));
+        parser.expectEnd();
+        return assignments;
+    }
+
+    /**
+     * 解析逗号分隔的聚合  例如 n = count(*), total = sum(price)
+     *
+     * @return 输出列名到 {函数名(小写), 参数列名(没有参数或者*时为null)}
+     */
+    public static LinkedHashMap<String, String[]> parseAggregates(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        LinkedHashMap<String, String[]> aggregates = new LinkedHashMap<>();
+        do {
+            String name = parser.name();
+            parser.expectSymbol("=");
+            Token function = parser.peek();
+            if (function.kind != Kind.NAME || function.quoted) {
+                throw parser.error("expected an aggregate function but found " + describe(function), function);
+            }
+            parser.current++;
+            parser.expectSymbol("(");
+            String argument = null;
+            if (!parser.acceptSymbol("*") && parser.peek().kind == Kind.NAME) {
+                argument = parser.name();
+            }
+            parser.expectSymbol(")");
+            if (aggregates.put(name, new String[]{function.text.toLowerCase(Locale.ROOT), argument}) != null) {
+                throw new IllegalArgumentException("column " + name + " is assigned twice in: " + dsl);
+            }
+        } while (parser.acceptSymbol(","));
+        parser.expectEnd();
+        return aggregates;
+    }
+
+    /**
+     * 解析逗号分隔的排序键  例如 age desc, name
+     *
+     * @return 列名到是否升序  默认升序
+     */
+    public static LinkedHashMap<String, Boolean> parseSortKeys(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        LinkedHashMap<String, Boolean> keys = new LinkedHashMap<>();
+        do {
+            Token token = parser.peek();
+            String name = parser.name();
+            boolean ascending = !parser.acceptKeyword("desc");
+            if (ascending) {
+                parser.acceptKeyword("asc");
+            }
+            if (keys.put(name, ascending) != null) {
+                throw parser.error("duplicate sort key " + name, token);
+            }
+        } while (parser.acceptSymbol(","));
+        parser.expectEnd();
+        return keys;
+    }
+
+    /**
+     * 解析逗号分隔的等值连接键  例如 id = user_id, day  只写一个名字表示两边列名相同
+     *
+     * @return 每个元素为 {左边列名, 右边列名}
+     */
+    public static List<String[]> parseJoinKeys(String dsl) {
+        ExprParser parser = new ExprParser(dsl);
+        List<String[]> keys = new ArrayList<>();
+        do {
+            String left = parser.name();
+            String right = parser.acceptSymbol("=") || parser.acceptSymbol("==") ? parser.name() : left;
+            keys.add(new String[]{left, right});
+        } while (parser.acceptSymbol(","));
+        parser.expectEnd();
+        return keys;
+    }
+
+    private Expr expression() {
+        Expr left = and();
+        while (acceptKeyword("or") || acceptSymbol("||")) {
+            left = new BinaryExpr(BinaryExpr.Op.OR, left, and(), null);
+        }
+        return left;
+    }
+
+    private Expr and() {
+        Expr left = not();
+        while (acceptKeyword("and") || acceptSymbol("&&")) {
+            left = new BinaryExpr(BinaryExpr.Op.AND, left, not(), null);
+        }
+        return left;
+    }
+
+    private Expr not() {
+        if (acceptKeyword("not") || acceptSymbol("!")) {
+            return new UnaryExpr(UnaryExpr.Op.NOT, not(), null);
+        }
+        return comparison();
+    }
+
+    private Expr comparison() {
+        Expr left = additive();
+        Token token = peek();
+        if (token.kind == Kind.SYMBOL) {
+            BinaryExpr.Op op = comparisonOp(token.text);
+            if (op != null) {
+                current++;
+                return new BinaryExpr(op, left, additive(), null);
+            }
+        }
+        if (acceptKeyword("is")) {
+            boolean negated = acceptKeyword("not");
+            expectKeyword("null");
+            return new UnaryExpr(negated ? UnaryExpr.Op.IS_NOT_NULL : UnaryExpr.Op.IS_NULL, left, null);
+        }
+        boolean negated = false;
+        if (isKeyword(peek(), "not") && isKeyword(peekNext(), "in")) {
+            current++;
+            negated = true;
+        }
+        if (acceptKeyword("in")) {
+            expectSymbol("(");
+            List<Literal> values = new ArrayList<>();
+            do {
+                Expr value = unary();
+                if (!(value instanceof Literal)) {
+                    throw error("in (...) only accepts literals", peek());
+                }
+                values.add((Literal) value);
+            } while (acceptSymbol(","));
+            expectSymbol(")");
+            return new InExpr(left, values, negated);
+        }
+        return left;
+    }
+
+    private static BinaryExpr.Op comparisonOp(String symbol) {
+        switch (symbol) {
+            case "==":
+            case "=":
+                return BinaryExpr.Op.EQ;
+            case "!=":
+            case "<>":
+                return BinaryExpr.Op.NE;
+            case "<":
+                return BinaryExpr.Op.LT;
+            case "<=":
+                return BinaryExpr.Op.LE;
+            case ">":
+                return BinaryExpr.Op.GT;
+            case ">=":
+                return BinaryExpr.Op.GE;
+            default:
+                return null;
+        }
+    }
+
+    private Expr additive() {
+        Expr left = multiplicative();
+        for (; ; ) {
+            if (acceptSymbol("+")) {
+                left = new BinaryExpr(BinaryExpr.Op.ADD, left, multiplicative(), null);
+            } else if (acceptSymbol("-")) {
+                left = new BinaryExpr(BinaryExpr.Op.SUB, left, multiplicative(), null);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expr multiplicative() {
+        Expr left = unary();
+        for (; ; ) {
+            if (acceptSymbol("*")) {
+                left = new BinaryExpr(BinaryExpr.Op.MUL, left, unary(), null);
+            } else if (acceptSymbol("/")) {
+                left = new BinaryExpr(BinaryExpr.Op.DIV, left, unary(), null);
+            } else if (acceptSymbol("%")) {
+                left = new BinaryExpr(BinaryExpr.Op.MOD, left, unary(), null);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expr unary() {
+        if (acceptSymbol("-")) {
+            Expr operand = unary();
+            if (operand instanceof Literal && ((Literal) operand).type().isNumeric()) {
+                Object value = ((Literal) operand).value();
+                return new Literal(value instanceof Long ? (Object) (-(Long) value) : (Object) (-(Double) value));
+            }
+            return new UnaryExpr(UnaryExpr.Op.NEG, operand, null);
+        }
+        return primary();
+    }
+
+    private Expr primary() {
+        Token token = peek();
+        switch (token.kind) {
+            case NUMBER:
+                current++;
+                if (token.text.indexOf('.') >= 0 || token.text.indexOf('e') >= 0 || token.text.indexOf('E') >= 0) {
+                    return new Literal(Double.parseDouble(token.text));
+                }
+                return new Literal(Long.parseLong(token.text));
+            case STRING:
+                current++;
+                return new Literal(token.text);
+            case NAME:
+                if (isKeyword(token, "true") || isKeyword(token, "false")) {
+                    current++;
+                    return new Literal(Boolean.parseBoolean(token.text.toLowerCase(Locale.ROOT)));
+                }
+                String name = name();
+                if (!token.quoted && acceptSymbol("(")) {
+                    List<Expr> args = new ArrayList<>();
+                    if (!acceptSymbol(")")) {
+                        do {
+                            args.add(expression());
+                        } while (acceptSymbol(","));
+                        expectSymbol(")");
+                    }
+                    return new CallExpr(CallExpr.Function.of(name), args, null);
+                }
+                return new ColumnRef(name, null);
+            default:
+                if (acceptSymbol("(")) {
+                    Expr expr = expression();
+                    expectSymbol(")");
+                    return expr;
+                }
+                throw error("unexpected " + describe(token), token);
+        }
+    }
+
+    private String name() {
+        Token token = peek();
+        if (token.kind != Kind.NAME) {
+            throw error("expected a column name but found " + describe(token), token);
+        }
+        current++;
+        return token.text;
+    }
+
+    private Token peek() {
+        return tokens.get(current);
+    }
+
+    private Token peekNext() {
+        return tokens.get(Math.min(current + 1, tokens.size() - 1));
+    }
+
+    private static boolean isKeyword(Token token, String keyword) {
+        return token.kind == Kind.NAME && !token.quoted && token.text.equalsIgnoreCase(keyword);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (isKeyword(peek(), keyword)) {
+            current++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error("expected " + keyword + " but found " + describe(peek()), peek());
+        }
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        Token token = peek();
+        if (token.kind == Kind.SYMBOL && token.text.equals(symbol)) {
+            current++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectSymbol(String symbol) {
+        if (!acceptSymbol(symbol)) {
+            throw error("expected '" + symbol + "' but found " + describe(peek()), peek());
+        }
+    }
+
+    private void expectEnd() {
+        if (peek().kind != Kind.END) {
+            throw error("unexpected " + describe(peek()), peek());
+        }
+    }
+
+    private static String describe(Token token) {
+        return token.kind == Kind.END ? "end of input" : "'" + token.text + "'";
+    }
+
+    private IllegalArgumentException error(String message, Token token) {
+        return new IllegalArgumentException(message + " at position " + token.position + " in: " + dsl);
+    }
+
+    private static List<Token> tokenize(String dsl) {
+        if (dsl == null) {
+            throw new IllegalArgumentException("dsl must not be null");
+        }
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = dsl.length();
+        while (i < n) {
+            char c = dsl.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(dsl.charAt(i + 1)))) {
+                int start = i;
+                while (i < n && (Character.isDigit(dsl.charAt(i)) || dsl.charAt(i) == '.')) {
+                    i++;
+                }
+                if (i < n && (dsl.charAt(i) == 'e' || dsl.charAt(i) == 'E')) {
+                    i++;
+                    if (i < n && (dsl.charAt(i) == '+' || dsl.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < n && Character.isDigit(dsl.charAt(i))) {
+                        i++;
+                    }
+                }
+                tokens.add(new Token(Kind.NUMBER, dsl.substring(start, i), start, false));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < n && Character.isJavaIdentifierPart(dsl.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.NAME, dsl.substring(start, i), start, false));
+            } else if (c == '`' || c == '\'' || c == '"') {
+                int start = i;
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (i < n && dsl.charAt(i) != c) {
+                    if (dsl.charAt(i) == '\\' && i + 1 < n) {
+                        i++;
+                    }
+                    text.append(dsl.charAt(i++));
+                }
+                if (i >= n) {
+                    throw new IllegalArgumentException("unterminated " + c + " at position " + start + " in: " + dsl);
+                }
+                i++;
+                tokens.add(c == '`'
+                        ? new Token(Kind.NAME, text.toString(), start, true)
+                        : new Token(Kind.STRING, text.toString(), start, false));
+            } else {
+                String two = i + 1 < n ? dsl.substring(i, i + 2) : "";
+                if (two.equals("==") || two.equals("!=") || two.equals("<>") || two.equals("<=")
+                        || two.equals(">=") || two.equals("&&") || two.equals("||")) {
+                    tokens.add(new Token(Kind.SYMBOL, two, i, false));
+                    i += 2;
+                } else if ("+-*/%<>=!(),".indexOf(c) >= 0) {
+                    tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), i, false));
+                    i++;
+                } else {
+                    throw new IllegalArgumentException("unexpected character '" + c + "' at position " + i + " in: " + dsl);
+                }
+            }
+        }
+        tokens.add(new Token(Kind.END, "", n, false));
+        return tokens;
+    }
+}
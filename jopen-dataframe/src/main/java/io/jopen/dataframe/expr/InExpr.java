@@ -0,0 +1,94 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.DataType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * x in (v1, v2, ...)  值被转换成x的类型后放进HashSet
+ *
+ * @author maxuefeng
+ */
+public final class InExpr extends Expr {
+
+    private final Expr child;
+
+    private final List<Literal> values;
+
+    private final boolean negated;
+
+    private final Set<Object> set;
+
+    public InExpr(Expr child, List<Literal> values, boolean negated) {
+        this.child = child;
+        this.values = values;
+        this.negated = negated;
+        this.set = child.type() == null ? null : toSet(child.type(), values);
+    }
+
+    private static Set<Object> toSet(DataType type, List<Literal> values) {
+        Set<Object> set = new HashSet<>();
+        for (Literal literal : values) {
+            if (type.isNumeric() != literal.type().isNumeric() && type != DataType.STRING) {
+                throw new IllegalArgumentException("cannot compare " + type + " with " + literal);
+            }
+            if (type == DataType.LONG && literal.type() == DataType.DOUBLE) {
+                double value = (Double) literal.value();
+                // 小数不可能等于整数列中的值
+                if (value == Math.rint(value)) {
+                    set.add((long) value);
+                }
+                continue;
+            }
+            set.add(type.convert(literal.value()));
+        }
+        return set;
+    }
+
+    @Override
+    public DataType type() {
+        return child.type() == null ? null : DataType.BOOLEAN;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        child.collectColumns(columns);
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        return new InExpr(child.bind(schema), values, negated);
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        return new InExpr(child.substitute(definitions), values, negated);
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        Vector v = child.evaluate(batch);
+        int[] sel = batch.selection();
+        boolean[] out = new boolean[batch.length()];
+        for (int k = 0, n = batch.selectionSize(); k < n; k++) {
+            int i = sel[k];
+            Object value = v.get(i);
+            out[i] = value != null && set.contains(value) != negated;
+        }
+        return new Vector(new BooleanColumn(out, batch.length(), Vector.unionNulls(v, null, batch)), 0);
+    }
+
+    @Override
+    public String toString() {
+        List<String> literals = new ArrayList<>(values.size());
+        for (Literal value : values) {
+            literals.add(value.toString());
+        }
+        return "(" + child + (negated ? " not in (" : " in (") + String.join(", ", literals) + "))";
+    }
+}
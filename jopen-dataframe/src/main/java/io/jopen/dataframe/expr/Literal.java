@@ -0,0 +1,82 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.ColumnBuilder;
+import io.jopen.dataframe.column.DataType;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 常量  计算时返回一个所有行都是该值的共享向量  不会为每个批次分配内存
+ *
+ * @author maxuefeng
+ */
+public final class Literal extends Expr {
+
+    private final Object value;
+
+    private final DataType type;
+
+    private volatile Vector broadcast;
+
+    /**
+     * @param value Long、Double、Boolean或String
+     */
+    public Literal(Object value) {
+        this.type = DataType.of(value);
+        if (type == null) {
+            throw new IllegalArgumentException("literal must not be null");
+        }
+        this.value = type.convert(value);
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        return this;
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        return this;
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        if (batch.length() > Vector.MAX_LENGTH) {
+            return new Vector(fill(batch.length()), 0);
+        }
+        Vector vector = broadcast;
+        if (vector == null) {
+            vector = new Vector(fill(Vector.MAX_LENGTH), 0);
+            broadcast = vector;
+        }
+        return vector;
+    }
+
+    private Column fill(int length) {
+        ColumnBuilder builder = new ColumnBuilder(type, length);
+        for (int i = 0; i < length; i++) {
+            builder.append(value);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return type == DataType.STRING ? "'" + value.toString().replace("'", "\\'") + "'" : String.valueOf(value);
+    }
+}
@@ -0,0 +1,127 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.DoubleColumn;
+import io.jopen.dataframe.column.LongColumn;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一元运算: not、取负、is null、is not null
+ *
+ * @author maxuefeng
+ */
+public final class UnaryExpr extends Expr {
+
+    public enum Op {
+        NOT, NEG, IS_NULL, IS_NOT_NULL
+    }
+
+    private final Op op;
+
+    private final Expr child;
+
+    private final DataType type;
+
+    public UnaryExpr(Op op, Expr child, DataType type) {
+        this.op = op;
+        this.child = child;
+        this.type = type;
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public void collectColumns(Set<String> columns) {
+        child.collectColumns(columns);
+    }
+
+    @Override
+    public Expr bind(Map<String, DataType> schema) {
+        Expr bound = child.bind(schema);
+        switch (op) {
+            case NOT:
+                requireType(bound, DataType.BOOLEAN, "not");
+                return new UnaryExpr(op, bound, DataType.BOOLEAN);
+            case NEG:
+                if (!bound.type().isNumeric()) {
+                    throw new IllegalArgumentException("negation requires a number: " + bound);
+                }
+                return new UnaryExpr(op, bound, bound.type());
+            default:
+                return new UnaryExpr(op, bound, DataType.BOOLEAN);
+        }
+    }
+
+    @Override
+    public Expr substitute(Map<String, Expr> definitions) {
+        return new UnaryExpr(op, child.substitute(definitions), type);
+    }
+
+    @Override
+    public Vector evaluate(Batch batch) {
+        Vector v = child.evaluate(batch);
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        int length = batch.length();
+        int offset = v.offset();
+        switch (op) {
+            case NOT: {
+                boolean[] a = v.booleans();
+                boolean[] out = new boolean[length];
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = !a[offset + i];
+                }
+                return new Vector(new BooleanColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+            }
+            case NEG:
+                if (v.type() == DataType.LONG) {
+                    long[] a = v.longs();
+                    long[] out = new long[length];
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = -a[offset + i];
+                    }
+                    return new Vector(new LongColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+                } else {
+                    double[] a = v.doubles();
+                    double[] out = new double[length];
+                    for (int k = 0; k < n; k++) {
+                        int i = sel[k];
+                        out[i] = -a[offset + i];
+                    }
+                    return new Vector(new DoubleColumn(out, length, Vector.unionNulls(v, null, batch)), 0);
+                }
+            default: {
+                boolean expected = op == Op.IS_NULL;
+                boolean[] out = new boolean[length];
+                boolean mayHaveNulls = v.mayHaveNulls();
+                for (int k = 0; k < n; k++) {
+                    int i = sel[k];
+                    out[i] = (mayHaveNulls && v.isNull(i)) == expected;
+                }
+                return new Vector(new BooleanColumn(out, length, null), 0);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (op) {
+            case NOT:
+                return "(not " + child + ")";
+            case NEG:
+                return "(-" + child + ")";
+            case IS_NULL:
+                return "(" + child + " is null)";
+            default:
+                return "(" + child + " is not null)";
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.DoubleColumn;
+import io.jopen.dataframe.column.LongColumn;
+import io.jopen.dataframe.column.StringColumn;
+
+import java.util.BitSet;
+
+/**
+ * 批次中的一列  批次的第i行对应column的第offset + i行
+ * <p>
+ * 扫描得到的向量直接引用表中的列(不复制)，表达式计算得到的向量offset为0
+ *
+ * @author maxuefeng
+ * @see Batch
+ */
+public final class Vector {
+
+    /**
+     * 一个批次的最大行数  批次内的数据可以放进CPU缓存
+     */
+    public static final int MAX_LENGTH = 4096;
+
+    private final Column column;
+
+    private final int offset;
+
+    public Vector(Column column, int offset) {
+        this.column = column;
+        this.offset = offset;
+    }
+
+    public Column column() {
+        return column;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public DataType type() {
+        return column.type();
+    }
+
+    public boolean isNull(int i) {
+        return column.isNull(offset + i);
+    }
+
+    public Object get(int i) {
+        return column.get(offset + i);
+    }
+
+    long[] longs() {
+        return ((LongColumn) column).values();
+    }
+
+    double[] doubles() {
+        return ((DoubleColumn) column).values();
+    }
+
+    boolean[] booleans() {
+        return ((BooleanColumn) column).values();
+    }
+
+    String[] strings() {
+        return ((StringColumn) column).values();
+    }
+
+    boolean mayHaveNulls() {
+        return column.hasNulls();
+    }
+
+    /**
+     * 被选中的行中a或b为null的行  都没有null时返回null
+     */
+    static BitSet unionNulls(Vector a, Vector b, Batch batch) {
+        boolean aNulls = a.mayHaveNulls();
+        boolean bNulls = b != null && b.mayHaveNulls();
+        if (!aNulls && !bNulls) {
+            return null;
+        }
+        int[] sel = batch.selection();
+        int n = batch.selectionSize();
+        BitSet nulls = new BitSet(batch.length());
+        for (int k = 0; k < n; k++) {
+            int i = sel[k];
+            if ((aNulls && a.isNull(i)) || (bNulls && b.isNull(i))) {
+                nulls.set(i);
+            }
+        }
+        return nulls;
+    }
+
+    /**
+     * LONG向量转换为DOUBLE向量  只转换被选中的行
+     */
+    static Vector toDouble(Vector vector, Batch batch) {
+        if (vector.type() == DataType.DOUBLE) {
+            return vector;
+        }
+        long[] values = vector.longs();
+        int offset = vector.offset;
+        double[] out = new double[batch.length()];
+        int[] sel = batch.selection();
+        for (int k = 0, n = batch.selectionSize(); k < n; k++) {
+            int i = sel[k];
+            out[i] = values[offset + i];
+        }
+        BitSet nulls = vector.column.nulls();
+        BitSet shifted = null;
+        if (nulls != null) {
+            shifted = new BitSet(batch.length());
+            for (int k = 0, n = batch.selectionSize(); k < n; k++) {
+                int i = sel[k];
+                if (nulls.get(offset + i)) {
+                    shifted.set(i);
+                }
+            }
+        }
+        return new Vector(new DoubleColumn(out, batch.length(), shifted), 0);
+    }
+}
@@ -0,0 +1,198 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 分组聚合  输出分组键列与聚合列  分组之间没有顺序
+ * <p>
+ * 聚合忽略null值；一个分组没有非null值时sum/avg/min/max为null。没有分组键时输出一行(输入为空也是一行)
+ *
+ * @author maxuefeng
+ * @see HashAggregator
+ */
+public final class Aggregate extends PlanNode {
+
+    public enum Function {
+        COUNT, SUM, AVG, MIN, MAX;
+
+        public static Function of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown aggregate function " + name + ", available functions "
+                        + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * 一个聚合输出
+     */
+    public static final class Call {
+
+        private final String output;
+
+        private final Function function;
+
+        /**
+         * count(*)时为null
+         */
+        private final String argument;
+
+        private final DataType type;
+
+        Call(String output, Function function, String argument, DataType inputType) {
+            this.output = output;
+            this.function = function;
+            this.argument = argument;
+            switch (function) {
+                case COUNT:
+                    this.type = DataType.LONG;
+                    break;
+                case AVG:
+                    this.type = DataType.DOUBLE;
+                    break;
+                default:
+                    this.type = inputType;
+            }
+        }
+
+        public String output() {
+            return output;
+        }
+
+        public Function function() {
+            return function;
+        }
+
+        public String argument() {
+            return argument;
+        }
+
+        /**
+         * @return 输出类型
+         */
+        public DataType type() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return output + " = " + function.name().toLowerCase(Locale.ROOT) + "(" + (argument == null ? "*" : argument) + ")";
+        }
+    }
+
+    private final PlanNode child;
+
+    private final List<String> keys;
+
+    private final List<Call> calls;
+
+    Aggregate(PlanNode child, List<String> keys, List<Call> calls) {
+        this.child = child;
+        this.keys = keys;
+        this.calls = calls;
+    }
+
+    /**
+     * 检查列名与参数类型
+     *
+     * @param aggregates 输出列名到 {函数名, 参数列名}  见{@link io.jopen.dataframe.expr.ExprParser#parseAggregates(String)}
+     */
+    public static Aggregate of(PlanNode child, List<String> keys, Map<String, String[]> aggregates) {
+        if (keys.isEmpty() && aggregates.isEmpty()) {
+            throw new IllegalArgumentException("aggregate requires group keys or aggregate functions");
+        }
+        Map<String, DataType> schema = child.schema();
+        for (String key : keys) {
+            requireColumn(schema, key);
+        }
+        List<Call> calls = new ArrayList<>(aggregates.size());
+        for (Map.Entry<String, String[]> aggregate : aggregates.entrySet()) {
+            String output = aggregate.getKey();
+            if (keys.contains(output)) {
+                throw new IllegalArgumentException("aggregate " + output + " conflicts with a group key");
+            }
+            Function function = Function.of(aggregate.getValue()[0]);
+            String argument = aggregate.getValue()[1];
+            DataType inputType = null;
+            if (argument == null) {
+                if (function != Function.COUNT) {
+                    throw new IllegalArgumentException(function.name().toLowerCase(Locale.ROOT) + " requires a column: " + output);
+                }
+            } else {
+                inputType = requireColumn(schema, argument);
+                if ((function == Function.SUM || function == Function.AVG) && !inputType.isNumeric()) {
+                    throw new IllegalArgumentException(function.name().toLowerCase(Locale.ROOT)
+                            + " requires a numeric column but " + argument + " is " + inputType);
+                }
+            }
+            calls.add(new Call(output, function, argument, inputType));
+        }
+        return new Aggregate(child, new ArrayList<>(keys), calls);
+    }
+
+    private static DataType requireColumn(Map<String, DataType> schema, String name) {
+        DataType type = schema.get(name);
+        if (type == null) {
+            throw new IllegalArgumentException("unknown column " + name + ", available columns " + schema.keySet());
+        }
+        return type;
+    }
+
+    public List<String> keys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    public List<Call> calls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    /**
+     * @return 需要从输入读取的列  分组键在前
+     */
+    List<String> inputColumns() {
+        List<String> columns = new ArrayList<>(keys);
+        for (Call call : calls) {
+            if (call.argument != null && !columns.contains(call.argument)) {
+                columns.add(call.argument);
+            }
+        }
+        return columns;
+    }
+
+    Aggregate withChild(PlanNode child, List<Call> calls) {
+        return new Aggregate(child, keys, calls);
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        Map<String, DataType> input = child.schema();
+        LinkedHashMap<String, DataType> schema = new LinkedHashMap<>();
+        for (String key : keys) {
+            schema.put(key, input.get(key));
+        }
+        for (Call call : calls) {
+            schema.put(call.output, call.type);
+        }
+        return schema;
+    }
+
+    @Override
+    public PlanNode child() {
+        return child;
+    }
+
+    @Override
+    String describe() {
+        return "Aggregate keys=" + keys + " " + calls;
+    }
+}
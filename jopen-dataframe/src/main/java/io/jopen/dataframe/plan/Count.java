@@ -0,0 +1,38 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.LinkedHashMap;
+
+/**
+ * 计数  输出只有一行一列(count)  不需要读取输入的任何列
+ *
+ * @author maxuefeng
+ */
+public final class Count extends PlanNode {
+
+    public static final String COLUMN = "count";
+
+    private final PlanNode child;
+
+    public Count(PlanNode child) {
+        this.child = child;
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        LinkedHashMap<String, DataType> schema = new LinkedHashMap<>();
+        schema.put(COLUMN, DataType.LONG);
+        return schema;
+    }
+
+    @Override
+    public PlanNode child() {
+        return child;
+    }
+
+    @Override
+    String describe() {
+        return "Count";
+    }
+}
@@ -0,0 +1,36 @@
+package io.jopen.dataframe.plan;
+
+import java.io.File;
+
+/**
+ * 分组、连接、排序等需要物化输入的算子的执行参数  通过系统属性配置
+ * <ul>
+ *     <li>jopen.dataframe.memory 单个算子缓存输入的内存预算(字节)  超过后溢写到磁盘  默认最大堆的1/4</li>
+ *     <li>jopen.dataframe.partitions 哈希分区数  各分区并行处理  默认CPU核数的2倍(至少8)</li>
+ *     <li>jopen.dataframe.spill.dir 溢写目录  默认java.io.tmpdir</li>
+ * </ul>
+ *
+ * @author maxuefeng
+ */
+public final class ExecutionConfig {
+
+    private ExecutionConfig() {
+    }
+
+    public static long memoryBudget() {
+        return Long.getLong("jopen.dataframe.memory", Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    public static int partitions() {
+        int partitions = Integer.getInteger("jopen.dataframe.partitions",
+                Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("jopen.dataframe.partitions must be positive");
+        }
+        return partitions;
+    }
+
+    public static File spillDirectory() {
+        return new File(System.getProperty("jopen.dataframe.spill.dir", System.getProperty("java.io.tmpdir")));
+    }
+}
@@ -0,0 +1,239 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.LongColumn;
+import io.jopen.dataframe.column.RowKeys;
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.Batch;
+import io.jopen.dataframe.expr.Expr;
+import io.jopen.dataframe.expr.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 执行优化后的逻辑计划
+ * <p>
+ * 扫描之上连续的Filter/Project组成一条流水线，数据源按{@link Vector#MAX_LENGTH}行切分成批次，
+ * 各批次在ForkJoin公共线程池中并行地走完整条流水线：过滤只缩小选择向量，投影只计算存活的行，
+ * 最后只复制输出列中存活的行。批次结果按原顺序拼接
+ * <p>
+ * 分组、连接、排序需要完整的输入，它们把输入流水线的各批次按分区缓存(超过内存预算时溢写到磁盘)，
+ * 再并行地处理各分区，见{@link HashAggregator}、{@link JoinExecutor}、{@link ExternalSorter}
+ *
+ * @author maxuefeng
+ */
+public final class Executor {
+
+    /**
+     * 批次数少于该值时不并行
+     */
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    private Executor() {
+    }
+
+    /**
+     * 优化并执行
+     */
+    public static Table execute(PlanNode plan) {
+        return run(Optimizer.optimize(plan));
+    }
+
+    /**
+     * 优化并计算行数  不复制任何数据
+     */
+    public static long count(PlanNode plan) {
+        return countRows(Optimizer.optimize(new Count(plan)).child());
+    }
+
+    static Table run(PlanNode plan) {
+        if (plan instanceof Count) {
+            long rows = countRows(plan.child());
+            List<Column> columns = Collections.singletonList(new LongColumn(new long[]{rows}, 1, null));
+            return new Table(Collections.singletonList(Count.COLUMN), columns, 1);
+        }
+        if (plan instanceof Aggregate) {
+            return HashAggregator.execute((Aggregate) plan);
+        }
+        if (plan instanceof Join) {
+            return JoinExecutor.execute((Join) plan);
+        }
+        if (plan instanceof Sort) {
+            return ExternalSorter.execute((Sort) plan);
+        }
+        Pipeline pipeline = new Pipeline(plan);
+        List<String> names = new ArrayList<>(plan.schema().keySet());
+        List<Column[]> parts = pipeline.map(batch -> {
+            Column[] gathered = new Column[names.size()];
+            for (int c = 0; c < gathered.length; c++) {
+                Vector vector = batch.column(names.get(c));
+                gathered[c] = vector.column().gather(vector.offset(), batch.selection(), batch.selectionSize());
+            }
+            return gathered;
+        });
+        LinkedHashMap<String, DataType> schema = plan.schema();
+        List<Column> columns = new ArrayList<>(names.size());
+        int rows = 0;
+        for (Column[] part : parts) {
+            rows += part.length == 0 ? 0 : part[0].size();
+        }
+        for (int c = 0; c < names.size(); c++) {
+            List<Column> pieces = new ArrayList<>(parts.size());
+            for (Column[] part : parts) {
+                pieces.add(part[c]);
+            }
+            columns.add(Column.concat(schema.get(names.get(c)), pieces));
+        }
+        if (names.isEmpty()) {
+            rows = (int) countRows(plan);
+        }
+        return new Table(names, columns, rows);
+    }
+
+    /**
+     * 并行执行plan  把每个批次中存活的行(只包含columns列)交给sink  批次之间没有顺序
+     *
+     * @param sink 会被多个线程同时调用
+     */
+    static void forEachChunk(PlanNode plan, List<String> columns, Consumer<Column[]> sink) {
+        new Pipeline(plan).map(batch -> {
+            Column[] gathered = new Column[columns.size()];
+            for (int c = 0; c < gathered.length; c++) {
+                Vector vector = batch.column(columns.get(c));
+                gathered[c] = vector.column().gather(vector.offset(), batch.selection(), batch.selectionSize());
+            }
+            sink.accept(gathered);
+            return null;
+        });
+    }
+
+    /**
+     * 把输入(前keyCount列为键)按键的哈希分到partitions个分区  两边键类型相同时同一个键总是落在同一个分区
+     */
+    static int[] partitionOf(Column[] chunk, int keyCount, int partitions) {
+        int rows = chunk.length == 0 ? 0 : chunk[0].size();
+        int[] hashes = RowKeys.hash(Arrays.asList(chunk).subList(0, keyCount), rows);
+        for (int r = 0; r < rows; r++) {
+            hashes[r] = RowKeys.partition(hashes[r], partitions);
+        }
+        return hashes;
+    }
+
+    /**
+     * 按分区顺序拼接各分区的结果
+     */
+    static Table concat(List<String> names, DataType[] types, List<Column[]> parts) {
+        List<Column> columns = new ArrayList<>(names.size());
+        int rows = 0;
+        for (Column[] part : parts) {
+            rows += part.length == 0 ? 0 : part[0].size();
+        }
+        for (int c = 0; c < names.size(); c++) {
+            List<Column> pieces = new ArrayList<>(parts.size());
+            for (Column[] part : parts) {
+                pieces.add(part[c]);
+            }
+            columns.add(pieces.size() == 1 ? pieces.get(0) : Column.concat(types[c], pieces));
+        }
+        return new Table(names, columns, rows);
+    }
+
+    static long countRows(PlanNode plan) {
+        return new Pipeline(plan).map(batch -> (long) batch.selectionSize())
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 数据源(扫描或者已物化的子计划)之上的Filter/Project链
+     */
+    private static final class Pipeline {
+
+        private final Table source;
+
+        private final List<String> readColumns;
+
+        private final List<Expr> predicates;
+
+        /**
+         * 自底向上的Filter/Project
+         */
+        private final List<PlanNode> operators = new ArrayList<>();
+
+        Pipeline(PlanNode plan) {
+            PlanNode node = plan;
+            while (node instanceof Filter || node instanceof Project) {
+                operators.add(0, node);
+                node = node.child();
+            }
+            if (node instanceof Scan) {
+                Scan scan = (Scan) node;
+                source = scan.table();
+                readColumns = new ArrayList<>(scan.readColumns());
+                predicates = scan.predicates();
+            } else {
+                source = run(node);
+                readColumns = source.names();
+                predicates = Collections.emptyList();
+            }
+        }
+
+        <T> List<T> map(Function<Batch, T> sink) {
+            int rows = source.rowCount();
+            int batches = (rows + Vector.MAX_LENGTH - 1) / Vector.MAX_LENGTH;
+            IntStream indexes = IntStream.range(0, batches);
+            if (batches >= PARALLEL_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            return indexes.mapToObj(b -> {
+                Batch batch = process(b * Vector.MAX_LENGTH, Math.min(Vector.MAX_LENGTH, rows - b * Vector.MAX_LENGTH));
+                return batch == null ? null : sink.apply(batch);
+            }).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+
+        /**
+         * @return 处理后的批次  没有存活的行时返回null
+         */
+        private Batch process(int start, int length) {
+            Map<String, Vector> columns = new LinkedHashMap<>();
+            for (String name : readColumns) {
+                columns.put(name, new Vector(source.column(name), start));
+            }
+            Batch batch = new Batch(length, columns, Batch.identity(length), length);
+            for (Expr predicate : predicates) {
+                batch = batch.filter(predicate.evaluate(batch));
+                if (batch.selectionSize() == 0) {
+                    return null;
+                }
+            }
+            for (PlanNode operator : operators) {
+                if (operator instanceof Filter) {
+                    for (Expr conjunct : Expr.conjuncts(((Filter) operator).predicate())) {
+                        batch = batch.filter(conjunct.evaluate(batch));
+                        if (batch.selectionSize() == 0) {
+                            return null;
+                        }
+                    }
+                } else {
+                    Map<String, Expr> outputs = ((Project) operator).outputs();
+                    Map<String, Vector> projected = new LinkedHashMap<>(outputs.size() * 4 / 3 + 1);
+                    for (Map.Entry<String, Expr> output : outputs.entrySet()) {
+                        projected.put(output.getKey(), output.getValue().evaluate(batch));
+                    }
+                    batch = batch.withColumns(projected);
+                }
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.ColumnBuilder;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.RowKeys;
+import io.jopen.dataframe.column.SpillFile;
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 外部归并排序
+ * <ol>
+ *     <li>输入流水线的各批次并行地在批次内排序  得到有序的段</li>
+ *     <li>内存中的段超过预算时  把它们归并成一个有序段写到磁盘</li>
+ *     <li>最后多路归并内存中的段与磁盘上的段(逐块读回)  得到结果</li>
+ * </ol>
+ *
+ * @author maxuefeng
+ */
+final class ExternalSorter {
+
+    private final List<String> names;
+
+    private final DataType[] types;
+
+    /**
+     * 键列在输入中的位置
+     */
+    private final int[] keyIndexes;
+
+    private final boolean[] ascending;
+
+    private final long memoryBudget;
+
+    private final List<Column[]> runs = new ArrayList<>();
+
+    private final List<SpillFile> spills = new ArrayList<>();
+
+    private long runBytes;
+
+    private long rows;
+
+    private ExternalSorter(Sort sort) {
+        this.names = new ArrayList<>(sort.schema().keySet());
+        this.types = sort.schema().values().toArray(new DataType[0]);
+        List<String> keys = sort.keyNames();
+        this.keyIndexes = new int[keys.size()];
+        for (int k = 0; k < keyIndexes.length; k++) {
+            keyIndexes[k] = names.indexOf(keys.get(k));
+        }
+        this.ascending = sort.ascending();
+        this.memoryBudget = ExecutionConfig.memoryBudget();
+    }
+
+    static Table execute(Sort sort) {
+        ExternalSorter sorter = new ExternalSorter(sort);
+        try {
+            Executor.forEachChunk(sort.child(), sorter.names, sorter::addRun);
+            return sorter.merge();
+        } finally {
+            for (SpillFile spill : sorter.spills) {
+                spill.close();
+            }
+        }
+    }
+
+    private List<Column> keysOf(Column[] chunk) {
+        List<Column> keys = new ArrayList<>(keyIndexes.length);
+        for (int index : keyIndexes) {
+            keys.add(chunk[index]);
+        }
+        return keys;
+    }
+
+    /**
+     * 在调用线程中排序一个批次  再加入内存中的段
+     */
+    private void addRun(Column[] chunk) {
+        int size = chunk[0].size();
+        int[] order = new RowSorter(keysOf(chunk), ascending).sortedRows(size);
+        Column[] run = new Column[chunk.length];
+        for (int c = 0; c < chunk.length; c++) {
+            run[c] = chunk[c].gather(0, order, size);
+        }
+        long bytes = SpillFile.estimateBytes(run);
+        synchronized (this) {
+            runs.add(run);
+            runBytes += bytes;
+            rows += size;
+            if (runBytes > memoryBudget) {
+                spillRuns();
+            }
+        }
+    }
+
+    private void spillRuns() {
+        SpillFile spill = new SpillFile(types, ExecutionConfig.spillDirectory());
+        spills.add(spill);
+        List<Iterator<Column[]>> sources = new ArrayList<>(runs.size());
+        for (Column[] run : runs) {
+            sources.add(Collections.singletonList(run).iterator());
+        }
+        runs.clear();
+        runBytes = 0;
+        ChunkWriter writer = new ChunkWriter(spill);
+        merge(sources, writer);
+        writer.flush();
+    }
+
+    private Table merge() {
+        List<Iterator<Column[]>> sources = new ArrayList<>(runs.size() + spills.size());
+        for (SpillFile spill : spills) {
+            sources.add(spill.read());
+        }
+        for (Column[] run : runs) {
+            sources.add(Collections.singletonList(run).iterator());
+        }
+        runs.clear();
+        ColumnBuilder[] builders = builders((int) rows);
+        merge(sources, (chunk, row) -> append(builders, chunk, row));
+        return new Table(names, Arrays.asList(build(builders)), (int) rows);
+    }
+
+    private interface RowSink {
+        void accept(Column[] chunk, int row);
+    }
+
+    /**
+     * 多路归并有序的块序列
+     */
+    private void merge(List<Iterator<Column[]>> sources, RowSink sink) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> RowKeys.compare(a.keys, a.row, b.keys, b.row, ascending));
+        for (Iterator<Column[]> source : sources) {
+            Cursor cursor = new Cursor(source);
+            if (cursor.advanceChunk()) {
+                heap.add(cursor);
+            }
+        }
+        while (!heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            sink.accept(cursor.chunk, cursor.row);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * 按{@link Vector#MAX_LENGTH}行一块写入溢写文件
+     */
+    private final class ChunkWriter implements RowSink {
+
+        private final SpillFile spill;
+
+        private ColumnBuilder[] builders = builders(Vector.MAX_LENGTH);
+
+        ChunkWriter(SpillFile spill) {
+            this.spill = spill;
+        }
+
+        @Override
+        public void accept(Column[] chunk, int row) {
+            append(builders, chunk, row);
+            if (builders[0].size() == Vector.MAX_LENGTH) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (builders[0].size() > 0) {
+                spill.write(build(builders));
+                builders = builders(Vector.MAX_LENGTH);
+            }
+        }
+    }
+
+    private final class Cursor {
+
+        final Iterator<Column[]> chunks;
+
+        Column[] chunk;
+
+        List<Column> keys;
+
+        int row;
+
+        Cursor(Iterator<Column[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        boolean advance() {
+            return ++row < chunk[0].size() || advanceChunk();
+        }
+
+        boolean advanceChunk() {
+            while (chunks.hasNext()) {
+                chunk = chunks.next();
+                if (chunk[0].size() > 0) {
+                    keys = keysOf(chunk);
+                    row = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private ColumnBuilder[] builders(int expectedSize) {
+        ColumnBuilder[] builders = new ColumnBuilder[types.length];
+        for (int c = 0; c < types.length; c++) {
+            builders[c] = new ColumnBuilder(types[c], expectedSize);
+        }
+        return builders;
+    }
+
+    private static void append(ColumnBuilder[] builders, Column[] chunk, int row) {
+        for (int c = 0; c < builders.length; c++) {
+            builders[c].appendFrom(chunk[c], row);
+        }
+    }
+
+    private static Column[] build(ColumnBuilder[] builders) {
+        Column[] columns = new Column[builders.length];
+        for (int c = 0; c < builders.length; c++) {
+            columns[c] = builders[c].build();
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,45 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.expr.Expr;
+
+import java.util.LinkedHashMap;
+
+/**
+ * 过滤  predicate为已绑定的BOOLEAN表达式
+ *
+ * @author maxuefeng
+ */
+public final class Filter extends PlanNode {
+
+    private final PlanNode child;
+
+    private final Expr predicate;
+
+    public Filter(PlanNode child, Expr predicate) {
+        if (predicate.type() != DataType.BOOLEAN) {
+            throw new IllegalArgumentException("filter requires a boolean expression: " + predicate);
+        }
+        this.child = child;
+        this.predicate = predicate;
+    }
+
+    public Expr predicate() {
+        return predicate;
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        return child.schema();
+    }
+
+    @Override
+    public PlanNode child() {
+        return child;
+    }
+
+    @Override
+    String describe() {
+        return "Filter " + predicate;
+    }
+}
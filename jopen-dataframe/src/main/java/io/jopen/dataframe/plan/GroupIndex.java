@@ -0,0 +1,117 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.RowKeys;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 开放寻址的分组哈希表  只保存分组号  键通过分组的第一行与输入列比较  不装箱
+ *
+ * @author maxuefeng
+ */
+final class GroupIndex {
+
+    private final List<Column> keys;
+
+    private final boolean nullsEqual;
+
+    /**
+     * 分组号+1  0表示空位
+     */
+    private int[] slots;
+
+    private int mask;
+
+    private int[] groupHashes;
+
+    private int[] firstRows;
+
+    private int groups;
+
+    /**
+     * @param keys       建表一边的键列
+     * @param nullsEqual null键是否相等
+     */
+    GroupIndex(List<Column> keys, boolean nullsEqual, int expectedGroups) {
+        this.keys = keys;
+        this.nullsEqual = nullsEqual;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedGroups) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.groupHashes = new int[Math.max(16, expectedGroups)];
+        this.firstRows = new int[groupHashes.length];
+    }
+
+    /**
+     * @return row所属的分组号  新的键分配新的分组号(从0递增)
+     */
+    int add(int hash, int row) {
+        int slot = hash & mask;
+        for (; ; ) {
+            int group = slots[slot] - 1;
+            if (group < 0) {
+                break;
+            }
+            if (groupHashes[group] == hash && RowKeys.equal(keys, firstRows[group], keys, row, nullsEqual)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int group = groups++;
+        if (group == groupHashes.length) {
+            groupHashes = Arrays.copyOf(groupHashes, group * 2);
+            firstRows = Arrays.copyOf(firstRows, group * 2);
+        }
+        groupHashes[group] = hash;
+        firstRows[group] = row;
+        slots[slot] = group + 1;
+        if (groups * 2 > slots.length) {
+            rehash();
+        }
+        return group;
+    }
+
+    /**
+     * @return 与probeKeys第row行相等的分组号  没有时返回-1
+     */
+    int find(int hash, List<Column> probeKeys, int row) {
+        int slot = hash & mask;
+        for (; ; ) {
+            int group = slots[slot] - 1;
+            if (group < 0) {
+                return -1;
+            }
+            if (groupHashes[group] == hash && RowKeys.equal(keys, firstRows[group], probeKeys, row, nullsEqual)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int groups() {
+        return groups;
+    }
+
+    /**
+     * @return 每个分组的第一行  长度不小于{@link #groups()}
+     */
+    int[] firstRows() {
+        return firstRows;
+    }
+
+    private void rehash() {
+        int[] resized = new int[slots.length * 2];
+        int resizedMask = resized.length - 1;
+        for (int group = 0; group < groups; group++) {
+            int slot = groupHashes[group] & resizedMask;
+            while (resized[slot] != 0) {
+                slot = (slot + 1) & resizedMask;
+            }
+            resized[slot] = group + 1;
+        }
+        slots = resized;
+        mask = resizedMask;
+    }
+}
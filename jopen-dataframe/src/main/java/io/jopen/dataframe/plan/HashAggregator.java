@@ -0,0 +1,237 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.BooleanColumn;
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.DoubleColumn;
+import io.jopen.dataframe.column.LongColumn;
+import io.jopen.dataframe.column.PartitionedBuffer;
+import io.jopen.dataframe.column.RowKeys;
+import io.jopen.dataframe.column.StringColumn;
+import io.jopen.dataframe.column.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 哈希分组聚合
+ * <ol>
+ *     <li>输入流水线的各批次并行地按分组键的哈希分到各分区  超过内存预算的分区溢写到磁盘</li>
+ *     <li>各分区并行地读回  用{@link GroupIndex}给每行分配分组号  再按列计算各聚合</li>
+ * </ol>
+ * 同一个键只会落在一个分区  所以各分区的结果直接拼接
+ *
+ * @author maxuefeng
+ */
+final class HashAggregator {
+
+    private HashAggregator() {
+    }
+
+    static Table execute(Aggregate aggregate) {
+        List<String> inputs = aggregate.inputColumns();
+        Map<String, DataType> childSchema = aggregate.child().schema();
+        DataType[] inputTypes = new DataType[inputs.size()];
+        for (int c = 0; c < inputTypes.length; c++) {
+            inputTypes[c] = childSchema.get(inputs.get(c));
+        }
+        int keyCount = aggregate.keys().size();
+        // 没有分组键时只有一个分组
+        int partitions = keyCount == 0 ? 1 : ExecutionConfig.partitions();
+        List<String> names = new ArrayList<>(aggregate.schema().keySet());
+        DataType[] outputTypes = aggregate.schema().values().toArray(new DataType[0]);
+        if (inputs.isEmpty()) {
+            // 只有count(*)  不需要缓存任何列
+            long rows = Executor.countRows(aggregate.child());
+            List<Column> columns = new ArrayList<>(names.size());
+            for (int c = 0; c < names.size(); c++) {
+                columns.add(new LongColumn(new long[]{rows}, 1, null));
+            }
+            return new Table(names, columns, 1);
+        }
+        try (PartitionedBuffer buffer = new PartitionedBuffer(inputTypes, partitions,
+                ExecutionConfig.memoryBudget(), ExecutionConfig.spillDirectory())) {
+            Executor.forEachChunk(aggregate.child(), inputs,
+                    chunk -> buffer.add(chunk, Executor.partitionOf(chunk, keyCount, partitions)));
+            List<Column[]> parts = IntStream.range(0, partitions).parallel()
+                    .mapToObj(p -> aggregate(aggregate, inputs, buffer.read(p)))
+                    .collect(Collectors.toList());
+            return Executor.concat(names, outputTypes, parts);
+        }
+    }
+
+    private static Column[] aggregate(Aggregate aggregate, List<String> inputs, Column[] columns) {
+        int keyCount = aggregate.keys().size();
+        int rows = columns.length == 0 ? 0 : columns[0].size();
+        List<Column> keys = Arrays.asList(columns).subList(0, keyCount);
+        int[] groupOf = new int[rows];
+        int groups;
+        int[] firstRows;
+        if (keyCount == 0) {
+            groups = 1;
+            firstRows = new int[0];
+        } else {
+            int[] hashes = RowKeys.hash(keys, rows);
+            GroupIndex index = new GroupIndex(keys, true, 1024);
+            for (int r = 0; r < rows; r++) {
+                groupOf[r] = index.add(hashes[r], r);
+            }
+            groups = index.groups();
+            firstRows = index.firstRows();
+        }
+        List<Aggregate.Call> calls = aggregate.calls();
+        Column[] output = new Column[keyCount + calls.size()];
+        for (int k = 0; k < keyCount; k++) {
+            output[k] = keys.get(k).gather(0, firstRows, groups);
+        }
+        for (int a = 0; a < calls.size(); a++) {
+            Aggregate.Call call = calls.get(a);
+            Column argument = call.argument() == null ? null : columns[inputs.indexOf(call.argument())];
+            output[keyCount + a] = compute(call.function(), argument, groupOf, rows, groups);
+        }
+        return output;
+    }
+
+    private static Column compute(Aggregate.Function function, Column argument, int[] groupOf, int rows, int groups) {
+        if (function == Aggregate.Function.COUNT) {
+            long[] counts = new long[groups];
+            for (int r = 0; r < rows; r++) {
+                if (argument == null || !argument.isNull(r)) {
+                    counts[groupOf[r]]++;
+                }
+            }
+            return new LongColumn(counts, groups, null);
+        }
+        // 有非null值的分组
+        BitSet seen = new BitSet(groups);
+        switch (argument.type()) {
+            case LONG:
+                return computeLong(function, (LongColumn) argument, groupOf, rows, groups, seen);
+            case DOUBLE:
+                return computeDouble(function, (DoubleColumn) argument, groupOf, rows, groups, seen);
+            case BOOLEAN: {
+                boolean[] values = ((BooleanColumn) argument).values();
+                boolean[] result = new boolean[groups];
+                boolean max = function == Aggregate.Function.MAX;
+                for (int r = 0; r < rows; r++) {
+                    if (argument.isNull(r)) {
+                        continue;
+                    }
+                    int g = groupOf[r];
+                    if (!seen.get(g)) {
+                        seen.set(g);
+                        result[g] = values[r];
+                    } else {
+                        result[g] = max ? result[g] | values[r] : result[g] & values[r];
+                    }
+                }
+                return new BooleanColumn(result, groups, unseen(seen, groups));
+            }
+            default: {
+                String[] values = ((StringColumn) argument).values();
+                String[] result = new String[groups];
+                boolean max = function == Aggregate.Function.MAX;
+                for (int r = 0; r < rows; r++) {
+                    String value = values[r];
+                    if (value == null) {
+                        continue;
+                    }
+                    int g = groupOf[r];
+                    if (result[g] == null || (max ? value.compareTo(result[g]) > 0 : value.compareTo(result[g]) < 0)) {
+                        result[g] = value;
+                    }
+                }
+                return new StringColumn(result, groups);
+            }
+        }
+    }
+
+    private static Column computeLong(Aggregate.Function function, LongColumn argument, int[] groupOf, int rows,
+                                      int groups, BitSet seen) {
+        long[] values = argument.values();
+        if (function == Aggregate.Function.AVG) {
+            double[] sums = new double[groups];
+            long[] counts = new long[groups];
+            for (int r = 0; r < rows; r++) {
+                if (!argument.isNull(r)) {
+                    sums[groupOf[r]] += values[r];
+                    counts[groupOf[r]]++;
+                }
+            }
+            return average(sums, counts, groups);
+        }
+        long[] result = new long[groups];
+        for (int r = 0; r < rows; r++) {
+            if (argument.isNull(r)) {
+                continue;
+            }
+            int g = groupOf[r];
+            long value = values[r];
+            if (!seen.get(g)) {
+                seen.set(g);
+                result[g] = value;
+            } else if (function == Aggregate.Function.SUM) {
+                result[g] += value;
+            } else if (function == Aggregate.Function.MIN ? value < result[g] : value > result[g]) {
+                result[g] = value;
+            }
+        }
+        return new LongColumn(result, groups, unseen(seen, groups));
+    }
+
+    private static Column computeDouble(Aggregate.Function function, DoubleColumn argument, int[] groupOf, int rows,
+                                        int groups, BitSet seen) {
+        double[] values = argument.values();
+        if (function == Aggregate.Function.AVG) {
+            double[] sums = new double[groups];
+            long[] counts = new long[groups];
+            for (int r = 0; r < rows; r++) {
+                if (!argument.isNull(r)) {
+                    sums[groupOf[r]] += values[r];
+                    counts[groupOf[r]]++;
+                }
+            }
+            return average(sums, counts, groups);
+        }
+        double[] result = new double[groups];
+        for (int r = 0; r < rows; r++) {
+            if (argument.isNull(r)) {
+                continue;
+            }
+            int g = groupOf[r];
+            double value = values[r];
+            if (!seen.get(g)) {
+                seen.set(g);
+                result[g] = value;
+            } else if (function == Aggregate.Function.SUM) {
+                result[g] += value;
+            } else if (function == Aggregate.Function.MIN ? value < result[g] : value > result[g]) {
+                result[g] = value;
+            }
+        }
+        return new DoubleColumn(result, groups, unseen(seen, groups));
+    }
+
+    private static Column average(double[] sums, long[] counts, int groups) {
+        BitSet nulls = new BitSet(groups);
+        for (int g = 0; g < groups; g++) {
+            if (counts[g] == 0) {
+                nulls.set(g);
+            } else {
+                sums[g] /= counts[g];
+            }
+        }
+        return new DoubleColumn(sums, groups, nulls);
+    }
+
+    private static BitSet unseen(BitSet seen, int groups) {
+        BitSet nulls = (BitSet) seen.clone();
+        nulls.flip(0, groups);
+        return nulls;
+    }
+}
@@ -0,0 +1,206 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 等值连接  null键不与任何行匹配
+ * <p>
+ * 输出左边的所有列，然后是右边的列；与左边同名的右边连接键(例如 on "id")只输出一次，
+ * 其他与已有列重名的右边列加上"_right"后缀。输出列名在构造时确定，之后裁剪输入的列也不会改变
+ *
+ * @author maxuefeng
+ * @see JoinExecutor
+ */
+public final class Join extends PlanNode {
+
+    public enum Type {
+        /**
+         * 只输出匹配的行
+         */
+        INNER,
+        /**
+         * 左边没有匹配的行也输出  右边的列为null
+         */
+        LEFT
+    }
+
+    public enum Strategy {
+        /**
+         * 每个分区用较小的一边建哈希表  另一边探测
+         */
+        HASH,
+        /**
+         * 每个分区两边分别按键排序后归并
+         */
+        SORT_MERGE
+    }
+
+    private final PlanNode left;
+
+    private final PlanNode right;
+
+    private final List<String> leftKeys;
+
+    private final List<String> rightKeys;
+
+    private final Type type;
+
+    private final Strategy strategy;
+
+    /**
+     * 输出列名到左边的列名
+     */
+    private final LinkedHashMap<String, String> leftOutputs;
+
+    /**
+     * 输出列名到右边的列名
+     */
+    private final LinkedHashMap<String, String> rightOutputs;
+
+    private Join(PlanNode left, PlanNode right, List<String> leftKeys, List<String> rightKeys, Type type,
+                 Strategy strategy, LinkedHashMap<String, String> leftOutputs, LinkedHashMap<String, String> rightOutputs) {
+        this.left = left;
+        this.right = right;
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.type = type;
+        this.strategy = strategy;
+        this.leftOutputs = leftOutputs;
+        this.rightOutputs = rightOutputs;
+    }
+
+    /**
+     * @param keys 每个元素为 {左边列名, 右边列名}  见{@link io.jopen.dataframe.expr.ExprParser#parseJoinKeys(String)}
+     */
+    public static Join of(PlanNode left, PlanNode right, List<String[]> keys, Type type, Strategy strategy) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("join requires at least one key");
+        }
+        Map<String, DataType> leftSchema = left.schema();
+        Map<String, DataType> rightSchema = right.schema();
+        List<String> leftKeys = new ArrayList<>(keys.size());
+        List<String> rightKeys = new ArrayList<>(keys.size());
+        List<String> merged = new ArrayList<>();
+        for (String[] key : keys) {
+            DataType leftType = requireColumn(leftSchema, key[0], "left");
+            DataType rightType = requireColumn(rightSchema, key[1], "right");
+            if (leftType != rightType) {
+                throw new IllegalArgumentException("join keys must have the same type but " + key[0] + " is "
+                        + leftType + " and " + key[1] + " is " + rightType);
+            }
+            leftKeys.add(key[0]);
+            rightKeys.add(key[1]);
+            if (key[0].equals(key[1])) {
+                merged.add(key[1]);
+            }
+        }
+        LinkedHashMap<String, String> leftOutputs = new LinkedHashMap<>();
+        for (String name : leftSchema.keySet()) {
+            leftOutputs.put(name, name);
+        }
+        LinkedHashMap<String, String> rightOutputs = new LinkedHashMap<>();
+        for (String name : rightSchema.keySet()) {
+            if (merged.contains(name)) {
+                continue;
+            }
+            String output = name;
+            while (leftOutputs.containsKey(output) || rightOutputs.containsKey(output)
+                    || (!output.equals(name) && rightSchema.containsKey(output))) {
+                output = output + "_right";
+            }
+            rightOutputs.put(output, name);
+        }
+        return new Join(left, right, leftKeys, rightKeys, type, strategy, leftOutputs, rightOutputs);
+    }
+
+    private static DataType requireColumn(Map<String, DataType> schema, String name, String side) {
+        DataType type = schema.get(name);
+        if (type == null) {
+            throw new IllegalArgumentException("unknown " + side + " column " + name + ", available columns " + schema.keySet());
+        }
+        return type;
+    }
+
+    public PlanNode left() {
+        return left;
+    }
+
+    public PlanNode right() {
+        return right;
+    }
+
+    public List<String> leftKeys() {
+        return Collections.unmodifiableList(leftKeys);
+    }
+
+    public List<String> rightKeys() {
+        return Collections.unmodifiableList(rightKeys);
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    Map<String, String> leftOutputs() {
+        return Collections.unmodifiableMap(leftOutputs);
+    }
+
+    Map<String, String> rightOutputs() {
+        return Collections.unmodifiableMap(rightOutputs);
+    }
+
+    Join with(PlanNode left, PlanNode right, LinkedHashMap<String, String> leftOutputs, LinkedHashMap<String, String> rightOutputs) {
+        return new Join(left, right, leftKeys, rightKeys, type, strategy, leftOutputs, rightOutputs);
+    }
+
+    Join withChildren(PlanNode left, PlanNode right) {
+        return with(left, right, leftOutputs, rightOutputs);
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        Map<String, DataType> leftSchema = left.schema();
+        Map<String, DataType> rightSchema = right.schema();
+        LinkedHashMap<String, DataType> schema = new LinkedHashMap<>();
+        for (Map.Entry<String, String> output : leftOutputs.entrySet()) {
+            schema.put(output.getKey(), leftSchema.get(output.getValue()));
+        }
+        for (Map.Entry<String, String> output : rightOutputs.entrySet()) {
+            schema.put(output.getKey(), rightSchema.get(output.getValue()));
+        }
+        return schema;
+    }
+
+    /**
+     * @return 左边的输入
+     */
+    @Override
+    public PlanNode child() {
+        return left;
+    }
+
+    @Override
+    public List<PlanNode> children() {
+        return Arrays.asList(left, right);
+    }
+
+    @Override
+    String describe() {
+        List<String> on = new ArrayList<>(leftKeys.size());
+        for (int k = 0; k < leftKeys.size(); k++) {
+            on.add(leftKeys.get(k) + " = " + rightKeys.get(k));
+        }
+        return "Join " + type + " " + strategy + " on " + on + " output " + schema().keySet();
+    }
+}
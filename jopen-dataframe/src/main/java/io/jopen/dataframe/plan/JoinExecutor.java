@@ -0,0 +1,253 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.ColumnBuilder;
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.PartitionedBuffer;
+import io.jopen.dataframe.column.RowKeys;
+import io.jopen.dataframe.column.Table;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 分区的等值连接
+ * <ol>
+ *     <li>两边的输入流水线并行执行  各批次按连接键的哈希分到相同数量的分区  超过内存预算时溢写到磁盘</li>
+ *     <li>各分区并行地读回两边的数据  按{@link Join.Strategy}在分区内连接  得到匹配的行号对</li>
+ *     <li>按行号对取出输出列  各分区的结果直接拼接</li>
+ * </ol>
+ *
+ * @author maxuefeng
+ */
+final class JoinExecutor {
+
+    private JoinExecutor() {
+    }
+
+    static Table execute(Join join) {
+        List<String> leftInputs = inputColumns(join.leftKeys(), join.leftOutputs());
+        List<String> rightInputs = inputColumns(join.rightKeys(), join.rightOutputs());
+        int keyCount = join.leftKeys().size();
+        int partitions = ExecutionConfig.partitions();
+        long budget = ExecutionConfig.memoryBudget() / 2;
+        File spillDirectory = ExecutionConfig.spillDirectory();
+        List<String> names = new ArrayList<>(join.schema().keySet());
+        DataType[] outputTypes = join.schema().values().toArray(new DataType[0]);
+        try (PartitionedBuffer left = new PartitionedBuffer(types(join.left(), leftInputs), partitions, budget, spillDirectory);
+             PartitionedBuffer right = new PartitionedBuffer(types(join.right(), rightInputs), partitions, budget, spillDirectory)) {
+            Executor.forEachChunk(join.left(), leftInputs,
+                    chunk -> left.add(chunk, Executor.partitionOf(chunk, keyCount, partitions)));
+            Executor.forEachChunk(join.right(), rightInputs,
+                    chunk -> right.add(chunk, Executor.partitionOf(chunk, keyCount, partitions)));
+            List<Column[]> parts = IntStream.range(0, partitions).parallel()
+                    .mapToObj(p -> joinPartition(join, leftInputs, rightInputs, left.read(p), right.read(p)))
+                    .collect(Collectors.toList());
+            return Executor.concat(names, outputTypes, parts);
+        }
+    }
+
+    /**
+     * @return 连接键在前  然后是其他输出需要的列
+     */
+    private static List<String> inputColumns(List<String> keys, Map<String, String> outputs) {
+        List<String> columns = new ArrayList<>(keys);
+        for (String column : outputs.values()) {
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static DataType[] types(PlanNode node, List<String> columns) {
+        Map<String, DataType> schema = node.schema();
+        DataType[] types = new DataType[columns.size()];
+        for (int c = 0; c < types.length; c++) {
+            types[c] = schema.get(columns.get(c));
+        }
+        return types;
+    }
+
+    private static Column[] joinPartition(Join join, List<String> leftInputs, List<String> rightInputs,
+                                          Column[] left, Column[] right) {
+        int keyCount = join.leftKeys().size();
+        List<Column> leftKeys = Arrays.asList(left).subList(0, keyCount);
+        List<Column> rightKeys = Arrays.asList(right).subList(0, keyCount);
+        boolean outer = join.type() == Join.Type.LEFT;
+        Pairs pairs = join.strategy() == Join.Strategy.HASH
+                ? hashJoin(leftKeys, left[0].size(), rightKeys, right[0].size(), outer)
+                : sortMergeJoin(leftKeys, left[0].size(), rightKeys, right[0].size(), outer);
+
+        Column[] output = new Column[join.leftOutputs().size() + join.rightOutputs().size()];
+        int c = 0;
+        for (String column : join.leftOutputs().values()) {
+            output[c++] = left[leftInputs.indexOf(column)].gather(0, pairs.left, pairs.size);
+        }
+        for (String column : join.rightOutputs().values()) {
+            Column source = right[rightInputs.indexOf(column)];
+            if (!outer) {
+                output[c++] = source.gather(0, pairs.right, pairs.size);
+                continue;
+            }
+            // 左连接没有匹配的行号为-1  输出null
+            ColumnBuilder builder = new ColumnBuilder(source.type(), pairs.size);
+            for (int i = 0; i < pairs.size; i++) {
+                if (pairs.right[i] < 0) {
+                    builder.appendNull();
+                } else {
+                    builder.appendFrom(source, pairs.right[i]);
+                }
+            }
+            output[c++] = builder.build();
+        }
+        return output;
+    }
+
+    /**
+     * 左连接时用右边建表  内连接时用行数较少的一边建表
+     */
+    private static Pairs hashJoin(List<Column> leftKeys, int leftRows, List<Column> rightKeys, int rightRows, boolean outer) {
+        boolean buildLeft = !outer && leftRows < rightRows;
+        List<Column> buildKeys = buildLeft ? leftKeys : rightKeys;
+        List<Column> probeKeys = buildLeft ? rightKeys : leftKeys;
+        int buildRows = buildLeft ? leftRows : rightRows;
+        int probeRows = buildLeft ? rightRows : leftRows;
+
+        // 同一个键的行按原顺序串成链表  null键不进入哈希表
+        int[] buildHashes = RowKeys.hash(buildKeys, buildRows);
+        GroupIndex index = new GroupIndex(buildKeys, false, buildRows);
+        int[] heads = new int[buildRows];
+        int[] tails = new int[heads.length];
+        int[] next = new int[buildRows];
+        for (int r = 0; r < buildRows; r++) {
+            if (hasNullKey(buildKeys, r)) {
+                continue;
+            }
+            int groups = index.groups();
+            int group = index.add(buildHashes[r], r);
+            next[r] = -1;
+            if (group == groups) {
+                heads[group] = r;
+            } else {
+                next[tails[group]] = r;
+            }
+            tails[group] = r;
+        }
+
+        int[] probeHashes = RowKeys.hash(probeKeys, probeRows);
+        Pairs pairs = new Pairs(Math.max(16, probeRows));
+        for (int r = 0; r < probeRows; r++) {
+            int group = hasNullKey(probeKeys, r) ? -1 : index.find(probeHashes[r], probeKeys, r);
+            if (group < 0) {
+                if (outer) {
+                    pairs.add(r, -1);
+                }
+                continue;
+            }
+            for (int b = heads[group]; b >= 0; b = next[b]) {
+                if (buildLeft) {
+                    pairs.add(b, r);
+                } else {
+                    pairs.add(r, b);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * 两边分别按键排序后归并  含null的键不参与匹配
+     * <p>
+     * 多列键按列依次比较且每列的null排在最后  所以只有部分列为null的键夹在中间  归并时逐行跳过
+     */
+    private static Pairs sortMergeJoin(List<Column> leftKeys, int leftRows, List<Column> rightKeys, int rightRows, boolean outer) {
+        boolean[] ascending = new boolean[leftKeys.size()];
+        Arrays.fill(ascending, true);
+        int[] leftOrder = new RowSorter(leftKeys, ascending).sortedRows(leftRows);
+        int[] rightOrder = new RowSorter(rightKeys, ascending).sortedRows(rightRows);
+        Pairs pairs = new Pairs(Math.max(16, leftRows));
+        int i = 0;
+        int j = 0;
+        while (i < leftRows) {
+            int l = leftOrder[i];
+            if (hasNullKey(leftKeys, l)) {
+                if (outer) {
+                    pairs.add(l, -1);
+                }
+                i++;
+                continue;
+            }
+            if (j < rightRows && hasNullKey(rightKeys, rightOrder[j])) {
+                j++;
+                continue;
+            }
+            int c = j < rightRows ? RowKeys.compare(leftKeys, l, rightKeys, rightOrder[j], ascending) : -1;
+            if (c > 0) {
+                j++;
+                continue;
+            }
+            if (c < 0) {
+                if (outer) {
+                    pairs.add(l, -1);
+                }
+                i++;
+                continue;
+            }
+            // 右边相同键的一段 [j, end)  与左边相同键的每一行组合
+            int end = j + 1;
+            while (end < rightRows && RowKeys.equal(rightKeys, rightOrder[j], rightKeys, rightOrder[end], false)) {
+                end++;
+            }
+            do {
+                for (int k = j; k < end; k++) {
+                    pairs.add(leftOrder[i], rightOrder[k]);
+                }
+                i++;
+            } while (i < leftRows && RowKeys.equal(leftKeys, leftOrder[i], rightKeys, rightOrder[j], false));
+            j = end;
+        }
+        return pairs;
+    }
+
+    private static boolean hasNullKey(List<Column> keys, int row) {
+        for (Column key : keys) {
+            if (key.isNull(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 匹配的行号对
+     */
+    private static final class Pairs {
+
+        int[] left;
+
+        int[] right;
+
+        int size;
+
+        Pairs(int capacity) {
+            left = new int[capacity];
+            right = new int[capacity];
+        }
+
+        void add(int l, int r) {
+            if (size == left.length) {
+                left = Arrays.copyOf(left, size * 2);
+                right = Arrays.copyOf(right, size * 2);
+            }
+            left[size] = l;
+            right[size] = r;
+            size++;
+        }
+    }
+}
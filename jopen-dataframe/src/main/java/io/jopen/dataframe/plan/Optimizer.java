@@ -0,0 +1,246 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.expr.ColumnRef;
+import io.jopen.dataframe.expr.Expr;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 逻辑计划优化
+ * <ol>
+ *     <li>谓词下推: 过滤条件穿过投影(引用的列被替换成投影中的定义)，合并后拆成AND子条件下推到扫描；
+ *     穿过排序，只引用分组键的子条件穿过分组聚合，只引用一边的子条件下推到连接的那一边(左连接只下推到左边)</li>
+ *     <li>投影裁剪: 自顶向下计算每个节点需要的列，去掉不需要的投影输出，扫描只读取需要的列；
+ *     合并只选择列的相邻投影，去掉原样输出的投影</li>
+ * </ol>
+ *
+ * @author maxuefeng
+ */
+public final class Optimizer {
+
+    private Optimizer() {
+    }
+
+    public static PlanNode optimize(PlanNode plan) {
+        return prune(pushDown(plan), null);
+    }
+
+    static PlanNode pushDown(PlanNode node) {
+        if (node instanceof Filter) {
+            Filter filter = (Filter) node;
+            return push(filter.predicate(), pushDown(filter.child()));
+        }
+        if (node instanceof Project) {
+            Project project = (Project) node;
+            return new Project(pushDown(project.child()), new LinkedHashMap<>(project.outputs()));
+        }
+        if (node instanceof Count) {
+            return new Count(pushDown(node.child()));
+        }
+        if (node instanceof Aggregate) {
+            Aggregate aggregate = (Aggregate) node;
+            return aggregate.withChild(pushDown(aggregate.child()), aggregate.calls());
+        }
+        if (node instanceof Sort) {
+            return ((Sort) node).withChild(pushDown(node.child()));
+        }
+        if (node instanceof Join) {
+            Join join = (Join) node;
+            return join.withChildren(pushDown(join.left()), pushDown(join.right()));
+        }
+        return node;
+    }
+
+    /**
+     * 把predicate下推到node之下  node已经完成下推
+     */
+    private static PlanNode push(Expr predicate, PlanNode node) {
+        if (node instanceof Scan) {
+            Scan scan = (Scan) node;
+            List<Expr> predicates = new ArrayList<>(scan.predicates());
+            predicates.addAll(Expr.conjuncts(predicate));
+            return new Scan(scan.table(), scan.columns(), predicates);
+        }
+        if (node instanceof Project) {
+            Project project = (Project) node;
+            Expr inlined = predicate.substitute(project.outputs());
+            return new Project(push(inlined, project.child()), new LinkedHashMap<>(project.outputs()));
+        }
+        if (node instanceof Sort) {
+            return ((Sort) node).withChild(push(predicate, node.child()));
+        }
+        if (node instanceof Aggregate) {
+            Aggregate aggregate = (Aggregate) node;
+            List<Expr> below = new ArrayList<>();
+            List<Expr> above = new ArrayList<>();
+            for (Expr conjunct : Expr.conjuncts(predicate)) {
+                (aggregate.keys().containsAll(columnsOf(conjunct)) ? below : above).add(conjunct);
+            }
+            PlanNode pushed = below.isEmpty() ? aggregate
+                    : aggregate.withChild(push(Expr.and(below), aggregate.child()), aggregate.calls());
+            return above.isEmpty() ? pushed : new Filter(pushed, Expr.and(above));
+        }
+        if (node instanceof Join) {
+            return push(predicate, (Join) node);
+        }
+        if (node instanceof Filter) {
+            // 完成下推后Filter只会出现在Count、分组聚合和连接之上  新的条件继续下推  剩下的与之合并
+            Filter filter = (Filter) node;
+            PlanNode pushed = push(predicate, filter.child());
+            List<Expr> conjuncts = Expr.conjuncts(filter.predicate());
+            if (pushed instanceof Filter) {
+                conjuncts.addAll(Expr.conjuncts(((Filter) pushed).predicate()));
+                pushed = pushed.child();
+            }
+            return new Filter(pushed, Expr.and(conjuncts));
+        }
+        return new Filter(node, predicate);
+    }
+
+    private static PlanNode push(Expr predicate, Join join) {
+        List<Expr> left = new ArrayList<>();
+        List<Expr> right = new ArrayList<>();
+        List<Expr> above = new ArrayList<>();
+        Map<String, Expr> rightColumns = new LinkedHashMap<>();
+        Map<String, DataType> rightSchema = join.right().schema();
+        for (Map.Entry<String, String> output : join.rightOutputs().entrySet()) {
+            rightColumns.put(output.getKey(), new ColumnRef(output.getValue(), rightSchema.get(output.getValue())));
+        }
+        for (Expr conjunct : Expr.conjuncts(predicate)) {
+            Set<String> columns = columnsOf(conjunct);
+            if (join.leftOutputs().keySet().containsAll(columns)) {
+                left.add(conjunct);
+            } else if (join.type() == Join.Type.INNER && rightColumns.keySet().containsAll(columns)) {
+                right.add(conjunct.substitute(rightColumns));
+            } else {
+                above.add(conjunct);
+            }
+        }
+        PlanNode pushed = join.withChildren(
+                left.isEmpty() ? join.left() : push(Expr.and(left), join.left()),
+                right.isEmpty() ? join.right() : push(Expr.and(right), join.right()));
+        return above.isEmpty() ? pushed : new Filter(pushed, Expr.and(above));
+    }
+
+    private static Set<String> columnsOf(Expr expr) {
+        Set<String> columns = new HashSet<>();
+        expr.collectColumns(columns);
+        return columns;
+    }
+
+    private static boolean onlyColumnRefs(Map<String, Expr> outputs) {
+        for (Expr expr : outputs.values()) {
+            if (!(expr instanceof ColumnRef)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param required 父节点需要的列  null表示全部
+     */
+    static PlanNode prune(PlanNode node, Set<String> required) {
+        if (node instanceof Project) {
+            Project project = (Project) node;
+            LinkedHashMap<String, Expr> kept = new LinkedHashMap<>();
+            Set<String> childRequired = new HashSet<>();
+            for (Map.Entry<String, Expr> output : project.outputs().entrySet()) {
+                if (required == null || required.contains(output.getKey())) {
+                    kept.put(output.getKey(), output.getValue());
+                    output.getValue().collectColumns(childRequired);
+                }
+            }
+            PlanNode child = prune(project.child(), childRequired);
+            if (child instanceof Project && onlyColumnRefs(kept)) {
+                // 只选择/调整列顺序的投影与下面的投影合并
+                Map<String, Expr> definitions = ((Project) child).outputs();
+                LinkedHashMap<String, Expr> merged = new LinkedHashMap<>();
+                for (Map.Entry<String, Expr> output : kept.entrySet()) {
+                    merged.put(output.getKey(), definitions.get(((ColumnRef) output.getValue()).name()));
+                }
+                child = child.child();
+                kept = merged;
+            }
+            Project pruned = new Project(child, kept);
+            return pruned.isIdentity() ? child : pruned;
+        }
+        if (node instanceof Filter) {
+            Filter filter = (Filter) node;
+            Set<String> childRequired = null;
+            if (required != null) {
+                childRequired = new HashSet<>(required);
+                filter.predicate().collectColumns(childRequired);
+            }
+            return new Filter(prune(filter.child(), childRequired), filter.predicate());
+        }
+        if (node instanceof Count) {
+            return new Count(prune(node.child(), new HashSet<>()));
+        }
+        if (node instanceof Aggregate) {
+            Aggregate aggregate = (Aggregate) node;
+            List<Aggregate.Call> calls = new ArrayList<>();
+            for (Aggregate.Call call : aggregate.calls()) {
+                if (required == null || required.contains(call.output())) {
+                    calls.add(call);
+                }
+            }
+            if (aggregate.keys().isEmpty() && calls.isEmpty()) {
+                // 至少输出一列  否则结果丢失行数
+                calls.add(aggregate.calls().get(0));
+            }
+            Aggregate pruned = aggregate.withChild(aggregate.child(), calls);
+            return pruned.withChild(prune(aggregate.child(), new HashSet<>(pruned.inputColumns())), calls);
+        }
+        if (node instanceof Sort) {
+            Set<String> childRequired = null;
+            if (required != null) {
+                childRequired = new HashSet<>(required);
+                childRequired.addAll(((Sort) node).keyNames());
+            }
+            return ((Sort) node).withChild(prune(node.child(), childRequired));
+        }
+        if (node instanceof Join) {
+            Join join = (Join) node;
+            LinkedHashMap<String, String> leftOutputs = kept(join.leftOutputs(), required);
+            LinkedHashMap<String, String> rightOutputs = kept(join.rightOutputs(), required);
+            if (leftOutputs.isEmpty() && rightOutputs.isEmpty()) {
+                // 至少输出一列  否则结果丢失行数
+                Map.Entry<String, String> first = join.leftOutputs().entrySet().iterator().next();
+                leftOutputs.put(first.getKey(), first.getValue());
+            }
+            Set<String> leftRequired = new HashSet<>(join.leftKeys());
+            leftRequired.addAll(leftOutputs.values());
+            Set<String> rightRequired = new HashSet<>(join.rightKeys());
+            rightRequired.addAll(rightOutputs.values());
+            return join.with(prune(join.left(), leftRequired), prune(join.right(), rightRequired), leftOutputs, rightOutputs);
+        }
+        Scan scan = (Scan) node;
+        if (required == null) {
+            return scan;
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : scan.columns()) {
+            if (required.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return new Scan(scan.table(), columns, scan.predicates());
+    }
+
+    private static LinkedHashMap<String, String> kept(Map<String, String> outputs, Set<String> required) {
+        LinkedHashMap<String, String> kept = new LinkedHashMap<>();
+        for (Map.Entry<String, String> output : outputs.entrySet()) {
+            if (required == null || required.contains(output.getKey())) {
+                kept.put(output.getKey(), output.getValue());
+            }
+        }
+        return kept;
+    }
+}
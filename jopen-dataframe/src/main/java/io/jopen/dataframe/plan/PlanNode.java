@@ -0,0 +1,61 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 逻辑计划节点  不可变
+ *
+ * @author maxuefeng
+ * @see Optimizer
+ * @see Executor
+ */
+public abstract class PlanNode {
+
+    /**
+     * @return 输出的列名到类型的映射  按输出顺序
+     */
+    public abstract LinkedHashMap<String, DataType> schema();
+
+    /**
+     * @return 输入节点  叶子节点返回null
+     */
+    public abstract PlanNode child();
+
+    /**
+     * @return 所有输入节点  只有连接有两个输入
+     */
+    public List<PlanNode> children() {
+        PlanNode child = child();
+        return child == null ? Collections.emptyList() : Collections.singletonList(child);
+    }
+
+    /**
+     * @return 节点本身的描述(不含子节点)
+     */
+    abstract String describe();
+
+    /**
+     * @return 缩进的计划树
+     */
+    public String explain() {
+        StringBuilder builder = new StringBuilder();
+        explain(builder, "");
+        return builder.toString();
+    }
+
+    private void explain(StringBuilder builder, String indent) {
+        builder.append(indent).append(describe()).append('\n');
+        for (PlanNode child : children()) {
+            child.explain(builder, indent + "  ");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
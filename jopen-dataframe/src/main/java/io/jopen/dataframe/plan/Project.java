@@ -0,0 +1,76 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.expr.ColumnRef;
+import io.jopen.dataframe.expr.Expr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 投影  每个输出列由一个已绑定的表达式定义  直接引用输入列时不复制数据
+ *
+ * @author maxuefeng
+ */
+public final class Project extends PlanNode {
+
+    private final PlanNode child;
+
+    private final LinkedHashMap<String, Expr> outputs;
+
+    public Project(PlanNode child, LinkedHashMap<String, Expr> outputs) {
+        this.child = child;
+        this.outputs = outputs;
+    }
+
+    public Map<String, Expr> outputs() {
+        return Collections.unmodifiableMap(outputs);
+    }
+
+    /**
+     * @return 是否只是按原顺序原样输出child的所有列
+     */
+    boolean isIdentity() {
+        List<String> childColumns = new ArrayList<>(child.schema().keySet());
+        if (childColumns.size() != outputs.size()) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<String, Expr> output : outputs.entrySet()) {
+            String childColumn = childColumns.get(i++);
+            if (!output.getKey().equals(childColumn) || !(output.getValue() instanceof ColumnRef)
+                    || !((ColumnRef) output.getValue()).name().equals(childColumn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        LinkedHashMap<String, DataType> schema = new LinkedHashMap<>();
+        for (Map.Entry<String, Expr> output : outputs.entrySet()) {
+            schema.put(output.getKey(), output.getValue().type());
+        }
+        return schema;
+    }
+
+    @Override
+    public PlanNode child() {
+        return child;
+    }
+
+    @Override
+    String describe() {
+        List<String> rendered = new ArrayList<>(outputs.size());
+        for (Map.Entry<String, Expr> output : outputs.entrySet()) {
+            Expr expr = output.getValue();
+            rendered.add(expr instanceof ColumnRef && ((ColumnRef) expr).name().equals(output.getKey())
+                    ? output.getKey() : output.getKey() + " = " + expr);
+        }
+        return "Project " + rendered;
+    }
+}
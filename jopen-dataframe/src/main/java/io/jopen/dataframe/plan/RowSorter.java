@@ -0,0 +1,74 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Column;
+import io.jopen.dataframe.column.RowKeys;
+
+import java.util.List;
+
+/**
+ * 按键列对行号数组做归并排序  稳定  不装箱
+ *
+ * @author maxuefeng
+ */
+final class RowSorter {
+
+    private static final int INSERTION_THRESHOLD = 24;
+
+    private final List<Column> keys;
+
+    private final boolean[] ascending;
+
+    RowSorter(List<Column> keys, boolean[] ascending) {
+        this.keys = keys;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @return 排好序的 0..rows-1
+     */
+    int[] sortedRows(int rows) {
+        int[] order = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            order[r] = r;
+        }
+        sort(order, order.clone(), 0, rows);
+        return order;
+    }
+
+    /**
+     * 排序rows[from, to)  buffer与rows内容相同
+     */
+    private void sort(int[] rows, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && compare(rows[j], row) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        // 交替使用两个数组  buffer的两半排好后归并到rows
+        sort(buffer, rows, from, middle);
+        sort(buffer, rows, middle, to);
+        if (compare(buffer[middle - 1], buffer[middle]) <= 0) {
+            System.arraycopy(buffer, from, rows, from, to - from);
+            return;
+        }
+        for (int i = from, p = from, q = middle; i < to; i++) {
+            if (q >= to || p < middle && compare(buffer[p], buffer[q]) <= 0) {
+                rows[i] = buffer[p++];
+            } else {
+                rows[i] = buffer[q++];
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        return RowKeys.compare(keys, a, keys, b, ascending);
+    }
+}
@@ -0,0 +1,85 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.Expr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 扫描{@link Table}  只读取需要的列  下推的过滤条件在扫描每个批次时依次计算
+ *
+ * @author maxuefeng
+ */
+public final class Scan extends PlanNode {
+
+    private final Table table;
+
+    private final List<String> columns;
+
+    private final List<Expr> predicates;
+
+    public Scan(Table table, List<String> columns, List<Expr> predicates) {
+        this.table = table;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.predicates = Collections.unmodifiableList(new ArrayList<>(predicates));
+    }
+
+    /**
+     * 扫描全部列
+     */
+    public static Scan of(Table table) {
+        return new Scan(table, table.names(), Collections.emptyList());
+    }
+
+    public Table table() {
+        return table;
+    }
+
+    /**
+     * @return 输出的列
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    public List<Expr> predicates() {
+        return predicates;
+    }
+
+    /**
+     * @return 需要读取的列  输出的列加上过滤条件引用的列
+     */
+    public Set<String> readColumns() {
+        Set<String> read = new LinkedHashSet<>(columns);
+        for (Expr predicate : predicates) {
+            predicate.collectColumns(read);
+        }
+        return read;
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        LinkedHashMap<String, DataType> schema = new LinkedHashMap<>();
+        for (String column : columns) {
+            schema.put(column, table.column(column).type());
+        }
+        return schema;
+    }
+
+    @Override
+    public PlanNode child() {
+        return null;
+    }
+
+    @Override
+    String describe() {
+        return "Scan rows=" + table.rowCount() + " columns=" + columns
+                + (predicates.isEmpty() ? "" : " predicates=" + predicates);
+    }
+}
@@ -0,0 +1,76 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多键排序  null值总是排在最后  相同键的行之间顺序不确定
+ *
+ * @author maxuefeng
+ * @see ExternalSorter
+ */
+public final class Sort extends PlanNode {
+
+    private final PlanNode child;
+
+    /**
+     * 列名到是否升序
+     */
+    private final LinkedHashMap<String, Boolean> keys;
+
+    public Sort(PlanNode child, LinkedHashMap<String, Boolean> keys) {
+        Map<String, DataType> schema = child.schema();
+        for (String key : keys.keySet()) {
+            if (!schema.containsKey(key)) {
+                throw new IllegalArgumentException("unknown column " + key + ", available columns " + schema.keySet());
+            }
+        }
+        this.child = child;
+        this.keys = keys;
+    }
+
+    public Map<String, Boolean> keys() {
+        return Collections.unmodifiableMap(keys);
+    }
+
+    List<String> keyNames() {
+        return new ArrayList<>(keys.keySet());
+    }
+
+    boolean[] ascending() {
+        boolean[] ascending = new boolean[keys.size()];
+        int i = 0;
+        for (boolean value : keys.values()) {
+            ascending[i++] = value;
+        }
+        return ascending;
+    }
+
+    Sort withChild(PlanNode child) {
+        return new Sort(child, keys);
+    }
+
+    @Override
+    public LinkedHashMap<String, DataType> schema() {
+        return child.schema();
+    }
+
+    @Override
+    public PlanNode child() {
+        return child;
+    }
+
+    @Override
+    String describe() {
+        List<String> rendered = new ArrayList<>(keys.size());
+        for (Map.Entry<String, Boolean> key : keys.entrySet()) {
+            rendered.add(key.getKey() + (key.getValue() ? " asc" : " desc"));
+        }
+        return "Sort " + rendered;
+    }
+}
@@ -0,0 +1,82 @@
+package io.jopen.dataframe;
+
+import io.jopen.dataframe.column.DataType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author maxuefeng
+ * @see DefaultDataFrame
+ */
+public class DefaultDataFrameTest {
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    private static List<Map<String, Object>> sparse() {
+        return Arrays.asList(row("k", "a", "v", null), row("k", "b", "v", null), row("k", "a"));
+    }
+
+    @Test
+    public void testAllNullColumnInferredAsString() {
+        try {
+            new DefaultDataFrame(sparse()).groupBy("k", "total = sum(v)");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("v is STRING"));
+        }
+    }
+
+    @Test
+    public void testSchemaDeclaresAllNullColumn() {
+        Map<String, DataType> schema = new LinkedHashMap<>();
+        schema.put("v", DataType.DOUBLE);
+        DataFrame frame = new DefaultDataFrame(sparse(), schema);
+        Assert.assertEquals("Table{rows=3, columns=[v DOUBLE, k STRING]}", frame.toTable().toString());
+
+        List<Map<String, Object>> groups = frame.groupBy("k", "n = count(v), total = sum(v), mean = avg(v)")
+                .sort("k").collect();
+        Assert.assertEquals(2, groups.size());
+        for (Map<String, Object> group : groups) {
+            Assert.assertEquals(0L, group.get("n"));
+            Assert.assertNull(group.get("total"));
+            Assert.assertNull(group.get("mean"));
+        }
+        Assert.assertEquals(0L, frame.filter("v > 1 or v * 2 < 0").count("").collect().get(0).get("count"));
+    }
+
+    @Test
+    public void testSchemaConvertsValues() {
+        Map<String, DataType> schema = new LinkedHashMap<>();
+        schema.put("id", DataType.LONG);
+        schema.put("missing", DataType.BOOLEAN);
+        List<Map<String, Object>> rows = Arrays.asList(row("id", "7", "x", 1), row("id", 8.0, "x", 2.5));
+        List<Map<String, Object>> result = new DefaultDataFrame(rows, schema).map("next = id + 1").collect();
+
+        Assert.assertEquals(Arrays.asList("id", "missing", "x", "next"), new ArrayList<>(result.get(0).keySet()));
+        Assert.assertEquals(8L, result.get(0).get("next"));
+        Assert.assertEquals(9L, result.get(1).get("next"));
+        Assert.assertNull(result.get(0).get("missing"));
+        // 未声明的列仍然推断  整数与小数混合为DOUBLE
+        Assert.assertEquals(1.0, result.get(0).get("x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSchemaRejectsUnconvertibleValue() {
+        Map<String, DataType> schema = new HashMap<>();
+        schema.put("id", DataType.LONG);
+        new DefaultDataFrame(Arrays.asList(row("id", "seven")), schema);
+    }
+}
@@ -0,0 +1,170 @@
+package io.jopen.dataframe.expr;
+
+import io.jopen.dataframe.column.DataType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author maxuefeng
+ * @see ExprParser
+ */
+public class ExprParserTest {
+
+    private static String parse(String dsl) {
+        return ExprParser.parseExpression(dsl).toString();
+    }
+
+    private static void assertRejected(String dsl, String message) {
+        try {
+            ExprParser.parseExpression(dsl);
+            Assert.fail("expected IllegalArgumentException for: " + dsl);
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    @Test
+    public void testPrecedence() {
+        Assert.assertEquals("((a + (b * c)) > 3)", parse("a + b * c > 3"));
+        Assert.assertEquals("((a - b) - c)", parse("a - b - c"));
+        Assert.assertEquals("((a * (b + c)) % 7)", parse("a * (b + c) % 7"));
+        Assert.assertEquals("((x == 1) or ((y == 2) and (z == 3)))", parse("x = 1 or y == 2 and z = 3"));
+        Assert.assertEquals("((not (x > 1)) and y)", parse("not x > 1 && y"));
+        Assert.assertEquals("(a or b)", parse("a || b"));
+    }
+
+    @Test
+    public void testKeywordsAreCaseInsensitive() {
+        Assert.assertEquals("((a is null) or (b is not null))", parse("a IS NULL Or b is NOT null"));
+        Assert.assertEquals("((a in (1, 2)) and (b not in ('x', 'y')))", parse("a IN (1, 2) AND b NOT IN ('x', \"y\")"));
+        Assert.assertEquals("(flag == true)", parse("flag = TRUE"));
+    }
+
+    @Test
+    public void testLiterals() {
+        Assert.assertEquals(DataType.LONG, ExprParser.parseExpression("42").type());
+        Assert.assertEquals(DataType.DOUBLE, ExprParser.parseExpression("1.5").type());
+        Assert.assertEquals(DataType.DOUBLE, ExprParser.parseExpression("2e3").type());
+        Assert.assertEquals(DataType.DOUBLE, ExprParser.parseExpression(".5").type());
+        Assert.assertEquals(DataType.STRING, ExprParser.parseExpression("'it\\'s'").type());
+        Assert.assertEquals("it's", ((Literal) ExprParser.parseExpression("'it\\'s'")).value());
+        // 负数常量直接折叠  对列取负保留为一元表达式
+        Assert.assertEquals(-3L, ((Literal) ExprParser.parseExpression("-3")).value());
+        Assert.assertEquals(-0.25, ((Literal) ExprParser.parseExpression("- 0.25")).value());
+        Assert.assertEquals("(-a)", parse("-a"));
+        Assert.assertEquals("(a in (-1, 2.5))", parse("a in (-1, 2.5)"));
+    }
+
+    @Test
+    public void testQuotedAndUnicodeNames() {
+        Assert.assertEquals("(order id > 1)", parse("`order id` > 1"));
+        // 反引号括起来的关键字是列名
+        Assert.assertEquals("(and or not)", parse("`and` or `not`"));
+        Assert.assertEquals("(年龄 >= 18)", parse("年龄 >= 18"));
+        Assert.assertEquals("lower(x)", parse("lower(`x`)"));
+        Assert.assertEquals("contains(name, 'a')", parse("CONTAINS(name, 'a')"));
+    }
+
+    @Test
+    public void testBindResolvesTypes() {
+        Map<String, DataType> schema = new LinkedHashMap<>();
+        schema.put("age", DataType.LONG);
+        schema.put("price", DataType.DOUBLE);
+        schema.put("name", DataType.STRING);
+        Assert.assertEquals(DataType.DOUBLE, ExprParser.parseExpression("age * price").bind(schema).type());
+        Assert.assertEquals(DataType.DOUBLE, ExprParser.parseExpression("age / 2").bind(schema).type());
+        Assert.assertEquals(DataType.LONG, ExprParser.parseExpression("age % 2").bind(schema).type());
+        Assert.assertEquals(DataType.STRING, ExprParser.parseExpression("name + age").bind(schema).type());
+        Assert.assertEquals(DataType.BOOLEAN, ExprParser.parseExpression("age > 1.0 and name != ''").bind(schema).type());
+        try {
+            ExprParser.parseExpression("name * 2").bind(schema);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("requires numbers"));
+        }
+        try {
+            ExprParser.parseExpression("name > age").bind(schema);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("cannot compare"));
+        }
+    }
+
+    @Test
+    public void testErrorsReportPosition() {
+        assertRejected("a > ", "at position 4");
+        assertRejected("a b", "unexpected 'b' at position 2");
+        assertRejected("(a > 1", "expected ')'");
+        assertRejected("a in (b)", "only accepts literals");
+        assertRejected("a is 1", "expected null");
+        assertRejected("'abc", "unterminated");
+        assertRejected("a # 1", "unexpected character '#'");
+        assertRejected("nosuch(a)", "unknown function");
+    }
+
+    @Test
+    public void testNames() {
+        Assert.assertEquals(Arrays.asList("name", "age", "order id"), ExprParser.parseNames("name, age,`order id`"));
+        try {
+            ExprParser.parseNames("name,");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("expected a column name"));
+        }
+    }
+
+    @Test
+    public void testAssignments() {
+        LinkedHashMap<String, Expr> assignments = ExprParser.parseAssignments("total = price * qty, vip = level >= 3");
+        Assert.assertEquals(Arrays.asList("total", "vip"), Arrays.asList(assignments.keySet().toArray()));
+        Assert.assertEquals("(price * qty)", assignments.get("total").toString());
+        Assert.assertEquals("(level >= 3)", assignments.get("vip").toString());
+        try {
+            ExprParser.parseAssignments("a = 1, a = 2");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("assigned twice"));
+        }
+    }
+
+    @Test
+    public void testAggregates() {
+        LinkedHashMap<String, String[]> aggregates = ExprParser.parseAggregates("n = COUNT(*), c = count(), total = Sum(price)");
+        Assert.assertArrayEquals(new String[]{"count", null}, aggregates.get("n"));
+        Assert.assertArrayEquals(new String[]{"count", null}, aggregates.get("c"));
+        Assert.assertArrayEquals(new String[]{"sum", "price"}, aggregates.get("total"));
+        try {
+            ExprParser.parseAggregates("n = 1");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("expected an aggregate function"));
+        }
+    }
+
+    @Test
+    public void testSortKeys() {
+        LinkedHashMap<String, Boolean> keys = ExprParser.parseSortKeys("age DESC, name, city asc");
+        Assert.assertEquals(Arrays.asList("age", "name", "city"), Arrays.asList(keys.keySet().toArray()));
+        Assert.assertEquals(Arrays.asList(false, true, true), Arrays.asList(keys.values().toArray()));
+        try {
+            ExprParser.parseSortKeys("age, age desc");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("duplicate sort key"));
+        }
+    }
+
+    @Test
+    public void testJoinKeys() {
+        List<String[]> keys = ExprParser.parseJoinKeys("id = user_id, day, a == b");
+        Assert.assertEquals(3, keys.size());
+        Assert.assertArrayEquals(new String[]{"id", "user_id"}, keys.get(0));
+        Assert.assertArrayEquals(new String[]{"day", "day"}, keys.get(1));
+        Assert.assertArrayEquals(new String[]{"a", "b"}, keys.get(2));
+    }
+}
@@ -0,0 +1,161 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.ColumnRef;
+import io.jopen.dataframe.expr.Expr;
+import io.jopen.dataframe.expr.ExprParser;
+import io.jopen.dataframe.expr.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 流水线(Filter/Project)与Count的执行结果  与逐行计算的结果比较
+ *
+ * @author maxuefeng
+ * @see Executor
+ */
+public class ExecutorTest {
+
+    /**
+     * 跨多个批次  最后一个批次不满
+     */
+    private static final int ROWS = Vector.MAX_LENGTH * 5 + 17;
+
+    private static List<Map<String, Object>> rows(int count) {
+        Random random = new Random(count);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("qty", random.nextInt(7) == 0 ? null : (long) random.nextInt(20));
+            row.put("price", random.nextInt(5) == 0 ? null : random.nextInt(10000) / 100.0);
+            row.put("name", random.nextInt(9) == 0 ? null : "n" + random.nextInt(100));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static PlanNode filter(PlanNode plan, String dsl) {
+        return new Filter(plan, ExprParser.parseExpression(dsl).bind(plan.schema()));
+    }
+
+    private static PlanNode map(PlanNode plan, String dsl) {
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (String name : plan.schema().keySet()) {
+            outputs.put(name, new ColumnRef(name, null).bind(plan.schema()));
+        }
+        for (Map.Entry<String, Expr> assignment : ExprParser.parseAssignments(dsl).entrySet()) {
+            outputs.put(assignment.getKey(), assignment.getValue().bind(plan.schema()));
+        }
+        return new Project(plan, outputs);
+    }
+
+    @Test
+    public void testPipelinePreservesRowOrder() {
+        List<Map<String, Object>> input = rows(ROWS);
+        PlanNode plan = map(filter(Scan.of(Table.fromRows(input)), "qty >= 5 and price < 80.5"),
+                "total = qty * price, tag = name + '#' + id, odd = id % 2 == 1");
+        Table table = Executor.execute(plan);
+
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Map<String, Object> row : input) {
+            Long qty = (Long) row.get("qty");
+            Double price = (Double) row.get("price");
+            // 与null比较的结果为null  该行被过滤
+            if (qty == null || price == null || qty < 5 || price >= 80.5) {
+                continue;
+            }
+            Map<String, Object> out = new HashMap<>(row);
+            String name = (String) row.get("name");
+            long id = (Long) row.get("id");
+            out.put("total", qty * price);
+            out.put("tag", name == null ? null : name + "#" + id);
+            out.put("odd", id % 2 == 1);
+            expected.add(out);
+        }
+        List<Map<String, Object>> actual = new ArrayList<>();
+        for (Map<String, Object> row : table.toRows()) {
+            actual.add(new HashMap<>(row));
+        }
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(Arrays.asList("total", "tag", "odd"), table.names().subList(4, 7));
+    }
+
+    @Test
+    public void testNullArithmetic() {
+        List<Map<String, Object>> input = rows(ROWS);
+        Table table = Executor.execute(map(Scan.of(Table.fromRows(input)),
+                "plus = qty + 1, mod = id % qty, negated = -price, missing = qty is null"));
+        for (int r = 0; r < input.size(); r++) {
+            Long qty = (Long) input.get(r).get("qty");
+            Double price = (Double) input.get(r).get("price");
+            long id = (Long) input.get(r).get("id");
+            Assert.assertEquals(qty == null ? null : qty + 1, table.column("plus").get(r));
+            // 除数为0时结果为null
+            Assert.assertEquals(qty == null || qty == 0 ? null : id % qty, table.column("mod").get(r));
+            Assert.assertEquals(price == null ? null : -price, table.column("negated").get(r));
+            Assert.assertEquals(qty == null, table.column("missing").get(r));
+        }
+    }
+
+    @Test
+    public void testMapAssignmentsSeeColumnsBeforeMap() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("a", 1L);
+        PlanNode plan = map(Scan.of(Table.fromRows(Collections.singletonList(row))), "a = a + 10, b = a");
+        Table table = Executor.execute(plan);
+        Assert.assertEquals(11L, table.column("a").get(0));
+        Assert.assertEquals(1L, table.column("b").get(0));
+    }
+
+    @Test
+    public void testCount() {
+        List<Map<String, Object>> input = rows(ROWS);
+        long expected = 0;
+        for (Map<String, Object> row : input) {
+            String name = (String) row.get("name");
+            if (name != null && (name.equals("n1") || name.equals("n42") || name.length() == 2)) {
+                expected++;
+            }
+        }
+        PlanNode filtered = filter(Scan.of(Table.fromRows(input)), "name in ('n1', 'n42') or length(name) == 2");
+        Assert.assertEquals(expected, Executor.count(filtered));
+        Table table = Executor.execute(new Count(filtered));
+        Assert.assertEquals(Collections.singletonList(Count.COLUMN), table.names());
+        Assert.assertEquals(expected, table.column(Count.COLUMN).get(0));
+
+        Assert.assertEquals((long) ROWS, Executor.count(Scan.of(Table.fromRows(input))));
+    }
+
+    @Test
+    public void testEmptyResultKeepsSchema() {
+        PlanNode plan = map(filter(Scan.of(Table.fromRows(rows(ROWS))), "id < 0"), "x = id * 2");
+        Table table = Executor.execute(plan);
+        Assert.assertEquals(0, table.rowCount());
+        Assert.assertEquals(new ArrayList<>(plan.schema().keySet()), table.names());
+        Assert.assertEquals(0L, Executor.count(plan));
+    }
+
+    @Test
+    public void testAggregateWithoutKeysOutputsOneRow() {
+        Map<String, String[]> calls = new LinkedHashMap<>();
+        calls.put("n", new String[]{"count", null});
+        calls.put("total", new String[]{"sum", "price"});
+        calls.put("lowest", new String[]{"min", "name"});
+        PlanNode empty = filter(Scan.of(Table.fromRows(rows(100))), "id > 1000");
+        List<Map<String, Object>> result = Executor.execute(Aggregate.of(empty, Collections.emptyList(), calls)).toRows();
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(0L, result.get(0).get("n"));
+        Assert.assertNull(result.get(0).get("total"));
+        Assert.assertNull(result.get(0).get("lowest"));
+    }
+}
@@ -0,0 +1,136 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.ExprParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 排序与{@link List#sort(Comparator)}的结果比较  包括降序、多键、null值和溢写
+ *
+ * @author maxuefeng
+ * @see ExternalSorter
+ */
+public class ExternalSorterTest {
+
+    private File spillDirectory;
+
+    @Before
+    public void createSpillDirectory() throws IOException {
+        spillDirectory = Files.createTempDirectory("jopen-dataframe-test").toFile();
+    }
+
+    @After
+    public void deleteSpillDirectory() {
+        Assert.assertEquals(0, spillDirectory.list().length);
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    /**
+     * 每个键null排在最后  不论升序降序
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Map<String, Object>> comparator(LinkedHashMap<String, Boolean> keys) {
+        Comparator<Map<String, Object>> comparator = (a, b) -> 0;
+        for (Map.Entry<String, Boolean> key : keys.entrySet()) {
+            Comparator<Comparable> order = key.getValue() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            comparator = comparator.thenComparing(row -> (Comparable) row.get(key.getKey()), Comparator.nullsLast(order));
+        }
+        return comparator;
+    }
+
+    private static List<Object> project(List<Map<String, Object>> rows, List<String> names) {
+        List<Object> projected = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            List<Object> values = new ArrayList<>(names.size());
+            for (String name : names) {
+                values.add(row.get(name));
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+
+    /**
+     * 相同键的行之间没有顺序  只比较键的序列和行的集合
+     */
+    private static void assertSort(List<Map<String, Object>> rows, String dsl) {
+        LinkedHashMap<String, Boolean> keys = ExprParser.parseSortKeys(dsl);
+        List<Map<String, Object>> expected = new ArrayList<>(rows);
+        expected.sort(comparator(keys));
+
+        Table table = Executor.execute(new Sort(TestTables.scan(rows), keys));
+        List<Map<String, Object>> actual = table.toRows();
+        List<String> keyNames = new ArrayList<>(keys.keySet());
+        Assert.assertEquals(dsl, project(expected, keyNames), project(actual, keyNames));
+        Assert.assertEquals(dsl, TestTables.canonical(expected), TestTables.canonical(actual));
+    }
+
+    private void assertAllSorts() {
+        List<Map<String, Object>> rows = TestTables.users(20000, 21);
+        assertSort(rows, "salary");
+        assertSort(rows, "salary desc");
+        assertSort(rows, "dept desc");
+        assertSort(rows, "active, level desc");
+        assertSort(rows, "dept, level desc, salary");
+        // 最后一个键唯一  整个顺序确定
+        assertSort(rows, "level desc, active desc, dept, id desc");
+    }
+
+    @Test
+    public void testSortInMemory() {
+        assertAllSorts();
+    }
+
+    @Test
+    public void testSortSpilled() {
+        TestTables.withSmallMemory(spillDirectory, this::assertAllSorts);
+    }
+
+    @Test
+    public void testSmallMemoryReallySpills() {
+        File missing = new File(spillDirectory, "missing");
+        Sort sort = new Sort(TestTables.scan(TestTables.users(20000, 22)), ExprParser.parseSortKeys("salary desc"));
+        try {
+            TestTables.withSmallMemory(missing, () -> Executor.execute(sort));
+            Assert.fail("expected a spill");
+        } catch (UncheckedIOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("can not create spill file"));
+        }
+    }
+
+    @Test
+    public void testSortAfterFilterAndEmptyInput() {
+        List<Map<String, Object>> rows = TestTables.users(9000, 23);
+        Scan scan = TestTables.scan(rows);
+        PlanNode filtered = new Filter(scan, ExprParser.parseExpression("level >= 3 or dept is null").bind(scan.schema()));
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Long level = (Long) row.get("level");
+            if ((level != null && level >= 3) || row.get("dept") == null) {
+                expected.add(row);
+            }
+        }
+        LinkedHashMap<String, Boolean> keys = ExprParser.parseSortKeys("salary desc, id");
+        expected.sort(comparator(keys));
+        List<Object> ids = project(Executor.execute(new Sort(filtered, keys)).toRows(), Collections.singletonList("id"));
+        Assert.assertEquals(project(expected, Collections.singletonList("id")), ids);
+
+        PlanNode empty = new Filter(scan, ExprParser.parseExpression("id < 0").bind(scan.schema()));
+        Assert.assertEquals(0, Executor.execute(new Sort(empty, keys)).rowCount());
+    }
+}
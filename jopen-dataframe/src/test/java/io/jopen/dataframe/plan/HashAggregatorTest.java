@@ -0,0 +1,193 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.expr.ExprParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分组聚合与逐行计算的结果比较  包括null分组键和溢写
+ *
+ * @author maxuefeng
+ * @see HashAggregator
+ */
+public class HashAggregatorTest {
+
+    private static final String AGGREGATES = "n = count(*), paid = count(salary), total = sum(salary), mean = avg(salary),"
+            + " low = min(salary), high = max(level), levels = sum(level), first_dept = min(dept), any_active = max(active),"
+            + " all_active = min(active)";
+
+    private File spillDirectory;
+
+    @Before
+    public void createSpillDirectory() throws IOException {
+        spillDirectory = Files.createTempDirectory("jopen-dataframe-test").toFile();
+    }
+
+    @After
+    public void deleteSpillDirectory() {
+        Assert.assertEquals(0, spillDirectory.list().length);
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    /**
+     * 一个分组的聚合状态  忽略null值
+     */
+    private static final class Group {
+        long n;
+        long paid;
+        double total;
+        Double low;
+        Long high;
+        long levels;
+        boolean hasLevel;
+        String firstDept;
+        Boolean anyActive;
+        Boolean allActive;
+
+        void add(Map<String, Object> row) {
+            n++;
+            Double salary = (Double) row.get("salary");
+            if (salary != null) {
+                paid++;
+                total += salary;
+                low = low == null ? salary : Math.min(low, salary);
+            }
+            Long level = (Long) row.get("level");
+            if (level != null) {
+                high = high == null ? level : Math.max(high, level);
+                levels += level;
+                hasLevel = true;
+            }
+            String dept = (String) row.get("dept");
+            if (dept != null && (firstDept == null || dept.compareTo(firstDept) < 0)) {
+                firstDept = dept;
+            }
+            Boolean active = (Boolean) row.get("active");
+            if (active != null) {
+                anyActive = anyActive == null ? active : anyActive || active;
+                allActive = allActive == null ? active : allActive && active;
+            }
+        }
+
+        Map<String, Object> result(List<String> keys, List<Object> key) {
+            Map<String, Object> row = new HashMap<>();
+            for (int k = 0; k < keys.size(); k++) {
+                row.put(keys.get(k), key.get(k));
+            }
+            row.put("n", n);
+            row.put("paid", paid);
+            row.put("total", paid == 0 ? null : total);
+            row.put("mean", paid == 0 ? null : total / paid);
+            row.put("low", low);
+            row.put("high", high);
+            row.put("levels", hasLevel ? levels : null);
+            row.put("first_dept", firstDept);
+            row.put("any_active", anyActive);
+            row.put("all_active", allActive);
+            return row;
+        }
+    }
+
+    /**
+     * null键自成一组
+     */
+    private static List<Map<String, Object>> naive(List<Map<String, Object>> rows, List<String> keys) {
+        Map<List<Object>, Group> groups = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            List<Object> key = new ArrayList<>(keys.size());
+            for (String name : keys) {
+                key.add(row.get(name));
+            }
+            groups.computeIfAbsent(key, k -> new Group()).add(row);
+        }
+        if (keys.isEmpty() && groups.isEmpty()) {
+            groups.put(Collections.emptyList(), new Group());
+        }
+        List<Map<String, Object>> result = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Group> group : groups.entrySet()) {
+            result.add(group.getValue().result(keys, group.getKey()));
+        }
+        return result;
+    }
+
+    private static void assertGroupBy(List<Map<String, Object>> rows, String keys) {
+        List<String> keyNames = keys.isEmpty() ? Collections.emptyList() : ExprParser.parseNames(keys);
+        Aggregate aggregate = Aggregate.of(TestTables.scan(rows), keyNames, ExprParser.parseAggregates(AGGREGATES));
+        List<Map<String, Object>> actual = Executor.execute(aggregate).toRows();
+        Assert.assertEquals(TestTables.canonical(naive(rows, keyNames)), TestTables.canonical(actual));
+        Assert.assertEquals(new ArrayList<>(aggregate.schema().keySet()), new ArrayList<>(actual.get(0).keySet()));
+    }
+
+    private void assertAllGroupings(List<Map<String, Object>> rows) {
+        assertGroupBy(rows, "dept");
+        assertGroupBy(rows, "dept, level");
+        assertGroupBy(rows, "active, level, dept");
+        // 每行一组
+        assertGroupBy(rows, "id");
+        assertGroupBy(rows, "");
+    }
+
+    @Test
+    public void testGroupByInMemory() {
+        assertAllGroupings(TestTables.users(20000, 1));
+    }
+
+    @Test
+    public void testGroupBySpilled() {
+        List<Map<String, Object>> rows = TestTables.users(20000, 2);
+        TestTables.withSmallMemory(spillDirectory, () -> assertAllGroupings(rows));
+    }
+
+    @Test
+    public void testSmallMemoryReallySpills() {
+        // 溢写目录不存在时创建溢写文件失败  说明确实走了溢写路径
+        File missing = new File(spillDirectory, "missing");
+        Aggregate aggregate = Aggregate.of(TestTables.scan(TestTables.users(20000, 3)), Arrays.asList("dept", "level"),
+                ExprParser.parseAggregates(AGGREGATES));
+        try {
+            TestTables.withSmallMemory(missing, () -> Executor.execute(aggregate));
+            Assert.fail("expected a spill");
+        } catch (UncheckedIOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("can not create spill file"));
+        }
+    }
+
+    @Test
+    public void testOnlyNullKeys() {
+        List<Map<String, Object>> rows = new ArrayList<>(TestTables.users(100, 4));
+        for (Map<String, Object> row : rows) {
+            row.put("dept", null);
+        }
+        // 全为null的dept被推断为STRING
+        assertGroupBy(rows, "dept");
+        Assert.assertEquals(1, Executor.execute(Aggregate.of(TestTables.scan(rows), Collections.singletonList("dept"),
+                ExprParser.parseAggregates("n = count(*)"))).rowCount());
+    }
+
+    @Test
+    public void testEmptyInput() {
+        List<Map<String, Object>> rows = TestTables.users(1000, 5);
+        PlanNode empty = new Filter(TestTables.scan(rows), ExprParser.parseExpression("id < 0").bind(TestTables.scan(rows).schema()));
+        Assert.assertEquals(0, Executor.execute(Aggregate.of(empty, Collections.singletonList("dept"),
+                ExprParser.parseAggregates("n = count(*)"))).rowCount());
+        Map<String, Object> all = Executor.execute(Aggregate.of(empty, Collections.emptyList(),
+                ExprParser.parseAggregates("n = count(*), total = sum(salary)"))).toRows().get(0);
+        Assert.assertEquals(0L, all.get("n"));
+        Assert.assertNull(all.get("total"));
+    }
+}
@@ -0,0 +1,190 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.DataType;
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.ExprParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 两种连接策略与嵌套循环连接的结果比较  包括null键、左连接的null填充、重名列的"_right"后缀和溢写
+ *
+ * @author maxuefeng
+ * @see JoinExecutor
+ */
+public class JoinExecutorTest {
+
+    private File spillDirectory;
+
+    @Before
+    public void createSpillDirectory() throws IOException {
+        spillDirectory = Files.createTempDirectory("jopen-dataframe-test").toFile();
+    }
+
+    @After
+    public void deleteSpillDirectory() {
+        Assert.assertEquals(0, spillDirectory.list().length);
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    /**
+     * @return 输出列名到 {0左边/1右边, 输入列名}  按文档的命名规则
+     */
+    private static Map<String, Object[]> outputs(List<String> leftNames, List<String> rightNames, List<String[]> keys) {
+        Map<String, Object[]> outputs = new LinkedHashMap<>();
+        for (String name : leftNames) {
+            outputs.put(name, new Object[]{0, name});
+        }
+        for (String name : rightNames) {
+            boolean merged = false;
+            for (String[] key : keys) {
+                merged |= key[0].equals(name) && key[1].equals(name);
+            }
+            if (merged) {
+                continue;
+            }
+            String output = name;
+            while (outputs.containsKey(output) || (!output.equals(name) && rightNames.contains(output))) {
+                output = output + "_right";
+            }
+            outputs.put(output, new Object[]{1, name});
+        }
+        return outputs;
+    }
+
+    private static List<Map<String, Object>> naive(List<Map<String, Object>> left, List<Map<String, Object>> right,
+                                                   Map<String, Object[]> outputs, List<String[]> keys, Join.Type type) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> l : left) {
+            boolean matched = false;
+            for (Map<String, Object> r : right) {
+                boolean equal = true;
+                for (String[] key : keys) {
+                    Object a = l.get(key[0]);
+                    // null键不与任何行匹配
+                    equal &= a != null && a.equals(r.get(key[1]));
+                }
+                if (equal) {
+                    matched = true;
+                    result.add(joined(l, r, outputs));
+                }
+            }
+            if (!matched && type == Join.Type.LEFT) {
+                result.add(joined(l, new HashMap<>(), outputs));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> joined(Map<String, Object> l, Map<String, Object> r, Map<String, Object[]> outputs) {
+        Map<String, Object> row = new HashMap<>();
+        for (Map.Entry<String, Object[]> output : outputs.entrySet()) {
+            Object[] source = output.getValue();
+            row.put(output.getKey(), ((Integer) source[0] == 0 ? l : r).get((String) source[1]));
+        }
+        return row;
+    }
+
+    private static void assertJoin(List<Map<String, Object>> left, List<Map<String, Object>> right, String on) {
+        Table leftTable = Table.fromRows(left);
+        Table rightTable = Table.fromRows(right);
+        List<String[]> keys = ExprParser.parseJoinKeys(on);
+        Map<String, Object[]> outputs = outputs(leftTable.names(), rightTable.names(), keys);
+        for (Join.Type type : Join.Type.values()) {
+            List<String> expected = TestTables.canonical(naive(left, right, outputs, keys, type));
+            for (Join.Strategy strategy : Join.Strategy.values()) {
+                Table actual = Executor.execute(Join.of(Scan.of(leftTable), Scan.of(rightTable), keys, type, strategy));
+                String context = on + " " + type + " " + strategy;
+                Assert.assertEquals(context, new ArrayList<>(outputs.keySet()), actual.names());
+                Assert.assertEquals(context, expected, TestTables.canonical(actual.toRows()));
+            }
+        }
+    }
+
+    private void assertAllJoins() {
+        List<Map<String, Object>> users = TestTables.users(2000, 11);
+        List<Map<String, Object>> orders = TestTables.orders(4000, 2000, 12);
+        // id与dept重名  dept作为同名连接键只输出一次  id加后缀
+        assertJoin(users, orders, "id = user_id");
+        assertJoin(users, orders, "id = user_id, dept");
+        assertJoin(orders, users, "user_id = id, dept");
+        // 多对多
+        assertJoin(users.subList(0, 300), orders.subList(0, 600), "dept");
+        assertJoin(users.subList(0, 300), TestTables.users(200, 13), "level, active");
+    }
+
+    @Test
+    public void testJoinInMemory() {
+        assertAllJoins();
+    }
+
+    @Test
+    public void testJoinSpilled() {
+        TestTables.withSmallMemory(spillDirectory, this::assertAllJoins);
+    }
+
+    @Test
+    public void testSmallMemoryReallySpills() {
+        File missing = new File(spillDirectory, "missing");
+        Join join = Join.of(TestTables.scan(TestTables.users(3000, 14)), TestTables.scan(TestTables.orders(6000, 3000, 15)),
+                ExprParser.parseJoinKeys("id = user_id"), Join.Type.INNER, Join.Strategy.HASH);
+        try {
+            TestTables.withSmallMemory(missing, () -> Executor.execute(join));
+            Assert.fail("expected a spill");
+        } catch (UncheckedIOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("can not create spill file"));
+        }
+    }
+
+    @Test
+    public void testRightSuffixAvoidsExistingNames() {
+        Map<String, Object> left = new HashMap<>();
+        left.put("k", 1L);
+        left.put("v", "left");
+        Map<String, Object> right = new HashMap<>();
+        right.put("k", 1L);
+        right.put("v", "right");
+        right.put("v_right", "right2");
+        assertJoin(Arrays.asList(left), Arrays.asList(right), "k");
+        Table table = Executor.execute(Join.of(TestTables.scan(Arrays.asList(left)), TestTables.scan(Arrays.asList(right)),
+                ExprParser.parseJoinKeys("k"), Join.Type.INNER, Join.Strategy.HASH));
+        Map<String, Object> row = table.toRows().get(0);
+        Assert.assertEquals("left", row.get("v"));
+        Assert.assertEquals("right", row.get("v_right_right"));
+        Assert.assertEquals("right2", row.get("v_right"));
+    }
+
+    @Test
+    public void testLeftJoinPadsWithNulls() {
+        Map<String, Object> left = new HashMap<>();
+        left.put("k", null);
+        left.put("a", 1L);
+        Map<String, Object> right = new HashMap<>();
+        right.put("k", 2L);
+        right.put("b", 3.5);
+        Map<String, DataType> schema = Collections.singletonMap("k", DataType.LONG);
+        Scan leftScan = Scan.of(Table.fromRows(Arrays.asList(left), schema));
+        for (Join.Strategy strategy : Join.Strategy.values()) {
+            List<Map<String, Object>> rows = Executor.execute(Join.of(leftScan, TestTables.scan(Arrays.asList(right)),
+                    ExprParser.parseJoinKeys("k"), Join.Type.LEFT, strategy)).toRows();
+            Assert.assertEquals(1, rows.size());
+            Assert.assertEquals(Arrays.asList("k", "a", "b"), new ArrayList<>(rows.get(0).keySet()));
+            Assert.assertEquals(Arrays.asList(null, 1L, null), new ArrayList<>(rows.get(0).values()));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Table;
+import io.jopen.dataframe.expr.ColumnRef;
+import io.jopen.dataframe.expr.Expr;
+import io.jopen.dataframe.expr.ExprParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 检查优化后的计划结构  并与不优化直接执行的结果比较
+ *
+ * @author maxuefeng
+ * @see Optimizer
+ */
+public class OptimizerTest {
+
+    private static final String[] CITIES = {"bj", "sh", "gz", null};
+
+    private static Scan users(int rows) {
+        Random random = new Random(rows);
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("age", random.nextInt(10) == 0 ? null : (long) random.nextInt(60));
+            row.put("city", CITIES[random.nextInt(CITIES.length)]);
+            row.put("score", random.nextInt(1000) / 10.0);
+            data.add(row);
+        }
+        return Scan.of(Table.fromRows(data));
+    }
+
+    private static Scan orders(int rows, int users) {
+        Random random = new Random(-rows);
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("user_id", (long) random.nextInt(users));
+            row.put("amount", (long) random.nextInt(500));
+            row.put("city", CITIES[random.nextInt(CITIES.length)]);
+            data.add(row);
+        }
+        return Scan.of(Table.fromRows(data));
+    }
+
+    private static PlanNode filter(PlanNode plan, String dsl) {
+        return new Filter(plan, ExprParser.parseExpression(dsl).bind(plan.schema()));
+    }
+
+    private static PlanNode select(PlanNode plan, String dsl) {
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (String name : ExprParser.parseNames(dsl)) {
+            outputs.put(name, new ColumnRef(name, null).bind(plan.schema()));
+        }
+        return new Project(plan, outputs);
+    }
+
+    private static PlanNode map(PlanNode plan, String dsl) {
+        LinkedHashMap<String, Expr> outputs = new LinkedHashMap<>();
+        for (String name : plan.schema().keySet()) {
+            outputs.put(name, new ColumnRef(name, null).bind(plan.schema()));
+        }
+        for (Map.Entry<String, Expr> assignment : ExprParser.parseAssignments(dsl).entrySet()) {
+            outputs.put(assignment.getKey(), assignment.getValue().bind(plan.schema()));
+        }
+        return new Project(plan, outputs);
+    }
+
+    private static Join join(PlanNode left, PlanNode right, String on, Join.Type type) {
+        return Join.of(left, right, ExprParser.parseJoinKeys(on), type, Join.Strategy.HASH);
+    }
+
+    private static List<String> sortedRows(Table table) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : table.toRows()) {
+            rows.add(row.toString());
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /**
+     * 优化前后的计划执行结果相同  列的顺序也相同
+     */
+    private static PlanNode assertSameResult(PlanNode plan) {
+        PlanNode optimized = Optimizer.optimize(plan);
+        Table expected = Executor.run(plan);
+        Table actual = Executor.run(optimized);
+        Assert.assertEquals(expected.names(), actual.names());
+        Assert.assertEquals(sortedRows(expected), sortedRows(actual));
+        return optimized;
+    }
+
+    private static Set<String> set(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static List<PlanNode> collect(PlanNode node, Class<? extends PlanNode> type) {
+        List<PlanNode> found = new ArrayList<>();
+        if (type.isInstance(node)) {
+            found.add(node);
+        }
+        for (PlanNode child : node.children()) {
+            found.addAll(collect(child, type));
+        }
+        return found;
+    }
+
+    private static Scan onlyScan(PlanNode node) {
+        List<PlanNode> scans = collect(node, Scan.class);
+        Assert.assertEquals(1, scans.size());
+        return (Scan) scans.get(0);
+    }
+
+    @Test
+    public void testFilterPushedThroughProjectIntoScan() {
+        PlanNode plan = filter(map(users(10000), "adult = age >= 18, double_score = score * 2"), "adult and double_score > 100");
+        PlanNode optimized = assertSameResult(plan);
+
+        Assert.assertTrue(collect(optimized, Filter.class).isEmpty());
+        Scan scan = onlyScan(optimized);
+        // 引用的投影列被替换成定义  AND拆成两个子条件
+        Assert.assertEquals(Arrays.asList("(age >= 18)", "((score * 2) > 100)"), Arrays.asList(
+                scan.predicates().get(0).toString(), scan.predicates().get(1).toString()));
+    }
+
+    @Test
+    public void testConsecutiveFiltersMerged() {
+        PlanNode plan = filter(filter(filter(users(5000), "age > 20"), "city = 'bj'"), "score < 50");
+        PlanNode optimized = assertSameResult(plan);
+        Assert.assertTrue(collect(optimized, Filter.class).isEmpty());
+        Assert.assertEquals(3, onlyScan(optimized).predicates().size());
+    }
+
+    @Test
+    public void testFilterSplitAcrossInnerJoin() {
+        PlanNode plan = filter(join(users(2000), orders(5000, 2500), "id = user_id", Join.Type.INNER),
+                "age > 30 and amount < 100 and score > amount");
+        PlanNode optimized = assertSameResult(plan);
+
+        Join join = (Join) collect(optimized, Join.class).get(0);
+        Assert.assertEquals("[(age > 30)]", onlyScan(join.left()).predicates().toString());
+        Assert.assertEquals("[(amount < 100)]", onlyScan(join.right()).predicates().toString());
+        // 引用两边的条件留在连接之上
+        List<PlanNode> filters = collect(optimized, Filter.class);
+        Assert.assertEquals(1, filters.size());
+        Assert.assertEquals("(score > amount)", ((Filter) filters.get(0)).predicate().toString());
+    }
+
+    @Test
+    public void testRenamedRightColumnPushedWithOriginalName() {
+        PlanNode plan = filter(join(users(1000), orders(3000, 1200), "id = user_id", Join.Type.INNER), "city_right = 'sh'");
+        PlanNode optimized = assertSameResult(plan);
+        Join join = (Join) collect(optimized, Join.class).get(0);
+        Assert.assertEquals("[(city == 'sh')]", onlyScan(join.right()).predicates().toString());
+        Assert.assertTrue(onlyScan(join.left()).predicates().isEmpty());
+    }
+
+    @Test
+    public void testLeftJoinKeepsRightFilterAbove() {
+        // 下推到右边会把不满足的行变成null填充的行  结果不同
+        PlanNode plan = filter(join(users(1000), orders(1500, 2000), "id = user_id", Join.Type.LEFT),
+                "amount > 250 and age < 40");
+        PlanNode optimized = assertSameResult(plan);
+        Join join = (Join) collect(optimized, Join.class).get(0);
+        Assert.assertEquals("[(age < 40)]", onlyScan(join.left()).predicates().toString());
+        Assert.assertTrue(onlyScan(join.right()).predicates().isEmpty());
+        Assert.assertEquals(1, collect(optimized, Filter.class).size());
+    }
+
+    @Test
+    public void testOnlyKeyPredicatesPushedBelowAggregate() {
+        Map<String, String[]> calls = new LinkedHashMap<>();
+        calls.put("n", new String[]{"count", null});
+        calls.put("total", new String[]{"sum", "score"});
+        PlanNode plan = filter(Aggregate.of(users(8000), Collections.singletonList("city"), calls),
+                "city != 'gz' and n > 10");
+        PlanNode optimized = assertSameResult(plan);
+
+        Assert.assertEquals("[(city != 'gz')]", onlyScan(optimized).predicates().toString());
+        List<PlanNode> filters = collect(optimized, Filter.class);
+        Assert.assertEquals(1, filters.size());
+        Assert.assertEquals("(n > 10)", ((Filter) filters.get(0)).predicate().toString());
+    }
+
+    @Test
+    public void testFilterPushedThroughSort() {
+        LinkedHashMap<String, Boolean> keys = new LinkedHashMap<>();
+        keys.put("score", false);
+        PlanNode plan = filter(new Sort(users(3000), keys), "age = 25");
+        PlanNode optimized = assertSameResult(plan);
+        Assert.assertTrue(optimized instanceof Sort);
+        Assert.assertEquals("[(age == 25)]", onlyScan(optimized).predicates().toString());
+    }
+
+    @Test
+    public void testProjectionPruning() {
+        PlanNode plan = select(map(users(3000), "bonus = score * 1.5, label = city + '-' + id"), "id, bonus");
+        PlanNode optimized = assertSameResult(plan);
+
+        // 两层投影合并  未使用的label不计算  扫描只读id和score
+        Assert.assertEquals(1, collect(optimized, Project.class).size());
+        Project project = (Project) optimized;
+        Assert.assertEquals(Arrays.asList("id", "bonus"), new ArrayList<>(project.outputs().keySet()));
+        Assert.assertEquals(set("id", "score"), new HashSet<>(onlyScan(optimized).columns()));
+    }
+
+    @Test
+    public void testIdentityProjectionRemoved() {
+        Scan scan = users(100);
+        PlanNode optimized = assertSameResult(select(scan, String.join(", ", scan.columns())));
+        Assert.assertTrue(optimized instanceof Scan);
+    }
+
+    @Test
+    public void testPruningThroughFilterKeepsPredicateColumns() {
+        PlanNode plan = select(filter(map(users(2000), "x = age + 1"), "x > 30 and city = 'bj'"), "id");
+        PlanNode optimized = assertSameResult(plan);
+        Scan scan = onlyScan(optimized);
+        Assert.assertEquals(Collections.singletonList("id"), scan.columns());
+        Assert.assertEquals(set("id", "age", "city"), scan.readColumns());
+    }
+
+    @Test
+    public void testCountReadsNoColumns() {
+        PlanNode plan = new Count(filter(users(9000), "age is null"));
+        PlanNode optimized = assertSameResult(plan);
+        Assert.assertTrue(onlyScan(optimized).columns().isEmpty());
+        Assert.assertEquals(Executor.count(filter(users(9000), "age is null")),
+                Executor.run(plan).column(Count.COLUMN).get(0));
+    }
+
+    @Test
+    public void testPruningJoinAndAggregateInputs() {
+        Map<String, String[]> calls = new LinkedHashMap<>();
+        calls.put("spent", new String[]{"sum", "amount"});
+        calls.put("orders", new String[]{"count", null});
+        PlanNode joined = join(users(1500), orders(6000, 1500), "id = user_id", Join.Type.INNER);
+        PlanNode plan = select(Aggregate.of(joined, Collections.singletonList("city"), calls), "city, spent");
+        PlanNode optimized = assertSameResult(plan);
+
+        Aggregate aggregate = (Aggregate) collect(optimized, Aggregate.class).get(0);
+        Assert.assertEquals(1, aggregate.calls().size());
+        Join join = (Join) collect(optimized, Join.class).get(0);
+        Assert.assertEquals(set("id", "city"), new HashSet<>(onlyScan(join.left()).columns()));
+        Assert.assertEquals(set("user_id", "amount"), new HashSet<>(onlyScan(join.right()).columns()));
+    }
+}
@@ -0,0 +1,103 @@
+package io.jopen.dataframe.plan;
+
+import io.jopen.dataframe.column.Table;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * 差分测试用的随机数据与执行参数  各列都有null值
+ *
+ * @author maxuefeng
+ */
+final class TestTables {
+
+    static final String[] DEPARTMENTS = {"dev", "ops", "sales", "hr", null};
+
+    private TestTables() {
+    }
+
+    private static <T> T sometimesNull(Random random, T value) {
+        return random.nextInt(8) == 0 ? null : value;
+    }
+
+    /**
+     * id唯一  salary是1/4的整数倍(求和没有舍入误差)
+     */
+    static List<Map<String, Object>> users(int rows, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("dept", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            row.put("level", sometimesNull(random, (long) random.nextInt(6)));
+            row.put("salary", sometimesNull(random, random.nextInt(40000) / 4.0));
+            row.put("active", sometimesNull(random, random.nextBoolean()));
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * id与users的id重名  user_id可能不存在于users
+     */
+    static List<Map<String, Object>> orders(int rows, int users, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("user_id", sometimesNull(random, (long) random.nextInt(users * 5 / 4)));
+            row.put("dept", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            row.put("amount", sometimesNull(random, (long) random.nextInt(1000)));
+            data.add(row);
+        }
+        return data;
+    }
+
+    static Scan scan(List<Map<String, Object>> rows) {
+        return Scan.of(Table.fromRows(rows));
+    }
+
+    /**
+     * 与列顺序无关的行集合
+     */
+    static List<String> canonical(List<Map<String, Object>> rows) {
+        List<String> canonical = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            canonical.add(new TreeMap<>(row).toString());
+        }
+        Collections.sort(canonical);
+        return canonical;
+    }
+
+    /**
+     * 用很小的内存预算和很少的分区执行body  使分组、连接、排序都溢写到spillDirectory
+     */
+    static void withSmallMemory(File spillDirectory, Runnable body) {
+        String[] names = {"jopen.dataframe.memory", "jopen.dataframe.partitions", "jopen.dataframe.spill.dir"};
+        String[] values = {String.valueOf(16 * 1024), "3", spillDirectory.getPath()};
+        String[] previous = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            previous[i] = System.setProperty(names[i], values[i]);
+        }
+        try {
+            body.run();
+        } finally {
+            for (int i = 0; i < names.length; i++) {
+                if (previous[i] == null) {
+                    System.clearProperty(names[i]);
+                } else {
+                    System.setProperty(names[i], previous[i]);
+                }
+            }
+        }
+    }
+}
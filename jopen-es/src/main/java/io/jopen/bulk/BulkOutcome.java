@@ -0,0 +1,42 @@
+package io.jopen.bulk;
+
+/**
+ * 一个bulk请求的结果
+ *
+ * @author maxuefeng
+ * @see BulkSender
+ */
+public final class BulkOutcome {
+
+    private static final int[] NONE = new int[0];
+
+    private static final BulkOutcome SUCCESS = new BulkOutcome(NONE, 0);
+
+    private final int[] rejected;
+
+    private final int failed;
+
+    /**
+     * @param rejected 被集群拒绝、可以重试的文档在batch中的下标
+     * @param failed   不可重试的失败文档数量(例如mapping错误)
+     */
+    public BulkOutcome(int[] rejected, int failed) {
+        this.rejected = rejected == null ? NONE : rejected;
+        this.failed = failed;
+    }
+
+    /**
+     * @return 所有文档都写入成功
+     */
+    public static BulkOutcome success() {
+        return SUCCESS;
+    }
+
+    public int[] getRejected() {
+        return rejected;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,417 @@
+package io.jopen.bulk;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 流水线式的批量写入
+ * <pre>
+ * 读取(调用线程) -&gt; 行块队列 -&gt; 解析(parseThreads个线程，每个线程独立攒批) -&gt; 批次队列 -&gt; 发送(concurrentRequests个线程)
+ * </pre>
+ * <ul>
+ *     <li>每个批次最多maxActions个文档、maxBytes字节(估算)，先到先发</li>
+ *     <li>同时在途的bulk请求最多concurrentRequests个；队列都是有界的，发送跟不上时解析和读取会被阻塞，内存占用有上限</li>
+ *     <li>被集群拒绝的文档按指数退避重试；发生拒绝时所有发送线程都暂停到退避结束，给集群喘息的时间</li>
+ * </ul>
+ * 一个BulkPipeline可以多次运行，但同一时间只能运行一次
+ *
+ * @param <D> 文档类型
+ * @author maxuefeng
+ */
+public final class BulkPipeline<D> {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkPipeline.class);
+
+    private final Function<String, D> parser;
+
+    private final ToLongFunction<? super D> sizeOf;
+
+    private final BulkSender<D> sender;
+
+    private final int parseThreads;
+
+    private final int concurrentRequests;
+
+    private final int maxActions;
+
+    private final long maxBytes;
+
+    private final int linesPerBlock;
+
+    private final int maxRetries;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    /**
+     * 发生拒绝后  所有发送线程暂停到这个时间(System.nanoTime)
+     */
+    private final AtomicLong pauseUntil = new AtomicLong();
+
+    private final List<String> endOfLines = new ArrayList<>(0);
+
+    private final List<D> endOfBatches = new ArrayList<>(0);
+
+    private LongAdder lines;
+    private LongAdder skipped;
+    private LongAdder batches;
+    private LongAdder indexed;
+    private LongAdder failed;
+    private LongAdder retried;
+    private AtomicReference<Throwable> failure;
+
+    private BulkPipeline(Builder<D> builder) {
+        this.parser = builder.parser;
+        this.sizeOf = builder.sizeOf;
+        this.sender = builder.sender;
+        this.parseThreads = builder.parseThreads;
+        this.concurrentRequests = builder.concurrentRequests;
+        this.maxActions = builder.maxActions;
+        this.maxBytes = builder.maxBytes;
+        this.linesPerBlock = builder.linesPerBlock;
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+    }
+
+    public static <D> Builder<D> builder(Function<String, D> parser, BulkSender<D> sender) {
+        return new Builder<>(parser, sender);
+    }
+
+    /**
+     * 通过内存映射读取文件并写入
+     *
+     * @param file UTF-8文本文件  每行一个文档
+     */
+    public BulkStats run(Path file) throws IOException, InterruptedException {
+        try (MappedLineReader reader = new MappedLineReader(file)) {
+            return run(reader);
+        }
+    }
+
+    /**
+     * @param source 每个元素一行  在调用线程上读取
+     */
+    public synchronized BulkStats run(Iterator<String> source) throws InterruptedException {
+        long start = System.nanoTime();
+        lines = new LongAdder();
+        skipped = new LongAdder();
+        batches = new LongAdder();
+        indexed = new LongAdder();
+        failed = new LongAdder();
+        retried = new LongAdder();
+        failure = new AtomicReference<>();
+        pauseUntil.set(start);
+
+        BlockingQueue<List<String>> blocks = new ArrayBlockingQueue<>(parseThreads * 2);
+        BlockingQueue<List<D>> pending = new ArrayBlockingQueue<>(concurrentRequests);
+        ExecutorService parsers = Executors.newFixedThreadPool(parseThreads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bulk-parse-%d").build());
+        ExecutorService senders = Executors.newFixedThreadPool(concurrentRequests,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bulk-send-%d").build());
+        try {
+            for (int i = 0; i < parseThreads; i++) {
+                parsers.execute(guard(() -> parseLoop(blocks, pending)));
+            }
+            for (int i = 0; i < concurrentRequests; i++) {
+                senders.execute(guard(() -> sendLoop(pending)));
+            }
+
+            List<String> block = new ArrayList<>(linesPerBlock);
+            while (source.hasNext()) {
+                block.add(source.next());
+                if (block.size() == linesPerBlock) {
+                    lines.add(block.size());
+                    put(blocks, block);
+                    block = new ArrayList<>(linesPerBlock);
+                }
+            }
+            if (!block.isEmpty()) {
+                lines.add(block.size());
+                put(blocks, block);
+            }
+            for (int i = 0; i < parseThreads; i++) {
+                put(blocks, endOfLines);
+            }
+            parsers.shutdown();
+            awaitTermination(parsers);
+            for (int i = 0; i < concurrentRequests; i++) {
+                put(pending, endOfBatches);
+            }
+            senders.shutdown();
+            awaitTermination(senders);
+        } finally {
+            parsers.shutdownNow();
+            senders.shutdownNow();
+        }
+        BulkStats stats = new BulkStats(lines.sum(), skipped.sum(), batches.sum(), indexed.sum(), failed.sum(),
+                retried.sum(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.info("bulk pipeline finished: {}", stats);
+        return stats;
+    }
+
+    /**
+     * 解析行块并攒批  每个解析线程有自己的批次  不需要加锁
+     */
+    private void parseLoop(BlockingQueue<List<String>> blocks, BlockingQueue<List<D>> pending) throws InterruptedException {
+        List<D> batch = new ArrayList<>(maxActions);
+        long batchBytes = 0;
+        for (; ; ) {
+            List<String> block = blocks.take();
+            if (block == endOfLines) {
+                break;
+            }
+            for (String line : block) {
+                D document;
+                try {
+                    document = parser.apply(line);
+                } catch (RuntimeException e) {
+                    LOGGER.debug("skip unparseable line: {}", line, e);
+                    document = null;
+                }
+                if (document == null) {
+                    skipped.increment();
+                    continue;
+                }
+                long bytes = sizeOf == null ? line.length() : sizeOf.applyAsLong(document);
+                if (!batch.isEmpty() && batchBytes + bytes > maxBytes) {
+                    put(pending, batch);
+                    batch = new ArrayList<>(maxActions);
+                    batchBytes = 0;
+                }
+                batch.add(document);
+                batchBytes += bytes;
+                if (batch.size() == maxActions) {
+                    put(pending, batch);
+                    batch = new ArrayList<>(maxActions);
+                    batchBytes = 0;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            put(pending, batch);
+        }
+    }
+
+    private void sendLoop(BlockingQueue<List<D>> pending) throws InterruptedException {
+        for (; ; ) {
+            List<D> batch = pending.take();
+            if (batch == endOfBatches) {
+                return;
+            }
+            batches.increment();
+            send(batch);
+        }
+    }
+
+    /**
+     * 发送一批文档  被拒绝的文档退避后重试  重试期间占用发送线程  从而反压上游
+     */
+    private void send(List<D> batch) throws InterruptedException {
+        List<D> documents = batch;
+        for (int attempt = 0; ; attempt++) {
+            awaitPause();
+            int[] rejected;
+            try {
+                BulkOutcome outcome = sender.send(documents);
+                rejected = outcome.getRejected();
+                failed.add(outcome.getFailed());
+                indexed.add(documents.size() - rejected.length - outcome.getFailed());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (e instanceof BulkRejectedException) {
+                    LOGGER.debug("bulk request of {} documents rejected", documents.size());
+                } else {
+                    LOGGER.warn("bulk request of {} documents failed", documents.size(), e);
+                }
+                rejected = null;
+            }
+            int retry = rejected == null ? documents.size() : rejected.length;
+            if (retry == 0) {
+                return;
+            }
+            if (attempt >= maxRetries) {
+                LOGGER.warn("{} documents dropped after {} retries", retry, maxRetries);
+                failed.add(retry);
+                return;
+            }
+            retried.add(retry);
+            if (rejected != null) {
+                List<D> retained = new ArrayList<>(rejected.length);
+                for (int index : rejected) {
+                    retained.add(documents.get(index));
+                }
+                documents = retained;
+            }
+            long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 30));
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+            pauseUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        }
+    }
+
+    private void awaitPause() throws InterruptedException {
+        long remaining;
+        while ((remaining = pauseUntil.get() - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * 放入有界队列  消费线程异常退出时抛出异常而不是永远阻塞
+     */
+    private <T> void put(BlockingQueue<T> queue, T element) throws InterruptedException {
+        while (!queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) throws InterruptedException {
+        while (!executor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw new IllegalStateException("bulk pipeline worker failed", t);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    private Runnable guard(Stage stage) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        };
+    }
+
+    /**
+     * @param <D> 文档类型
+     */
+    public static final class Builder<D> {
+
+        private final Function<String, D> parser;
+
+        private final BulkSender<D> sender;
+
+        private ToLongFunction<? super D> sizeOf;
+
+        private int parseThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        private int concurrentRequests = 4;
+
+        private int maxActions = 1000;
+
+        private long maxBytes = 5L << 20;
+
+        private int linesPerBlock = 512;
+
+        private int maxRetries = 8;
+
+        private long initialBackoffMillis = 50;
+
+        private long maxBackoffMillis = 5000;
+
+        private Builder(Function<String, D> parser, BulkSender<D> sender) {
+            if (parser == null || sender == null) {
+                throw new IllegalArgumentException("parser and sender must not be null");
+            }
+            this.parser = parser;
+            this.sender = sender;
+        }
+
+        /**
+         * 估算文档的字节数  默认使用源行的长度
+         */
+        public Builder<D> sizeOf(ToLongFunction<? super D> sizeOf) {
+            this.sizeOf = sizeOf;
+            return this;
+        }
+
+        public Builder<D> parseThreads(int parseThreads) {
+            this.parseThreads = positive(parseThreads, "parseThreads");
+            return this;
+        }
+
+        public Builder<D> concurrentRequests(int concurrentRequests) {
+            this.concurrentRequests = positive(concurrentRequests, "concurrentRequests");
+            return this;
+        }
+
+        /**
+         * 每个批次的最大文档数和字节数
+         */
+        public Builder<D> batchSize(int maxActions, long maxBytes) {
+            this.maxActions = positive(maxActions, "maxActions");
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes must be positive");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * 读取线程每次交给解析线程的行数
+         */
+        public Builder<D> linesPerBlock(int linesPerBlock) {
+            this.linesPerBlock = positive(linesPerBlock, "linesPerBlock");
+            return this;
+        }
+
+        /**
+         * @param maxRetries           每批文档最多重试的次数
+         * @param initialBackoffMillis 第一次重试前的等待时间  之后每次翻倍
+         * @param maxBackoffMillis     最长等待时间
+         */
+        public Builder<D> retry(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+            if (maxRetries < 0 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+                throw new IllegalArgumentException("invalid retry settings");
+            }
+            this.maxRetries = maxRetries;
+            this.initialBackoffMillis = initialBackoffMillis;
+            this.maxBackoffMillis = maxBackoffMillis;
+            return this;
+        }
+
+        public BulkPipeline<D> build() {
+            return new BulkPipeline<>(this);
+        }
+
+        private static int positive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+    }
+}
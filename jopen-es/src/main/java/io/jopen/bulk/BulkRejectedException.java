@@ -0,0 +1,17 @@
+package io.jopen.bulk;
+
+/**
+ * 整个bulk请求被集群拒绝  {@link BulkPipeline}会退避后重试整批文档
+ *
+ * @author maxuefeng
+ */
+public class BulkRejectedException extends Exception {
+
+    public BulkRejectedException(String message) {
+        super(message);
+    }
+
+    public BulkRejectedException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,24 @@
+package io.jopen.bulk;
+
+import java.util.List;
+
+/**
+ * 发送一个bulk请求  由{@link BulkPipeline}的发送线程并发调用，实现必须是线程安全的
+ *
+ * @param <D> 文档类型
+ * @author maxuefeng
+ * @see EsBulkSender
+ */
+@FunctionalInterface
+public interface BulkSender<D> {
+
+    /**
+     * 发送一批文档
+     *
+     * @param batch 文档  不会为空
+     * @return 每批文档的处理结果  被集群拒绝的文档会由{@link BulkPipeline}重试
+     * @throws BulkRejectedException 整个请求被集群拒绝(例如写线程池队列已满)  整批重试
+     * @throws Exception             其他异常  整批重试  超过最大重试次数后计为失败
+     */
+    BulkOutcome send(List<D> batch) throws Exception;
+}
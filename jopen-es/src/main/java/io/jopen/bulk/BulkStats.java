@@ -0,0 +1,97 @@
+package io.jopen.bulk;
+
+/**
+ * 一次{@link BulkPipeline}运行的统计
+ *
+ * @author maxuefeng
+ */
+public final class BulkStats {
+
+    private final long lines;
+
+    private final long skipped;
+
+    private final long batches;
+
+    private final long indexed;
+
+    private final long failed;
+
+    private final long retried;
+
+    private final long elapsedMillis;
+
+    BulkStats(long lines, long skipped, long batches, long indexed, long failed, long retried, long elapsedMillis) {
+        this.lines = lines;
+        this.skipped = skipped;
+        this.batches = batches;
+        this.indexed = indexed;
+        this.failed = failed;
+        this.retried = retried;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return 读取的行数
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return 解析失败或被解析器忽略的行数
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return 发送的批次数(不含重试)
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    /**
+     * @return 最终失败的文档数(不可重试或超过最大重试次数)
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return 重试的文档数  一个文档重试多次时计多次
+     */
+    public long getRetried() {
+        return retried;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return 每秒写入的文档数
+     */
+    public double getDocsPerSecond() {
+        return elapsedMillis == 0 ? indexed : indexed * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkStats{" +
+                "lines=" + lines +
+                ", skipped=" + skipped +
+                ", batches=" + batches +
+                ", indexed=" + indexed +
+                ", failed=" + failed +
+                ", retried=" + retried +
+                ", elapsedMillis=" + elapsedMillis +
+                ", docsPerSecond=" + String.format("%.1f", getDocsPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package io.jopen.bulk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 通过{@link Client}(例如TransportClient)发送bulk请求
+ * <p>
+ * 返回429(TOO_MANY_REQUESTS)的文档视为被拒绝，由{@link BulkPipeline}重试；其他失败的文档不重试
+ *
+ * @param <D> 文档类型
+ * @author maxuefeng
+ */
+public class EsBulkSender<D> implements BulkSender<D> {
+
+    private static final Logger LOGGER = LogManager.getLogger(EsBulkSender.class);
+
+    private final Client client;
+
+    private final Function<? super D, IndexRequest> toRequest;
+
+    /**
+     * @param toRequest 把文档转换成索引请求
+     */
+    public EsBulkSender(Client client, Function<? super D, IndexRequest> toRequest) {
+        this.client = client;
+        this.toRequest = toRequest;
+    }
+
+    /**
+     * 文档是字段Map  使用ES生成的ID写入index
+     */
+    public static EsBulkSender<Map<String, ?>> ofMaps(Client client, String index) {
+        return new EsBulkSender<>(client, document -> new IndexRequest(index).source(document));
+    }
+
+    @Override
+    public BulkOutcome send(List<D> batch) throws Exception {
+        BulkRequestBuilder request = client.prepareBulk();
+        for (D document : batch) {
+            request.add(toRequest.apply(document));
+        }
+        BulkResponse response;
+        try {
+            response = request.get();
+        } catch (Exception e) {
+            if (ExceptionsHelper.status(e) == RestStatus.TOO_MANY_REQUESTS) {
+                throw new BulkRejectedException(e);
+            }
+            throw e;
+        }
+        if (!response.hasFailures()) {
+            return BulkOutcome.success();
+        }
+        BulkItemResponse[] items = response.getItems();
+        int[] rejected = new int[items.length];
+        int rejectedCount = 0;
+        int failed = 0;
+        for (BulkItemResponse item : items) {
+            if (!item.isFailed()) {
+                continue;
+            }
+            if (item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                rejected[rejectedCount++] = item.getItemId();
+            } else {
+                if (failed == 0) {
+                    LOGGER.warn("bulk item failed: {}", item.getFailureMessage());
+                }
+                failed++;
+            }
+        }
+        int[] retry = new int[rejectedCount];
+        System.arraycopy(rejected, 0, retry, 0, rejectedCount);
+        return new BulkOutcome(retry, failed);
+    }
+}
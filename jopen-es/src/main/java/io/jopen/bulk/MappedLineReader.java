@@ -0,0 +1,143 @@
+package io.jopen.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 通过内存映射按行读取UTF-8文本文件
+ * <p>
+ * 文件按窗口(默认64MB)映射，每个窗口截止到最后一个换行符，下一个窗口从该位置继续；
+ * 单行超过窗口大小时窗口自动扩大。支持\n和\r\n换行，文件大小不受2GB的限制
+ *
+ * @author maxuefeng
+ */
+public final class MappedLineReader implements Iterator<String>, Closeable {
+
+    private static final int DEFAULT_WINDOW = 64 << 20;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    /**
+     * 窗口中有效的字节数  最后一个有效字节是换行符或文件末尾
+     */
+    private int windowLimit;
+
+    /**
+     * 下一行在文件中的位置
+     */
+    private long position;
+
+    private byte[] scratch = new byte[256];
+
+    private String next;
+
+    public MappedLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    public MappedLineReader(Path file, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = next;
+        next = null;
+        return line;
+    }
+
+    /**
+     * @return 下一行(不含换行符)  没有更多的行时返回null
+     */
+    public String readLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        if (window == null || position >= windowStart + windowLimit) {
+            map(windowSize);
+        }
+        int offset = (int) (position - windowStart);
+        int end = offset;
+        while (end < windowLimit && window.get(end) != '\n') {
+            end++;
+        }
+        position = windowStart + end + 1;
+        int length = end - offset;
+        if (length > 0 && window.get(end - 1) == '\r') {
+            length--;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.position(offset);
+        window.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 从position开始映射一个窗口  窗口截止到最后一个完整的行
+     */
+    private void map(int length) throws IOException {
+        for (; ; ) {
+            int mapped = (int) Math.min(length, size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+            windowStart = position;
+            if (position + mapped == size) {
+                windowLimit = mapped;
+                return;
+            }
+            for (int i = mapped - 1; i >= 0; i--) {
+                if (window.get(i) == '\n') {
+                    windowLimit = i + 1;
+                    return;
+                }
+            }
+            if (length > Integer.MAX_VALUE / 2) {
+                throw new IOException("line at offset " + position + " is longer than " + length + " bytes");
+            }
+            length *= 2;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
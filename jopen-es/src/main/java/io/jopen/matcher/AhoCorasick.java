@@ -0,0 +1,289 @@
+package io.jopen.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick多模式匹配自动机  一次扫描文本找出所有关键词的所有命中(包括重叠的命中)
+ * <p>
+ * 构建后不可变，可以被多个线程同时使用。状态转移按字符(UTF-16)进行：
+ * 根状态使用65536项的直接索引表，其余状态的子节点按字符排序后二分查找
+ *
+ * @param <V> 关键词附带的值
+ * @author maxuefeng
+ * @see KeywordIndex
+ */
+public final class AhoCorasick<V> {
+
+    /**
+     * 命中回调
+     */
+    @FunctionalInterface
+    public interface HitConsumer<V> {
+        /**
+         * @param start   命中的起始位置(包含)
+         * @param end     命中的结束位置(不包含)
+         * @param keyword 关键词
+         * @param value   关键词附带的值
+         */
+        void accept(int start, int end, String keyword, V value);
+    }
+
+    private final boolean ignoreCase;
+
+    private final String[] keywords;
+
+    private final Object[] values;
+
+    /**
+     * 根状态的转移表
+     */
+    private final int[] rootNext;
+
+    /**
+     * 状态s的子节点为childChar/childState中[childStart[s], childStart[s + 1])的部分  按字符排序
+     */
+    private final int[] childStart;
+
+    private final char[] childChar;
+
+    private final int[] childState;
+
+    private final int[] fail;
+
+    /**
+     * 以该状态结尾的关键词下标  没有时为-1
+     */
+    private final int[] output;
+
+    /**
+     * 失败链上最近的有输出的状态  没有时为-1
+     */
+    private final int[] dictLink;
+
+    private AhoCorasick(boolean ignoreCase, String[] keywords, Object[] values, int[] rootNext, int[] childStart,
+                        char[] childChar, int[] childState, int[] fail, int[] output, int[] dictLink) {
+        this.ignoreCase = ignoreCase;
+        this.keywords = keywords;
+        this.values = values;
+        this.rootNext = rootNext;
+        this.childStart = childStart;
+        this.childChar = childChar;
+        this.childState = childState;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+    }
+
+    /**
+     * @param dictionary 关键词到值的映射  空关键词被忽略
+     * @param ignoreCase 是否忽略大小写
+     * @throws IllegalArgumentException 关键词为null
+     */
+    public static <V> AhoCorasick<V> build(Map<String, ? extends V> dictionary, boolean ignoreCase) {
+        int capacity = 1;
+        for (String keyword : dictionary.keySet()) {
+            if (keyword == null) {
+                throw new IllegalArgumentException("keyword must not be null");
+            }
+            capacity += keyword.length();
+        }
+        // 1. 构建trie  边保存在 (父状态 << 16 | 字符) -> 子状态 的映射中
+        Map<Long, Integer> edges = new HashMap<>(Math.max(16, capacity * 4 / 3));
+        int[] parent = new int[capacity];
+        char[] label = new char[capacity];
+        int[] output = new int[capacity];
+        Arrays.fill(output, -1);
+        String[] keywords = new String[dictionary.size()];
+        Object[] values = new Object[dictionary.size()];
+        int states = 1;
+        int keywordCount = 0;
+        for (Map.Entry<String, ? extends V> entry : dictionary.entrySet()) {
+            String keyword = entry.getKey();
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = normalize(keyword.charAt(i), ignoreCase);
+                Long key = ((long) state << 16) | c;
+                Integer next = edges.get(key);
+                if (next == null) {
+                    next = states++;
+                    edges.put(key, next);
+                    parent[next] = state;
+                    label[next] = c;
+                }
+                state = next;
+            }
+            // 忽略大小写时不同写法的关键词落到同一个状态  后出现的覆盖先出现的
+            int index = output[state] >= 0 ? output[state] : keywordCount++;
+            output[state] = index;
+            keywords[index] = keyword;
+            values[index] = entry.getValue();
+        }
+
+        // 2. 按父状态分组子节点(CSR)  组内按字符排序
+        int[] childStart = new int[states + 1];
+        for (int s = 1; s < states; s++) {
+            childStart[parent[s] + 1]++;
+        }
+        for (int s = 0; s < states; s++) {
+            childStart[s + 1] += childStart[s];
+        }
+        int[] fill = Arrays.copyOf(childStart, states);
+        int[] children = new int[Math.max(0, states - 1)];
+        for (int s = 1; s < states; s++) {
+            children[fill[parent[s]]++] = s;
+        }
+        char[] childChar = new char[children.length];
+        int[] childState = new int[children.length];
+        for (int s = 0; s < states; s++) {
+            int from = childStart[s];
+            int to = childStart[s + 1];
+            sortByLabel(children, from, to, label);
+            for (int i = from; i < to; i++) {
+                childChar[i] = label[children[i]];
+                childState[i] = children[i];
+            }
+        }
+        int[] rootNext = new int[Character.MAX_VALUE + 1];
+        for (int i = childStart[0]; i < childStart[1]; i++) {
+            rootNext[childChar[i]] = childState[i];
+        }
+
+        // 3. 按BFS顺序计算失败链接和输出链接
+        int[] fail = new int[states];
+        int[] dictLink = new int[states];
+        dictLink[0] = -1;
+        AhoCorasick<V> partial = new AhoCorasick<>(ignoreCase, null, null, rootNext, childStart, childChar, childState,
+                fail, output, dictLink);
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int i = childStart[0]; i < childStart[1]; i++) {
+            int child = childState[i];
+            fail[child] = 0;
+            dictLink[child] = -1;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int i = childStart[state]; i < childStart[state + 1]; i++) {
+                int child = childState[i];
+                int f = partial.next(fail[state], childChar[i]);
+                fail[child] = f;
+                dictLink[child] = output[f] >= 0 ? f : dictLink[f];
+                queue[tail++] = child;
+            }
+        }
+        return new AhoCorasick<>(ignoreCase, Arrays.copyOf(keywords, keywordCount), Arrays.copyOf(values, keywordCount),
+                rootNext, childStart, childChar, childState, fail, Arrays.copyOf(output, states), dictLink);
+    }
+
+    /**
+     * @return 关键词数量
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * 按结束位置的顺序回调所有命中  同一位置结束的命中按关键词从长到短回调
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachMatch(CharSequence text, HitConsumer<? super V> consumer) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = next(state, normalize(text.charAt(i), ignoreCase));
+            for (int s = output[state] >= 0 ? state : dictLink[state]; s >= 0; s = dictLink[s]) {
+                int index = output[s];
+                String keyword = keywords[index];
+                consumer.accept(i + 1 - keyword.length(), i + 1, keyword, (V) values[index]);
+            }
+        }
+    }
+
+    /**
+     * @return 所有命中  包括重叠的命中
+     */
+    public List<KeywordHit<V>> findAll(CharSequence text) {
+        List<KeywordHit<V>> hits = new ArrayList<>();
+        forEachMatch(text, (start, end, keyword, value) -> hits.add(new KeywordHit<>(keyword, value, start, end)));
+        return hits;
+    }
+
+    /**
+     * @return 文本中是否包含任意一个关键词  遇到第一个命中即返回
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = next(state, normalize(text.charAt(i), ignoreCase));
+            if (output[state] >= 0 || dictLink[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int next(int state, char c) {
+        for (; ; ) {
+            if (state == 0) {
+                return rootNext[c];
+            }
+            int low = childStart[state];
+            int high = childStart[state + 1] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char m = childChar[mid];
+                if (m < c) {
+                    low = mid + 1;
+                } else if (m > c) {
+                    high = mid - 1;
+                } else {
+                    return childState[mid];
+                }
+            }
+            state = fail[state];
+        }
+    }
+
+    private static char normalize(char c, boolean ignoreCase) {
+        return ignoreCase ? Character.toLowerCase(c) : c;
+    }
+
+    /**
+     * 子节点较少时插入排序  较多时(例如根状态)按 (字符 &lt;&lt; 32 | 状态) 排序
+     */
+    private static void sortByLabel(int[] nodes, int from, int to, char[] label) {
+        if (to - from > 16) {
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = ((long) label[nodes[i]] << 32) | nodes[i];
+            }
+            Arrays.sort(keys);
+            for (int i = from; i < to; i++) {
+                nodes[i] = (int) keys[i - from];
+            }
+            return;
+        }
+        for (int i = from + 1; i < to; i++) {
+            int node = nodes[i];
+            char c = label[node];
+            int j = i - 1;
+            while (j >= from && label[nodes[j]] > c) {
+                nodes[j + 1] = nodes[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+        }
+    }
+}
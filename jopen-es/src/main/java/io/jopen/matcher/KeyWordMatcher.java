@@ -1,34 +1,65 @@
 package io.jopen.matcher;
 
 import com.google.common.collect.ImmutableBiMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * 封装此类 方便Python调用
+ * <p>
+ * 关键词匹配优先在本地进行：{@link #refreshKeywords(String, String, String)}把索引中的关键词增量同步到
+ * 本地的{@link KeywordIndex}(Aho-Corasick自动机)，{@link #match(String)}一次扫描文本找出所有命中的关键词，
+ * 不访问ES；只有本地没有命中时{@link #matchOrSearch(String, String)}才通过ES做模糊匹配
  *
  * @author maxuefeng
  * @since 2019/11/28
  */
 public final class KeyWordMatcher {
+
+    private static final Logger LOGGER = LogManager.getLogger(KeyWordMatcher.class);
+
+    private static final int SCROLL_SIZE = 1000;
+
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
     private Settings settings;
     private TransportClient client;
 
+    private final KeywordIndex<Map<String, Object>> keywords = new KeywordIndex<>(true);
+
+    /**
+     * 已同步到本地的关键词文档中updatedField的最大值  null表示还没有同步过
+     */
+    private Long refreshedUpTo;
+
     public KeyWordMatcher(String clusterName, String[] nodeNames, Map<String, Integer> ipAndPorts) throws UnknownHostException {
 
         Settings.Builder builder = Settings.builder();
@@ -53,10 +84,164 @@ public final class KeyWordMatcher {
      */
     public int insertItem(String indices, String type, String _id, String json_source) {
         IndexResponse response = client.prepareIndex(indices, type, _id).setSource(json_source, XContentType.JSON).get();
-        System.err.println(response);
+        LOGGER.debug("{}", response);
         return response.status().getStatus();
     }
 
+    /**
+     * 用一个bulk请求写入多个文档
+     *
+     * @param indices      索引
+     * @param type         所属类型
+     * @param json_sources id到json键值对的映射
+     * @return 写入失败的文档数
+     */
+    public int insertItems(String indices, String type, Map<String, String> json_sources) {
+        if (json_sources.isEmpty()) {
+            return 0;
+        }
+        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        for (Map.Entry<String, String> entry : json_sources.entrySet()) {
+            bulkRequest.add(client.prepareIndex(indices, type, entry.getKey()).setSource(entry.getValue(), XContentType.JSON));
+        }
+        BulkResponse response = bulkRequest.get();
+        if (!response.hasFailures()) {
+            return 0;
+        }
+        LOGGER.warn("bulk insert into {} has failures: {}", indices, response.buildFailureMessage());
+        return (int) Arrays.stream(response.getItems()).filter(BulkItemResponse::isFailed).count();
+    }
+
+    /**
+     * 从索引同步关键词到本地词典
+     * <p>
+     * 第一次调用时读取全部文档，之后只读取updatedField不小于上次同步到的值的文档。
+     * 读到的文档都没有数值类型的updatedField时无法增量同步，下次调用仍然读取全部文档并记录警告。
+     * 增量同步无法发现被删除的文档，需要时调用{@link #reloadKeywords(String, String)}全量重建
+     *
+     * @param indices      关键词所在的索引
+     * @param keywordField 关键词字段
+     * @param updatedField 文档的更新时间字段(数值  例如毫秒时间截)
+     * @return 本次读取的文档数
+     */
+    public synchronized int refreshKeywords(String indices, String keywordField, String updatedField) {
+        QueryBuilder query = refreshedUpTo == null
+                ? QueryBuilders.matchAllQuery()
+                : QueryBuilders.rangeQuery(updatedField).gte(refreshedUpTo);
+        Map<String, Map<String, Object>> upserts = new HashMap<>();
+        long[] upTo = {refreshedUpTo == null ? Long.MIN_VALUE : refreshedUpTo};
+        // 没有数值类型updatedField的文档数
+        int[] unversioned = {0};
+        int read = scroll(indices, query, hit -> {
+            Map<String, Object> source = hit.getSourceAsMap();
+            Object keyword = source.get(keywordField);
+            if (keyword != null) {
+                upserts.put(keyword.toString(), source);
+            }
+            Object updated = source.get(updatedField);
+            if (updated instanceof Number) {
+                upTo[0] = Math.max(upTo[0], ((Number) updated).longValue());
+            } else {
+                unversioned[0]++;
+            }
+        });
+        keywords.apply(upserts, Collections.emptyList());
+        if (upTo[0] != Long.MIN_VALUE) {
+            refreshedUpTo = upTo[0];
+        } else if (read > 0) {
+            LOGGER.warn("no numeric {} in {}, incremental refresh disabled, every refresh reads all documents", updatedField, indices);
+        }
+        if (unversioned[0] > 0 && upTo[0] != Long.MIN_VALUE) {
+            LOGGER.warn("{} keyword documents in {} have no numeric {}, their changes are only seen by reloadKeywords",
+                    unversioned[0], indices, updatedField);
+        }
+        LOGGER.info("refreshed {} keyword documents from {}, dictionary size {}", read, indices, keywords.size());
+        return read;
+    }
+
+    /**
+     * 全量重建本地词典  会移除索引中已删除的关键词
+     *
+     * @return 词典中的关键词数
+     */
+    public synchronized int reloadKeywords(String indices, String keywordField) {
+        Map<String, Map<String, Object>> dictionary = new HashMap<>();
+        scroll(indices, QueryBuilders.matchAllQuery(), hit -> {
+            Map<String, Object> source = hit.getSourceAsMap();
+            Object keyword = source.get(keywordField);
+            if (keyword != null) {
+                dictionary.put(keyword.toString(), source);
+            }
+        });
+        keywords.reset(dictionary);
+        refreshedUpTo = null;
+        return keywords.size();
+    }
+
+    /**
+     * 在本地词典中匹配  一次扫描文本找出所有命中(包括重叠的命中)  不访问ES
+     */
+    public List<KeywordHit<Map<String, Object>>> match(String text) {
+        return keywords.match(text);
+    }
+
+    /**
+     * 先在本地词典中匹配  没有命中时通过ES模糊匹配
+     * <p>
+     * 本地命中的score为关键词长度占文本长度的比例
+     */
+    public List<SearchResult> matchOrSearch(String indices, String text) {
+        List<KeywordHit<Map<String, Object>>> hits = keywords.match(text);
+        if (hits.isEmpty()) {
+            return fuzzySearch(indices, text);
+        }
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        for (KeywordHit<Map<String, Object>> hit : hits) {
+            results.add(new SearchResult(hit.getValue(), (float) hit.getKeyword().length() / text.length()));
+        }
+        return results;
+    }
+
+    /**
+     * 通过ES对name字段做模糊匹配
+     */
+    public List<SearchResult> fuzzySearch(String indices, String text) {
+        SearchResponse response = client.prepareSearch(indices)
+                .setQuery(QueryBuilders.matchQuery("name", text).fuzziness(Fuzziness.AUTO))
+                .setFrom(0).setSize(10)
+                .get();
+        List<SearchResult> searchResultList = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            searchResultList.add(new SearchResult(hit.getSourceAsMap(), hit.getScore()));
+        }
+        return searchResultList;
+    }
+
+    private int scroll(String indices, QueryBuilder query, Consumer<SearchHit> consumer) {
+        SearchResponse response = client.prepareSearch(indices)
+                .setQuery(query)
+                .setScroll(SCROLL_KEEP_ALIVE)
+                .setSize(SCROLL_SIZE)
+                .get();
+        String scrollId = response.getScrollId();
+        int read = 0;
+        try {
+            SearchHit[] hits = response.getHits().getHits();
+            while (hits.length > 0) {
+                for (SearchHit hit : hits) {
+                    consumer.accept(hit);
+                }
+                read += hits.length;
+                response = client.prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).get();
+                scrollId = response.getScrollId();
+                hits = response.getHits().getHits();
+            }
+        } finally {
+            client.prepareClearScroll().addScrollId(scrollId).get();
+        }
+        return read;
+    }
+
     public List<SearchResult> search(String indices, String keyword) {
 
         SearchResponse response = client.prepareSearch(indices)
@@ -84,13 +269,13 @@ public final class KeyWordMatcher {
                 })
                 .limit(3)
                 .collect(Collectors.toList());
-        System.err.println(ret);
+        LOGGER.debug("top results: {}", ret);
         return searchResultList;
     }
 
     public void deleteIndex(String indices) {
         DeleteResponse response = client.prepareDelete().get();
-        System.err.println(response);
+        LOGGER.debug("{}", response);
     }
 
     public static void main(String[] args) throws UnknownHostException, SQLException {
@@ -0,0 +1,58 @@
+package io.jopen.matcher;
+
+/**
+ * 文本中的一个关键词命中
+ *
+ * @param <V> 关键词附带的值
+ * @author maxuefeng
+ * @see AhoCorasick
+ */
+public final class KeywordHit<V> {
+
+    private final String keyword;
+
+    private final V value;
+
+    private final int start;
+
+    private final int end;
+
+    KeywordHit(String keyword, V value, int start, int end) {
+        this.keyword = keyword;
+        this.value = value;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * @return 命中在文本中的起始位置(包含)
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return 命中在文本中的结束位置(不包含)
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return "KeywordHit{" +
+                "keyword='" + keyword + '\'' +
+                ", value=" + value +
+                ", start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package io.jopen.matcher;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 可增量刷新的本地关键词词典
+ * <p>
+ * 词典的修改串行进行，每次修改后重新构建{@link AhoCorasick}自动机并整体替换；
+ * 匹配读取的是volatile的自动机快照，不加锁，也不会看到构建到一半的自动机
+ *
+ * @param <V> 关键词附带的值
+ * @author maxuefeng
+ */
+public final class KeywordIndex<V> {
+
+    private final boolean ignoreCase;
+
+    private final Map<String, V> dictionary = new HashMap<>();
+
+    private volatile AhoCorasick<V> automaton;
+
+    public KeywordIndex(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.automaton = AhoCorasick.build(Collections.emptyMap(), ignoreCase);
+    }
+
+    /**
+     * 增量更新词典
+     *
+     * @param upserts  新增或修改的关键词
+     * @param removals 删除的关键词
+     * @return 词典是否发生了变化
+     */
+    public synchronized boolean apply(Map<String, ? extends V> upserts, Collection<String> removals) {
+        boolean changed = false;
+        for (Map.Entry<String, ? extends V> entry : upserts.entrySet()) {
+            if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                continue;
+            }
+            boolean existed = dictionary.containsKey(entry.getKey());
+            V previous = dictionary.put(entry.getKey(), entry.getValue());
+            changed |= !existed || !Objects.equals(previous, entry.getValue());
+        }
+        for (String keyword : removals) {
+            if (dictionary.containsKey(keyword)) {
+                dictionary.remove(keyword);
+                changed = true;
+            }
+        }
+        if (changed) {
+            automaton = AhoCorasick.build(dictionary, ignoreCase);
+        }
+        return changed;
+    }
+
+    /**
+     * 用dictionary替换整个词典
+     */
+    public synchronized void reset(Map<String, ? extends V> dictionary) {
+        this.dictionary.clear();
+        for (Map.Entry<String, ? extends V> entry : dictionary.entrySet()) {
+            if (entry.getKey() != null && !entry.getKey().isEmpty()) {
+                this.dictionary.put(entry.getKey(), entry.getValue());
+            }
+        }
+        automaton = AhoCorasick.build(this.dictionary, ignoreCase);
+    }
+
+    /**
+     * @return 当前的自动机  不会再被修改
+     */
+    public AhoCorasick<V> snapshot() {
+        return automaton;
+    }
+
+    public int size() {
+        return automaton.size();
+    }
+
+    public List<KeywordHit<V>> match(CharSequence text) {
+        return automaton.findAll(text);
+    }
+
+    public boolean containsAny(CharSequence text) {
+        return automaton.containsAny(text);
+    }
+}
@@ -0,0 +1,168 @@
+package io.jopen.util;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按列标签把一行映射到JavaBean
+ * <p>
+ * 列与setter的对应关系在第一次遇到某次查询的{@link Columns}时解析一次，之后每行只做数组下标访问；
+ * 没有对应属性的列被忽略
+ *
+ * @param <T> bean类型  需要public无参构造方法
+ * @author maxuefeng
+ * @see RowMapper#bean(Class)
+ */
+final class BeanRowMapper<T> implements RowMapper<T> {
+
+    private final Class<T> type;
+
+    private final Constructor<T> constructor;
+
+    /**
+     * 属性名(小写  去掉下划线) -&gt; setter
+     */
+    private final Map<String, Method> setters = new HashMap<>();
+
+    /**
+     * 最近一次查询的列与setter的对应关系  同一个mapper可能被多个查询并发使用
+     */
+    private volatile Binding binding;
+
+    BeanRowMapper(Class<T> type) {
+        this.type = type;
+        try {
+            BeanInfo info = Introspector.getBeanInfo(type, Object.class);
+            for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+                Method setter = descriptor.getWriteMethod();
+                if (setter != null) {
+                    setters.put(normalize(descriptor.getName()), setter);
+                }
+            }
+            constructor = type.getConstructor();
+        } catch (IntrospectionException | NoSuchMethodException e) {
+            throw new IllegalArgumentException(type + " is not a JavaBean with a public no-arg constructor", e);
+        }
+    }
+
+    @Override
+    public T map(ResultSet resultSet, Columns columns) throws SQLException {
+        Binding current = binding;
+        if (current == null || current.columns != columns) {
+            current = bind(columns);
+            binding = current;
+        }
+        T bean;
+        try {
+            bean = constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new SQLException("cannot instantiate " + type, e);
+        }
+        Method[] methods = current.setters;
+        for (int i = 0; i < methods.length; i++) {
+            Method setter = methods[i];
+            if (setter == null) {
+                continue;
+            }
+            Object value = convert(resultSet.getObject(i + 1), setter.getParameterTypes()[0]);
+            if (value == null && setter.getParameterTypes()[0].isPrimitive()) {
+                continue;
+            }
+            try {
+                setter.invoke(bean, value);
+            } catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException e) {
+                throw new SQLException("cannot set column " + columns.label(i) + " on " + type.getName(), e);
+            }
+        }
+        return bean;
+    }
+
+    private Binding bind(Columns columns) {
+        Method[] methods = new Method[columns.size()];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = setters.get(normalize(columns.label(i)));
+        }
+        return new Binding(columns, methods);
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 驱动返回的类型与属性类型不一致时的常见转换  例如BIGINT UNSIGNED返回BigInteger、TINYINT返回Integer
+     */
+    static Object convert(Object value, Class<?> target) {
+        if (value == null || target.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (target == long.class || target == Long.class) {
+                return number.longValue();
+            }
+            if (target == int.class || target == Integer.class) {
+                return number.intValue();
+            }
+            if (target == double.class || target == Double.class) {
+                return number.doubleValue();
+            }
+            if (target == float.class || target == Float.class) {
+                return number.floatValue();
+            }
+            if (target == short.class || target == Short.class) {
+                return number.shortValue();
+            }
+            if (target == byte.class || target == Byte.class) {
+                return number.byteValue();
+            }
+            if (target == boolean.class || target == Boolean.class) {
+                return number.intValue() != 0;
+            }
+            if (target == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+            if (target == BigInteger.class) {
+                return new BigDecimal(number.toString()).toBigInteger();
+            }
+        }
+        if (value instanceof Boolean && (target == boolean.class)) {
+            return value;
+        }
+        if (value instanceof Timestamp && target == java.time.LocalDateTime.class) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date && target == java.time.LocalDate.class) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        if (target == String.class) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static final class Binding {
+
+        private final Columns columns;
+
+        private final Method[] setters;
+
+        Binding(Columns columns, Method[] setters) {
+            this.columns = columns;
+            this.setters = setters;
+        }
+    }
+}
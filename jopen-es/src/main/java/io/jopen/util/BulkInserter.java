@@ -0,0 +1,339 @@
+package io.jopen.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分块并行的批量插入
+ * <p>
+ * 输入按chunkSize切分成子批次，每个子批次在连接池的一个连接上独立提交：
+ * 子批次内部被改写成多行VALUES语句({@code INSERT INTO t (a, b) VALUES (?, ?), (?, ?), ...})，
+ * 每条语句最多rowsPerStatement行。某个子批次失败只回滚该子批次，失败信息记录在{@link Result}中，其余子批次不受影响。
+ * <p>
+ * 同时在途的子批次最多为parallelism * 2个，输入是{@link Iterable}时按需读取，内存占用与输入总量无关
+ *
+ * @author maxuefeng
+ * @see JDBCUtils#bulkInsert(String, Iterable, int, int)
+ */
+public class BulkInserter {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkInserter.class);
+
+    /**
+     * MySQL单条语句最多65535个占位符
+     */
+    private static final int MAX_PLACEHOLDERS = 65535;
+
+    /**
+     * 获取连接  连接用完后会被close(归还连接池)
+     */
+    @FunctionalInterface
+    interface ConnectionSource {
+        Connection getConnection() throws SQLException;
+    }
+
+    private final String tableName;
+
+    private final int chunkSize;
+
+    private final int rowsPerStatement;
+
+    private final int parallelism;
+
+    private final ConnectionSource connections;
+
+    /**
+     * @param tableName        表名
+     * @param chunkSize        每个子批次(事务)的行数
+     * @param rowsPerStatement 每条多行VALUES语句的行数
+     * @param parallelism      并行的连接数
+     */
+    public BulkInserter(String tableName, int chunkSize, int rowsPerStatement, int parallelism) {
+        this(tableName, chunkSize, rowsPerStatement, parallelism, () -> DBConnectionPool.getInstance().getConnection());
+    }
+
+    BulkInserter(String tableName, int chunkSize, int rowsPerStatement, int parallelism, ConnectionSource connections) {
+        if (chunkSize < 1 || rowsPerStatement < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize, rowsPerStatement and parallelism must be positive");
+        }
+        this.tableName = tableName;
+        this.chunkSize = chunkSize;
+        this.rowsPerStatement = Math.min(rowsPerStatement, chunkSize);
+        this.parallelism = parallelism;
+        this.connections = connections;
+    }
+
+    /**
+     * 插入所有行  列取自第一行的键  后续行缺少的列插入null
+     *
+     * @return 插入结果  包含每个失败子批次的信息
+     */
+    public Result insert(Iterable<? extends Map<String, Object>> rows) throws InterruptedException {
+        Iterator<? extends Map<String, Object>> iterator = rows.iterator();
+        long start = System.nanoTime();
+        if (!iterator.hasNext()) {
+            return new Result(0, 0, 0, Collections.emptyList(), 0);
+        }
+        Map<String, Object> first = iterator.next();
+        String[] columns = first.keySet().toArray(new String[0]);
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("rows must have at least one column");
+        }
+        int statementRows = Math.max(1, Math.min(rowsPerStatement, MAX_PLACEHOLDERS / columns.length));
+
+        AtomicLong inserted = new AtomicLong();
+        List<ChunkFailure> failures = Collections.synchronizedList(new ArrayList<>());
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        AtomicInteger chunkCount = new AtomicInteger();
+        long total = 0;
+        try {
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            chunk.add(values(first, columns));
+            total++;
+            while (true) {
+                boolean more = iterator.hasNext();
+                if (more) {
+                    chunk.add(values(iterator.next(), columns));
+                    total++;
+                }
+                if (chunk.size() == chunkSize || (!more && !chunk.isEmpty())) {
+                    int chunkIndex = chunkCount.getAndIncrement();
+                    long firstRow = total - chunk.size();
+                    List<Object[]> submitted = chunk;
+                    inFlight.acquire();
+                    executor.execute(() -> {
+                        try {
+                            inserted.addAndGet(insertChunk(columns, submitted, statementRows));
+                        } catch (SQLException | RuntimeException e) {
+                            LOGGER.warn("bulk insert into " + tableName + " failed for chunk " + chunkIndex, e);
+                            failures.add(new ChunkFailure(chunkIndex, firstRow, submitted.size(), e));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                    chunk = new ArrayList<>(chunkSize);
+                }
+                if (!more) {
+                    break;
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        List<ChunkFailure> sorted = new ArrayList<>(failures);
+        sorted.sort((a, b) -> Integer.compare(a.getChunkIndex(), b.getChunkIndex()));
+        return new Result(total, inserted.get(), chunkCount.get(), sorted, System.nanoTime() - start);
+    }
+
+    /**
+     * 在一个事务中插入一个子批次
+     *
+     * @return 影响的行数
+     */
+    private int insertChunk(String[] columns, List<Object[]> rows, int statementRows) throws SQLException {
+        try (Connection connection = connections.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int affected = insertRows(connection, tableName, columns, rows, statementRows);
+                connection.commit();
+                return affected;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 用多行VALUES语句插入rows  不提交事务
+     *
+     * @return 影响的行数
+     */
+    static int insertRows(Connection connection, String tableName, String[] columns, List<Object[]> rows,
+                          int statementRows) throws SQLException {
+        int affected = 0;
+        int fullStatements = rows.size() / statementRows;
+        if (fullStatements > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(tableName, columns, statementRows))) {
+                for (int s = 0; s < fullStatements; s++) {
+                    bind(statement, rows, s * statementRows, statementRows, columns.length);
+                    affected += statement.executeUpdate();
+                }
+            }
+        }
+        int remaining = rows.size() - fullStatements * statementRows;
+        if (remaining > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(tableName, columns, remaining))) {
+                bind(statement, rows, fullStatements * statementRows, remaining, columns.length);
+                affected += statement.executeUpdate();
+            }
+        }
+        return affected;
+    }
+
+    static String insertSql(String tableName, String[] columns, int rowCount) {
+        StringBuilder row = new StringBuilder(columns.length * 2 + 2).append('(');
+        for (int i = 0; i < columns.length; i++) {
+            row.append(i == 0 ? "?" : ",?");
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder(64 + rowCount * (row.length() + 1));
+        sql.append("INSERT INTO ").append(tableName).append(" (").append(String.join(",", columns)).append(") VALUES ");
+        for (int r = 0; r < rowCount; r++) {
+            if (r > 0) {
+                sql.append(',');
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    static Object[] values(Map<String, Object> row, String[] columns) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = row.get(columns[i]);
+        }
+        return values;
+    }
+
+    private static void bind(PreparedStatement statement, List<Object[]> rows, int from, int count, int columnCount)
+            throws SQLException {
+        int parameter = 1;
+        for (int r = from; r < from + count; r++) {
+            Object[] values = rows.get(r);
+            for (int c = 0; c < columnCount; c++) {
+                statement.setObject(parameter++, values[c]);
+            }
+        }
+    }
+
+    /**
+     * 一个失败的子批次  该子批次的所有行都没有写入
+     */
+    public static final class ChunkFailure {
+
+        private final int chunkIndex;
+
+        private final long firstRow;
+
+        private final int rowCount;
+
+        private final Exception cause;
+
+        ChunkFailure(int chunkIndex, long firstRow, int rowCount, Exception cause) {
+            this.chunkIndex = chunkIndex;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.cause = cause;
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        /**
+         * @return 该子批次第一行在输入中的位置(从0开始)
+         */
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkFailure{" +
+                    "chunkIndex=" + chunkIndex +
+                    ", firstRow=" + firstRow +
+                    ", rowCount=" + rowCount +
+                    ", cause=" + cause +
+                    '}';
+        }
+    }
+
+    /**
+     * 批量插入的结果
+     */
+    public static final class Result {
+
+        private final long totalRows;
+
+        private final long insertedRows;
+
+        private final int chunks;
+
+        private final List<ChunkFailure> failures;
+
+        private final long elapsedNanos;
+
+        Result(long totalRows, long insertedRows, int chunks, List<ChunkFailure> failures, long elapsedNanos) {
+            this.totalRows = totalRows;
+            this.insertedRows = insertedRows;
+            this.chunks = chunks;
+            this.failures = Collections.unmodifiableList(failures);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+        public long getTotalRows() {
+            return totalRows;
+        }
+
+        public long getInsertedRows() {
+            return insertedRows;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public List<ChunkFailure> getFailures() {
+            return failures;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "totalRows=" + totalRows +
+                    ", insertedRows=" + insertedRows +
+                    ", chunks=" + chunks +
+                    ", failures=" + failures.size() +
+                    ", elapsedMillis=" + getElapsedMillis() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.jopen.util;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 一次查询的列信息  在打开结果集时从{@link ResultSetMetaData}解析一次  之后所有行共享
+ *
+ * @author maxuefeng
+ * @see Row
+ * @see QueryCursor
+ */
+public final class Columns {
+
+    private final String[] labels;
+
+    private final int[] sqlTypes;
+
+    /**
+     * 列标签(小写) -&gt; 下标(从0开始)  同名列取第一个
+     */
+    private final Map<String, Integer> indexes;
+
+    private Columns(String[] labels, int[] sqlTypes) {
+        this.labels = labels;
+        this.sqlTypes = sqlTypes;
+        this.indexes = new HashMap<>(labels.length * 2);
+        for (int i = 0; i < labels.length; i++) {
+            indexes.putIfAbsent(labels[i].toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    static Columns of(ResultSetMetaData metaData) throws SQLException {
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        int[] sqlTypes = new int[count];
+        for (int i = 0; i < count; i++) {
+            // 使用label  带别名(AS)的列返回别名
+            labels[i] = metaData.getColumnLabel(i + 1);
+            sqlTypes[i] = metaData.getColumnType(i + 1);
+        }
+        return new Columns(labels, sqlTypes);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * @param index 从0开始
+     */
+    public String label(int index) {
+        return labels[index];
+    }
+
+    /**
+     * @param index 从0开始
+     * @return {@link java.sql.Types}中的类型
+     */
+    public int sqlType(int index) {
+        return sqlTypes[index];
+    }
+
+    /**
+     * @param label 列标签  不区分大小写
+     * @return 从0开始的下标  不存在时返回-1
+     */
+    public int indexOf(String label) {
+        Integer index = indexes.get(label.toLowerCase(Locale.ROOT));
+        return index == null ? -1 : index;
+    }
+
+    public List<String> labels() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(labels);
+    }
+}
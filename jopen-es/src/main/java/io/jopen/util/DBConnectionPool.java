@@ -2,6 +2,8 @@ package io.jopen.util;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 import com.mchange.v2.c3p0.DataSources;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.beans.PropertyVetoException;
 import java.io.IOException;
@@ -9,25 +11,78 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * 基于c3p0的数据库连接池
+ * <p>
+ * 获取连接时不持有任何全局锁，并发获取直接交给c3p0的连接池处理；
+ * 等待超过checkoutTimeout后抛出{@link SQLException}。连接池状态通过{@link #getMetrics()}获取
+ * <p>
+ * mysql.properties中可配置的连接池参数(均有默认值):
+ * <ul>
+ *     <li>mysql.pool.jdbc.initialPoolSize / minPoolSize / maxPoolSize / acquireIncrement</li>
+ *     <li>mysql.pool.jdbc.checkoutTimeout  获取连接的超时时间(毫秒)  0表示一直等待</li>
+ *     <li>mysql.pool.jdbc.validation  借出连接时的校验策略  见{@link Validation}</li>
+ * </ul>
+ *
  * @author maxuefeng
  * @since 2019/11/26
  */
 public class DBConnectionPool {
 
+    private static final Logger LOGGER = LogManager.getLogger(DBConnectionPool.class);
+
+    /**
+     * 借出连接时的校验策略
+     */
+    public enum Validation {
+        /**
+         * 每次借出前都校验  最安全  但每次获取连接多一次数据库往返
+         */
+        ON_BORROW,
+        /**
+         * 只在归还时(异步)以及空闲时定期校验  借出时不访问数据库
+         */
+        IDLE,
+        /**
+         * 不校验
+         */
+        NONE
+    }
+
     private static volatile DBConnectionPool dbConnection;
     private ComboPooledDataSource cpds;
 
+    private final int checkoutTimeoutMillis;
+
+    /**
+     * 正在等待获取连接的线程数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder acquired = new LongAdder();
+
+    private final LongAdder failedAcquires = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
     /**
      * password.txt
      * 在构造函数初始化的时候获取数据库连接
      */
     private DBConnectionPool() {
+        this(loadProperties());
+    }
+
+    DBConnectionPool(Properties properties) {
+        this.checkoutTimeoutMillis = intProperty(properties, "mysql.pool.jdbc.checkoutTimeout", 10000);
         try {
-            Properties properties = new Properties();
-            InputStream is = DBConnectionPool.class.getClassLoader().getResourceAsStream("mysql.properties");
-            properties.load(is);
             String driverClassName = properties.getProperty("mysql.pool.jdbc.driverClass");
             String url = properties.getProperty("mysql.jdbc.url");
             String username = properties.getProperty("mysql.jdbc.username");
@@ -41,22 +96,45 @@ public class DBConnectionPool {
 
             cpds.setPassword(password);
 
-            cpds.setInitialPoolSize(3);
-            cpds.setMaxPoolSize(10);
-            cpds.setAcquireIncrement(1);
+            int maxPoolSize = intProperty(properties, "mysql.pool.jdbc.maxPoolSize", 10);
+            int minPoolSize = Math.min(intProperty(properties, "mysql.pool.jdbc.minPoolSize", 3), maxPoolSize);
+            cpds.setInitialPoolSize(intProperty(properties, "mysql.pool.jdbc.initialPoolSize", minPoolSize));
+            cpds.setMinPoolSize(minPoolSize);
+            cpds.setMaxPoolSize(maxPoolSize);
+            cpds.setAcquireIncrement(intProperty(properties, "mysql.pool.jdbc.acquireIncrement", 1));
             cpds.setIdleConnectionTestPeriod(60);
             cpds.setMaxIdleTime(3000);
+            cpds.setCheckoutTimeout(checkoutTimeoutMillis);
 
-            cpds.setTestConnectionOnCheckout(true);
+            Validation validation = Validation.valueOf(
+                    properties.getProperty("mysql.pool.jdbc.validation", Validation.ON_BORROW.name()).trim());
+            cpds.setTestConnectionOnCheckout(validation == Validation.ON_BORROW);
+            cpds.setTestConnectionOnCheckin(validation != Validation.NONE);
+            if (validation == Validation.NONE) {
+                cpds.setIdleConnectionTestPeriod(0);
+            }
 
-            cpds.setTestConnectionOnCheckin(true);
             cpds.setAcquireRetryAttempts(30);
             cpds.setAcquireRetryDelay(1000);
             cpds.setBreakAfterAcquireFailure(true);
-        } catch (IOException | PropertyVetoException e) {
-            e.printStackTrace();
+        } catch (PropertyVetoException e) {
+            LOGGER.error("init connection pool failed", e);
+        }
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream is = DBConnectionPool.class.getClassLoader().getResourceAsStream("mysql.properties")) {
+            properties.load(is);
+        } catch (IOException e) {
+            LOGGER.error("load mysql.properties failed", e);
         }
+        return properties;
+    }
 
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
     }
 
     /**
@@ -76,12 +154,47 @@ public class DBConnectionPool {
     }
 
     /**
-     * 获取数据库连接
+     * 获取数据库连接  线程安全  不持有全局锁
      *
      * @return 数据库连接
+     * @throws SQLException 获取连接失败或等待超过checkoutTimeout
+     */
+    final Connection getConnection() throws SQLException {
+        pending.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Connection connection = cpds.getConnection();
+            acquired.increment();
+            return connection;
+        } catch (SQLException e) {
+            failedAcquires.increment();
+            throw e;
+        } finally {
+            long waited = System.nanoTime() - start;
+            pending.decrementAndGet();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    ComboPooledDataSource getDataSource() {
+        return cpds;
+    }
+
+    /**
+     * @return 连接池当前状态的快照
      */
-    final synchronized Connection getConnection() throws SQLException {
-        return cpds.getConnection();
+    public Metrics getMetrics() {
+        int active = -1;
+        int idle = -1;
+        try {
+            active = cpds.getNumBusyConnectionsDefaultUser();
+            idle = cpds.getNumIdleConnectionsDefaultUser();
+        } catch (SQLException e) {
+            LOGGER.warn("read connection pool state failed", e);
+        }
+        return new Metrics(active, idle, pending.get(), acquired.sum(), failedAcquires.sum(),
+                totalWaitNanos.sum(), maxWaitNanos.get(), checkoutTimeoutMillis);
     }
 
     /**
@@ -93,4 +206,103 @@ public class DBConnectionPool {
         DataSources.destroy(cpds);
         super.finalize();
     }
+
+    /**
+     * 连接池状态快照
+     */
+    public static final class Metrics {
+
+        private final int active;
+
+        private final int idle;
+
+        private final int pending;
+
+        private final long acquired;
+
+        private final long failedAcquires;
+
+        private final long totalWaitNanos;
+
+        private final long maxWaitNanos;
+
+        private final int checkoutTimeoutMillis;
+
+        Metrics(int active, int idle, int pending, long acquired, long failedAcquires,
+                long totalWaitNanos, long maxWaitNanos, int checkoutTimeoutMillis) {
+            this.active = active;
+            this.idle = idle;
+            this.pending = pending;
+            this.acquired = acquired;
+            this.failedAcquires = failedAcquires;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        }
+
+        /**
+         * @return 已借出的连接数  读取失败时为-1
+         */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * @return 池中空闲的连接数  读取失败时为-1
+         */
+        public int getIdle() {
+            return idle;
+        }
+
+        /**
+         * @return 正在等待获取连接的线程数
+         */
+        public int getPending() {
+            return pending;
+        }
+
+        public long getAcquired() {
+            return acquired;
+        }
+
+        /**
+         * @return 获取失败(包括超时)的次数
+         */
+        public long getFailedAcquires() {
+            return failedAcquires;
+        }
+
+        /**
+         * @return 平均等待时间(微秒)
+         */
+        public long getAverageWaitMicros() {
+            long attempts = acquired + failedAcquires;
+            return attempts == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / attempts);
+        }
+
+        /**
+         * @return 最长等待时间(微秒)
+         */
+        public long getMaxWaitMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+        }
+
+        public int getCheckoutTimeoutMillis() {
+            return checkoutTimeoutMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "active=" + active +
+                    ", idle=" + idle +
+                    ", pending=" + pending +
+                    ", acquired=" + acquired +
+                    ", failedAcquires=" + failedAcquires +
+                    ", averageWaitMicros=" + getAverageWaitMicros() +
+                    ", maxWaitMicros=" + getMaxWaitMicros() +
+                    ", checkoutTimeoutMillis=" + checkoutTimeoutMillis +
+                    '}';
+        }
+    }
 }
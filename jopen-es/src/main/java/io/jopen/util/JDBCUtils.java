@@ -1,7 +1,11 @@
 package io.jopen.util;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -10,6 +14,22 @@ import java.util.regex.Pattern;
  */
 public class JDBCUtils {
 
+    private static final Logger LOGGER = LogManager.getLogger(JDBCUtils.class);
+
+    /**
+     * MySQL Connector/J 逐行流式读取结果集的fetchSize
+     * <p>
+     * 正数的fetchSize只有在连接串中设置useCursorFetch=true时才会被MySQL驱动使用，否则驱动会一次读取整个结果集
+     */
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * @return 数据库连接池当前状态
+     */
+    public static DBConnectionPool.Metrics poolMetrics() {
+        return DBConnectionPool.getInstance().getMetrics();
+    }
+
     /**
      * 执行数据库插入操作
      *
@@ -51,7 +71,14 @@ public class JDBCUtils {
     }
 
     /**
-     * 执行数据库插入操作
+     * insertAll每条多行VALUES语句的行数
+     */
+    private static final int INSERT_ALL_ROWS_PER_STATEMENT = 500;
+
+    /**
+     * 执行数据库插入操作  所有行在同一个事务中提交，任何一行失败全部回滚
+     * <p>
+     * 数据量较大时使用{@link #bulkInsert(String, Iterable, int, int)}
      *
      * @param datas     插入数据表中key为列名和value为列对应的值的Map对象的List集合
      * @param tableName 要插入的数据库的表名
@@ -59,76 +86,51 @@ public class JDBCUtils {
      * @throws SQLException SQL异常
      */
     public static int insertAll(String tableName, List<Map<String, Object>> datas) throws SQLException {
-        /**影响的行数**/
-        int affectRowCount = -1;
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-        try {
-            /**从数据库连接池中获取数据库连接**/
-            connection = DBConnectionPool.getInstance().getConnection();
-
-
-            Map<String, Object> valueMap = datas.get(0);
-            /**获取数据库插入的Map的键值对的值**/
-            Set<String> keySet = valueMap.keySet();
-            Iterator<String> iterator = keySet.iterator();
-            /**要插入的字段sql，其实就是用key拼起来的**/
-            StringBuilder columnSql = new StringBuilder();
-            /**要插入的字段值，其实就是？**/
-            StringBuilder unknownMarkSql = new StringBuilder();
-            Object[] keys = new Object[valueMap.size()];
-            int i = 0;
-            while (iterator.hasNext()) {
-                String key = iterator.next();
-                keys[i] = key;
-                columnSql.append(i == 0 ? "" : ",");
-                columnSql.append(key);
-
-                unknownMarkSql.append(i == 0 ? "" : ",");
-                unknownMarkSql.append("?");
-                i++;
-            }
-            /**开始拼插入的sql语句**/
-            StringBuilder sql = new StringBuilder();
-            sql.append("INSERT INTO ");
-            sql.append(tableName);
-            sql.append(" (");
-            sql.append(columnSql);
-            sql.append(" )  VALUES (");
-            sql.append(unknownMarkSql);
-            sql.append(" )");
-
-            /**执行SQL预编译**/
-            preparedStatement = connection.prepareStatement(sql.toString());
+        if (datas.isEmpty()) {
+            return 0;
+        }
+        /**列取自第一行的键**/
+        String[] columns = datas.get(0).keySet().toArray(new String[0]);
+        List<Object[]> rows = new ArrayList<>(datas.size());
+        for (Map<String, Object> data : datas) {
+            rows.add(BulkInserter.values(data, columns));
+        }
+        try (Connection connection = DBConnectionPool.getInstance().getConnection()) {
             /**设置不自动提交，以便于在出现异常的时候数据库回滚**/
             connection.setAutoCommit(false);
-            System.out.println(sql.toString());
-            for (int j = 0; j < datas.size(); j++) {
-                for (int k = 0; k < keys.length; k++) {
-                    preparedStatement.setObject(k + 1, datas.get(j).get(keys[k]));
-                }
-                preparedStatement.addBatch();
-            }
-            int[] arr = preparedStatement.executeBatch();
-            connection.commit();
-            affectRowCount = arr.length;
-            System.out.println("成功了插入了" + affectRowCount + "行");
-            System.out.println();
-        } catch (Exception e) {
-            if (connection != null) {
+            try {
+                int affectRowCount = BulkInserter.insertRows(connection, tableName, columns, rows,
+                        Math.max(1, Math.min(INSERT_ALL_ROWS_PER_STATEMENT, 65535 / columns.length)));
+                connection.commit();
+                LOGGER.debug("inserted {} rows into {}", affectRowCount, tableName);
+                return affectRowCount;
+            } catch (SQLException | RuntimeException e) {
                 connection.rollback();
-            }
-            e.printStackTrace();
-            throw e;
-        } finally {
-            if (preparedStatement != null) {
-                preparedStatement.close();
-            }
-            if (connection != null) {
-                connection.close();
+                LOGGER.error("insert into " + tableName + " failed", e);
+                throw e;
             }
         }
-        return affectRowCount;
+    }
+
+    /**
+     * 分块并行批量插入
+     * <p>
+     * 每chunkSize行为一个子批次，各子批次在不同的连接上独立提交，失败的子批次只回滚自身并记录在返回结果中
+     *
+     * @param tableName   要插入的数据库的表名
+     * @param datas       插入的数据  列取自第一行的键
+     * @param chunkSize   每个子批次的行数
+     * @param parallelism 同时使用的连接数
+     * @return 插入结果
+     * @throws InterruptedException 等待子批次完成时被中断
+     * @see BulkInserter
+     */
+    public static BulkInserter.Result bulkInsert(String tableName, Iterable<? extends Map<String, Object>> datas,
+                                                 int chunkSize, int parallelism) throws InterruptedException {
+        BulkInserter.Result result = new BulkInserter(tableName, chunkSize, INSERT_ALL_ROWS_PER_STATEMENT, parallelism)
+                .insert(datas);
+        LOGGER.debug("bulk insert into {}: {}", tableName, result);
+        return result;
     }
 
     /**
@@ -237,7 +239,9 @@ public class JDBCUtils {
             preparedStatement = connection.prepareStatement(sql.toString());
             /**设置不自动提交，以便于在出现异常的时候数据库回滚**/
             connection.setAutoCommit(false);
-            System.out.println(getExecSQL(sql, bindArgs));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(getExecSQL(sql, bindArgs));
+            }
             if (bindArgs != null) {
                 /**绑定参数设置sql占位符中的值**/
                 for (int i = 0; i < bindArgs.length; i++) {
@@ -255,13 +259,12 @@ public class JDBCUtils {
             } else {
                 operate = "修改";
             }
-            System.out.println("成功" + operate + "了" + affectRowCount + "行");
-            System.out.println();
+            LOGGER.debug("成功" + operate + "了" + affectRowCount + "行");
         } catch (Exception e) {
             if (connection != null) {
                 connection.rollback();
             }
-            e.printStackTrace();
+            LOGGER.error("execute update failed: " + sql, e);
             throw e;
         } finally {
             if (preparedStatement != null) {
@@ -381,12 +384,14 @@ public class JDBCUtils {
                     preparedStatement.setObject(i + 1, bindArgs[i]);
                 }
             }
-            System.out.println(getExecSQL(sql, bindArgs));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(getExecSQL(sql, bindArgs));
+            }
             /**执行sql语句，获取结果集**/
             resultSet = preparedStatement.executeQuery();
             data = getData(resultSet);
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.error("execute query failed: " + sql, e);
             throw e;
         } finally {
             if (resultSet != null) {
@@ -412,20 +417,108 @@ public class JDBCUtils {
      */
     private static List<Map<String, Object>> getData(ResultSet resultSet) throws SQLException {
         List<Map<String, Object>> datas = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
+        /**列信息只解析一次**/
+        Columns columns = Columns.of(resultSet.getMetaData());
+        RowMapper<Map<String, Object>> mapper = RowMapper.maps();
         while (resultSet.next()) {
-            Map<String, Object> rowMap = new HashMap<>();
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                rowMap.put(metaData.getColumnName(i), resultSet.getObject(i));
+            datas.add(mapper.map(resultSet, columns));
+        }
+        return datas;
+    }
+
+    /**
+     * 打开一个流式查询游标  每行映射为基于数组的{@link Row}
+     *
+     * @see #openCursor(String, Object[], int, RowMapper)
+     */
+    public static QueryCursor<Row> openCursor(String sql, Object[] bindArgs, int fetchSize) throws SQLException {
+        return openCursor(sql, bindArgs, fetchSize, RowMapper.rows());
+    }
+
+    /**
+     * 打开一个只进、只读的流式查询游标  结果集不会一次性读入内存
+     * <pre>
+     * try (QueryCursor&lt;User&gt; cursor = JDBCUtils.openCursor(sql, null, JDBCUtils.STREAMING_FETCH_SIZE, RowMapper.bean(User.class))) {
+     *     while (cursor.hasNext()) {
+     *         index(cursor.next());
+     *     }
+     * }
+     * </pre>
+     *
+     * @param sql       要执行的sql语句
+     * @param bindArgs  绑定的参数  可以为null
+     * @param fetchSize 每次从数据库读取的行数  MySQL逐行读取使用{@link #STREAMING_FETCH_SIZE}
+     * @param mapper    行映射
+     * @return 游标  调用方负责关闭
+     * @throws SQLException SQL执行异常
+     */
+    public static <T> QueryCursor<T> openCursor(String sql, Object[] bindArgs, int fetchSize, RowMapper<T> mapper)
+            throws SQLException {
+        return openCursor(DBConnectionPool.getInstance().getConnection(), sql, bindArgs, fetchSize, mapper);
+    }
+
+    /**
+     * 在给定的连接上打开游标  游标关闭或者打开失败时关闭该连接
+     */
+    static <T> QueryCursor<T> openCursor(Connection connection, String sql, Object[] bindArgs, int fetchSize,
+                                         RowMapper<T> mapper) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            if (bindArgs != null) {
+                for (int i = 0; i < bindArgs.length; i++) {
+                    preparedStatement.setObject(i + 1, bindArgs[i]);
+                }
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(getExecSQL(sql, bindArgs));
             }
-            datas.add(rowMap);
+            resultSet = preparedStatement.executeQuery();
+            return new QueryCursor<>(connection, preparedStatement, resultSet, mapper);
+        } catch (SQLException | RuntimeException e) {
+            for (AutoCloseable resource : new AutoCloseable[]{resultSet, preparedStatement, connection}) {
+                if (resource != null) {
+                    try {
+                        resource.close();
+                    } catch (Exception suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+            }
+            throw e;
         }
-        System.out.println("成功查询到了" + datas.size() + "行数据");
-        for (int i = 0; i < datas.size(); i++) {
-            Map<String, Object> map = datas.get(i);
-            System.out.println("第" + (i + 1) + "行：" + map);
+    }
+
+    /**
+     * 流式遍历查询结果  遍历结束后自动关闭游标
+     *
+     * @param action 对每一行执行的操作
+     * @return 遍历的行数
+     * @throws SQLException SQL执行异常
+     */
+    public static <T> long forEach(String sql, Object[] bindArgs, int fetchSize, RowMapper<T> mapper,
+                                   Consumer<? super T> action) throws SQLException {
+        return forEach(DBConnectionPool.getInstance().getConnection(), sql, bindArgs, fetchSize, mapper, action);
+    }
+
+    /**
+     * 在给定的连接上流式遍历  遍历结束后关闭该连接
+     */
+    static <T> long forEach(Connection connection, String sql, Object[] bindArgs, int fetchSize, RowMapper<T> mapper,
+                            Consumer<? super T> action) throws SQLException {
+        try (QueryCursor<T> cursor = openCursor(connection, sql, bindArgs, fetchSize, mapper)) {
+            while (cursor.hasNext()) {
+                action.accept(cursor.next());
+            }
+            return cursor.rowCount();
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
         }
-        return datas;
     }
 
 
@@ -0,0 +1,148 @@
+package io.jopen.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 只进的流式查询游标  结果集按fetchSize分批从数据库读取  内存中只保留当前批次
+ * <p>
+ * 游标持有连接直到{@link #close()}，必须在try-with-resources中使用；
+ * 遍历到最后一行或者{@link #next()}抛出异常时会自动关闭。
+ * 使用MySQL逐行流式读取({@link JDBCUtils#STREAMING_FETCH_SIZE})时，游标关闭前该连接不能执行其他语句
+ *
+ * @param <T> 行对象类型
+ * @author maxuefeng
+ * @see JDBCUtils#openCursor(String, Object[], int, RowMapper)
+ */
+public class QueryCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final Connection connection;
+
+    private final PreparedStatement statement;
+
+    private final ResultSet resultSet;
+
+    private final Columns columns;
+
+    private final RowMapper<T> mapper;
+
+    /**
+     * 是否已经调用resultSet.next()并且还没有被{@link #next()}取走
+     */
+    private boolean advanced;
+
+    private boolean hasRow;
+
+    private boolean closed;
+
+    private long rowCount;
+
+    QueryCursor(Connection connection, PreparedStatement statement, ResultSet resultSet, RowMapper<T> mapper)
+            throws SQLException {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.columns = Columns.of(resultSet.getMetaData());
+    }
+
+    public Columns columns() {
+        return columns;
+    }
+
+    /**
+     * @return 已经读取的行数
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @throws IllegalStateException 数据库异常  原始的{@link SQLException}作为cause
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                hasRow = resultSet.next();
+            } catch (SQLException e) {
+                closeQuietly();
+                throw new IllegalStateException(e);
+            }
+            advanced = true;
+            if (!hasRow) {
+                closeQuietly();
+            }
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            T row = mapper.map(resultSet, columns);
+            rowCount++;
+            return row;
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return 关闭时同时关闭游标的Stream  同样需要在try-with-resources中使用
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::closeQuietly);
+    }
+
+    /**
+     * 依次关闭结果集、语句和连接(连接归还连接池)
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        SQLException failure = null;
+        for (AutoCloseable resource : new AutoCloseable[]{resultSet, statement, connection}) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (SQLException ignored) {
+            // 读取已经结束  关闭失败不影响结果
+        }
+    }
+}
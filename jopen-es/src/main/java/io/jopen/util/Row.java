@@ -0,0 +1,68 @@
+package io.jopen.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于数组的一行查询结果  列信息由同一次查询的所有行共享
+ * <p>
+ * 与每行一个HashMap相比  只有一个Object[]的开销
+ *
+ * @author maxuefeng
+ * @see Columns
+ */
+public final class Row {
+
+    private final Columns columns;
+
+    private final Object[] values;
+
+    Row(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public Columns columns() {
+        return columns;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param index 从0开始
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param label 列标签  不区分大小写
+     * @throws IllegalArgumentException 列不存在
+     */
+    public Object get(String label) {
+        int index = columns.indexOf(label);
+        if (index < 0) {
+            throw new IllegalArgumentException("no such column: " + label + ", columns: " + columns);
+        }
+        return values[index];
+    }
+
+    /**
+     * @return 按列顺序的Map  与{@link JDBCUtils#executeQuery(String, Object[])}的结果兼容
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            map.put(columns.label(i), values[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return columns + "=" + Arrays.toString(values);
+    }
+}
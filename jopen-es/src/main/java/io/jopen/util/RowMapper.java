@@ -0,0 +1,50 @@
+package io.jopen.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 把结果集的当前行转换为对象
+ *
+ * @param <T> 行对象类型
+ * @author maxuefeng
+ * @see QueryCursor
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * @param resultSet 已经定位到当前行的结果集  不要调用next()
+     * @param columns   本次查询的列信息
+     */
+    T map(ResultSet resultSet, Columns columns) throws SQLException;
+
+    /**
+     * 基于数组的行
+     */
+    static RowMapper<Row> rows() {
+        return (resultSet, columns) -> {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = resultSet.getObject(i + 1);
+            }
+            return new Row(columns, values);
+        };
+    }
+
+    /**
+     * 每行一个Map  列名 -&gt; 值
+     */
+    static RowMapper<Map<String, Object>> maps() {
+        RowMapper<Row> rows = rows();
+        return (resultSet, columns) -> rows.map(resultSet, columns).toMap();
+    }
+
+    /**
+     * 按列标签映射到JavaBean的setter  下划线列名(user_name)对应驼峰属性(userName)
+     */
+    static <T> RowMapper<T> bean(Class<T> type) {
+        return new BeanRowMapper<>(type);
+    }
+}
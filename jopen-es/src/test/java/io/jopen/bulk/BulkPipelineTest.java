@@ -0,0 +1,133 @@
+package io.jopen.bulk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用模拟的bulk接口测试{@link BulkPipeline}
+ *
+ * @author maxuefeng
+ */
+public class BulkPipelineTest {
+
+    @Test
+    public void testMappedLineReader() throws IOException {
+        Path file = Files.createTempFile("bulk", ".csv");
+        try {
+            StringBuilder longLine = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                longLine.append("长行");
+            }
+            String content = "a,b,c\r\n\n中文,属性,描述\n" + longLine + "\nlast";
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+            List<String> lines = new ArrayList<>();
+            try (MappedLineReader reader = new MappedLineReader(file, 16)) {
+                reader.forEachRemaining(lines::add);
+            }
+            Assert.assertEquals(Arrays.asList("a,b,c", "", "中文,属性,描述", longLine.toString(), "last"), lines);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRetryRejectedDocuments() throws InterruptedException {
+        int total = 10000;
+        Set<Integer> indexed = ConcurrentHashMap.newKeySet();
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        BulkSender<Integer> sender = batch -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Assert.assertTrue(batch.size() <= 100);
+                int request = requests.incrementAndGet();
+                if (request % 7 == 0) {
+                    throw new BulkRejectedException("es_rejected_execution_exception");
+                }
+                // 奇数第一次被拒绝  负数永久失败
+                int[] rejected = new int[batch.size()];
+                int rejectedCount = 0;
+                int failed = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    int document = batch.get(i);
+                    if (document < 0) {
+                        failed++;
+                    } else if (document % 2 == 1 && request % 2 == 1) {
+                        rejected[rejectedCount++] = i;
+                    } else {
+                        Assert.assertTrue("duplicate " + document, indexed.add(document));
+                    }
+                }
+                return new BulkOutcome(Arrays.copyOf(rejected, rejectedCount), failed);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            lines.add(String.valueOf(i));
+        }
+        lines.add("not a number");
+        lines.add("-1");
+
+        BulkPipeline<Integer> pipeline = BulkPipeline.builder(Integer::valueOf, sender)
+                .parseThreads(3)
+                .concurrentRequests(4)
+                .batchSize(100, 1L << 20)
+                .linesPerBlock(64)
+                .retry(20, 0, 1)
+                .build();
+        BulkStats stats = pipeline.run(lines.iterator());
+
+        Assert.assertEquals(total + 2, stats.getLines());
+        Assert.assertEquals(1, stats.getSkipped());
+        Assert.assertEquals(total, stats.getIndexed());
+        Assert.assertEquals(1, stats.getFailed());
+        Assert.assertEquals(total, indexed.size());
+        Assert.assertTrue(stats.getRetried() > 0);
+        Assert.assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testBatchBytesLimit() throws InterruptedException {
+        List<Integer> sizes = new ArrayList<>();
+        BulkSender<String> sender = batch -> {
+            synchronized (sizes) {
+                sizes.add(batch.size());
+            }
+            return BulkOutcome.success();
+        };
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("0123456789");
+        }
+        BulkStats stats = BulkPipeline.builder(line -> line, sender)
+                .parseThreads(1)
+                .concurrentRequests(1)
+                .batchSize(1000, 35)
+                .build()
+                .run(lines.iterator());
+
+        Assert.assertEquals(100, stats.getIndexed());
+        Assert.assertEquals(34, stats.getBatches());
+        for (int i = 0; i < sizes.size() - 1; i++) {
+            Assert.assertEquals(3, (int) sizes.get(i));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.jopen.matcher;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author maxuefeng
+ */
+public class AhoCorasickTest {
+
+    @Test
+    public void testOverlappingHits() {
+        AhoCorasick<Integer> automaton = AhoCorasick.build(
+                ImmutableMap.of("he", 1, "she", 2, "his", 3, "hers", 4), false);
+        List<String> hits = new ArrayList<>();
+        automaton.forEachMatch("ushers", (start, end, keyword, value) -> hits.add(keyword + "@" + start + "-" + end + "=" + value));
+        Assert.assertEquals(Arrays.asList("she@1-4=2", "he@2-4=1", "hers@2-6=4"), hits);
+        Assert.assertTrue(automaton.containsAny("this"));
+        Assert.assertFalse(automaton.containsAny("xyz"));
+    }
+
+    @Test
+    public void testChineseAndIgnoreCase() {
+        AhoCorasick<String> automaton = AhoCorasick.build(
+                ImmutableMap.of("空调", "a", "格力空调", "b", "Gree", "c"), true);
+        List<KeywordHit<String>> hits = automaton.findAll("买了一台GREE格力空调");
+        Assert.assertEquals(3, hits.size());
+        Assert.assertEquals("Gree", hits.get(0).getKeyword());
+        Assert.assertEquals(4, hits.get(0).getStart());
+        Assert.assertEquals("格力空调", hits.get(1).getKeyword());
+        Assert.assertEquals("空调", hits.get(2).getKeyword());
+        Assert.assertEquals(12, hits.get(2).getEnd());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKeywordRejected() {
+        Map<String, Integer> dictionary = new HashMap<>();
+        dictionary.put("he", 1);
+        dictionary.put(null, 2);
+        AhoCorasick.build(dictionary, false);
+    }
+
+    @Test
+    public void testEmptyKeywordIgnored() {
+        AhoCorasick<Integer> automaton = AhoCorasick.build(ImmutableMap.of("", 1, "he", 2), false);
+        Assert.assertEquals(2, automaton.findAll("hehe").size());
+        Assert.assertFalse(automaton.containsAny("xyz"));
+    }
+
+    @Test
+    public void testMatchesNaiveSearch() {
+        Random random = new Random(7);
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            dictionary.put(randomText(random, 1 + random.nextInt(5)), i);
+        }
+        AhoCorasick<Integer> automaton = AhoCorasick.build(dictionary, false);
+        for (int t = 0; t < 50; t++) {
+            String text = randomText(random, 200);
+            int expected = 0;
+            for (String keyword : dictionary.keySet()) {
+                for (int from = text.indexOf(keyword); from >= 0; from = text.indexOf(keyword, from + 1)) {
+                    expected++;
+                }
+            }
+            List<KeywordHit<Integer>> hits = automaton.findAll(text);
+            Assert.assertEquals(expected, hits.size());
+            for (KeywordHit<Integer> hit : hits) {
+                Assert.assertEquals(hit.getKeyword(), text.substring(hit.getStart(), hit.getEnd()));
+                Assert.assertEquals(dictionary.get(hit.getKeyword()), hit.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testKeywordIndexRefresh() {
+        KeywordIndex<String> index = new KeywordIndex<>(false);
+        Assert.assertTrue(index.match("anything").isEmpty());
+
+        Assert.assertTrue(index.apply(ImmutableMap.of("foo", "1", "bar", "2"), Collections.emptyList()));
+        AhoCorasick<String> before = index.snapshot();
+        Assert.assertFalse(index.apply(ImmutableMap.of("foo", "1"), Collections.emptyList()));
+        Assert.assertSame(before, index.snapshot());
+
+        Assert.assertTrue(index.apply(ImmutableMap.of("baz", "3"), Collections.singletonList("foo")));
+        Assert.assertEquals(2, index.size());
+        Assert.assertFalse(index.containsAny("foo"));
+        Assert.assertEquals("3", index.match("foobaz").get(0).getValue());
+        // 旧快照不受影响
+        Assert.assertTrue(before.containsAny("foo"));
+
+        index.reset(ImmutableMap.of("qux", "4"));
+        Assert.assertEquals(1, index.size());
+        Assert.assertFalse(index.containsAny("bar"));
+    }
+
+    private static String randomText(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(3));
+        }
+        return new String(chars);
+    }
+}
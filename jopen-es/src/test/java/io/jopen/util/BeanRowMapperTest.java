@@ -0,0 +1,174 @@
+package io.jopen.util;
+
+import io.jopen.util.MockJdbc.MockResultSet;
+import io.jopen.util.MockJdbc.Table;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author maxuefeng
+ * @see BeanRowMapper
+ */
+public class BeanRowMapperTest {
+
+    public static class Account {
+
+        private Long id;
+
+        private String userName;
+
+        private int age;
+
+        private boolean active;
+
+        private BigDecimal balance;
+
+        private LocalDateTime createdAt;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public void setUserName(String userName) {
+            this.userName = userName;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public void setBalance(BigDecimal balance) {
+            this.balance = balance;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    public static class NoDefaultConstructor {
+
+        public NoDefaultConstructor(int ignored) {
+        }
+    }
+
+    private static List<Account> mapAll(RowMapper<Account> mapper, Table table) throws SQLException {
+        MockResultSet mock = new MockResultSet(table);
+        Columns columns = Columns.of(mock.resultSet.getMetaData());
+        List<Account> accounts = new ArrayList<>();
+        while (mock.resultSet.next()) {
+            accounts.add(mapper.map(mock.resultSet, columns));
+        }
+        return accounts;
+    }
+
+    @Test
+    public void testColumnsMappedBySnakeCaseLabel() throws SQLException {
+        LocalDateTime createdAt = LocalDateTime.of(2019, 11, 26, 8, 30);
+        Table table = Table.of(new String[]{"ID", "user_name", "Age", "active", "balance", "created_at", "unknown_column"},
+                new Object[]{BigInteger.valueOf(7), "maxuefeng", 30L, 1, 12.5d, Timestamp.valueOf(createdAt), "ignored"},
+                new Object[]{8, null, null, 0, null, null, null});
+
+        List<Account> accounts = mapAll(RowMapper.bean(Account.class), table);
+        Assert.assertEquals(2, accounts.size());
+
+        Account first = accounts.get(0);
+        Assert.assertEquals(Long.valueOf(7), first.getId());
+        Assert.assertEquals("maxuefeng", first.getUserName());
+        Assert.assertEquals(30, first.getAge());
+        Assert.assertTrue(first.isActive());
+        Assert.assertEquals(new BigDecimal("12.5"), first.getBalance());
+        Assert.assertEquals(createdAt, first.getCreatedAt());
+
+        // null不会写入基本类型的属性
+        Account second = accounts.get(1);
+        Assert.assertEquals(Long.valueOf(8), second.getId());
+        Assert.assertNull(second.getUserName());
+        Assert.assertEquals(0, second.getAge());
+        Assert.assertFalse(second.isActive());
+        Assert.assertNull(second.getBalance());
+        Assert.assertNull(second.getCreatedAt());
+    }
+
+    @Test
+    public void testMapperReusedAcrossQueriesWithDifferentColumns() throws SQLException {
+        RowMapper<Account> mapper = RowMapper.bean(Account.class);
+        Account byId = mapAll(mapper, Table.of(new String[]{"id", "user_name"}, new Object[]{1L, "a"})).get(0);
+        Assert.assertEquals(Long.valueOf(1), byId.getId());
+        Assert.assertEquals("a", byId.getUserName());
+
+        // 列的顺序不同  重新解析对应关系
+        Account reordered = mapAll(mapper, Table.of(new String[]{"user_name", "age", "id"}, new Object[]{"b", 20, 2L})).get(0);
+        Assert.assertEquals(Long.valueOf(2), reordered.getId());
+        Assert.assertEquals("b", reordered.getUserName());
+        Assert.assertEquals(20, reordered.getAge());
+    }
+
+    @Test
+    public void testCursorMapsBeans() throws SQLException {
+        MockJdbc.MockConnection mock = new MockJdbc.MockConnection();
+        mock.table = Table.of(new String[]{"id", "user_name"}, new Object[]{1L, "a"}, new Object[]{2L, "b"});
+        List<String> names = new ArrayList<>();
+        JDBCUtils.forEach(mock.connection, "SELECT id, user_name FROM account", null, 10,
+                RowMapper.bean(Account.class), account -> names.add(account.getId() + account.getUserName()));
+        Assert.assertEquals(2, names.size());
+        Assert.assertEquals("1a", names.get(0));
+        Assert.assertEquals("2b", names.get(1));
+    }
+
+    @Test
+    public void testConvert() {
+        Assert.assertEquals(1L, BeanRowMapper.convert(1, long.class));
+        Assert.assertEquals(true, BeanRowMapper.convert(1, Boolean.class));
+        Assert.assertEquals(new BigInteger("18446744073709551615"),
+                BeanRowMapper.convert(new BigDecimal("18446744073709551615"), BigInteger.class));
+        Assert.assertEquals("42", BeanRowMapper.convert(42, String.class));
+        Assert.assertNull(BeanRowMapper.convert(null, int.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBeanNeedsNoArgConstructor() {
+        RowMapper.bean(NoDefaultConstructor.class);
+    }
+
+    @Test(expected = SQLException.class)
+    public void testIncompatibleColumnType() throws SQLException {
+        mapAll(RowMapper.bean(Account.class), Table.of(new String[]{"created_at"}, new Object[]{"not a date"}));
+    }
+}
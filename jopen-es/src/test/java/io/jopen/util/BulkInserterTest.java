@@ -0,0 +1,168 @@
+package io.jopen.util;
+
+import io.jopen.util.MockJdbc.MockConnection;
+import io.jopen.util.MockJdbc.MockStatement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通过{@link BulkInserter.ConnectionSource}注入模拟连接  检查每个子批次的提交、回滚和失败隔离
+ *
+ * @author maxuefeng
+ * @see BulkInserter
+ */
+public class BulkInserterTest {
+
+    private final List<MockConnection> connections = Collections.synchronizedList(new ArrayList<>());
+
+    private BulkInserter.ConnectionSource source(Runnable beforeEach) {
+        return () -> {
+            beforeEach.run();
+            MockConnection mock = new MockConnection();
+            // id为5的行插入失败
+            mock.updateFailure = values -> values.contains(5);
+            connections.add(mock);
+            return mock.connection;
+        };
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "user" + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private MockConnection connectionThatInserted(int id) {
+        for (MockConnection mock : connections) {
+            if (mock.updatedValues().contains(id)) {
+                return mock;
+            }
+        }
+        throw new AssertionError("no connection inserted " + id);
+    }
+
+    @Test
+    public void testFailedChunkRolledBackOthersCommitted() throws InterruptedException {
+        BulkInserter inserter = new BulkInserter("user", 3, 2, 2, source(() -> {
+        }));
+        BulkInserter.Result result = inserter.insert(rows(10));
+
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(10, result.getTotalRows());
+        Assert.assertEquals(4, result.getChunks());
+        Assert.assertEquals(7, result.getInsertedRows());
+        Assert.assertEquals(1, result.getFailures().size());
+        BulkInserter.ChunkFailure failure = result.getFailures().get(0);
+        Assert.assertEquals(1, failure.getChunkIndex());
+        Assert.assertEquals(3, failure.getFirstRow());
+        Assert.assertEquals(3, failure.getRowCount());
+        Assert.assertTrue(failure.getCause() instanceof SQLException);
+
+        // 每个子批次一个连接  一个事务
+        Assert.assertEquals(4, connections.size());
+        for (MockConnection mock : connections) {
+            Assert.assertEquals(1, mock.closeCalls);
+            Assert.assertTrue("auto commit restored", mock.autoCommit);
+        }
+        // 失败的子批次中第一条语句(id 3, 4)已经执行  整个子批次回滚
+        MockConnection failed = connectionThatInserted(3);
+        Assert.assertEquals(Arrays.asList(3, "user3", 4, "user4"), failed.updatedValues());
+        Assert.assertEquals(0, failed.commits);
+        Assert.assertEquals(1, failed.rollbacks);
+        for (int id : new int[]{0, 1, 2, 6, 7, 8, 9}) {
+            MockConnection committed = connectionThatInserted(id);
+            Assert.assertNotSame(failed, committed);
+            Assert.assertEquals(1, committed.commits);
+            Assert.assertEquals(0, committed.rollbacks);
+        }
+    }
+
+    @Test
+    public void testChunkSplitIntoMultiRowStatements() throws InterruptedException {
+        BulkInserter inserter = new BulkInserter("user", 5, 2, 1, source(() -> {
+        }));
+        BulkInserter.Result result = inserter.insert(rows(5));
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(5, result.getInsertedRows());
+
+        Assert.assertEquals(1, connections.size());
+        MockConnection mock = connections.get(0);
+        Assert.assertEquals(2, mock.statements.size());
+        MockStatement full = mock.statements.get(0);
+        Assert.assertEquals("INSERT INTO user (id,name) VALUES (?,?),(?,?)", full.sql);
+        Assert.assertEquals(Arrays.asList(
+                Arrays.<Object>asList(0, "user0", 1, "user1"),
+                Arrays.<Object>asList(2, "user2", 3, "user3")), full.updates);
+        MockStatement remainder = mock.statements.get(1);
+        Assert.assertEquals("INSERT INTO user (id,name) VALUES (?,?)", remainder.sql);
+        Assert.assertEquals(Collections.singletonList(Arrays.<Object>asList(4, "user4")), remainder.updates);
+        Assert.assertTrue(full.closed() && remainder.closed());
+        Assert.assertEquals(1, mock.commits);
+    }
+
+    @Test
+    public void testConnectionFailureRecordedAsChunkFailure() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        BulkInserter inserter = new BulkInserter("user", 2, 2, 1, source(() -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("pool exhausted");
+            }
+        }));
+        List<Map<String, Object>> rows = rows(4);
+        BulkInserter.Result result = inserter.insert(rows);
+        Assert.assertEquals(2, result.getChunks());
+        Assert.assertEquals(2, result.getInsertedRows());
+        Assert.assertEquals(1, result.getFailures().size());
+        Assert.assertEquals(1, result.getFailures().get(0).getChunkIndex());
+        Assert.assertEquals("pool exhausted", result.getFailures().get(0).getCause().getMessage());
+        Assert.assertEquals(1, connections.size());
+        Assert.assertEquals(1, connections.get(0).commits);
+    }
+
+    @Test
+    public void testMissingColumnsInsertNull() throws InterruptedException {
+        List<Map<String, Object>> rows = rows(2);
+        rows.get(1).remove("name");
+        rows.get(1).put("ignored", "x");
+        BulkInserter.Result result = new BulkInserter("user", 10, 10, 1, source(() -> {
+        })).insert(rows);
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(Arrays.asList(0, "user0", 1, null), connections.get(0).updatedValues());
+    }
+
+    @Test
+    public void testEmptyInput() throws InterruptedException {
+        BulkInserter.Result result = new BulkInserter("user", 10, 10, 1, source(() -> {
+        })).insert(Collections.emptyList());
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(0, result.getTotalRows());
+        Assert.assertEquals(0, result.getChunks());
+        Assert.assertTrue(connections.isEmpty());
+    }
+
+    @Test
+    public void testInsertSql() {
+        Assert.assertEquals("INSERT INTO t (a,b,c) VALUES (?,?,?),(?,?,?)",
+                BulkInserter.insertSql("t", new String[]{"a", "b", "c"}, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeMustBePositive() {
+        new BulkInserter("user", 0, 10, 1, source(() -> {
+        }));
+    }
+}
@@ -0,0 +1,176 @@
+package io.jopen.util;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import io.jopen.util.MockJdbc.MockConnection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 通过{@link DBConnectionPool#DBConnectionPool(Properties)}使用{@link MockDriver}  不需要数据库
+ *
+ * @author maxuefeng
+ * @see DBConnectionPool
+ */
+public class DBConnectionPoolTest {
+
+    private final List<DBConnectionPool> pools = new ArrayList<>();
+
+    @Before
+    public void clearConnections() {
+        MockDriver.CONNECTIONS.clear();
+    }
+
+    @After
+    public void closePools() {
+        for (DBConnectionPool pool : pools) {
+            pool.getDataSource().close();
+        }
+    }
+
+    private static Properties properties(String... keyValues) {
+        Properties properties = new Properties();
+        properties.setProperty("mysql.pool.jdbc.driverClass", MockDriver.class.getName());
+        properties.setProperty("mysql.jdbc.url", MockDriver.URL_PREFIX + "test");
+        properties.setProperty("mysql.jdbc.username", "root");
+        properties.setProperty("mysql.jdbc.password", "secret");
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.setProperty(keyValues[i], keyValues[i + 1]);
+        }
+        return properties;
+    }
+
+    private DBConnectionPool pool(String... keyValues) {
+        DBConnectionPool pool = new DBConnectionPool(properties(keyValues));
+        pools.add(pool);
+        return pool;
+    }
+
+    private static int validations() {
+        int validations = 0;
+        synchronized (MockDriver.CONNECTIONS) {
+            for (MockConnection mock : MockDriver.CONNECTIONS) {
+                validations += mock.validations.get();
+            }
+        }
+        return validations;
+    }
+
+    @Test
+    public void testDefaults() {
+        ComboPooledDataSource dataSource = pool().getDataSource();
+        Assert.assertEquals(MockDriver.class.getName(), dataSource.getDriverClass());
+        Assert.assertEquals(MockDriver.URL_PREFIX + "test", dataSource.getJdbcUrl());
+        Assert.assertEquals("root", dataSource.getUser());
+        Assert.assertEquals(10, dataSource.getMaxPoolSize());
+        Assert.assertEquals(3, dataSource.getMinPoolSize());
+        Assert.assertEquals(3, dataSource.getInitialPoolSize());
+        Assert.assertEquals(1, dataSource.getAcquireIncrement());
+        Assert.assertEquals(10000, dataSource.getCheckoutTimeout());
+        // 默认借出时校验
+        Assert.assertTrue(dataSource.isTestConnectionOnCheckout());
+    }
+
+    @Test
+    public void testPoolSizeProperties() {
+        ComboPooledDataSource dataSource = pool(
+                "mysql.pool.jdbc.maxPoolSize", " 4 ",
+                "mysql.pool.jdbc.minPoolSize", "8",
+                "mysql.pool.jdbc.initialPoolSize", "",
+                "mysql.pool.jdbc.acquireIncrement", "2",
+                "mysql.pool.jdbc.checkoutTimeout", "250").getDataSource();
+        Assert.assertEquals(4, dataSource.getMaxPoolSize());
+        // minPoolSize不超过maxPoolSize  initialPoolSize为空时取minPoolSize
+        Assert.assertEquals(4, dataSource.getMinPoolSize());
+        Assert.assertEquals(4, dataSource.getInitialPoolSize());
+        Assert.assertEquals(2, dataSource.getAcquireIncrement());
+        Assert.assertEquals(250, dataSource.getCheckoutTimeout());
+    }
+
+    @Test
+    public void testValidationOnBorrow() throws SQLException {
+        DBConnectionPool pool = pool("mysql.pool.jdbc.validation", "ON_BORROW", "mysql.pool.jdbc.minPoolSize", "1");
+        ComboPooledDataSource dataSource = pool.getDataSource();
+        Assert.assertTrue(dataSource.isTestConnectionOnCheckout());
+        Assert.assertTrue(dataSource.isTestConnectionOnCheckin());
+        Assert.assertEquals(60, dataSource.getIdleConnectionTestPeriod());
+
+        try (Connection ignored = pool.getConnection()) {
+            Assert.assertTrue("connection validated on checkout", validations() > 0);
+        }
+    }
+
+    @Test
+    public void testValidationIdle() {
+        ComboPooledDataSource dataSource = pool("mysql.pool.jdbc.validation", " IDLE ").getDataSource();
+        Assert.assertFalse(dataSource.isTestConnectionOnCheckout());
+        Assert.assertTrue(dataSource.isTestConnectionOnCheckin());
+        Assert.assertEquals(60, dataSource.getIdleConnectionTestPeriod());
+    }
+
+    @Test
+    public void testValidationNone() throws SQLException {
+        DBConnectionPool pool = pool("mysql.pool.jdbc.validation", "NONE", "mysql.pool.jdbc.minPoolSize", "1");
+        ComboPooledDataSource dataSource = pool.getDataSource();
+        Assert.assertFalse(dataSource.isTestConnectionOnCheckout());
+        Assert.assertFalse(dataSource.isTestConnectionOnCheckin());
+        Assert.assertEquals(0, dataSource.getIdleConnectionTestPeriod());
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection ignored = pool.getConnection()) {
+                Assert.assertEquals(0, validations());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownValidation() {
+        pool("mysql.pool.jdbc.validation", "ALWAYS");
+    }
+
+    @Test(timeout = 30000)
+    public void testMetricsCountAcquiresAndTimeouts() throws SQLException {
+        DBConnectionPool pool = pool(
+                "mysql.pool.jdbc.validation", "NONE",
+                "mysql.pool.jdbc.minPoolSize", "1",
+                "mysql.pool.jdbc.maxPoolSize", "2",
+                "mysql.pool.jdbc.checkoutTimeout", "200");
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        try {
+            pool.getConnection().close();
+            Assert.fail("pool of 2 must time out on the third checkout");
+        } catch (SQLException expected) {
+            // 等待超过checkoutTimeout
+        }
+
+        DBConnectionPool.Metrics metrics = pool.getMetrics();
+        Assert.assertEquals(2, metrics.getAcquired());
+        Assert.assertEquals(1, metrics.getFailedAcquires());
+        Assert.assertEquals(0, metrics.getPending());
+        Assert.assertEquals(2, metrics.getActive());
+        Assert.assertEquals(200, metrics.getCheckoutTimeoutMillis());
+        Assert.assertTrue(metrics.toString(), metrics.getMaxWaitMicros() >= 150_000);
+        Assert.assertTrue(metrics.getAverageWaitMicros() <= metrics.getMaxWaitMicros());
+
+        first.close();
+        second.close();
+        pool.getConnection().close();
+        Assert.assertEquals(3, pool.getMetrics().getAcquired());
+    }
+
+    @Test
+    public void testMetricsAverages() {
+        DBConnectionPool.Metrics metrics = new DBConnectionPool.Metrics(1, 2, 0, 3, 1, 4_000_000, 3_000_000, 100);
+        Assert.assertEquals(1000, metrics.getAverageWaitMicros());
+        Assert.assertEquals(3000, metrics.getMaxWaitMicros());
+        Assert.assertEquals(0, new DBConnectionPool.Metrics(0, 0, 0, 0, 0, 0, 0, 100).getAverageWaitMicros());
+    }
+}
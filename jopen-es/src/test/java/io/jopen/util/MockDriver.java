@@ -0,0 +1,79 @@
+package io.jopen.util;
+
+import io.jopen.util.MockJdbc.MockConnection;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * 返回{@link MockConnection}的JDBC驱动  供连接池测试使用
+ * <p>
+ * 加载时注册到{@link DriverManager}  接受以{@value #URL_PREFIX}开头的连接串
+ *
+ * @author maxuefeng
+ */
+public class MockDriver implements Driver {
+
+    static final String URL_PREFIX = "jdbc:jopen-mock:";
+
+    /**
+     * 驱动创建的所有连接
+     */
+    static final List<MockConnection> CONNECTIONS = Collections.synchronizedList(new ArrayList<>());
+
+    static {
+        try {
+            DriverManager.registerDriver(new MockDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        MockConnection mock = new MockConnection();
+        CONNECTIONS.add(mock);
+        return mock.connection;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(MockDriver.class.getName());
+    }
+}
@@ -0,0 +1,331 @@
+package io.jopen.util;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 基于{@link Proxy}的JDBC模拟对象  记录关闭、执行的语句和绑定的参数
+ * <p>
+ * 没有模拟的方法返回返回类型的默认值(null、0、false)
+ *
+ * @author maxuefeng
+ */
+final class MockJdbc {
+
+    private MockJdbc() {
+    }
+
+    /**
+     * 处理一次方法调用  返回{@link #DEFAULT}表示使用默认值
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Throwable;
+    }
+
+    private static final Object DEFAULT = new Object();
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, String name, Handler handler) {
+        return (T) Proxy.newProxyInstance(MockJdbc.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return name;
+                default:
+                    Object result = handler.invoke(method.getName(), args == null ? new Object[0] : args);
+                    return result == DEFAULT ? defaultValue(method.getReturnType()) : result;
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+
+    /**
+     * 查询结果  每次executeQuery返回一个新的结果集
+     */
+    static final class Table {
+
+        final String[] labels;
+
+        final List<Object[]> rows;
+
+        /**
+         * 读到这一行(从0开始)时next()抛出SQLException  -1表示不失败
+         */
+        int failAt = -1;
+
+        Table(String[] labels, List<Object[]> rows) {
+            this.labels = labels;
+            this.rows = rows;
+        }
+
+        static Table of(String[] labels, Object[]... rows) {
+            return new Table(labels, Arrays.asList(rows));
+        }
+    }
+
+    static final class MockResultSet {
+
+        final Table table;
+
+        final ResultSet resultSet;
+
+        /**
+         * 当前行  -1表示还没有调用next()
+         */
+        int cursor = -1;
+
+        int closeCalls;
+
+        MockResultSet(Table table) {
+            this.table = table;
+            ResultSetMetaData metaData = proxy(ResultSetMetaData.class, "metaData", (method, args) -> {
+                switch (method) {
+                    case "getColumnCount":
+                        return table.labels.length;
+                    case "getColumnLabel":
+                    case "getColumnName":
+                        return table.labels[(Integer) args[0] - 1];
+                    case "getColumnType":
+                        return Types.OTHER;
+                    default:
+                        return DEFAULT;
+                }
+            });
+            this.resultSet = proxy(ResultSet.class, "resultSet", (method, args) -> {
+                switch (method) {
+                    case "next":
+                        checkOpen();
+                        if (cursor + 1 == table.failAt) {
+                            throw new SQLException("connection reset");
+                        }
+                        cursor = Math.min(cursor + 1, table.rows.size());
+                        return cursor < table.rows.size();
+                    case "getObject":
+                        checkOpen();
+                        return table.rows.get(cursor)[(Integer) args[0] - 1];
+                    case "getMetaData":
+                        return metaData;
+                    case "close":
+                        closeCalls++;
+                        return null;
+                    case "isClosed":
+                        return closed();
+                    default:
+                        return DEFAULT;
+                }
+            });
+        }
+
+        boolean closed() {
+            return closeCalls > 0;
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed()) {
+                throw new SQLException("result set is closed");
+            }
+        }
+    }
+
+    static final class MockStatement {
+
+        final String sql;
+
+        final PreparedStatement statement;
+
+        /**
+         * 当前绑定的参数  参数下标 -&gt; 值
+         */
+        final Map<Integer, Object> parameters = new TreeMap<>();
+
+        final List<MockResultSet> resultSets = new ArrayList<>();
+
+        /**
+         * 每次executeUpdate时绑定的参数
+         */
+        final List<List<Object>> updates = new ArrayList<>();
+
+        int fetchSize;
+
+        int closeCalls;
+
+        MockStatement(MockConnection connection, String sql) {
+            this.sql = sql;
+            this.statement = proxy(PreparedStatement.class, "statement " + sql, (method, args) -> {
+                switch (method) {
+                    case "setObject":
+                        parameters.put((Integer) args[0], args[1]);
+                        return null;
+                    case "setFetchSize":
+                        fetchSize = (Integer) args[0];
+                        return null;
+                    case "getFetchSize":
+                        return fetchSize;
+                    case "executeQuery":
+                        if (connection.queryFailure != null) {
+                            throw connection.queryFailure;
+                        }
+                        MockResultSet resultSet = new MockResultSet(connection.table);
+                        resultSets.add(resultSet);
+                        return resultSet.resultSet;
+                    case "executeUpdate":
+                        List<Object> values = new ArrayList<>(parameters.values());
+                        if (connection.updateFailure != null && connection.updateFailure.test(values)) {
+                            throw new SQLException("duplicate entry " + values);
+                        }
+                        updates.add(values);
+                        // 多行VALUES语句  每个(?...)是一行
+                        return sql.split("\\(\\?", -1).length - 1;
+                    case "close":
+                        closeCalls++;
+                        return null;
+                    case "isClosed":
+                        return closed();
+                    default:
+                        return DEFAULT;
+                }
+            });
+        }
+
+        boolean closed() {
+            return closeCalls > 0;
+        }
+    }
+
+    static final class MockConnection {
+
+        final Connection connection;
+
+        final List<MockStatement> statements = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * executeQuery返回的结果
+         */
+        volatile Table table = Table.of(new String[0]);
+
+        /**
+         * 不为null时executeQuery抛出该异常
+         */
+        volatile SQLException queryFailure;
+
+        /**
+         * 绑定的参数满足条件时executeUpdate抛出SQLException
+         */
+        volatile Predicate<List<Object>> updateFailure;
+
+        boolean autoCommit = true;
+
+        int commits;
+
+        int rollbacks;
+
+        /**
+         * isValid被调用的次数  连接池借出或者归还时的校验
+         */
+        final AtomicInteger validations = new AtomicInteger();
+
+        /**
+         * prepareStatement的resultSetType和resultSetConcurrency  没有指定时为0
+         */
+        int resultSetType;
+
+        int resultSetConcurrency;
+
+        int closeCalls;
+
+        MockConnection() {
+            this.connection = proxy(Connection.class, "connection", (method, args) -> {
+                switch (method) {
+                    case "prepareStatement":
+                        if (args.length >= 3) {
+                            resultSetType = (Integer) args[1];
+                            resultSetConcurrency = (Integer) args[2];
+                        }
+                        MockStatement statement = new MockStatement(this, (String) args[0]);
+                        statements.add(statement);
+                        return statement.statement;
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "setAutoCommit":
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "commit":
+                        commits++;
+                        return null;
+                    case "rollback":
+                        rollbacks++;
+                        return null;
+                    case "isValid":
+                        validations.incrementAndGet();
+                        return !closed();
+                    case "getTypeMap":
+                        return new HashMap<String, Class<?>>();
+                    case "close":
+                        closeCalls++;
+                        return null;
+                    case "isClosed":
+                        return closed();
+                    default:
+                        return DEFAULT;
+                }
+            });
+        }
+
+        boolean closed() {
+            return closeCalls > 0;
+        }
+
+        /**
+         * @return 所有executeUpdate绑定的参数  按执行顺序
+         */
+        List<Object> updatedValues() {
+            List<Object> values = new ArrayList<>();
+            for (MockStatement statement : statements) {
+                statement.updates.forEach(values::addAll);
+            }
+            return values;
+        }
+
+        MockStatement lastStatement() {
+            return statements.get(statements.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.jopen.util;
+
+import io.jopen.util.MockJdbc.MockConnection;
+import io.jopen.util.MockJdbc.MockResultSet;
+import io.jopen.util.MockJdbc.MockStatement;
+import io.jopen.util.MockJdbc.Table;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 用模拟的连接检查游标在读完、提前放弃和出错时都关闭结果集、语句和连接
+ *
+ * @author maxuefeng
+ * @see QueryCursor
+ * @see JDBCUtils#openCursor(String, Object[], int, RowMapper)
+ */
+public class QueryCursorTest {
+
+    private static final String SQL = "SELECT id, name FROM user WHERE age > ? AND city = ?";
+
+    private MockConnection mock;
+
+    @Before
+    public void createConnection() {
+        mock = new MockConnection();
+        mock.table = Table.of(new String[]{"id", "name"},
+                new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"});
+    }
+
+    private QueryCursor<Row> open() throws SQLException {
+        return JDBCUtils.openCursor(mock.connection, SQL, new Object[]{18, "beijing"},
+                JDBCUtils.STREAMING_FETCH_SIZE, RowMapper.rows());
+    }
+
+    private MockResultSet resultSet() {
+        return mock.lastStatement().resultSets.get(0);
+    }
+
+    private void assertAllClosedOnce() {
+        MockStatement statement = mock.lastStatement();
+        Assert.assertEquals(1, resultSet().closeCalls);
+        Assert.assertEquals(1, statement.closeCalls);
+        Assert.assertEquals(1, mock.closeCalls);
+    }
+
+    @Test
+    public void testStatementIsForwardOnlyStreaming() throws SQLException {
+        try (QueryCursor<Row> ignored = open()) {
+            MockStatement statement = mock.lastStatement();
+            Assert.assertEquals(SQL, statement.sql);
+            Assert.assertEquals(ResultSet.TYPE_FORWARD_ONLY, mock.resultSetType);
+            Assert.assertEquals(ResultSet.CONCUR_READ_ONLY, mock.resultSetConcurrency);
+            Assert.assertEquals(JDBCUtils.STREAMING_FETCH_SIZE, statement.fetchSize);
+            Assert.assertEquals(Arrays.asList(18, "beijing"), new ArrayList<>(statement.parameters.values()));
+        }
+    }
+
+    @Test
+    public void testExhaustedCursorClosesResources() throws SQLException {
+        QueryCursor<Row> cursor = open();
+        Assert.assertEquals(Arrays.asList("id", "name"), cursor.columns().labels());
+        List<Object> names = new ArrayList<>();
+        while (cursor.hasNext()) {
+            Assert.assertFalse(mock.closed());
+            names.add(cursor.next().get("NAME"));
+        }
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), names);
+        Assert.assertEquals(3, cursor.rowCount());
+        // 读到最后一行之后不需要close也已经释放
+        assertAllClosedOnce();
+
+        Assert.assertFalse(cursor.hasNext());
+        cursor.close();
+        assertAllClosedOnce();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterExhausted() throws SQLException {
+        try (QueryCursor<Row> cursor = open()) {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+            cursor.next();
+        }
+    }
+
+    @Test
+    public void testAbandonedCursorClosedByTryWithResources() throws SQLException {
+        try (QueryCursor<Row> cursor = open()) {
+            Assert.assertEquals(1, cursor.next().get(0));
+            Assert.assertFalse(resultSet().closed());
+        }
+        // 没有继续读取剩下的行
+        Assert.assertEquals(0, resultSet().cursor);
+        assertAllClosedOnce();
+    }
+
+    @Test
+    public void testClosingStreamClosesCursor() throws SQLException {
+        List<Object> ids;
+        try (Stream<Row> rows = open().stream()) {
+            ids = rows.limit(2).map(row -> row.get("id")).collect(Collectors.toList());
+        }
+        Assert.assertEquals(Arrays.asList(1, 2), ids);
+        assertAllClosedOnce();
+    }
+
+    @Test
+    public void testReadFailureClosesCursor() throws SQLException {
+        mock.table.failAt = 1;
+        QueryCursor<Row> cursor = open();
+        Assert.assertTrue(cursor.hasNext());
+        cursor.next();
+        try {
+            cursor.hasNext();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertAllClosedOnce();
+        Assert.assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testForEachClosesAndCounts() throws SQLException {
+        List<Object> ids = new ArrayList<>();
+        long count = JDBCUtils.forEach(mock.connection, SQL, null, 100, RowMapper.rows(), row -> ids.add(row.get(0)));
+        Assert.assertEquals(3, count);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), ids);
+        Assert.assertEquals(100, mock.lastStatement().fetchSize);
+        Assert.assertTrue(mock.lastStatement().parameters.isEmpty());
+        assertAllClosedOnce();
+    }
+
+    @Test
+    public void testForEachRethrowsSQLException() {
+        mock.table.failAt = 2;
+        List<Object> ids = new ArrayList<>();
+        try {
+            JDBCUtils.forEach(mock.connection, SQL, null, 100, RowMapper.rows(), row -> ids.add(row.get(0)));
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertEquals("connection reset", e.getMessage());
+        }
+        Assert.assertEquals(Arrays.asList(1, 2), ids);
+        assertAllClosedOnce();
+    }
+
+    @Test
+    public void testForEachClosesWhenActionThrows() throws SQLException {
+        try {
+            JDBCUtils.forEach(mock.connection, SQL, null, 100, RowMapper.rows(), row -> {
+                throw new IllegalArgumentException("bad row");
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("bad row", e.getMessage());
+        }
+        assertAllClosedOnce();
+    }
+
+    @Test
+    public void testQueryFailureClosesStatementAndConnection() {
+        mock.queryFailure = new SQLException("syntax error");
+        try {
+            open();
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertSame(mock.queryFailure, e);
+        }
+        Assert.assertEquals(1, mock.lastStatement().closeCalls);
+        Assert.assertEquals(1, mock.closeCalls);
+    }
+}
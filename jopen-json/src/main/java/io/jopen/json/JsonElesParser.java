@@ -2,9 +2,15 @@ package io.jopen.json;
 
 import com.alibaba.fastjson.JSONPath;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author maxuefeng
  * @see com.alibaba.fastjson.JSONPath
+ * @see JsonPathExtractor 只需要从原始JSON中读取少数几个字段时使用  不需要先解析成对象树
  * @since 2019-11-13
  */
 public class JsonElesParser {
@@ -17,6 +23,13 @@ public class JsonElesParser {
         }
     }
 
+    /**
+     * 编译后的路径缓存  路径数量超过上限后不再缓存(路径通常是有限的常量)
+     */
+    private static final int MAX_CACHED_PATHS = 4096;
+
+    private static final ConcurrentMap<String, JSONPath> PATHS = new ConcurrentHashMap<>();
+
     private Object target;
 
     private JsonElesParser(Object target) {
@@ -27,30 +40,91 @@ public class JsonElesParser {
         return new JsonElesParser(target);
     }
 
-    public String toStr(String path) {
-        try {
-            return (String) JSONPath.eval(target, path);
-        } catch (ClassCastException ignored) {
-            throw new ParamTypeException("参数类型错误");
+    /**
+     * @param paths 需要提取的路径
+     * @return 单次扫描提取多个路径的提取器
+     * @see JsonPathExtractor#compile(String...)
+     */
+    public static JsonPathExtractor extractor(String... paths) {
+        return JsonPathExtractor.compile(paths);
+    }
+
+    /**
+     * @return 编译后的路径  优先从缓存中获取
+     */
+    public static JSONPath compile(String path) {
+        JSONPath compiled = PATHS.get(path);
+        if (compiled == null) {
+            compiled = JSONPath.compile(path);
+            if (PATHS.size() < MAX_CACHED_PATHS) {
+                PATHS.putIfAbsent(path, compiled);
+            }
         }
+        return compiled;
     }
 
+    public Object eval(String path) {
+        return compile(path).eval(target);
+    }
 
-    public Long toLong(String path) {
-        try {
-            return (Long) JSONPath.eval(target, path);
+    /**
+     * 按类型读取  数值之间做无损转换  类型不兼容时抛出{@link ParamTypeException}
+     *
+     * @param path JSONPath
+     * @param type 期望的类型
+     * @return 路径不存在或值为null时返回null
+     */
+    public <T> T get(String path, Class<T> type) {
+        return convert(path, eval(path), type);
+    }
 
-        } catch (ClassCastException ignored) {
-            throw new ParamTypeException("参数类型错误");
-        }
+    public String toStr(String path) {
+        return get(path, String.class);
+    }
+
+    public Long toLong(String path) {
+        return get(path, Long.class);
     }
 
     public Double toDouble(String path) {
-        try {
-            return (Double) JSONPath.eval(target, path);
+        return get(path, Double.class);
+    }
+
+    public Integer toInteger(String path) {
+        return get(path, Integer.class);
+    }
 
-        } catch (ClassCastException ignored) {
-            throw new ParamTypeException("参数类型错误");
+    public Boolean toBoolean(String path) {
+        return get(path, Boolean.class);
+    }
+
+    public BigDecimal toBigDecimal(String path) {
+        return get(path, BigDecimal.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T convert(String path, Object value, Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return (T) value;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            boolean integral = number instanceof Integer || number instanceof Long
+                    || number instanceof Short || number instanceof Byte || number instanceof BigInteger;
+            if (type == Long.class && integral && (!(number instanceof BigInteger) || ((BigInteger) number).bitLength() < 64)) {
+                return (T) Long.valueOf(number.longValue());
+            }
+            if (type == Integer.class && integral && number.longValue() == number.intValue()
+                    && (!(number instanceof BigInteger) || ((BigInteger) number).bitLength() < 32)) {
+                return (T) Integer.valueOf(number.intValue());
+            }
+            if (type == Double.class) {
+                return (T) Double.valueOf(number.doubleValue());
+            }
+            if (type == BigDecimal.class) {
+                return (T) new BigDecimal(number.toString());
+            }
         }
+        throw new ParamTypeException("参数类型错误: " + path + " 期望 " + type.getSimpleName() + " 实际 " + value.getClass().getSimpleName());
     }
 }
@@ -0,0 +1,17 @@
+package io.jopen.mapreduce.local;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 溢写文件中键和值的序列化方式  常用类型见{@link Codecs}
+ *
+ * @author maxuefeng
+ */
+public interface Codec<T> {
+
+    void write(DataOutput out, T value) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
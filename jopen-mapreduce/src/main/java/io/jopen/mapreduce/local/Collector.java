@@ -0,0 +1,12 @@
+package io.jopen.mapreduce.local;
+
+/**
+ * map输出  键不能为null
+ *
+ * @author maxuefeng
+ */
+@FunctionalInterface
+public interface Collector<K, V> {
+
+    void emit(K key, V value);
+}
@@ -0,0 +1,14 @@
+package io.jopen.mapreduce.local;
+
+/**
+ * map端合并同一个键的两个值  必须满足结合律  例如词频统计中的求和
+ * <p>
+ * 设置后map输出先在内存中按键合并，溢写和shuffle的数据量只与不同键的数量有关
+ *
+ * @author maxuefeng
+ */
+@FunctionalInterface
+public interface Combiner<K, V> {
+
+    V combine(K key, V left, V right);
+}
@@ -0,0 +1,36 @@
+package io.jopen.mapreduce.local;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 一个map任务的输入  各分片由不同的map线程并行读取
+ *
+ * @author maxuefeng
+ * @see LineSplit
+ */
+@FunctionalInterface
+public interface InputSplit<I> {
+
+    /**
+     * 按顺序把分片中的每条记录交给consumer
+     */
+    void read(Consumer<? super I> consumer) throws IOException;
+
+    /**
+     * 把内存中的记录按chunkSize条切分
+     */
+    static <I> List<InputSplit<I>> chunks(List<I> records, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        List<InputSplit<I>> splits = new ArrayList<>();
+        for (int start = 0; start < records.size(); start += chunkSize) {
+            List<I> chunk = records.subList(start, Math.min(records.size(), start + chunkSize));
+            splits.add(consumer -> chunk.forEach(consumer));
+        }
+        return splits;
+    }
+}
@@ -0,0 +1,123 @@
+package io.jopen.mapreduce.local;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 文本文件按字节范围切分的分片  每行(UTF-8  去掉行尾的\r\n)一条记录
+ * <p>
+ * 起始位置不在行首时跳过第一行的剩余部分，该行由上一个分片读完；
+ * 分片只读取起始位置在[start, end)中的行，因此每行恰好被一个分片读取
+ *
+ * @author maxuefeng
+ */
+public final class LineSplit implements InputSplit<String> {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+
+    private final long start;
+
+    private final long end;
+
+    public LineSplit(Path file, long start, long end) {
+        this.file = file;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param splitBytes 每个分片的字节数
+     */
+    public static List<InputSplit<String>> of(Collection<Path> files, long splitBytes) throws IOException {
+        if (splitBytes <= 0) {
+            throw new IllegalArgumentException("splitBytes must be positive");
+        }
+        List<InputSplit<String>> splits = new ArrayList<>();
+        for (Path file : files) {
+            long length = Files.size(file);
+            for (long offset = 0; offset < length; offset += splitBytes) {
+                splits.add(new LineSplit(file, offset, Math.min(length, offset + splitBytes)));
+            }
+        }
+        return splits;
+    }
+
+    public static List<InputSplit<String>> of(Path file, long splitBytes) throws IOException {
+        return of(Arrays.asList(file), splitBytes);
+    }
+
+    @Override
+    public void read(Consumer<? super String> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 从start-1开始  start恰好是行首时只跳过上一行的换行符
+            long position = Math.max(0, start - 1);
+            channel.position(position);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            if (start > 0) {
+                int b;
+                do {
+                    b = next(channel, buffer);
+                    position++;
+                } while (b != -1 && b != '\n');
+                if (b == -1) {
+                    return;
+                }
+            }
+            byte[] line = new byte[256];
+            while (position < end) {
+                int length = 0;
+                int b;
+                while ((b = next(channel, buffer)) != -1 && b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) b;
+                }
+                if (b == -1 && length == 0) {
+                    return;
+                }
+                position += length + (b == -1 ? 0 : 1);
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                consumer.accept(new String(line, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * @return 下一个字节  文件结束时返回-1
+     */
+    private static int next(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public String toString() {
+        return file + ":" + start + "+" + (end - start);
+    }
+}
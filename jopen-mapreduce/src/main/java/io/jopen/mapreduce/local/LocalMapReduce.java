@@ -0,0 +1,473 @@
+package io.jopen.mapreduce.local;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 单机并行MapReduce  可以处理比堆大得多的输入(例如日志文件)
+ * <ol>
+ *     <li>map: ForkJoinPool中的parallelism个map线程依次领取{@link InputSplit}，
+ *     输出写入各自的{@link MapOutputBuffer}(按键的哈希分区  有{@link Combiner}时在内存中合并)</li>
+ *     <li>溢写: 缓冲的记录数超过maxBufferedRecords时，各分区按键排序后写入一个溢写文件；
+ *     一个map线程的溢写文件达到mergeFactor个时归并成一个</li>
+ *     <li>reduce: 各分区并行地把所有溢写文件的分区段与内存中剩下的记录多路归并，
+ *     相同的键连续出现，逐个键调用{@link Reducer}</li>
+ * </ol>
+ * 内存中最多同时缓存 parallelism * maxBufferedRecords 条map输出；一个分区的溢写段超过mergeFactor个时，
+ * reduce先把它们每mergeFactor个归并成一个只有该分区的中间文件，直到不超过mergeFactor个，
+ * 因此每个map或reduce线程最多同时读取 mergeFactor 个溢写段；
+ * 与{@link io.jopen.mapreduce.redisson.RedissonMapReduce}不同，中间结果不经过网络
+ *
+ * <pre>
+ * LocalMapReduce&lt;String, String, Long, Long&gt; wordCount = LocalMapReduce
+ *         .&lt;String, String, Long, Long&gt;builder(
+ *                 (line, collector) -&gt; { for (String word : line.split(" ")) collector.emit(word, 1L); },
+ *                 (word, counts) -&gt; { long sum = 0; while (counts.hasNext()) sum += counts.next(); return sum; })
+ *         .combiner((word, a, b) -&gt; a + b)
+ *         .keyCodec(Codecs.STRING).valueCodec(Codecs.LONG)
+ *         .build();
+ * Map&lt;String, Long&gt; counts = wordCount.execute(LineSplit.of(path, 64 &lt;&lt; 20));
+ * </pre>
+ *
+ * @param <I> 输入类型
+ * @param <K> 中间键类型  用于分区和排序  hashCode/equals与比较器必须一致
+ * @param <V> 中间值类型
+ * @param <R> 结果类型
+ * @author maxuefeng
+ */
+public final class LocalMapReduce<I, K, V, R> {
+
+    /**
+     * 一次执行的统计
+     */
+    public static final class Stats {
+
+        private final long inputRecords;
+
+        private final long mapOutputRecords;
+
+        private final int spills;
+
+        private final long spilledBytes;
+
+        private final long reducedKeys;
+
+        Stats(long inputRecords, long mapOutputRecords, int spills, long spilledBytes, long reducedKeys) {
+            this.inputRecords = inputRecords;
+            this.mapOutputRecords = mapOutputRecords;
+            this.spills = spills;
+            this.spilledBytes = spilledBytes;
+            this.reducedKeys = reducedKeys;
+        }
+
+        public long getInputRecords() {
+            return inputRecords;
+        }
+
+        /**
+         * @return map输出的记录数(合并前)
+         */
+        public long getMapOutputRecords() {
+            return mapOutputRecords;
+        }
+
+        /**
+         * @return 溢写次数(不含归并)
+         */
+        public int getSpills() {
+            return spills;
+        }
+
+        /**
+         * @return 溢写和归并写入磁盘的总字节数
+         */
+        public long getSpilledBytes() {
+            return spilledBytes;
+        }
+
+        public long getReducedKeys() {
+            return reducedKeys;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{inputRecords=" + inputRecords + ", mapOutputRecords=" + mapOutputRecords + ", spills=" + spills
+                    + ", spilledBytes=" + spilledBytes + ", reducedKeys=" + reducedKeys + '}';
+        }
+    }
+
+    private final Mapper<I, K, V> mapper;
+
+    private final Combiner<K, V> combiner;
+
+    private final Reducer<K, V, R> reducer;
+
+    private final Comparator<? super K> keyComparator;
+
+    private final Codec<K> keyCodec;
+
+    private final Codec<V> valueCodec;
+
+    private final int parallelism;
+
+    private final int partitions;
+
+    private final int maxBufferedRecords;
+
+    private final int mergeFactor;
+
+    private final File spillDirectory;
+
+    private LocalMapReduce(Builder<I, K, V, R> builder, int partitions) {
+        this.mapper = builder.mapper;
+        this.combiner = builder.combiner;
+        this.reducer = builder.reducer;
+        this.keyComparator = builder.keyComparator;
+        this.keyCodec = builder.keyCodec;
+        this.valueCodec = builder.valueCodec;
+        this.parallelism = builder.parallelism;
+        this.partitions = partitions;
+        this.maxBufferedRecords = builder.maxBufferedRecords;
+        this.mergeFactor = builder.mergeFactor;
+        this.spillDirectory = builder.spillDirectory;
+    }
+
+    public static <I, K, V, R> Builder<I, K, V, R> builder(Mapper<I, K, V> mapper, Reducer<K, V, R> reducer) {
+        return new Builder<>(mapper, reducer);
+    }
+
+    int partitions() {
+        return partitions;
+    }
+
+    /**
+     * @return 键到结果  结果为null的键不包含在内
+     */
+    public Map<K, R> execute(Collection<? extends InputSplit<I>> splits) {
+        Map<K, R> results = new ConcurrentHashMap<>();
+        execute(splits, (key, result) -> {
+            if (result != null) {
+                results.put(key, result);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * @param output 接收每个键的结果  会被多个reduce线程同时调用  同一个分区内按键的顺序调用
+     */
+    public Stats execute(Collection<? extends InputSplit<I>> splits, BiConsumer<? super K, ? super R> output) {
+        List<InputSplit<I>> inputs = new ArrayList<>(splits);
+        List<MapOutputBuffer<K, V>> buffers = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            LongAdder inputRecords = new LongAdder();
+            AtomicInteger nextSplit = new AtomicInteger();
+            List<ForkJoinTask<?>> mapTasks = new ArrayList<>(parallelism);
+            for (int t = 0; t < Math.min(parallelism, inputs.size()); t++) {
+                MapOutputBuffer<K, V> buffer = new MapOutputBuffer<>(partitions, combiner, keyComparator,
+                        keyCodec, valueCodec, maxBufferedRecords, mergeFactor, spillDirectory);
+                buffers.add(buffer);
+                mapTasks.add(pool.submit(() -> {
+                    for (int s; (s = nextSplit.getAndIncrement()) < inputs.size(); ) {
+                        try {
+                            inputs.get(s).read(input -> {
+                                inputRecords.increment();
+                                mapper.map(input, buffer);
+                            });
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("can not read split " + inputs.get(s), e);
+                        }
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : mapTasks) {
+                task.join();
+            }
+
+            LongAdder reducedKeys = new LongAdder();
+            LongAdder mergedBytes = new LongAdder();
+            List<ForkJoinTask<?>> reduceTasks = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                reduceTasks.add(pool.submit(() -> reduce(partition, buffers, output, reducedKeys, mergedBytes)));
+            }
+            for (ForkJoinTask<?> task : reduceTasks) {
+                task.join();
+            }
+
+            long mapOutputRecords = 0;
+            int spills = 0;
+            long spilledBytes = mergedBytes.sum();
+            for (MapOutputBuffer<K, V> buffer : buffers) {
+                mapOutputRecords += buffer.emitted();
+                spills += buffer.spillCount();
+                spilledBytes += buffer.spilledBytes();
+            }
+            return new Stats(inputRecords.sum(), mapOutputRecords, spills, spilledBytes, reducedKeys.sum());
+        } finally {
+            pool.shutdownNow();
+            for (MapOutputBuffer<K, V> buffer : buffers) {
+                for (SpillFile spill : buffer.spills()) {
+                    spill.delete();
+                }
+            }
+        }
+    }
+
+    private void reduce(int partition, List<MapOutputBuffer<K, V>> buffers, BiConsumer<? super K, ? super R> output,
+                        LongAdder reducedKeys, LongAdder mergedBytes) {
+        List<Run> runs = new ArrayList<>();
+        for (MapOutputBuffer<K, V> buffer : buffers) {
+            for (SpillFile spill : buffer.spills()) {
+                runs.add(new Run(spill, partition, false));
+            }
+        }
+        List<SpillFile.Segment<K, V>> segments = new ArrayList<>();
+        try {
+            while (runs.size() > mergeFactor) {
+                List<Run> batch = new ArrayList<>(runs.subList(0, mergeFactor));
+                runs.subList(0, mergeFactor).clear();
+                runs.add(merge(batch, segments, mergedBytes));
+            }
+            List<Iterator<Map.Entry<K, V>>> sources = new ArrayList<>();
+            for (Run run : runs) {
+                SpillFile.Segment<K, V> segment = run.spill.read(run.partition, keyCodec, valueCodec);
+                segments.add(segment);
+                sources.add(segment);
+            }
+            for (MapOutputBuffer<K, V> buffer : buffers) {
+                sources.add(buffer.drainSorted(partition).iterator());
+            }
+            PeekingIterator<Map.Entry<K, V>> merged = Iterators.peekingIterator(
+                    Iterators.mergeSorted(sources, Map.Entry.comparingByKey(keyComparator)));
+            while (merged.hasNext()) {
+                K key = merged.peek().getKey();
+                Values values = new Values(merged, key);
+                R result = reducer.reduce(key, values);
+                // reducer没有读完的值
+                while (values.hasNext()) {
+                    values.next();
+                }
+                reducedKeys.increment();
+                output.accept(key, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read spilled map output of partition " + partition, e);
+        } finally {
+            SpillFile.close(segments);
+            for (Run run : runs) {
+                if (run.intermediate) {
+                    run.spill.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * 把batch中的段归并成一个只有一个分区的中间文件  删除batch中的中间文件  map的溢写文件在执行结束时删除
+     */
+    private Run merge(List<Run> batch, List<SpillFile.Segment<K, V>> segments, LongAdder mergedBytes) throws IOException {
+        SpillFile result;
+        try {
+            result = SpillFile.write(spillDirectory, 1, p -> {
+                List<Iterator<Map.Entry<K, V>>> sources = new ArrayList<>(batch.size());
+                for (Run run : batch) {
+                    SpillFile.Segment<K, V> segment = run.spill.read(run.partition, keyCodec, valueCodec);
+                    segments.add(segment);
+                    sources.add(segment);
+                }
+                return Iterators.mergeSorted(sources, Map.Entry.comparingByKey(keyComparator));
+            }, keyCodec, valueCodec);
+        } finally {
+            SpillFile.close(segments);
+            for (Run run : batch) {
+                if (run.intermediate) {
+                    run.spill.delete();
+                }
+            }
+        }
+        mergedBytes.add(result.bytes());
+        return new Run(result, 0, true);
+    }
+
+    /**
+     * 一个分区的有序段
+     */
+    private static final class Run {
+
+        private final SpillFile spill;
+
+        private final int partition;
+
+        /**
+         * reduce时生成的中间文件  用完即删除
+         */
+        private final boolean intermediate;
+
+        Run(SpillFile spill, int partition, boolean intermediate) {
+            this.spill = spill;
+            this.partition = partition;
+            this.intermediate = intermediate;
+        }
+    }
+
+    /**
+     * 归并结果中与key相等的一段值
+     */
+    private final class Values implements Iterator<V> {
+
+        private final PeekingIterator<Map.Entry<K, V>> merged;
+
+        private final K key;
+
+        Values(PeekingIterator<Map.Entry<K, V>> merged, K key) {
+            this.merged = merged;
+            this.key = key;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return merged.hasNext() && keyComparator.compare(merged.peek().getKey(), key) == 0;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return merged.next().getValue();
+        }
+    }
+
+    public static final class Builder<I, K, V, R> {
+
+        private final Mapper<I, K, V> mapper;
+
+        private final Reducer<K, V, R> reducer;
+
+        private Combiner<K, V> combiner;
+
+        @SuppressWarnings("unchecked")
+        private Comparator<? super K> keyComparator = (Comparator<? super K>) Comparator.naturalOrder();
+
+        private Codec<K> keyCodec = Codecs.serializable();
+
+        private Codec<V> valueCodec = Codecs.serializable();
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private int partitions = -1;
+
+        private int maxBufferedRecords = 1 << 18;
+
+        private int mergeFactor = 16;
+
+        private File spillDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+        private Builder(Mapper<I, K, V> mapper, Reducer<K, V, R> reducer) {
+            if (mapper == null || reducer == null) {
+                throw new IllegalArgumentException("mapper and reducer must not be null");
+            }
+            this.mapper = mapper;
+            this.reducer = reducer;
+        }
+
+        public Builder<I, K, V, R> combiner(Combiner<K, V> combiner) {
+            this.combiner = combiner;
+            return this;
+        }
+
+        /**
+         * @param keyComparator 默认按自然顺序  键没有实现Comparable时必须设置
+         */
+        public Builder<I, K, V, R> keyComparator(Comparator<? super K> keyComparator) {
+            this.keyComparator = keyComparator;
+            return this;
+        }
+
+        /**
+         * @param keyCodec 默认Java序列化
+         */
+        public Builder<I, K, V, R> keyCodec(Codec<K> keyCodec) {
+            this.keyCodec = keyCodec;
+            return this;
+        }
+
+        /**
+         * @param valueCodec 默认Java序列化
+         */
+        public Builder<I, K, V, R> valueCodec(Codec<V> valueCodec) {
+            this.valueCodec = valueCodec;
+            return this;
+        }
+
+        /**
+         * @param parallelism map和reduce的线程数  默认CPU核数
+         */
+        public Builder<I, K, V, R> parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param partitions reduce分区数  默认等于parallelism
+         */
+        public Builder<I, K, V, R> partitions(int partitions) {
+            this.partitions = partitions;
+            return this;
+        }
+
+        /**
+         * @param maxBufferedRecords 每个map线程在内存中缓存的最多记录数(有combiner时为不同键的数量)  超过后溢写
+         */
+        public Builder<I, K, V, R> maxBufferedRecords(int maxBufferedRecords) {
+            this.maxBufferedRecords = maxBufferedRecords;
+            return this;
+        }
+
+        /**
+         * @param mergeFactor 每个map线程的溢写文件达到该数量时归并成一个  也是reduce时一次归并的最多段数  至少为2
+         */
+        public Builder<I, K, V, R> mergeFactor(int mergeFactor) {
+            this.mergeFactor = mergeFactor;
+            return this;
+        }
+
+        public Builder<I, K, V, R> spillDirectory(File spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        public LocalMapReduce<I, K, V, R> build() {
+            if (parallelism <= 0 || maxBufferedRecords <= 0 || partitions == 0 || partitions < -1) {
+                throw new IllegalArgumentException("parallelism, partitions and maxBufferedRecords must be positive");
+            }
+            if (mergeFactor < 2) {
+                throw new IllegalArgumentException("mergeFactor must be at least 2");
+            }
+            if (keyComparator == null || keyCodec == null || valueCodec == null || spillDirectory == null) {
+                throw new IllegalArgumentException("keyComparator, codecs and spillDirectory must not be null");
+            }
+            // 不回写partitions  之后修改parallelism再次build时仍然默认等于parallelism
+            return new LocalMapReduce<>(this, partitions == -1 ? parallelism : partitions);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.jopen.mapreduce.local;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个map线程的输出缓冲  按键的哈希分区
+ * <p>
+ * 有{@link Combiner}时每个分区是一个键到合并值的哈希表，否则是记录列表；
+ * 缓存的记录数达到上限后，每个分区按键排序写入同一个溢写文件；
+ * 溢写文件达到mergeFactor个时归并成一个(有Combiner时同时合并相同的键)，限制reduce时同时打开的文件数；
+ * 溢写和归并都逐个分区进行，同时打开的段数不超过mergeFactor
+ *
+ * @author maxuefeng
+ */
+final class MapOutputBuffer<K, V> implements Collector<K, V> {
+
+    private final int partitions;
+
+    private final Combiner<K, V> combiner;
+
+    private final Comparator<? super K> keyComparator;
+
+    private final Codec<K> keyCodec;
+
+    private final Codec<V> valueCodec;
+
+    private final int maxBufferedRecords;
+
+    private final int mergeFactor;
+
+    private final File spillDirectory;
+
+    private final List<Map<K, V>> combined;
+
+    private final List<List<Map.Entry<K, V>>> records;
+
+    private final List<SpillFile> spills = new ArrayList<>();
+
+    private int buffered;
+
+    private long emitted;
+
+    private int spillCount;
+
+    private long spilledBytes;
+
+    MapOutputBuffer(int partitions, Combiner<K, V> combiner, Comparator<? super K> keyComparator,
+                    Codec<K> keyCodec, Codec<V> valueCodec, int maxBufferedRecords, int mergeFactor, File spillDirectory) {
+        this.partitions = partitions;
+        this.combiner = combiner;
+        this.keyComparator = keyComparator;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.maxBufferedRecords = maxBufferedRecords;
+        this.mergeFactor = mergeFactor;
+        this.spillDirectory = spillDirectory;
+        this.combined = new ArrayList<>(partitions);
+        this.records = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            combined.add(combiner == null ? null : new HashMap<>());
+            records.add(combiner == null ? new ArrayList<>() : null);
+        }
+    }
+
+    static int partitionOf(Object key, int partitions) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % partitions;
+    }
+
+    @Override
+    public void emit(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("map output key must not be null");
+        }
+        emitted++;
+        int partition = partitionOf(key, partitions);
+        if (combiner == null) {
+            records.get(partition).add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+            buffered++;
+        } else {
+            Map<K, V> values = combined.get(partition);
+            V previous = values.get(key);
+            if (previous == null && !values.containsKey(key)) {
+                values.put(key, value);
+                buffered++;
+            } else {
+                values.put(key, combiner.combine(key, previous, value));
+            }
+        }
+        if (buffered >= maxBufferedRecords) {
+            spill();
+        }
+    }
+
+    /**
+     * @return 按键排序后的分区  并清空该分区的缓存
+     */
+    List<Map.Entry<K, V>> drainSorted(int partition) {
+        List<Map.Entry<K, V>> sorted;
+        if (combiner == null) {
+            sorted = records.get(partition);
+            records.set(partition, new ArrayList<>());
+        } else {
+            sorted = new ArrayList<>(combined.get(partition).entrySet());
+            combined.set(partition, new HashMap<>());
+        }
+        sorted.sort(Map.Entry.comparingByKey(keyComparator));
+        return sorted;
+    }
+
+    private void spill() {
+        try {
+            SpillFile spill = SpillFile.write(spillDirectory, partitions, p -> drainSorted(p).iterator(), keyCodec, valueCodec);
+            spills.add(spill);
+            spillCount++;
+            spilledBytes += spill.bytes();
+            if (spills.size() >= mergeFactor) {
+                mergeSpills();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not spill map output to " + spillDirectory, e);
+        }
+        buffered = 0;
+    }
+
+    /**
+     * 把所有溢写文件(mergeFactor个)逐个分区归并成一个  同时只打开一个分区的段
+     */
+    private void mergeSpills() throws IOException {
+        List<SpillFile.Segment<K, V>> segments = new ArrayList<>(spills.size());
+        try {
+            SpillFile result = SpillFile.write(spillDirectory, partitions, p -> {
+                // 上一个分区的段已经读完
+                SpillFile.close(segments);
+                List<Iterator<Map.Entry<K, V>>> sources = new ArrayList<>(spills.size());
+                for (SpillFile spill : spills) {
+                    SpillFile.Segment<K, V> segment = spill.read(p, keyCodec, valueCodec);
+                    segments.add(segment);
+                    sources.add(segment);
+                }
+                Iterator<Map.Entry<K, V>> partition = Iterators.mergeSorted(sources, Map.Entry.comparingByKey(keyComparator));
+                return combiner == null ? partition : combine(Iterators.peekingIterator(partition));
+            }, keyCodec, valueCodec);
+            spilledBytes += result.bytes();
+            for (SpillFile spill : spills) {
+                spill.delete();
+            }
+            spills.clear();
+            spills.add(result);
+        } finally {
+            SpillFile.close(segments);
+        }
+    }
+
+    /**
+     * 合并有序记录中相邻的相同键
+     */
+    private Iterator<Map.Entry<K, V>> combine(PeekingIterator<Map.Entry<K, V>> sorted) {
+        return new AbstractIterator<Map.Entry<K, V>>() {
+            @Override
+            protected Map.Entry<K, V> computeNext() {
+                if (!sorted.hasNext()) {
+                    return endOfData();
+                }
+                Map.Entry<K, V> first = sorted.next();
+                K key = first.getKey();
+                V value = first.getValue();
+                while (sorted.hasNext() && keyComparator.compare(sorted.peek().getKey(), key) == 0) {
+                    value = combiner.combine(key, value, sorted.next().getValue());
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(key, value);
+            }
+        };
+    }
+
+    List<SpillFile> spills() {
+        return spills;
+    }
+
+    /**
+     * @return map输出的记录数(合并前)
+     */
+    long emitted() {
+        return emitted;
+    }
+
+    /**
+     * @return 溢写次数(不含归并)
+     */
+    int spillCount() {
+        return spillCount;
+    }
+
+    /**
+     * @return 溢写和归并写入磁盘的总字节数
+     */
+    long spilledBytes() {
+        return spilledBytes;
+    }
+}
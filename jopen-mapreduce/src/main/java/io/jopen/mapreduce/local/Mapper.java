@@ -0,0 +1,15 @@
+package io.jopen.mapreduce.local;
+
+/**
+ * 把一条输入转换成任意个键值对  同一个map线程中串行调用
+ *
+ * @param <I> 输入类型
+ * @param <K> 中间键类型
+ * @param <V> 中间值类型
+ * @author maxuefeng
+ */
+@FunctionalInterface
+public interface Mapper<I, K, V> {
+
+    void map(I input, Collector<K, V> collector);
+}
@@ -0,0 +1,18 @@
+package io.jopen.mapreduce.local;
+
+import java.util.Iterator;
+
+/**
+ * 对一个键的所有值求结果  同一个分区中的键按顺序调用
+ *
+ * @param <R> 结果类型  返回null表示不输出该键
+ * @author maxuefeng
+ */
+@FunctionalInterface
+public interface Reducer<K, V, R> {
+
+    /**
+     * @param values 该键的所有值  只能遍历一次  从内存和溢写文件中按需读取
+     */
+    R reduce(K key, Iterator<V> values);
+}
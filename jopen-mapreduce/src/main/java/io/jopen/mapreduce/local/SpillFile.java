@@ -0,0 +1,207 @@
+package io.jopen.mapreduce.local;
+
+import com.google.common.io.CountingOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次溢写  每个分区一段  段内按键排序
+ *
+ * @author maxuefeng
+ */
+final class SpillFile {
+
+    private static final int READ_BUFFER_SIZE = 1 << 14;
+
+    /**
+     * 当前线程打开的段数  段总是在打开它的线程中读完或关闭
+     */
+    private static final ThreadLocal<int[]> OPEN_SEGMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * 单个线程同时打开的段数的最大值  用于检查归并的扇入
+     */
+    private static final AtomicInteger MAX_OPEN_SEGMENTS = new AtomicInteger();
+
+    private final File file;
+
+    /**
+     * 各分区段的起始位置
+     */
+    private final long[] offsets;
+
+    /**
+     * 各分区段的记录数
+     */
+    private final int[] counts;
+
+    private final long bytes;
+
+    private SpillFile(File file, long[] offsets, int[] counts, long bytes) {
+        this.file = file;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 按分区号依次提供一个分区按键排好序的记录
+     */
+    @FunctionalInterface
+    interface PartitionSource<K, V> {
+
+        /**
+         * 在写入该分区之前调用  前一个分区已经写完
+         */
+        Iterator<Map.Entry<K, V>> open(int partition) throws IOException;
+    }
+
+    /**
+     * 逐个分区写入  写入一个分区时才打开它的记录  归并时同时打开的段数不会乘以分区数
+     *
+     * @param partitions 分区数
+     */
+    static <K, V> SpillFile write(File directory, int partitions, PartitionSource<K, V> source,
+                                  Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        // 文件在执行结束或失败时显式删除  不注册deleteOnExit  否则JVM的删除列表会一直增长
+        File file = File.createTempFile("jopen-mapreduce-", ".spill", directory);
+        long[] offsets = new long[partitions];
+        int[] counts = new int[partitions];
+        CountingOutputStream counting = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try (DataOutputStream out = new DataOutputStream(counting)) {
+            for (int p = 0; p < partitions; p++) {
+                offsets[p] = counting.getCount();
+                for (Iterator<Map.Entry<K, V>> it = source.open(p); it.hasNext(); ) {
+                    Map.Entry<K, V> entry = it.next();
+                    keyCodec.write(out, entry.getKey());
+                    valueCodec.write(out, entry.getValue());
+                    counts[p]++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            throw e;
+        }
+        return new SpillFile(file, offsets, counts, counting.getCount());
+    }
+
+    /**
+     * @return 自上次重置以来单个线程同时打开的最多段数
+     */
+    static int maxOpenSegmentsPerThread() {
+        return MAX_OPEN_SEGMENTS.get();
+    }
+
+    static void resetMaxOpenSegments() {
+        MAX_OPEN_SEGMENTS.set(0);
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * 按顺序读取一个分区段  读完后自动关闭文件  提前放弃时调用者需要关闭返回的迭代器
+     */
+    <K, V> Segment<K, V> read(int partition, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        channel.position(offsets[partition]);
+        // 归并时同时打开很多段  缓冲区不宜太大
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), READ_BUFFER_SIZE);
+        return new Segment<>(new DataInputStream(in), counts[partition], keyCodec, valueCodec);
+    }
+
+    /**
+     * 关闭并清空segments  只读的文件  忽略关闭时的异常
+     */
+    static void close(List<? extends Segment<?, ?>> segments) {
+        for (Segment<?, ?> segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException ignored) {
+                // 只读的文件  随后被删除
+            }
+        }
+        segments.clear();
+    }
+
+    void delete() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    static final class Segment<K, V> implements Iterator<Map.Entry<K, V>>, AutoCloseable {
+
+        private final DataInputStream in;
+
+        private final Codec<K> keyCodec;
+
+        private final Codec<V> valueCodec;
+
+        private int remaining;
+
+        private boolean closed;
+
+        Segment(DataInputStream in, int count, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+            this.in = in;
+            this.remaining = count;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+            int[] open = OPEN_SEGMENTS.get();
+            MAX_OPEN_SEGMENTS.accumulateAndGet(++open[0], Math::max);
+            if (count == 0) {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                K key = keyCodec.read(in);
+                V value = valueCodec.read(in);
+                if (--remaining == 0) {
+                    close();
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(key, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            remaining = 0;
+            if (!closed) {
+                closed = true;
+                OPEN_SEGMENTS.get()[0]--;
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.jopen.mapreduce.local;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author maxuefeng
+ * @see LineSplit
+ */
+public class LineSplitTest {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("jopen-linesplit", ".txt");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private List<String> readAll(long splitBytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (InputSplit<String> split : LineSplit.of(file, splitBytes)) {
+            split.read(lines::add);
+        }
+        return lines;
+    }
+
+    @Test
+    public void testEveryLineReadExactlyOnce() throws IOException {
+        StringBuilder longLine = new StringBuilder();
+        while (longLine.length() < 100000) {
+            longLine.append("长行-long-line ");
+        }
+        List<String> expected = Arrays.asList("first", "", "windows", "中文 行", longLine.toString(), "", "x", "last");
+        String content = "first\n\nwindows\r\n中文 行\n" + longLine + "\n\nx\r\nlast\n";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        for (long splitBytes : new long[]{1, 2, 3, 7, 64, 1000, 1 << 16, content.length() * 4L}) {
+            Assert.assertEquals("splitBytes " + splitBytes, expected, readAll(splitBytes));
+        }
+    }
+
+    @Test
+    public void testLastLineWithoutNewline() throws IOException {
+        Files.write(file, "a\nbb\nccc".getBytes(StandardCharsets.UTF_8));
+        for (long splitBytes : new long[]{1, 2, 4, 100}) {
+            Assert.assertEquals(Arrays.asList("a", "bb", "ccc"), readAll(splitBytes));
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        Assert.assertEquals(0, LineSplit.of(file, 10).size());
+    }
+}
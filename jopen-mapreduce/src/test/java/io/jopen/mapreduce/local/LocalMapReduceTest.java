@@ -0,0 +1,213 @@
+package io.jopen.mapreduce.local;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用很小的maxBufferedRecords强制溢写和归并  与直接在内存中计算的结果比较
+ *
+ * @author maxuefeng
+ * @see LocalMapReduce
+ */
+public class LocalMapReduceTest {
+
+    private File spillDirectory;
+
+    @Before
+    public void createSpillDirectory() throws IOException {
+        spillDirectory = Files.createTempDirectory("jopen-mapreduce-test").toFile();
+    }
+
+    @After
+    public void deleteSpillDirectory() {
+        File[] files = spillDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    private static List<String> lines(int count, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int w = random.nextInt(8); w >= 0; w--) {
+                line.append("w").append(random.nextInt(vocabulary)).append(' ');
+            }
+            lines.add(line.toString().trim());
+        }
+        return lines;
+    }
+
+    private static Map<String, Long> countWords(List<String> lines) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String line : lines) {
+            for (String word : line.split(" ")) {
+                counts.merge(word, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private LocalMapReduce.Builder<String, String, Long, Long> wordCount() {
+        return LocalMapReduce.<String, String, Long, Long>builder(
+                (line, collector) -> {
+                    for (String word : line.split(" ")) {
+                        collector.emit(word, 1L);
+                    }
+                },
+                (word, counts) -> {
+                    long sum = 0;
+                    while (counts.hasNext()) {
+                        sum += counts.next();
+                    }
+                    return sum;
+                })
+                .keyCodec(Codecs.STRING)
+                .valueCodec(Codecs.LONG)
+                .spillDirectory(spillDirectory);
+    }
+
+    @Test
+    public void testWordCountWithCombinerSpillsAndMerges() {
+        List<String> lines = lines(20000, 3000, 1);
+        LocalMapReduce<String, String, Long, Long> job = wordCount()
+                .combiner((word, a, b) -> a + b)
+                .parallelism(4)
+                .partitions(3)
+                .maxBufferedRecords(200)
+                .mergeFactor(3)
+                .build();
+
+        Map<String, Long> results = new ConcurrentHashMap<>();
+        LocalMapReduce.Stats stats = job.execute(InputSplit.chunks(lines, 500), results::put);
+
+        Assert.assertEquals(countWords(lines), results);
+        Assert.assertEquals(lines.size(), stats.getInputRecords());
+        Assert.assertEquals(results.size(), stats.getReducedKeys());
+        Assert.assertTrue(stats.getSpills() > 0);
+        Assert.assertTrue(stats.getSpilledBytes() > 0);
+        Assert.assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testWithoutCombinerKeepsEveryValue() {
+        List<String> lines = lines(5000, 200, 2);
+        // 值为所在行号  reduce时检查每个值都出现且只出现一次
+        LocalMapReduce<Integer, String, Integer, List<Integer>> job = LocalMapReduce.<Integer, String, Integer, List<Integer>>builder(
+                (row, collector) -> {
+                    for (String word : lines.get(row).split(" ")) {
+                        collector.emit(word, row);
+                    }
+                },
+                (word, rows) -> {
+                    List<Integer> all = new ArrayList<>();
+                    rows.forEachRemaining(all::add);
+                    all.sort(Comparator.naturalOrder());
+                    return all;
+                })
+                .keyCodec(Codecs.STRING)
+                .valueCodec(Codecs.INTEGER)
+                .parallelism(3)
+                .maxBufferedRecords(100)
+                .mergeFactor(2)
+                .spillDirectory(spillDirectory)
+                .build();
+
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            rows.add(i);
+        }
+        Map<String, List<Integer>> results = job.execute(InputSplit.chunks(rows, 97));
+
+        Map<String, List<Integer>> expected = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            for (String word : lines.get(i).split(" ")) {
+                expected.computeIfAbsent(word, k -> new ArrayList<>()).add(i);
+            }
+        }
+        Assert.assertEquals(expected, results);
+        Assert.assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testReduceMergesWhenSpillsExceedMergeFactor() {
+        // 8个map线程各自保留溢写文件  每个分区的段数超过mergeFactor  reduce时先归并成中间文件
+        List<String> lines = lines(8000, 5000, 3);
+        LocalMapReduce<String, String, Long, Long> job = wordCount()
+                .combiner((word, a, b) -> a + b)
+                .parallelism(8)
+                .partitions(2)
+                .maxBufferedRecords(50)
+                .mergeFactor(2)
+                .build();
+
+        SpillFile.resetMaxOpenSegments();
+        LocalMapReduce.Stats stats = job.execute(InputSplit.chunks(lines, 100), (word, count) -> {
+        });
+        Assert.assertTrue(stats.toString(), stats.getSpills() >= 8);
+        Assert.assertEquals(2, SpillFile.maxOpenSegmentsPerThread());
+
+        Map<String, Long> results = job.execute(InputSplit.chunks(lines, 100));
+        Assert.assertEquals(countWords(lines), results);
+        Assert.assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testBuilderReusedWithDifferentParallelism() {
+        List<String> lines = lines(500, 20, 6);
+        LocalMapReduce.Builder<String, String, Long, Long> builder = wordCount().parallelism(2);
+        builder.build();
+        // 第一次build不回写partitions  分区数仍然默认等于新的parallelism
+        LocalMapReduce<String, String, Long, Long> job = builder.parallelism(4).build();
+        Assert.assertEquals(countWords(lines), job.execute(InputSplit.chunks(lines, 50)));
+        Assert.assertEquals(4, job.partitions());
+    }
+
+    @Test
+    public void testReducerMayStopReadingValues() {
+        List<String> lines = lines(3000, 50, 4);
+        LocalMapReduce<String, String, Long, Long> job = LocalMapReduce.<String, String, Long, Long>builder(
+                (line, collector) -> {
+                    for (String word : line.split(" ")) {
+                        collector.emit(word, 1L);
+                    }
+                },
+                // 只读第一个值
+                (word, counts) -> counts.next())
+                .keyCodec(Codecs.STRING)
+                .valueCodec(Codecs.LONG)
+                .maxBufferedRecords(100)
+                .spillDirectory(spillDirectory)
+                .build();
+
+        Map<String, Long> results = job.execute(InputSplit.chunks(lines, 200));
+        Assert.assertEquals(countWords(lines).keySet(), results.keySet());
+        for (Long value : results.values()) {
+            Assert.assertEquals(1L, (long) value);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeFactorMustBeAtLeastTwo() {
+        wordCount().mergeFactor(1).build();
+    }
+}
@@ -46,7 +46,13 @@ public abstract class ConcurrentMsgListener implements MessageListenerConcurrent
         // 会把不同的消息分别放置到不同的队列中
         for (Message msg : messageExtList) {
 
-            L.info("Receive msg Topic {}, subExpression {}, msg {} ", topic, subExpression, new String(msg.getBody()));
+            // 批量发送时由发布者压缩的消息体
+            GenericPublisher.uncompress(msg);
+
+            // 解码消息体的开销只在debug开启时产生
+            if (L.isDebugEnabled()) {
+                L.debug("Receive msg Topic {}, subExpression {}, msg {} ", topic, subExpression, new String(msg.getBody()));
+            }
 
             // 接收到消息之后解析消息
             handlerSingleMsg(msg);
@@ -1,25 +1,85 @@
 package io.jopen.rocketmq;
 
-import org.apache.commons.lang3.time.StopWatch;
 import org.apache.rocketmq.client.exception.MQBrokerException;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
 import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.common.UtilAll;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.remoting.common.RemotingHelper;
 import org.apache.rocketmq.remoting.exception.RemotingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
+ * 消息发布者  支持以下发送方式
+ * <ul>
+ *     <li>同步: {@link #publish(String, String, String, int)}</li>
+ *     <li>异步: {@link #publishAsync(String, String, String, SendCallback)}  未完成的异步发送数达到上限时阻塞调用者</li>
+ *     <li>单向: {@link #publishOneway(String, String, String)}  不等待broker确认  可能丢失</li>
+ *     <li>批量: {@link #publishBatch(String, String, Collection)}  把多个小消息打包成不超过{@link #DEFAULT_BATCH_MAX_BYTES}的批量消息</li>
+ * </ul>
+ * 消息体超过压缩阈值时被压缩：单条消息使用RocketMQ自带的压缩，消费者自动解压；
+ * 批量消息RocketMQ不压缩，由发布者压缩并设置{@link #COMPRESSED_PROPERTY}属性，消费者调用{@link #uncompress(Message)}解压
+ * <p>
+ * 每次发送只输出debug日志  异步发送失败的warn日志每秒最多输出一次
+ *
  * @author maxuefeng
  * @since 2019-05-28
  */
-public class GenericPublisher {
+public class GenericPublisher implements AutoCloseable {
+
+    /**
+     * 由发布者压缩的消息带有该属性
+     */
+    public static final String COMPRESSED_PROPERTY = "JOPEN_COMPRESSED";
+
+    /**
+     * 默认压缩阈值(字节)  与RocketMQ的默认值相同
+     */
+    public static final int DEFAULT_COMPRESS_THRESHOLD = 4 * 1024;
+
+    /**
+     * 默认最多未完成的异步发送数
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    /**
+     * 一个批量消息的最大字节数  小于broker默认的4M上限
+     */
+    public static final int DEFAULT_BATCH_MAX_BYTES = 1024 * 1024;
+
+    private static final String ZLIB = "zlib";
+
+    private static final String UNCOMPRESSED = "none";
+
+    private static final int COMPRESS_LEVEL = 5;
+
+    /**
+     * 批量消息中每条消息的固定开销(长度、magic、crc、flag、body长度、属性长度)
+     */
+    private static final int BATCH_ENTRY_OVERHEAD = 22;
+
+    private static final long FAILURE_LOG_INTERVAL_MS = 1000;
 
     private Logger L = LoggerFactory.getLogger(GenericPublisher.class);
 
@@ -33,14 +93,59 @@ public class GenericPublisher {
     //  NameServer 地址
     private String namesrvAddr;
 
+    // 小于等于0表示不压缩
+    private final int compressThreshold;
+
+    // 异步发送窗口
+    private final Semaphore inFlight;
+
+    // 未完成的异步发送数  归零时唤醒flush
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final Object drained = new Object();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final AtomicLong lastFailureLog = new AtomicLong();
+
     /*mq地址   group*/
     public GenericPublisher(String namesrvAddr, String producerGroup) throws MQClientException {
+        this(namesrvAddr, producerGroup, DEFAULT_MAX_IN_FLIGHT, DEFAULT_COMPRESS_THRESHOLD);
+    }
 
-        this.namesrvAddr = namesrvAddr;
+    /**
+     * @param maxInFlight       最多未完成的异步发送数
+     * @param compressThreshold 消息体超过该字节数时压缩  小于等于0表示不压缩
+     */
+    public GenericPublisher(String namesrvAddr, String producerGroup, int maxInFlight, int compressThreshold) throws MQClientException {
+        this(newProducer(namesrvAddr, producerGroup, compressThreshold), maxInFlight, compressThreshold);
 
-        this.producerGroup = producerGroup;
+        producer.start();
+        L.info("produce starting.....");
+    }
 
-        this.producer = new DefaultMQProducer(producerGroup);
+    /**
+     * 使用调用者配置好的生产者  由调用者启动  测试时传入模拟的生产者
+     */
+    GenericPublisher(DefaultMQProducer producer, int maxInFlight, int compressThreshold) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+
+        this.namesrvAddr = producer.getNamesrvAddr();
+
+        this.producerGroup = producer.getProducerGroup();
+
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.compressThreshold = compressThreshold;
+
+        this.producer = producer;
+    }
+
+    private static DefaultMQProducer newProducer(String namesrvAddr, String producerGroup, int compressThreshold) {
+
+        DefaultMQProducer producer = new DefaultMQProducer(producerGroup);
 
         //指定NameServer地址，多个地址以 ; 隔开
         producer.setNamesrvAddr(namesrvAddr);
@@ -48,12 +153,13 @@ public class GenericPublisher {
         //
         producer.setVipChannelEnabled(false);
 
+        producer.setCompressMsgBodyOverHowmuch(compressThreshold > 0 ? compressThreshold : Integer.MAX_VALUE);
+
         String instanceName = "RocketMQ-" + UUID.randomUUID().toString().replaceAll("-", "").toUpperCase();
 
         producer.setInstanceName(instanceName);
 
-        producer.start();
-        L.info("produce starting.....");
+        return producer;
     }
 
     public SendResult publish(String topic, String body) throws InterruptedException, RemotingException, MQClientException, MQBrokerException, UnsupportedEncodingException {
@@ -70,19 +176,241 @@ public class GenericPublisher {
 
         message.setDelayTimeLevel(delayTimeLevel);
 
-        StopWatch stop = new StopWatch();
+        SendResult result = producer.send(message);
 
-        stop.start();
+        L.debug("Send msg Topic {}, tags {}, msg {}, status {}", topic, tags, body, result.getSendStatus());
 
-        SendResult result = producer.send(message);
+        return result;
+    }
 
-        L.info("Send msg Topic {}, tags {}, msg {} ,", topic, tags, body);
+    public CompletableFuture<SendResult> publishAsync(String topic, String body) throws InterruptedException, UnsupportedEncodingException {
+        return this.publishAsync(topic, "", body);
+    }
 
-        L.info("Send status {} ,", result.getSendStatus());
+    /**
+     * 异步发送  发送失败时返回的future异常完成
+     */
+    public CompletableFuture<SendResult> publishAsync(String topic, String tags, String body) throws InterruptedException, UnsupportedEncodingException {
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        this.publishAsync(topic, tags, body, new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                future.complete(sendResult);
+            }
 
-        stop.stop();
+            @Override
+            public void onException(Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-        return result;
+    /**
+     * 异步发送  未完成的异步发送数达到maxInFlight时阻塞直到有发送完成
+     *
+     * @param callback 在RocketMQ的回调线程中执行  不要阻塞
+     */
+    public void publishAsync(String topic, String tags, String body, SendCallback callback) throws InterruptedException, UnsupportedEncodingException {
+
+        Message message = new Message(topic, tags, body.getBytes(RemotingHelper.DEFAULT_CHARSET));
+
+        inFlight.acquire();
+        outstanding.incrementAndGet();
+
+        SendCallback release = new SendCallback() {
+
+            // 有的版本在回调onException之后还会抛出异常  保证只完成一次
+            private final AtomicBoolean done = new AtomicBoolean();
+
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                if (done.compareAndSet(false, true)) {
+                    completed();
+                    L.debug("Send msg Topic {}, tags {}, status {}", topic, tags, sendResult.getSendStatus());
+                    callback.onSuccess(sendResult);
+                }
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                if (done.compareAndSet(false, true)) {
+                    completed();
+                    logFailure(topic, e);
+                    callback.onException(e);
+                }
+            }
+        };
+
+        try {
+            producer.send(message, release);
+        } catch (MQClientException | RemotingException e) {
+            release.onException(e);
+        } catch (InterruptedException | RuntimeException e) {
+            release.onException(e);
+            throw e;
+        }
+    }
+
+    private void completed() {
+        inFlight.release();
+        if (outstanding.decrementAndGet() == 0) {
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 单向发送  不等待broker的确认
+     */
+    public void publishOneway(String topic, String tags, String body) throws InterruptedException, RemotingException, MQClientException, UnsupportedEncodingException {
+
+        Message message = new Message(topic, tags, body.getBytes(RemotingHelper.DEFAULT_CHARSET));
+
+        producer.sendOneway(message);
+
+        L.debug("Send oneway msg Topic {}, tags {}, msg {}", topic, tags, body);
+    }
+
+    /**
+     * 批量同步发送  bodies按顺序打包成多个批量消息  每个批量消息对应一个结果
+     * <p>
+     * RocketMQ不压缩批量消息  超过压缩阈值的消息体由发布者压缩
+     */
+    public List<SendResult> publishBatch(String topic, String tags, Collection<String> bodies) throws InterruptedException, RemotingException, MQClientException, MQBrokerException, UnsupportedEncodingException {
+
+        List<Message> messages = new ArrayList<>(bodies.size());
+        for (String body : bodies) {
+            messages.add(compress(new Message(topic, tags, body.getBytes(RemotingHelper.DEFAULT_CHARSET))));
+        }
+
+        List<List<Message>> batches = split(messages, Math.min(DEFAULT_BATCH_MAX_BYTES, producer.getMaxMessageSize()));
+        List<SendResult> results = new ArrayList<>(batches.size());
+        for (List<Message> batch : batches) {
+            SendResult result = producer.send(batch);
+            L.debug("Send batch Topic {}, tags {}, size {}, status {}", topic, tags, batch.size(), result.getSendStatus());
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * 等待未完成的异步发送数归零  不占用发送窗口  其他线程可以继续发送，flush等待的也包括这些发送
+     *
+     * @throws TimeoutException 超时后仍有未完成的异步发送
+     */
+    public void flush(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drained) {
+            int pending;
+            while ((pending = outstanding.get()) > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException(pending + " async sends still in flight");
+                }
+                TimeUnit.NANOSECONDS.timedWait(drained, remaining);
+            }
+        }
+    }
+
+    /**
+     * @return 异步发送失败的次数
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * 等待异步发送完成后关闭生产者
+     */
+    @Override
+    public void close() {
+        try {
+            flush(producer.getSendMsgTimeout() * 2L, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            L.warn("producer shutdown with pending async sends: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        producer.shutdown();
+    }
+
+    private void logFailure(String topic, Throwable e) {
+        failures.increment();
+        long now = System.currentTimeMillis();
+        long last = lastFailureLog.get();
+        if (now - last >= FAILURE_LOG_INTERVAL_MS && lastFailureLog.compareAndSet(last, now)) {
+            L.warn("Send msg Topic {} failed, {} failures in total", topic, failures.sum(), e);
+        }
+    }
+
+    private Message compress(Message message) {
+        if (compressThreshold <= 0 || message.getBody().length <= compressThreshold) {
+            return message;
+        }
+        try {
+            message.setBody(UtilAll.compress(message.getBody(), COMPRESS_LEVEL));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        message.putUserProperty(COMPRESSED_PROPERTY, ZLIB);
+        return message;
+    }
+
+    /**
+     * 解压由发布者压缩的消息体  可以重复调用
+     *
+     * @return msg本身
+     */
+    public static Message uncompress(Message msg) {
+        if (ZLIB.equals(msg.getUserProperty(COMPRESSED_PROPERTY))) {
+            try {
+                msg.setBody(UtilAll.uncompress(msg.getBody()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            msg.putUserProperty(COMPRESSED_PROPERTY, UNCOMPRESSED);
+        }
+        return msg;
+    }
+
+    /**
+     * 按顺序把消息分成多批  每批的估算大小不超过maxBytes  超过maxBytes的单条消息单独成批
+     */
+    static List<List<Message>> split(List<Message> messages, int maxBytes) {
+        List<List<Message>> batches = new ArrayList<>();
+        List<Message> current = new ArrayList<>();
+        int currentBytes = 0;
+        for (Message message : messages) {
+            int bytes = sizeOf(message);
+            if (!current.isEmpty() && currentBytes + bytes > maxBytes) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(message);
+            currentBytes += bytes;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 消息在批量消息中编码后的大小(估算)
+     */
+    static int sizeOf(Message message) {
+        int size = message.getTopic().length() + message.getBody().length + BATCH_ENTRY_OVERHEAD;
+        Map<String, String> properties = message.getProperties();
+        if (properties != null) {
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                // 属性编码为 name\u0001value\u0002
+                size += property.getKey().length() + property.getValue().length() + 2;
+            }
+        }
+        return size;
     }
 
 }
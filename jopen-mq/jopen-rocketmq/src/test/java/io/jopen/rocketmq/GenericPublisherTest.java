@@ -0,0 +1,340 @@
+package io.jopen.rocketmq;
+
+import org.apache.rocketmq.broker.BrokerController;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.BrokerConfig;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.UtilAll;
+import org.apache.rocketmq.common.constant.PermName;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.namesrv.NamesrvConfig;
+import org.apache.rocketmq.namesrv.NamesrvController;
+import org.apache.rocketmq.remoting.netty.NettyClientConfig;
+import org.apache.rocketmq.remoting.netty.NettyServerConfig;
+import org.apache.rocketmq.store.config.MessageStoreConfig;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 使用内嵌的NameServer和Broker测试{@link GenericPublisher}的各种发送方式
+ *
+ * @author maxuefeng
+ */
+public class GenericPublisherTest {
+
+    private static File storeDir;
+
+    private static NamesrvController namesrv;
+
+    private static BrokerController broker;
+
+    private static String namesrvAddr;
+
+    @BeforeClass
+    public static void startBroker() throws Exception {
+        storeDir = Files.createTempDirectory("jopen-rocketmq").toFile();
+
+        NamesrvConfig namesrvConfig = new NamesrvConfig();
+        namesrvConfig.setKvConfigPath(new File(storeDir, "kvConfig.json").getPath());
+        namesrvConfig.setConfigStorePath(new File(storeDir, "namesrv.properties").getPath());
+        NettyServerConfig namesrvServerConfig = new NettyServerConfig();
+        namesrvServerConfig.setListenPort(freePort());
+        namesrv = new NamesrvController(namesrvConfig, namesrvServerConfig);
+        Assert.assertTrue(namesrv.initialize());
+        namesrv.start();
+        namesrvAddr = "127.0.0.1:" + namesrvServerConfig.getListenPort();
+
+        BrokerConfig brokerConfig = new BrokerConfig();
+        brokerConfig.setNamesrvAddr(namesrvAddr);
+        brokerConfig.setBrokerIP1("127.0.0.1");
+        brokerConfig.setBrokerName("jopen-test-broker");
+        brokerConfig.setAutoCreateTopicEnable(true);
+        NettyServerConfig brokerServerConfig = new NettyServerConfig();
+        // broker同时监听listenPort - 2(VIP通道)
+        brokerServerConfig.setListenPort(freeBrokerPort());
+        MessageStoreConfig storeConfig = new MessageStoreConfig();
+        storeConfig.setStorePathRootDir(storeDir.getPath());
+        storeConfig.setStorePathCommitLog(new File(storeDir, "commitlog").getPath());
+        storeConfig.setHaListenPort(freePort());
+        storeConfig.setMappedFileSizeCommitLog(64 * 1024 * 1024);
+        storeConfig.setMaxIndexNum(100);
+        storeConfig.setMaxHashSlotNum(100);
+        broker = new BrokerController(brokerConfig, brokerServerConfig, new NettyClientConfig(), storeConfig);
+        Assert.assertTrue(broker.initialize());
+        broker.start();
+    }
+
+    @AfterClass
+    public static void stopBroker() {
+        if (broker != null) {
+            broker.shutdown();
+        }
+        if (namesrv != null) {
+            namesrv.shutdown();
+        }
+        UtilAll.deleteFile(storeDir);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int freeBrokerPort() throws IOException {
+        while (true) {
+            int port = freePort();
+            try (ServerSocket vip = new ServerSocket(port - 2)) {
+                return port;
+            } catch (IOException ignored) {
+                // port - 2 被占用  换一个
+            }
+        }
+    }
+
+    private static void createTopic(String topic) {
+        broker.getTopicConfigManager().updateTopicConfig(new TopicConfig(topic, 4, 4, PermName.PERM_READ | PermName.PERM_WRITE));
+        broker.registerBrokerAll(true, false, true);
+    }
+
+    /**
+     * 内容随机  压缩后大约是原来的2/3
+     */
+    private static String body(int i, int length) {
+        Random random = new Random(i);
+        StringBuilder builder = new StringBuilder(length).append(i).append(':');
+        while (builder.length() < length) {
+            builder.append(Character.forDigit(random.nextInt(36), 36));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void splitRespectsMaxBytes() {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(new Message("topic", "", new byte[1000]));
+        }
+        messages.add(new Message("topic", "", new byte[20000]));
+
+        int maxBytes = 10 * 1024;
+        List<List<Message>> batches = GenericPublisher.split(messages, maxBytes);
+
+        int count = 0;
+        for (List<Message> batch : batches) {
+            int bytes = 0;
+            for (Message message : batch) {
+                bytes += GenericPublisher.sizeOf(message);
+            }
+            Assert.assertTrue(batch.size() == 1 || bytes <= maxBytes);
+            count += batch.size();
+        }
+        Assert.assertEquals(messages.size(), count);
+        // 超过上限的消息单独成批
+        Assert.assertEquals(Collections.singletonList(messages.get(100)), batches.get(batches.size() - 1));
+    }
+
+    @Test
+    public void publishAsyncWithinWindow() throws Exception {
+        String topic = "jopen-async";
+        createTopic(topic);
+        try (GenericPublisher publisher = new GenericPublisher(namesrvAddr, "jopen-async-producer", 8, GenericPublisher.DEFAULT_COMPRESS_THRESHOLD)) {
+            List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(publisher.publishAsync(topic, body(i, 100)));
+            }
+            publisher.flush(30, TimeUnit.SECONDS);
+            for (CompletableFuture<SendResult> future : futures) {
+                Assert.assertTrue(future.isDone());
+                Assert.assertEquals(SendStatus.SEND_OK, future.get().getSendStatus());
+            }
+            Assert.assertEquals(0, publisher.getFailureCount());
+
+            publisher.publishOneway(topic, "", body(-1, 100));
+        }
+    }
+
+    @Test
+    public void publishBatchCompressed() throws Exception {
+        String topic = "jopen-batch";
+        createTopic(topic);
+
+        // 一半的消息超过压缩阈值  压缩后的总大小仍超过一个批量消息的上限
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            bodies.add(body(i, i % 2 == 0 ? 100 : 8 * 1024));
+        }
+
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(bodies.size());
+        DefaultMQPushConsumer consumer = new DefaultMQPushConsumer("jopen-batch-consumer");
+        consumer.setNamesrvAddr(namesrvAddr);
+        consumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_FIRST_OFFSET);
+        consumer.subscribe(topic, "*");
+        consumer.registerMessageListener((List<MessageExt> messages, ConsumeConcurrentlyContext context) -> {
+            for (MessageExt message : messages) {
+                if (received.add(new String(GenericPublisher.uncompress(message).getBody(), StandardCharsets.UTF_8))) {
+                    latch.countDown();
+                }
+            }
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        });
+        consumer.start();
+
+        try (GenericPublisher publisher = new GenericPublisher(namesrvAddr, "jopen-batch-producer")) {
+            List<SendResult> results = publisher.publishBatch(topic, "batch", bodies);
+            Assert.assertTrue(results.size() > 1);
+            for (SendResult result : results) {
+                Assert.assertEquals(SendStatus.SEND_OK, result.getSendStatus());
+            }
+
+            Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+            Assert.assertEquals(new HashSet<>(bodies), received);
+        } finally {
+            consumer.shutdown();
+        }
+    }
+
+    /**
+     * 不连接broker  记录异步发送的回调由测试完成  或者抛出指定的异常
+     */
+    private static class ManualProducer extends DefaultMQProducer {
+
+        final List<SendCallback> callbacks = Collections.synchronizedList(new ArrayList<>());
+
+        volatile RuntimeException failure;
+
+        ManualProducer() {
+            super("jopen-manual-producer");
+        }
+
+        @Override
+        public void send(Message msg, SendCallback sendCallback) {
+            if (failure != null) {
+                throw failure;
+            }
+            callbacks.add(sendCallback);
+        }
+
+        void completeAll() {
+            SendResult result = new SendResult();
+            result.setSendStatus(SendStatus.SEND_OK);
+            for (SendCallback callback : new ArrayList<>(callbacks)) {
+                callback.onSuccess(result);
+            }
+            callbacks.clear();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void runtimeExceptionReleasesWindow() throws Exception {
+        ManualProducer producer = new ManualProducer();
+        GenericPublisher publisher = new GenericPublisher(producer, 1, GenericPublisher.DEFAULT_COMPRESS_THRESHOLD);
+        producer.failure = new IllegalStateException("send failed");
+        for (int i = 0; i < 3; i++) {
+            try {
+                publisher.publishAsync("topic", body(i, 10));
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                // 窗口只有1  没有归还时第二次发送会一直阻塞
+            }
+        }
+        Assert.assertEquals(3, publisher.getFailureCount());
+        publisher.flush(1, TimeUnit.SECONDS);
+
+        producer.failure = null;
+        CompletableFuture<SendResult> future = publisher.publishAsync("topic", body(3, 10));
+        producer.completeAll();
+        Assert.assertEquals(SendStatus.SEND_OK, future.get().getSendStatus());
+    }
+
+    @Test(timeout = 10000)
+    public void flushWaitsForOutstandingSendsWithoutBlockingPublishers() throws Exception {
+        ManualProducer producer = new ManualProducer();
+        GenericPublisher publisher = new GenericPublisher(producer, 4, GenericPublisher.DEFAULT_COMPRESS_THRESHOLD);
+        for (int i = 0; i < 3; i++) {
+            publisher.publishAsync("topic", body(i, 10));
+        }
+
+        CountDownLatch flushed = new CountDownLatch(1);
+        Thread flusher = new Thread(() -> {
+            try {
+                publisher.flush(30, TimeUnit.SECONDS);
+                flushed.countDown();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        flusher.start();
+
+        // flush不占用发送窗口
+        Assert.assertFalse(flushed.await(100, TimeUnit.MILLISECONDS));
+        publisher.publishAsync("topic", body(3, 10));
+        Assert.assertEquals(4, producer.callbacks.size());
+
+        SendResult result = new SendResult();
+        result.setSendStatus(SendStatus.SEND_OK);
+        for (int i = 0; i < 3; i++) {
+            producer.callbacks.get(i).onSuccess(result);
+        }
+        Assert.assertFalse(flushed.await(100, TimeUnit.MILLISECONDS));
+
+        producer.callbacks.get(3).onSuccess(result);
+        Assert.assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        flusher.join();
+    }
+
+    @Test(timeout = 10000)
+    public void flushTimesOut() throws Exception {
+        ManualProducer producer = new ManualProducer();
+        GenericPublisher publisher = new GenericPublisher(producer, 8, GenericPublisher.DEFAULT_COMPRESS_THRESHOLD);
+        publisher.publishAsync("topic", body(0, 10));
+        publisher.publishAsync("topic", body(1, 10));
+        try {
+            publisher.flush(50, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (TimeoutException e) {
+            Assert.assertEquals("2 async sends still in flight", e.getMessage());
+        }
+        producer.completeAll();
+        publisher.flush(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void uncompressIsIdempotent() throws Exception {
+        byte[] body = body(0, 10000).getBytes(StandardCharsets.UTF_8);
+        Message message = new Message("topic", "", UtilAll.compress(body, 5));
+        message.putUserProperty(GenericPublisher.COMPRESSED_PROPERTY, "zlib");
+
+        Assert.assertTrue(Arrays.equals(body, GenericPublisher.uncompress(message).getBody()));
+        Assert.assertTrue(Arrays.equals(body, GenericPublisher.uncompress(message).getBody()));
+    }
+}
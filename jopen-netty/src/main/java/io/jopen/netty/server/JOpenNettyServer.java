@@ -1,37 +1,218 @@
 package io.jopen.netty.server;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.SocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * 基于长度字段分帧的TCP服务器
+ * <ul>
+ *     <li>帧格式: 大端长度字段(默认4字节，不含自身) + 内容</li>
+ *     <li>epoll可用时使用epoll，否则使用NIO；boss/worker线程数可配置</li>
+ *     <li>连接使用池化的直接内存分配器</li>
+ *     <li>{@link RequestHandler}在业务线程池中执行，慢请求不会阻塞IO线程；
+ *     同一个连接上可以连续发送多个请求(流水线)，响应按请求顺序返回</li>
+ *     <li>合并flush: 一次读取中产生的多个响应只flush一次</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * JOpenNettyServer server = new JOpenNettyServer(new ServerConfig().port(8899), (request, alloc) -> request.retain());
+ * server.start();
+ * ...
+ * server.close();
+ * }</pre>
+ *
  * @author maxuefeng
  * @since 2019/12/14
  */
-public class JOpenNettyServer {
+public class JOpenNettyServer implements AutoCloseable {
+
+    /**
+     * 所有连接共享的池化分配器  优先使用直接内存
+     */
+    private static final ByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+
+    private final ServerConfig config;
+
+    private final RequestHandler handler;
+
+    private final boolean epoll;
 
-    public static void main(String[] args) {
+    private EventLoopGroup bossGroup;
 
-        // 接受请求
-        EventLoopGroup workGroup = new NioEventLoopGroup();
-        EventLoopGroup bossGroup = new NioEventLoopGroup();
+    private EventLoopGroup workerGroup;
+
+    private ExecutorService ownedExecutor;
+
+    private volatile Channel serverChannel;
+
+    public JOpenNettyServer(ServerConfig config, RequestHandler handler) {
+        config.validate();
+        if (handler == null) {
+            throw new NullPointerException("handler");
+        }
+        this.config = config;
+        this.handler = handler;
+        this.epoll = config.isPreferEpoll() && Epoll.isAvailable();
+    }
 
-        //
-        ServerBootstrap bootstrap = new ServerBootstrap();
+    /**
+     * 绑定端口  返回时已经可以接受连接
+     */
+    public synchronized JOpenNettyServer start() throws InterruptedException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("server already started");
+        }
+        bossGroup = newGroup(config.getBossThreads(), new DefaultThreadFactory("jopen-netty-boss"));
+        workerGroup = newGroup(config.getWorkerThreads(), new DefaultThreadFactory("jopen-netty-worker"));
+        Executor executor = config.getBusinessExecutor();
+        if (executor == null && config.getBusinessThreads() > 0) {
+            ownedExecutor = Executors.newFixedThreadPool(config.getBusinessThreads(), new DefaultThreadFactory("jopen-netty-business"));
+            executor = ownedExecutor;
+        }
+
+        Class<? extends ServerChannel> channelClass = epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(channelClass)
+                .option(ChannelOption.SO_BACKLOG, config.getBacklog())
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .option(ChannelOption.ALLOCATOR, ALLOCATOR)
+                .childOption(ChannelOption.ALLOCATOR, ALLOCATOR)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                        new WriteBufferWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
+                .childHandler(new InitChannel(config, handler, executor));
+        try {
+            serverChannel = bootstrap.bind(config.getPort()).sync().channel();
+        } catch (InterruptedException | RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+        return this;
+    }
+
+    private EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+        return epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    /**
+     * @return 实际绑定的地址  未启动时为null
+     */
+    public SocketAddress localAddress() {
+        Channel channel = serverChannel;
+        return channel == null ? null : channel.localAddress();
+    }
 
-        //
-        bootstrap.group(bossGroup, workGroup)
-                .channel(NioServerSocketChannel.class)
-                .childHandler(new InitChannel());
+    /**
+     * @return 是否使用epoll
+     */
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    /**
+     * 阻塞直到服务器关闭
+     */
+    public void awaitClose() throws InterruptedException {
+        Channel channel = serverChannel;
+        if (channel != null) {
+            channel.closeFuture().sync();
+        }
+    }
+
+    /**
+     * 停止接受连接  等待IO线程和自己创建的业务线程池退出
+     */
+    @Override
+    public synchronized void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+        shutdown();
+    }
+
+    private void shutdown() {
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully().syncUninterruptibly();
+            bossGroup = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully().syncUninterruptibly();
+            workerGroup = null;
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+            try {
+                ownedExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ownedExecutor = null;
+        }
     }
 
     static class InitChannel extends ChannelInitializer<SocketChannel> {
 
-        protected void initChannel(SocketChannel ch) throws Exception {
-            ch.pipeline().addLast();
+        private final ServerConfig config;
+
+        private final RequestHandler handler;
+
+        private final Executor executor;
+
+        InitChannel(ServerConfig config, RequestHandler handler, Executor executor) {
+            this.config = config;
+            this.handler = handler;
+            this.executor = executor;
         }
+
+        @Override
+        protected void initChannel(SocketChannel ch) {
+            int lengthFieldLength = config.getLengthFieldLength();
+            ch.pipeline()
+                    // 放在最前面  合并后面所有handler的flush
+                    .addLast(new FlushConsolidationHandler(config.getExplicitFlushAfterFlushes(), true))
+                    .addLast(new LengthFieldBasedFrameDecoder(config.getMaxFrameLength(), 0, lengthFieldLength, 0, lengthFieldLength))
+                    .addLast(new LengthFieldPrepender(lengthFieldLength))
+                    .addLast(new PipeliningHandler(handler, executor, config.getMaxPipelinedRequests()));
+        }
+    }
+
+    /**
+     * 回显服务器
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8899;
+        RequestHandler echo = (ByteBuf request, ByteBufAllocator alloc) -> request.retain();
+        JOpenNettyServer server = new JOpenNettyServer(new ServerConfig().port(port), echo).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("listening on " + server.localAddress() + (server.isEpoll() ? " (epoll)" : " (nio)"));
+        server.awaitClose();
     }
 }
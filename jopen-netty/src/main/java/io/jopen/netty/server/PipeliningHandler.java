@@ -0,0 +1,172 @@
+package io.jopen.netty.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 请求流水线  每个连接一个实例
+ * <p>
+ * 收到的请求按顺序占一个槽位后交给业务线程池执行，完成后切回连接的IO线程，
+ * 从队头开始把已完成的响应依次写出，因此响应顺序与请求顺序一致。
+ * 未写回的请求数达到上限或连接不可写时暂停读取，由TCP把压力传回客户端。
+ * 除了业务线程中的{@link RequestHandler}调用，所有状态只在IO线程中访问
+ *
+ * @author maxuefeng
+ */
+final class PipeliningHandler extends ChannelInboundHandlerAdapter {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(PipeliningHandler.class);
+
+    private final RequestHandler handler;
+
+    /**
+     * null表示在IO线程中直接处理
+     */
+    private final Executor executor;
+
+    private final int maxPipelinedRequests;
+
+    private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+
+    private boolean closing;
+
+    PipeliningHandler(RequestHandler handler, Executor executor, int maxPipelinedRequests) {
+        this.handler = handler;
+        this.executor = executor;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (closing) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        ByteBuf request = (ByteBuf) msg;
+        Slot slot = new Slot();
+        pending.add(slot);
+        if (executor == null) {
+            complete(ctx, slot, invoke(ctx, request));
+        } else {
+            try {
+                executor.execute(() -> {
+                    Object result = invoke(ctx, request);
+                    try {
+                        ctx.executor().execute(() -> complete(ctx, slot, result));
+                    } catch (RejectedExecutionException e) {
+                        // IO线程已经退出
+                        ReferenceCountUtil.release(result);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                request.release();
+                complete(ctx, slot, e);
+            }
+        }
+        updateAutoRead(ctx);
+    }
+
+    /**
+     * @return 响应、null(没有响应)或处理时抛出的异常
+     */
+    private Object invoke(ChannelHandlerContext ctx, ByteBuf request) {
+        try {
+            return handler.handle(request, ctx.alloc());
+        } catch (Throwable t) {
+            return t;
+        } finally {
+            request.release();
+        }
+    }
+
+    private void complete(ChannelHandlerContext ctx, Slot slot, Object result) {
+        if (closing) {
+            // 连接已关闭或正在关闭  丢弃结果
+            ReferenceCountUtil.release(result);
+            return;
+        }
+        slot.result = result;
+        slot.done = true;
+
+        boolean written = false;
+        while (!pending.isEmpty() && pending.peek().done) {
+            Object response = pending.poll().result;
+            if (response instanceof Throwable) {
+                logger.warn("request handler failed, closing " + ctx.channel(), (Throwable) response);
+                fail(ctx);
+                return;
+            }
+            if (response != null) {
+                ctx.write(response);
+                written = true;
+            }
+        }
+        if (written) {
+            ctx.flush();
+        }
+        updateAutoRead(ctx);
+    }
+
+    /**
+     * 写出之前的响应后关闭连接  释放排在后面已完成的响应
+     */
+    private void fail(ChannelHandlerContext ctx) {
+        closing = true;
+        releasePending();
+        ctx.flush();
+        ctx.close();
+    }
+
+    private void releasePending() {
+        Slot slot;
+        while ((slot = pending.poll()) != null) {
+            if (slot.done) {
+                ReferenceCountUtil.release(slot.result);
+            }
+        }
+    }
+
+    private void updateAutoRead(ChannelHandlerContext ctx) {
+        Channel channel = ctx.channel();
+        boolean read = !closing && channel.isWritable() && pending.size() < maxPipelinedRequests;
+        if (channel.config().isAutoRead() != read) {
+            channel.config().setAutoRead(read);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        updateAutoRead(ctx);
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        closing = true;
+        releasePending();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        // 解码失败(如帧过长)或IO异常  连接无法继续使用
+        logger.warn("closing " + ctx.channel(), cause);
+        fail(ctx);
+    }
+
+    private static final class Slot {
+
+        private boolean done;
+
+        private Object result;
+    }
+}
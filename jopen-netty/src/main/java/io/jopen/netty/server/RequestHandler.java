@@ -0,0 +1,24 @@
+package io.jopen.netty.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * 处理一个请求帧  配置了业务线程池时在业务线程中调用  可以阻塞
+ * <p>
+ * 同一个连接上的请求可能被并行处理，但响应总是按请求的顺序写回
+ *
+ * @author maxuefeng
+ * @see JOpenNettyServer
+ */
+@FunctionalInterface
+public interface RequestHandler {
+
+    /**
+     * @param request   请求帧的内容(不含长度字段)  方法返回后被释放  需要异步使用时调用者自行retain
+     * @param allocator 连接使用的池化分配器  用于分配响应
+     * @return 响应帧的内容(不含长度字段)  写出后释放；返回null表示该请求没有响应
+     * @throws Exception 写回之前的响应后关闭连接
+     */
+    ByteBuf handle(ByteBuf request, ByteBufAllocator allocator) throws Exception;
+}
@@ -0,0 +1,212 @@
+package io.jopen.netty.server;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link JOpenNettyServer}的配置  所有参数都有默认值
+ *
+ * @author maxuefeng
+ */
+public class ServerConfig {
+
+    private int port = 8899;
+
+    private int bossThreads = 1;
+
+    /**
+     * 0表示使用netty的默认值(CPU核数 * 2)
+     */
+    private int workerThreads = 0;
+
+    private int businessThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    private Executor businessExecutor;
+
+    private boolean preferEpoll = true;
+
+    private int maxFrameLength = 16 * 1024 * 1024;
+
+    private int lengthFieldLength = 4;
+
+    private int maxPipelinedRequests = 128;
+
+    private int explicitFlushAfterFlushes = 256;
+
+    private int backlog = 1024;
+
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @param port 0表示随机端口  绑定后通过{@link JOpenNettyServer#localAddress()}获取
+     */
+    public ServerConfig port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public int getBossThreads() {
+        return bossThreads;
+    }
+
+    public ServerConfig bossThreads(int bossThreads) {
+        this.bossThreads = bossThreads;
+        return this;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * @param workerThreads IO线程数  0表示CPU核数 * 2
+     */
+    public ServerConfig workerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    public int getBusinessThreads() {
+        return businessThreads;
+    }
+
+    /**
+     * @param businessThreads 执行{@link RequestHandler}的线程数  0表示直接在IO线程中执行(只适合不阻塞的处理)
+     */
+    public ServerConfig businessThreads(int businessThreads) {
+        this.businessThreads = businessThreads;
+        return this;
+    }
+
+    public Executor getBusinessExecutor() {
+        return businessExecutor;
+    }
+
+    /**
+     * @param businessExecutor 使用调用者的线程池执行{@link RequestHandler}  优先于businessThreads  服务器关闭时不会关闭它
+     */
+    public ServerConfig businessExecutor(Executor businessExecutor) {
+        this.businessExecutor = businessExecutor;
+        return this;
+    }
+
+    public boolean isPreferEpoll() {
+        return preferEpoll;
+    }
+
+    /**
+     * @param preferEpoll epoll可用时(Linux且加载了本地库)使用epoll  否则使用NIO
+     */
+    public ServerConfig preferEpoll(boolean preferEpoll) {
+        this.preferEpoll = preferEpoll;
+        return this;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    /**
+     * @param maxFrameLength 帧内容的最大字节数  超过时关闭连接
+     */
+    public ServerConfig maxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+        return this;
+    }
+
+    public int getLengthFieldLength() {
+        return lengthFieldLength;
+    }
+
+    /**
+     * @param lengthFieldLength 帧头长度字段的字节数(大端)  1、2、3、4或8
+     */
+    public ServerConfig lengthFieldLength(int lengthFieldLength) {
+        this.lengthFieldLength = lengthFieldLength;
+        return this;
+    }
+
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    /**
+     * @param maxPipelinedRequests 一个连接上未写回响应的请求数达到该值时暂停读取
+     */
+    public ServerConfig maxPipelinedRequests(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        return this;
+    }
+
+    public int getExplicitFlushAfterFlushes() {
+        return explicitFlushAfterFlushes;
+    }
+
+    /**
+     * @param explicitFlushAfterFlushes 合并flush时最多合并的次数
+     */
+    public ServerConfig explicitFlushAfterFlushes(int explicitFlushAfterFlushes) {
+        this.explicitFlushAfterFlushes = explicitFlushAfterFlushes;
+        return this;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public ServerConfig backlog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    /**
+     * 待发送的字节数超过high时连接不可写并暂停读取  降到low以下后恢复
+     */
+    public ServerConfig writeBufferWaterMark(int low, int high) {
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+        return this;
+    }
+
+    void validate() {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port out of range: " + port);
+        }
+        if (bossThreads <= 0 || workerThreads < 0 || businessThreads < 0) {
+            throw new IllegalArgumentException("bossThreads must be positive, workerThreads and businessThreads must not be negative");
+        }
+        if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 3
+                && lengthFieldLength != 4 && lengthFieldLength != 8) {
+            throw new IllegalArgumentException("lengthFieldLength must be 1, 2, 3, 4 or 8: " + lengthFieldLength);
+        }
+        if (maxFrameLength <= 0 || maxPipelinedRequests <= 0 || explicitFlushAfterFlushes <= 0 || backlog <= 0) {
+            throw new IllegalArgumentException("maxFrameLength, maxPipelinedRequests, explicitFlushAfterFlushes and backlog must be positive");
+        }
+        if (writeBufferLowWaterMark < 0 || writeBufferHighWaterMark < writeBufferLowWaterMark) {
+            throw new IllegalArgumentException("invalid write buffer water mark: " + writeBufferLowWaterMark + ", " + writeBufferHighWaterMark);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ServerConfig{port=" + port + ", bossThreads=" + bossThreads + ", workerThreads=" + workerThreads
+                + ", businessThreads=" + (businessExecutor != null ? "external" : String.valueOf(businessThreads))
+                + ", preferEpoll=" + preferEpoll + ", maxFrameLength=" + maxFrameLength
+                + ", lengthFieldLength=" + lengthFieldLength + ", maxPipelinedRequests=" + maxPipelinedRequests
+                + ", explicitFlushAfterFlushes=" + explicitFlushAfterFlushes + ", backlog=" + backlog
+                + ", writeBufferWaterMark=" + writeBufferLowWaterMark + "/" + writeBufferHighWaterMark + '}';
+    }
+}
@@ -0,0 +1,221 @@
+package io.jopen.netty.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 用{@link EmbeddedChannel}和手动执行的业务线程池测试{@link PipeliningHandler}
+ *
+ * @author maxuefeng
+ */
+public class PipeliningHandlerTest {
+
+    /**
+     * 提交的任务由测试按任意顺序执行
+     */
+    private static final class ManualExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        /**
+         * 执行第i个提交的任务
+         */
+        void run(int i) {
+            tasks.get(i).run();
+        }
+    }
+
+    /**
+     * 回显请求  内容为"fail"时抛出异常  记录所有响应以便检查是否被释放
+     */
+    private final List<ByteBuf> responses = new ArrayList<>();
+
+    private final RequestHandler echo = (request, alloc) -> {
+        String text = request.toString(CharsetUtil.UTF_8);
+        if (text.equals("fail")) {
+            throw new IllegalStateException("handler failed");
+        }
+        ByteBuf response = alloc.buffer().writeBytes(request);
+        responses.add(response);
+        return response;
+    };
+
+    private EmbeddedChannel channel;
+
+    @After
+    public void closeChannel() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static ByteBuf text(String text) {
+        return Unpooled.copiedBuffer(text, CharsetUtil.UTF_8);
+    }
+
+    /**
+     * @return 下一个写出的响应  没有时返回null
+     */
+    private String readResponse() {
+        ByteBuf response = channel.readOutbound();
+        if (response == null) {
+            return null;
+        }
+        try {
+            return response.toString(CharsetUtil.UTF_8);
+        } finally {
+            response.release();
+        }
+    }
+
+    @Test
+    public void testResponsesFollowRequestOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, executor, 16));
+        channel.writeInbound(text("a"), text("b"), text("c"));
+        Assert.assertEquals(3, executor.tasks.size());
+
+        // 最后一个先完成  前面的没有完成时不能写出
+        executor.run(2);
+        channel.runPendingTasks();
+        Assert.assertNull(readResponse());
+
+        executor.run(0);
+        channel.runPendingTasks();
+        Assert.assertEquals("a", readResponse());
+        Assert.assertNull(readResponse());
+
+        executor.run(1);
+        channel.runPendingTasks();
+        Assert.assertEquals("b", readResponse());
+        Assert.assertEquals("c", readResponse());
+        Assert.assertNull(readResponse());
+        Assert.assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void testNullResponseKeepsOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        RequestHandler handler = (request, alloc) -> request.readableBytes() == 0 ? null : echo.handle(request, alloc);
+        channel = new EmbeddedChannel(new PipeliningHandler(handler, executor, 16));
+        channel.writeInbound(text("a"), Unpooled.EMPTY_BUFFER, text("c"));
+        executor.run(2);
+        executor.run(1);
+        channel.runPendingTasks();
+        Assert.assertNull(readResponse());
+        executor.run(0);
+        channel.runPendingTasks();
+        Assert.assertEquals("a", readResponse());
+        Assert.assertEquals("c", readResponse());
+        Assert.assertNull(readResponse());
+    }
+
+    @Test
+    public void testHandlerErrorClosesAfterEarlierResponses() {
+        ManualExecutor executor = new ManualExecutor();
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, executor, 16));
+        channel.writeInbound(text("a"), text("fail"), text("c"));
+
+        // 失败的请求之后已完成的响应不写出  并被释放
+        executor.run(2);
+        executor.run(1);
+        channel.runPendingTasks();
+        Assert.assertNull(readResponse());
+        Assert.assertTrue(channel.isOpen());
+
+        executor.run(0);
+        channel.runPendingTasks();
+        Assert.assertEquals("a", readResponse());
+        Assert.assertNull(readResponse());
+        Assert.assertFalse(channel.isOpen());
+        Assert.assertEquals(2, responses.size());
+        for (ByteBuf response : responses) {
+            Assert.assertEquals(0, response.refCnt());
+        }
+    }
+
+    @Test
+    public void testResultsAfterCloseAreReleased() {
+        ManualExecutor executor = new ManualExecutor();
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, executor, 16));
+        channel.writeInbound(text("a"));
+        channel.close();
+        executor.run(0);
+        channel.runPendingTasks();
+        Assert.assertNull(readResponse());
+        Assert.assertEquals(0, responses.get(0).refCnt());
+    }
+
+    @Test
+    public void testAutoReadPausedAtPendingLimit() {
+        ManualExecutor executor = new ManualExecutor();
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, executor, 2));
+        Assert.assertTrue(channel.config().isAutoRead());
+
+        channel.writeInbound(text("a"));
+        Assert.assertTrue(channel.config().isAutoRead());
+        channel.writeInbound(text("b"));
+        Assert.assertFalse(channel.config().isAutoRead());
+
+        // 后面的请求完成不减少未写回的数量
+        executor.run(1);
+        channel.runPendingTasks();
+        Assert.assertFalse(channel.config().isAutoRead());
+
+        executor.run(0);
+        channel.runPendingTasks();
+        Assert.assertTrue(channel.config().isAutoRead());
+        Assert.assertEquals("a", readResponse());
+        Assert.assertEquals("b", readResponse());
+    }
+
+    @Test
+    public void testWithoutExecutorRespondsImmediately() {
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, null, 1));
+        channel.writeInbound(text("a"), text("b"));
+        Assert.assertEquals("a", readResponse());
+        Assert.assertEquals("b", readResponse());
+        Assert.assertTrue(channel.config().isAutoRead());
+
+        channel.writeInbound(text("fail"));
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testRejectedExecutionClosesConnection() {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("shutdown");
+        };
+        channel = new EmbeddedChannel(new PipeliningHandler(echo, rejecting, 16));
+        ByteBuf request = text("a");
+        channel.writeInbound(request);
+        Assert.assertEquals(0, request.refCnt());
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testDecodeFailureClosesConnection() {
+        channel = new EmbeddedChannel(new LengthFieldBasedFrameDecoder(16, 0, 4, 0, 4),
+                new PipeliningHandler(echo, null, 16));
+        // 帧长度超过上限
+        channel.writeInbound(Unpooled.buffer().writeInt(100).writeBytes(new byte[100]));
+        Assert.assertFalse(channel.isOpen());
+        Assert.assertTrue(responses.isEmpty());
+    }
+}
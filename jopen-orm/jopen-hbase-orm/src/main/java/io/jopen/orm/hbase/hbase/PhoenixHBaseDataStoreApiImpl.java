@@ -3,7 +3,9 @@ package io.jopen.orm.hbase.hbase;
 import com.google.code.morphia.utils.Assert;
 import com.google.common.base.Preconditions;
 import io.jopen.orm.hbase.api.DataStoreApi;
+import io.jopen.orm.hbase.hbase.query.PhoenixHBaseParallelAggregateExecutor;
 import io.jopen.orm.hbase.hbase.query.PhoenixHBaseQueryExecutor;
+import io.jopen.orm.hbase.hbase.query.ScanSplit;
 import io.jopen.orm.hbase.hbase.util.PhoenixConnectionManager;
 import io.jopen.orm.hbase.query.QuerySelect;
 import io.jopen.orm.hbase.query.builder.QueryBuilder;
@@ -15,6 +17,7 @@ import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class PhoenixHBaseDataStoreApiImpl implements DataStoreApi {
@@ -23,6 +26,7 @@ public class PhoenixHBaseDataStoreApiImpl implements DataStoreApi {
     private final String connectionUrl;
     private static final Logger logger = LoggerFactory.getLogger(PhoenixHBaseDataStoreApiImpl.class);
     private final PhoenixConnectionManager connectionManager;
+    private PhoenixHBaseParallelAggregateExecutor parallelAggregateExecutor;
 
     public PhoenixHBaseDataStoreApiImpl(
             final String connectionUrl,
@@ -169,4 +173,24 @@ public class PhoenixHBaseDataStoreApiImpl implements DataStoreApi {
         }
     }
 
+    /**
+     * Run an aggregate / group by query as concurrent sub queries, one per scan split, and merge
+     * the partial aggregates on the client.
+     * <p>
+     * Each running split holds one pooled connection, so the executor's parallelism should not
+     * exceed the pool's max total.
+     *
+     * @param query  aggregate query
+     * @param splits key ranges, see {@link io.jopen.orm.hbase.hbase.query.ScanSplits}
+     * @return one row per group keyed by group property and aggregate name
+     */
+    public <T, R> List<Map<String, Object>> findAggregate(QuerySelect<T, R> query, List<ScanSplit> splits) {
+        Preconditions.checkState(parallelAggregateExecutor != null, "parallelAggregateExecutor is not configured");
+        return parallelAggregateExecutor.aggregate(query, splits, connectionManager);
+    }
+
+    public void setParallelAggregateExecutor(PhoenixHBaseParallelAggregateExecutor parallelAggregateExecutor) {
+        this.parallelAggregateExecutor = parallelAggregateExecutor;
+    }
+
 }
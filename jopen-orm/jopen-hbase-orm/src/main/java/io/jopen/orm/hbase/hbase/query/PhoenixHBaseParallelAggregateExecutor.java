@@ -0,0 +1,358 @@
+package io.jopen.orm.hbase.hbase.query;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.jopen.orm.hbase.api.DataStoreException;
+import io.jopen.orm.hbase.hbase.translator.PhoenixHBaseQueryTranslator;
+import io.jopen.orm.hbase.hbase.util.PhoenixConnectionManager;
+import io.jopen.orm.hbase.query.QuerySelect;
+import io.jopen.orm.hbase.query.criterion.Aggregate;
+import io.jopen.orm.hbase.query.criterion.Criterion;
+import io.jopen.orm.hbase.query.criterion.Ordering;
+import io.jopen.orm.hbase.query.criterion.projection.AggregateProjection;
+import io.jopen.orm.hbase.query.criterion.projection.GroupProjection;
+import io.jopen.orm.hbase.query.criterion.projection.Projection;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Executes aggregate and group by queries split by row key ranges.
+ * <p>
+ * The query is translated into one partial aggregate statement per {@link ScanSplit}; the
+ * statements run concurrently, each on its own pooled connection, and the partial results
+ * are merged on the client. COUNT and SUM partials are added up, MAX and MIN are compared,
+ * and AVG is carried as SUM and COUNT and only divided once every split has been merged.
+ * <p>
+ * HAVING can only be evaluated on fully merged groups and is not supported in this mode: a
+ * query with a HAVING criterion is rejected before any split runs. Use
+ * {@link PhoenixHBaseQueryExecutor} for such queries, or filter the returned rows. ORDER BY
+ * and LIMIT are applied on the merged rows.
+ *
+ * @author maxuefeng
+ * @see PhoenixHBaseQueryExecutor
+ * @see ScanSplits
+ */
+public class PhoenixHBaseParallelAggregateExecutor implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PhoenixHBaseParallelAggregateExecutor.class);
+
+    private final PhoenixHBaseQueryTranslator queryTranslator;
+    private final ExecutorService executorService;
+    private boolean showSQL = true;
+
+    public PhoenixHBaseParallelAggregateExecutor(final PhoenixHBaseQueryTranslator queryTranslator, int parallelism) {
+        this(queryTranslator, Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("phoenix-aggregate-%d").setDaemon(true).build()));
+    }
+
+    public PhoenixHBaseParallelAggregateExecutor(final PhoenixHBaseQueryTranslator queryTranslator,
+                                                 final ExecutorService executorService) {
+        this.queryTranslator = Preconditions.checkNotNull(queryTranslator);
+        this.executorService = Preconditions.checkNotNull(executorService);
+    }
+
+    /**
+     * @param query             aggregate query built with {@link GroupProjection} and {@link AggregateProjection}s
+     * @param splits            key ranges to run the query over, typically one per region or salt bucket
+     * @param connectionManager pool the sub queries borrow their connections from
+     * @return one row per group, keyed by group property name and {@link AggregateProjection#getName()}
+     * @throws IllegalArgumentException if the query has a HAVING criterion
+     */
+    public <T, R> List<Map<String, Object>> aggregate(QuerySelect<T, R> query,
+                                                      List<ScanSplit> splits,
+                                                      PhoenixConnectionManager connectionManager) {
+        Preconditions.checkArgument(CollectionUtils.isNotEmpty(splits), "at least one scan split is required");
+        Criterion groupCriterion = query.getGroupCriteria();
+        Preconditions.checkArgument(groupCriterion == null || groupCriterion instanceof GroupProjection,
+                "HAVING is not supported by the parallel aggregate executor, use PhoenixHBaseQueryExecutor "
+                        + "or filter the merged rows: %s", groupCriterion);
+        final List<String> groupProperties = groupProperties(query);
+        final List<AggregateProjection> aggregates = aggregateProjections(query);
+        Preconditions.checkArgument(!groupProperties.isEmpty() || !aggregates.isEmpty(),
+                "query has neither group by nor aggregate projections");
+
+        List<Future<Map<List<Object>, PartialAggregate[]>>> futures = new ArrayList<>(splits.size());
+        for (ScanSplit split : splits) {
+            final String queryStr = queryTranslator.translatePartialAggregate(query, groupProperties, split);
+            // one statement per split, too many for INFO
+            if (showSQL && log.isDebugEnabled()) {
+                log.debug("Query String: {}", queryStr);
+            }
+            futures.add(executorService.submit(
+                    () -> executeSplit(queryStr, groupProperties.size(), aggregates, connectionManager)));
+        }
+
+        Map<List<Object>, PartialAggregate[]> merged = new LinkedHashMap<>();
+        try {
+            for (Future<Map<List<Object>, PartialAggregate[]>> future : futures) {
+                merge(merged, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new DataStoreException("Interrupted while waiting for split results", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new DataStoreException(e.getCause().getMessage(), e.getCause());
+        }
+
+        return toRows(query, groupProperties, aggregates, merged);
+    }
+
+    /**
+     * Merge the partial states of one split into the states merged so far, group by group.
+     */
+    static void merge(Map<List<Object>, PartialAggregate[]> merged, Map<List<Object>, PartialAggregate[]> partials) {
+        for (Map.Entry<List<Object>, PartialAggregate[]> entry : partials.entrySet()) {
+            PartialAggregate[] states = merged.get(entry.getKey());
+            if (states == null) {
+                merged.put(entry.getKey(), entry.getValue());
+            } else {
+                for (int i = 0; i < states.length; i++) {
+                    states[i].merge(entry.getValue()[i]);
+                }
+            }
+        }
+    }
+
+    private Map<List<Object>, PartialAggregate[]> executeSplit(String queryStr,
+                                                               int groupCount,
+                                                               List<AggregateProjection> aggregates,
+                                                               PhoenixConnectionManager connectionManager) throws SQLException {
+        Map<List<Object>, PartialAggregate[]> partials = new HashMap<>();
+        Connection conn = connectionManager.getConnection();
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery(queryStr)) {
+            while (resultSet.next()) {
+                Object[] key = new Object[groupCount];
+                for (int i = 0; i < groupCount; i++) {
+                    key[i] = resultSet.getObject(i + 1);
+                }
+                PartialAggregate[] states = partials.computeIfAbsent(Arrays.asList(key), k -> newStates(aggregates));
+                int column = groupCount + 1;
+                for (PartialAggregate state : states) {
+                    column = state.accept(resultSet, column);
+                }
+            }
+        } finally {
+            connectionManager.returnConnection(conn);
+        }
+        return partials;
+    }
+
+    private <T, R> List<String> groupProperties(QuerySelect<T, R> query) {
+        List<String> groupProperties = new ArrayList<>();
+        List<Projection> projections = query.getProjection();
+        if (projections != null) {
+            for (Projection p : projections) {
+                if (p instanceof GroupProjection) {
+                    groupProperties.addAll(p.getPropertyNames());
+                }
+            }
+        }
+        Criterion groupCriterion = query.getGroupCriteria();
+        if (groupCriterion instanceof GroupProjection) {
+            groupProperties.addAll(((GroupProjection) groupCriterion).getPropertyNames());
+        }
+        return groupProperties;
+    }
+
+    private <T, R> List<AggregateProjection> aggregateProjections(QuerySelect<T, R> query) {
+        List<AggregateProjection> aggregates = new ArrayList<>();
+        if (query.getProjection() != null) {
+            for (Projection p : query.getProjection()) {
+                if (p instanceof AggregateProjection) {
+                    aggregates.add((AggregateProjection) p);
+                }
+            }
+        }
+        return aggregates;
+    }
+
+    private static PartialAggregate[] newStates(List<AggregateProjection> aggregates) {
+        PartialAggregate[] states = new PartialAggregate[aggregates.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new PartialAggregate(aggregates.get(i).getAggregate());
+        }
+        return states;
+    }
+
+    private <T, R> List<Map<String, Object>> toRows(QuerySelect<T, R> query,
+                                                    List<String> groupProperties,
+                                                    List<AggregateProjection> aggregates,
+                                                    Map<List<Object>, PartialAggregate[]> merged) {
+        List<Map<String, Object>> rows = new ArrayList<>(merged.size());
+        for (Map.Entry<List<Object>, PartialAggregate[]> entry : merged.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < groupProperties.size(); i++) {
+                row.put(groupProperties.get(i), entry.getKey().get(i));
+            }
+            for (int i = 0; i < aggregates.size(); i++) {
+                row.put(aggregates.get(i).getName(), entry.getValue()[i].result());
+            }
+            rows.add(row);
+        }
+        // a global aggregate over an empty table still yields one row, as in SQL
+        if (rows.isEmpty() && groupProperties.isEmpty()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (AggregateProjection a : aggregates) {
+                row.put(a.getName(), new PartialAggregate(a.getAggregate()).result());
+            }
+            rows.add(row);
+        }
+
+        if (query.getOrder() != null && CollectionUtils.isNotEmpty(query.getOrder().get())) {
+            rows.sort(comparator(query.getOrder().get()));
+        }
+        Integer maxResults = query.getMaxResults();
+        if (maxResults != null && maxResults > 0 && rows.size() > maxResults) {
+            rows = new ArrayList<>(rows.subList(0, maxResults));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Map<String, Object>> comparator(List<Ordering> orderings) {
+        return (left, right) -> {
+            for (Ordering ordering : orderings) {
+                Object l = left.get(ordering.getPropertyName());
+                Object r = right.get(ordering.getPropertyName());
+                int result;
+                if (l == null || r == null) {
+                    boolean nullsFirst = ordering.getNullOrdering() != Ordering.NullOrdering.LAST;
+                    result = l == r ? 0 : (l == null) == nullsFirst ? -1 : 1;
+                } else {
+                    result = ((Comparable) l).compareTo(r);
+                    if (ordering.getOrder() == Ordering.Order.DESCENDING) {
+                        result = -result;
+                    }
+                }
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+    }
+
+    public boolean isShowSQL() {
+        return showSQL;
+    }
+
+    public void setShowSQL(boolean showSQL) {
+        this.showSQL = showSQL;
+    }
+
+    /**
+     * Mergeable state of one aggregate projection for one group.
+     */
+    static final class PartialAggregate {
+
+        private final Aggregate function;
+        private long count;
+        private BigDecimal sum;
+        private Comparable<Object> extreme;
+
+        PartialAggregate(Aggregate function) {
+            this.function = function;
+        }
+
+        /**
+         * Read this aggregate's partial column(s) starting at {@code column}.
+         *
+         * @return index of the next unread column
+         */
+        @SuppressWarnings("unchecked")
+        int accept(ResultSet resultSet, int column) throws SQLException {
+            switch (function) {
+                case COUNT:
+                    count += resultSet.getLong(column);
+                    return column + 1;
+                case SUM:
+                    addSum(resultSet.getObject(column));
+                    return column + 1;
+                case AVG:
+                    addSum(resultSet.getObject(column));
+                    count += resultSet.getLong(column + 1);
+                    return column + 2;
+                case MAX:
+                case MIN:
+                    acceptExtreme((Comparable<Object>) resultSet.getObject(column));
+                    return column + 1;
+                default:
+                    throw new UnsupportedOperationException(function + " can not be merged");
+            }
+        }
+
+        void merge(PartialAggregate other) {
+            count += other.count;
+            if (other.sum != null) {
+                sum = sum == null ? other.sum : sum.add(other.sum);
+            }
+            acceptExtreme(other.extreme);
+        }
+
+        Object result() {
+            switch (function) {
+                case COUNT:
+                    return count;
+                case SUM:
+                    return sum;
+                case AVG:
+                    return sum == null || count == 0 ? null : sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+                default:
+                    return extreme;
+            }
+        }
+
+        private void addSum(Object value) {
+            if (value == null) {
+                return;
+            }
+            BigDecimal decimal = toBigDecimal((Number) value);
+            sum = sum == null ? decimal : sum.add(decimal);
+        }
+
+        private void acceptExtreme(Comparable<Object> value) {
+            if (value == null) {
+                return;
+            }
+            if (extreme == null) {
+                extreme = value;
+            } else {
+                int compared = value.compareTo(extreme);
+                if (function == Aggregate.MAX ? compared > 0 : compared < 0) {
+                    extreme = value;
+                }
+            }
+        }
+
+        private static BigDecimal toBigDecimal(Number value) {
+            if (value instanceof BigDecimal) {
+                return (BigDecimal) value;
+            } else if (value instanceof BigInteger) {
+                return new BigDecimal((BigInteger) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                return BigDecimal.valueOf(value.doubleValue());
+            }
+            return BigDecimal.valueOf(value.longValue());
+        }
+    }
+}
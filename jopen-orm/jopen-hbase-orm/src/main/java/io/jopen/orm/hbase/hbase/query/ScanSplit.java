@@ -0,0 +1,61 @@
+package io.jopen.orm.hbase.hbase.query;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A slice of the row-key space of a table, expressed on the leading row-key column.
+ * <p>
+ * A split is either a half open range {@code [lowerInclusive, upperExclusive)} where a
+ * {@code null} bound means unbounded, or a single point (used for salt bucket columns).
+ * Every split is translated into an extra predicate and ANDed with the query criteria,
+ * so each sub query only touches the regions holding that slice of keys.
+ *
+ * @author maxuefeng
+ * @see ScanSplits
+ * @see PhoenixHBaseParallelAggregateExecutor
+ */
+public final class ScanSplit {
+
+    private final String propertyName;
+    private final Object lowerInclusive;
+    private final Object upperExclusive;
+    private final boolean point;
+
+    private ScanSplit(String propertyName, Object lowerInclusive, Object upperExclusive, boolean point) {
+        this.propertyName = Preconditions.checkNotNull(propertyName);
+        this.lowerInclusive = lowerInclusive;
+        this.upperExclusive = upperExclusive;
+        this.point = point;
+    }
+
+    public static ScanSplit range(String propertyName, Object lowerInclusive, Object upperExclusive) {
+        return new ScanSplit(propertyName, lowerInclusive, upperExclusive, false);
+    }
+
+    public static ScanSplit point(String propertyName, Object value) {
+        return new ScanSplit(propertyName, Preconditions.checkNotNull(value), null, true);
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public Object getLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    public Object getUpperExclusive() {
+        return upperExclusive;
+    }
+
+    public boolean isPoint() {
+        return point;
+    }
+
+    @Override
+    public String toString() {
+        return point
+                ? "ScanSplit{" + propertyName + " = " + lowerInclusive + "}"
+                : "ScanSplit{" + propertyName + " in [" + lowerInclusive + ", " + upperExclusive + ")}";
+    }
+}
@@ -0,0 +1,90 @@
+package io.jopen.orm.hbase.hbase.query;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory methods for the common ways of cutting a table's key space into {@link ScanSplit}s.
+ *
+ * @author maxuefeng
+ */
+public class ScanSplits {
+
+    private ScanSplits() {
+    }
+
+    /**
+     * One point split per salt bucket, for tables whose row key starts with an application
+     * maintained salt column holding {@code 0 .. buckets - 1}.
+     * <p>
+     * Phoenix's own {@code SALT_BUCKETS} byte is hidden from SQL, so tables salted that way
+     * should be split with {@link #byBoundaries(String, Object...)} on the first primary key
+     * column instead; Phoenix will still fan each range out to every bucket.
+     *
+     * @param propertyName salt column property
+     * @param buckets      number of salt buckets
+     * @return one split per bucket
+     */
+    public static List<ScanSplit> bySaltBuckets(String propertyName, int buckets) {
+        Preconditions.checkArgument(buckets > 0, "buckets must be positive");
+        List<ScanSplit> splits = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            splits.add(ScanSplit.point(propertyName, i));
+        }
+        return splits;
+    }
+
+    /**
+     * Cut the key space at the given (ascending) boundaries, typically the region start keys.
+     * {@code n} boundaries produce {@code n + 1} splits, the first and last ones unbounded, so
+     * together they cover every row.
+     *
+     * @param propertyName leading row key property
+     * @param boundaries   ascending split points
+     * @return contiguous splits covering the whole key space
+     */
+    public static List<ScanSplit> byBoundaries(String propertyName, Object... boundaries) {
+        List<ScanSplit> splits = new ArrayList<>(boundaries.length + 1);
+        Object lower = null;
+        for (Object boundary : boundaries) {
+            splits.add(ScanSplit.range(propertyName, lower, boundary));
+            lower = boundary;
+        }
+        splits.add(ScanSplit.range(propertyName, lower, null));
+        return splits;
+    }
+
+    /**
+     * One range split per row key prefix. Rows whose key matches none of the prefixes are
+     * not visited.
+     *
+     * @param propertyName leading row key property
+     * @param prefixes     row key prefixes, must not overlap
+     * @return one split per prefix
+     */
+    public static List<ScanSplit> byPrefixes(String propertyName, String... prefixes) {
+        List<ScanSplit> splits = new ArrayList<>(prefixes.length);
+        for (String prefix : prefixes) {
+            Preconditions.checkArgument(prefix != null && !prefix.isEmpty(), "prefix must not be empty");
+            splits.add(ScanSplit.range(propertyName, prefix, nextPrefix(prefix)));
+        }
+        return splits;
+    }
+
+    /**
+     * @return the smallest string greater than every string starting with {@code prefix},
+     * or {@code null} if the prefix is made only of {@link Character#MAX_VALUE}
+     */
+    static String nextPrefix(String prefix) {
+        char[] chars = prefix.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            if (chars[i] != Character.MAX_VALUE) {
+                chars[i]++;
+                return new String(chars, 0, i + 1);
+            }
+        }
+        return null;
+    }
+}
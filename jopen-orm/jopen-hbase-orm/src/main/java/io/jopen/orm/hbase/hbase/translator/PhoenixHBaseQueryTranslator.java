@@ -4,6 +4,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import io.jopen.orm.hbase.api.DataStoreException;
+import io.jopen.orm.hbase.hbase.query.ScanSplit;
 import io.jopen.orm.hbase.mapper.EntityPropertiesResolver;
 import io.jopen.orm.hbase.mapper.EntityPropertyBinding;
 import io.jopen.orm.hbase.mapper.EntityPropertyValueBinding;
@@ -132,6 +133,92 @@ public class PhoenixHBaseQueryTranslator extends AbstractQueryTranslator<String,
         return queryString;
     }
 
+    /**
+     * Translate an aggregate query into the partial statement executed against a single scan split.
+     * <p>
+     * The select list holds the group by columns first, then one column per aggregate projection,
+     * except AVG which is expanded into SUM and COUNT so that partials can be merged on the client.
+     *
+     * @param query           aggregate query
+     * @param groupProperties entity properties to group by, may be empty
+     * @param split           slice of the key space this statement is restricted to
+     * @return partial aggregate SQL
+     */
+    public <T, R> String translatePartialAggregate(QuerySelect<T, R> query, List<String> groupProperties, ScanSplit split) {
+        Class<T> entityClass = query.getEntityClass();
+        Joiner spaceJoiner = Joiner.on(" ");
+        Joiner commaJoiner = Joiner.on(", ");
+
+        List<String> groupColumns = groupProperties.stream()
+                .map(p -> entityPropertiesResolver.resolve(p, entityClass))
+                .collect(Collectors.toList());
+        List<String> selectList = new ArrayList<>(groupColumns);
+        // a query grouped only through its group criterion has no projections
+        List<Projection> projections = query.getProjection() == null
+                ? Collections.<Projection>emptyList() : query.getProjection();
+        for (Projection p : projections) {
+            if (!(p instanceof AggregateProjection)) {
+                continue;
+            }
+            String propertyName = ((AggregateProjection) p).getPropertyName();
+            String column = PROJECTION_ALL.equals(propertyName)
+                    ? PROJECTION_ALL : entityPropertiesResolver.resolve(propertyName, entityClass);
+            switch (p.getAggregate()) {
+                case AVG:
+                    selectList.add(sum(column));
+                    selectList.add(count(column));
+                    break;
+                case SUM:
+                    selectList.add(sum(column));
+                    break;
+                default:
+                    selectList.add(translate((AggregateProjection) p, column));
+            }
+        }
+
+        String projection = commaJoiner.join(selectList);
+        if (!Strings.isNullOrEmpty(query.getQueryHint())) {
+            projection = spaceJoiner.join(query.getQueryHint(), projection);
+        }
+        String queryString = spaceJoiner.join(SELECT, projection, PhoenixHBaseClauses.FROM.symbol(),
+                entityResolver.resolve(entityClass));
+
+        List<String> predicates = new ArrayList<>(2);
+        if (query.getCriteria() != null) {
+            predicates.add(translate(query.getCriteria(), entityClass));
+        }
+        String splitPredicate = translate(split, entityClass);
+        if (splitPredicate != null) {
+            predicates.add(splitPredicate);
+        }
+        if (!predicates.isEmpty()) {
+            queryString = spaceJoiner.join(queryString, PhoenixHBaseClauses.WHERE.symbol(),
+                    and(predicates.toArray(new String[0])));
+        }
+        if (!groupColumns.isEmpty()) {
+            queryString = spaceJoiner.join(queryString, GROUP_BY.symbol(), commaJoiner.join(groupColumns));
+        }
+        return queryString;
+    }
+
+    /**
+     * @return the predicate restricting a statement to the split, or null for an unbounded split
+     */
+    protected <T> String translate(ScanSplit split, Class<T> entityClass) {
+        String column = entityPropertiesResolver.resolve(split.getPropertyName(), entityClass);
+        if (split.isPoint()) {
+            return eq(column, split.getLowerInclusive());
+        }
+        List<String> bounds = new ArrayList<>(2);
+        if (split.getLowerInclusive() != null) {
+            bounds.add(gte(column, split.getLowerInclusive()));
+        }
+        if (split.getUpperExclusive() != null) {
+            bounds.add(lt(column, split.getUpperExclusive()));
+        }
+        return bounds.isEmpty() ? null : and(bounds.toArray(new String[0]));
+    }
+
     private String resolveMappingName(String fieldName) {
         return fieldName;
     }
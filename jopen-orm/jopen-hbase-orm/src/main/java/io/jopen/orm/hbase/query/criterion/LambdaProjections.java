@@ -35,6 +35,11 @@ class LambdaProjections extends LambdaBuilder {
         return new MinProjection(propertyName);
     }
 
+    public static SumProjection sum(SFunction<?, ?> sFunction) {
+        String propertyName = produceValName.apply(sFunction);
+        return new SumProjection(propertyName);
+    }
+
     public static AvgProjection avg(SFunction<?, ?> sFunction) {
         String propertyName = produceValName.apply(sFunction);
         return new AvgProjection(propertyName);
@@ -23,6 +23,10 @@ public class Projections {
         return new MinProjection( propertyName );
     }
 
+    public static SumProjection sum(String propertyName ) {
+        return new SumProjection( propertyName );
+    }
+
     public static AvgProjection avg(String propertyName ) {
         return new AvgProjection( propertyName );
     }
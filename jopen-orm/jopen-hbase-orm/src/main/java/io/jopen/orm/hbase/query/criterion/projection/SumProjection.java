@@ -0,0 +1,9 @@
+package io.jopen.orm.hbase.query.criterion.projection;
+
+import io.jopen.orm.hbase.query.criterion.Aggregate;
+
+public class SumProjection extends AggregateProjection {
+    public SumProjection(String propertyName) {
+        super(Aggregate.SUM, propertyName);
+    }
+}
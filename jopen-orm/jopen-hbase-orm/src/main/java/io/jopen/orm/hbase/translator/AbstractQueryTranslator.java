@@ -218,6 +218,8 @@ public abstract class AbstractQueryTranslator<Q, O, P> implements QueryTranslato
                 return min(fieldName);
             case COUNT:
                 return count(fieldName);
+            case SUM:
+                return sum(fieldName);
             default:
                 throw unsupported(aggregate, AggregateProjection.class);
         }
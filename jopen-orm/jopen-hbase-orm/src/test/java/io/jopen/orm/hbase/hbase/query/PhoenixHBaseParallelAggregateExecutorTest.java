@@ -0,0 +1,148 @@
+package io.jopen.orm.hbase.hbase.query;
+
+import io.jopen.hbase.orm.base.User;
+import io.jopen.orm.hbase.hbase.query.PhoenixHBaseParallelAggregateExecutor.PartialAggregate;
+import io.jopen.orm.hbase.hbase.translator.PhoenixHBaseQueryTranslator;
+import io.jopen.orm.hbase.query.QuerySelect;
+import io.jopen.orm.hbase.query.builder.QueryBuilder;
+import io.jopen.orm.hbase.query.criterion.Aggregate;
+import io.jopen.orm.hbase.query.criterion.GroupRestrictions;
+import io.jopen.orm.hbase.query.criterion.projection.CountProjection;
+import io.jopen.orm.hbase.query.criterion.projection.GroupProjection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * 不需要集群  用模拟的ResultSet构造每个分片的部分聚合  检查客户端的合并结果
+ *
+ * @author maxuefeng
+ * @see PhoenixHBaseParallelAggregateExecutor
+ */
+public class PhoenixHBaseParallelAggregateExecutorTest {
+
+    /**
+     * 只支持按列号读取的单行ResultSet  和JDBC一样getLong读到null时返回0
+     */
+    private static ResultSet row(Object... columns) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = columns[(Integer) args[0] - 1];
+                    switch (method.getName()) {
+                        case "getObject":
+                            return value;
+                        case "getLong":
+                            return value == null ? 0L : ((Number) value).longValue();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * 一个分片返回的一行部分聚合  列的布局和translatePartialAggregate一致  AVG占SUM和COUNT两列
+     */
+    private static PartialAggregate[] partial(List<Aggregate> functions, Object... columns) throws SQLException {
+        PartialAggregate[] states = new PartialAggregate[functions.size()];
+        ResultSet resultSet = row(columns);
+        int column = 1;
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new PartialAggregate(functions.get(i));
+            column = states[i].accept(resultSet, column);
+        }
+        Assert.assertEquals(columns.length + 1, column);
+        return states;
+    }
+
+    private static void assertDecimal(String expected, Object actual) {
+        Assert.assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual));
+    }
+
+    @Test
+    public void testAvgRebuiltFromSumAndCount() throws SQLException {
+        List<Aggregate> functions = Collections.singletonList(Aggregate.AVG);
+        PartialAggregate[] merged = partial(functions, 10L, 4L);
+        merged[0].merge(partial(functions, 5L, 1L)[0]);
+        // 分片内没有匹配的行时SUM为null  COUNT为0
+        merged[0].merge(partial(functions, null, 0L)[0]);
+        // (10 + 5) / (4 + 1)  而不是分片平均值的平均 (2.5 + 5) / 2
+        assertDecimal("3", merged[0].result());
+    }
+
+    @Test
+    public void testCountSumMaxMinAcrossSplits() throws SQLException {
+        List<Aggregate> functions = Arrays.asList(Aggregate.COUNT, Aggregate.SUM, Aggregate.MAX, Aggregate.MIN);
+        PartialAggregate[] merged = partial(functions, 3L, 7L, 40, 4);
+        for (PartialAggregate[] split : Arrays.asList(
+                partial(functions, 0L, null, null, null),
+                partial(functions, 7L, new BigDecimal("2.5"), 90, 12),
+                partial(functions, 2L, 1.5d, 55, -3))) {
+            for (int i = 0; i < merged.length; i++) {
+                merged[i].merge(split[i]);
+            }
+        }
+        Assert.assertEquals(12L, merged[0].result());
+        assertDecimal("11", merged[1].result());
+        Assert.assertEquals(90, merged[2].result());
+        Assert.assertEquals(-3, merged[3].result());
+    }
+
+    @Test
+    public void testMergeByGroupKey() throws SQLException {
+        List<Aggregate> functions = Arrays.asList(Aggregate.COUNT, Aggregate.AVG, Aggregate.MAX);
+        Map<List<Object>, PartialAggregate[]> merged = new LinkedHashMap<>();
+
+        Map<List<Object>, PartialAggregate[]> first = new LinkedHashMap<>();
+        first.put(Collections.singletonList("a"), partial(functions, 2L, 6L, 2L, 5));
+        first.put(Collections.singletonList("b"), partial(functions, 1L, 9L, 1L, 9));
+        PhoenixHBaseParallelAggregateExecutor.merge(merged, first);
+
+        Map<List<Object>, PartialAggregate[]> second = new LinkedHashMap<>();
+        second.put(Collections.singletonList("a"), partial(functions, 1L, 3L, 1L, 8));
+        second.put(Collections.singletonList("c"), partial(functions, 4L, 4L, 4L, 1));
+        PhoenixHBaseParallelAggregateExecutor.merge(merged, second);
+
+        Assert.assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b"),
+                Collections.singletonList("c")), Arrays.asList(merged.keySet().toArray()));
+        PartialAggregate[] a = merged.get(Collections.singletonList("a"));
+        Assert.assertEquals(3L, a[0].result());
+        assertDecimal("3", a[1].result());
+        Assert.assertEquals(8, a[2].result());
+        PartialAggregate[] c = merged.get(Collections.singletonList("c"));
+        Assert.assertEquals(4L, c[0].result());
+        assertDecimal("1", c[1].result());
+        Assert.assertEquals(1, c[2].result());
+    }
+
+    @Test
+    public void testEmptyResults() {
+        Assert.assertEquals(0L, new PartialAggregate(Aggregate.COUNT).result());
+        Assert.assertNull(new PartialAggregate(Aggregate.SUM).result());
+        Assert.assertNull(new PartialAggregate(Aggregate.AVG).result());
+        Assert.assertNull(new PartialAggregate(Aggregate.MAX).result());
+        Assert.assertNull(new PartialAggregate(Aggregate.MIN).result());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHavingRejected() {
+        CountProjection count = new CountProjection("age");
+        QuerySelect<User, User> query = QueryBuilder.builderFor(User.class).select()
+                .addProjection(new GroupProjection("name"), count)
+                .addGroupCriterion(GroupRestrictions.gt(count, 1))
+                .build();
+        try (PhoenixHBaseParallelAggregateExecutor executor = new PhoenixHBaseParallelAggregateExecutor(
+                new PhoenixHBaseQueryTranslator(null), Executors.newSingleThreadExecutor())) {
+            executor.aggregate(query, Collections.singletonList(ScanSplit.range("id", null, null)), null);
+        }
+    }
+}
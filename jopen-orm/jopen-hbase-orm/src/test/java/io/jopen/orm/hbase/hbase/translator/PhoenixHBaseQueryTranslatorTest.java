@@ -0,0 +1,99 @@
+package io.jopen.orm.hbase.hbase.translator;
+
+import io.jopen.hbase.orm.base.User;
+import io.jopen.orm.hbase.hbase.query.ScanSplit;
+import io.jopen.orm.hbase.mapper.EntityPropertiesMappingContext;
+import io.jopen.orm.hbase.mapper.EntityPropertiesResolver;
+import io.jopen.orm.hbase.query.QuerySelect;
+import io.jopen.orm.hbase.query.builder.QueryBuilder;
+import io.jopen.orm.hbase.query.criterion.Restrictions;
+import io.jopen.orm.hbase.query.criterion.projection.AvgProjection;
+import io.jopen.orm.hbase.query.criterion.projection.CountProjection;
+import io.jopen.orm.hbase.query.criterion.projection.GroupProjection;
+import io.jopen.orm.hbase.query.criterion.projection.MaxProjection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * 检查并行聚合每个分片执行的SQL  不需要集群
+ *
+ * @author maxuefeng
+ * @see PhoenixHBaseQueryTranslator#translatePartialAggregate
+ */
+public class PhoenixHBaseQueryTranslatorTest {
+
+    private final PhoenixHBaseQueryTranslator translator;
+
+    public PhoenixHBaseQueryTranslatorTest() throws ClassNotFoundException {
+        translator = new PhoenixHBaseQueryTranslator(new EntityPropertiesResolver(
+                new EntityPropertiesMappingContext(Collections.singletonList(User.class.getName()))));
+    }
+
+    private static QuerySelect<User, User> groupByNameQuery() {
+        return QueryBuilder.builderFor(User.class).select()
+                .addProjection(new GroupProjection("name"), new CountProjection("age"),
+                        new AvgProjection("age"), new MaxProjection("age"))
+                .build();
+    }
+
+    @Test
+    public void testAvgExpandedIntoSumAndCount() {
+        String sql = translator.translatePartialAggregate(groupByNameQuery(), Collections.singletonList("name"),
+                ScanSplit.range("name", null, null));
+        // 分组列在前  AVG展开为SUM和COUNT两列
+        Assert.assertEquals("SELECT name, COUNT(age), SUM(age), COUNT(age), MAX(age) FROM User GROUP BY name", sql);
+    }
+
+    @Test
+    public void testSplitKeyRangePredicate() {
+        String range = translator.translatePartialAggregate(groupByNameQuery(), Collections.singletonList("name"),
+                ScanSplit.range("name", "a", "m"));
+        Assert.assertEquals("SELECT name, COUNT(age), SUM(age), COUNT(age), MAX(age) FROM User"
+                + " WHERE (name >= 'a') AND (name < 'm') GROUP BY name", range);
+
+        String upperOnly = translator.translatePartialAggregate(groupByNameQuery(), Collections.singletonList("name"),
+                ScanSplit.range("name", null, "m"));
+        Assert.assertTrue(upperOnly, upperOnly.endsWith(" WHERE name < 'm' GROUP BY name"));
+
+        String point = translator.translatePartialAggregate(groupByNameQuery(), Collections.singletonList("name"),
+                ScanSplit.point("name", "a"));
+        Assert.assertTrue(point, point.endsWith(" WHERE name = 'a' GROUP BY name"));
+    }
+
+    @Test
+    public void testSplitPredicateAndedWithCriteria() {
+        QuerySelect<User, User> query = QueryBuilder.builderFor(User.class).select()
+                .add(Restrictions.gt("age", 18))
+                .addProjection(new CountProjection("age"))
+                .build();
+        String sql = translator.translatePartialAggregate(query, Collections.emptyList(),
+                ScanSplit.range("name", "a", null));
+        Assert.assertEquals("SELECT COUNT(age) FROM User WHERE (age > 18) AND (name >= 'a')", sql);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNullProjection() {
+        QuerySelect<User, User> built = QueryBuilder.builderFor(User.class).select()
+                .addGroupCriterion(new GroupProjection("name"))
+                .build();
+        // 只通过groupCriterion分组时投影可能为null
+        QuerySelect<User, User> query = (QuerySelect<User, User>) Proxy.newProxyInstance(
+                QuerySelect.class.getClassLoader(), new Class<?>[]{QuerySelect.class}, (proxy, method, args) -> {
+                    if ("getProjection".equals(method.getName())) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(built, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        Assert.assertEquals("SELECT name FROM User GROUP BY name", translator.translatePartialAggregate(
+                query, Collections.singletonList("name"), ScanSplit.range("name", null, null)));
+    }
+}
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
 import java.lang.annotation.Annotation;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -38,6 +39,13 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice {
 
     private final EncryptBodyConfig config;
 
+    /**
+     * 控制器方法上解析出的加密注解信息  注解在运行期不会变化  按返回值参数缓存
+     */
+    private final ConcurrentHashMap<MethodParameter, EncryptAnnotationInfoBean> annotationInfoCache = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<MethodParameter, Boolean> supportsCache = new ConcurrentHashMap<>();
+
     @Autowired
     public EncryptResponseBodyAdvice(ObjectMapper objectMapper, EncryptBodyConfig config) {
         this.objectMapper = objectMapper;
@@ -47,6 +55,10 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice {
 
     @Override
     public boolean supports(MethodParameter returnType, Class converterType) {
+        return supportsCache.computeIfAbsent(returnType, this::hasEncryptAnnotation);
+    }
+
+    private boolean hasEncryptAnnotation(MethodParameter returnType) {
         Annotation[] annotations = returnType.getDeclaringClass().getAnnotations();
         if(annotations!=null && annotations.length>0){
             for (Annotation annotation : annotations) {
@@ -79,15 +91,26 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice {
         } catch (JsonProcessingException e) {
             e.printStackTrace();
         }
+        EncryptAnnotationInfoBean annotationInfo = annotationInfoCache.get(returnType);
+        if(annotationInfo==null){
+            annotationInfo = resolveAnnotationInfo(returnType);
+            if(annotationInfo==null){
+                throw new EncryptBodyFailException();
+            }
+            annotationInfoCache.putIfAbsent(returnType, annotationInfo);
+        }
+        return switchEncrypt(str, annotationInfo);
+    }
+
+    /**
+     * 类上的注解优先于方法上的注解
+     */
+    private EncryptAnnotationInfoBean resolveAnnotationInfo(MethodParameter returnType){
         EncryptAnnotationInfoBean classAnnotation = getClassAnnotation(returnType.getDeclaringClass());
         if(classAnnotation!=null){
-            return switchEncrypt(str, classAnnotation);
-        }
-        EncryptAnnotationInfoBean methodAnnotation = getMethodAnnotation(returnType);
-        if(methodAnnotation!=null){
-            return switchEncrypt(str, methodAnnotation);
+            return classAnnotation;
         }
-        throw new EncryptBodyFailException();
+        return getMethodAnnotation(returnType);
     }
 
     /**
@@ -4,13 +4,29 @@ import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>AES加密处理工具类</p>
+ * <p>由密钥派生出的SecretKey按密钥缓存  Cipher实例按线程复用  避免每次请求重复初始化</p>
  */
 public class AESEncryptUtil {
 
+    /**
+     * 密钥来源于配置或注解  数量有限
+     */
+    private static final ConcurrentHashMap<String, SecretKeySpec> KEYS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     /**
      * AES加密
      * @param content  字符串内容
@@ -38,15 +54,8 @@ public class AESEncryptUtil {
      */
     private static String aes(String content, String password, int type) {
         try {
-            KeyGenerator generator = KeyGenerator.getInstance("AES");
-            SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
-            random.setSeed(password.getBytes());
-            generator.init(128, random);
-            SecretKey secretKey = generator.generateKey();
-            byte[] enCodeFormat = secretKey.getEncoded();
-            SecretKeySpec key = new SecretKeySpec(enCodeFormat, "AES");
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(type, key);
+            Cipher cipher = CIPHER.get();
+            cipher.init(type, KEYS.computeIfAbsent(password, AESEncryptUtil::deriveKey));
             if (type == Cipher.ENCRYPT_MODE) {
                 byte[] byteContent = content.getBytes("utf-8");
                 return Hex2Util.parseByte2HexStr(cipher.doFinal(byteContent));
@@ -59,4 +68,20 @@ public class AESEncryptUtil {
         }
         return null;
     }
+
+    /**
+     * 由密钥派生AES key  SHA1PRNG在相同种子下输出固定  因此结果可以缓存
+     */
+    private static SecretKeySpec deriveKey(String password) {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+            random.setSeed(password.getBytes());
+            generator.init(128, random);
+            SecretKey secretKey = generator.generateKey();
+            return new SecretKeySpec(secretKey.getEncoded(), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
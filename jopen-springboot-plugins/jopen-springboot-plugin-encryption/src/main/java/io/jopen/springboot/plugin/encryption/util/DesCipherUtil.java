@@ -5,17 +5,29 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import javax.crypto.*;
 import javax.crypto.spec.DESKeySpec;
 import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * <p>SecretKey按密钥缓存  Cipher实例按线程复用</p>
  */
 public class DesCipherUtil  {
 
+    private static final ConcurrentHashMap<String, SecretKey> KEYS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("DES/ECB/PKCS7Padding", "BC");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private DesCipherUtil() {
     }
 
@@ -38,17 +50,14 @@ public class DesCipherUtil  {
         }
 
         try {
-            DESKeySpec desKeySpec = new DESKeySpec(key.getBytes());
-            SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance("DES");
-            SecretKey secretKey = secretKeyFactory.generateSecret(desKeySpec);
+            SecretKey secretKey = secretKey(key);
 
-            Cipher cipher = Cipher.getInstance("DES/ECB/PKCS7Padding", "BC");
+            Cipher cipher = CIPHER.get();
             cipher.init(Cipher.ENCRYPT_MODE, secretKey);
             byte[] bytes = cipher.doFinal(encryptText.getBytes(Charset.forName("UTF-8")));
             return Base64.getEncoder().encodeToString(bytes);
 
-        } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidKeySpecException | NoSuchPaddingException
-                | BadPaddingException | NoSuchProviderException | IllegalBlockSizeException e) {
+        } catch (InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
             throw new RuntimeException("encrypt failed", e);
         }
 
@@ -68,17 +77,30 @@ public class DesCipherUtil  {
         }
 
         try {
-            DESKeySpec desKeySpec = new DESKeySpec(key.getBytes());
-            SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance("DES");
-            SecretKey secretKey = secretKeyFactory.generateSecret(desKeySpec);
+            SecretKey secretKey = secretKey(key);
 
-            Cipher cipher = Cipher.getInstance("DES/ECB/PKCS7Padding", "BC");
+            Cipher cipher = CIPHER.get();
             cipher.init(Cipher.DECRYPT_MODE, secretKey);
             byte[] bytes = cipher.doFinal(Base64.getDecoder().decode(decryptText));
             return new String(bytes, Charset.forName("UTF-8"));
 
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | NoSuchPaddingException | BadPaddingException | NoSuchProviderException | IllegalBlockSizeException | InvalidKeyException e) {
+        } catch (BadPaddingException | IllegalBlockSizeException | InvalidKeyException e) {
             throw new RuntimeException("decrypt failed", e);
         }
     }
+
+    private static SecretKey secretKey(String key) {
+        SecretKey secretKey = KEYS.get(key);
+        if (secretKey == null) {
+            try {
+                DESKeySpec desKeySpec = new DESKeySpec(key.getBytes());
+                SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance("DES");
+                secretKey = secretKeyFactory.generateSecret(desKeySpec);
+            } catch (InvalidKeyException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+                throw new RuntimeException("invalid des key", e);
+            }
+            KEYS.putIfAbsent(key, secretKey);
+        }
+        return secretKey;
+    }
 }
@@ -2,6 +2,7 @@ package io.jopen.springboot.plugin.mongo.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexInfo;
@@ -16,6 +17,7 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 实现mongodb的embedded文档的条件查询/分页查询/聚合查询  内嵌文档的添加/删除/修改
@@ -46,6 +48,50 @@ public interface BaseRepository<T, ID extends Serializable> extends MongoReposit
 
     <S extends T> long count(Query query);
 
+    /**
+     * 基于数据库游标的流式查询  数据按批次从服务端拉取  不会一次性加载到内存
+     * <p>
+     * 返回的Stream持有服务端游标  使用完毕后必须关闭(try-with-resources)
+     *
+     * @param query     query
+     * @param batchSize 每批次从游标拉取的文档数量
+     * @see org.springframework.data.mongodb.core.MongoOperations#stream(Query, Class)
+     */
+    <S extends T> Stream<S> stream(Query query, int batchSize);
+
+    /**
+     * 不执行count的分页查询  多查询一条用于判断是否存在下一页
+     */
+    <S extends T> Slice<S> slice(Query query, Pageable pageable);
+
+    /**
+     * 基于游标键的分页(seek)  使用 keyProperty > afterKey 代替skip  翻页代价与页码无关
+     *
+     * @param query       基础查询条件  可以包含keyProperty上的条件  不能包含排序  skip和limit被忽略
+     * @param keyProperty 唯一且有索引的属性  例如id
+     * @param afterKey    上一页的 {@link KeysetPage#getNextKey()}  第一页传null
+     * @param direction   排序方向
+     * @param size        每页数量
+     */
+    <S extends T> KeysetPage<S> seek(Query query, String keyProperty, Object afterKey, Sort.Direction direction, int size);
+
+    /**
+     * 无序批量插入  按chunkSize分批提交  单条失败不影响同批次其他文档
+     * <p>
+     * 注意: 由驱动生成的id不会回写到实体
+     *
+     * @return 插入的文档数量
+     * @see org.springframework.data.mongodb.core.BulkOperations.BulkMode#UNORDERED
+     */
+    <S extends T> int bulkInsert(Iterable<S> entities, int chunkSize);
+
+    /**
+     * 无序批量保存  存在id的实体按id替换(upsert)  不存在id的实体执行插入
+     *
+     * @return 插入/修改/upsert的文档数量
+     */
+    <S extends T> int bulkSave(Iterable<S> entities, int chunkSize);
+
     <S extends T> boolean exists(Query query);
 
     /**
@@ -1,27 +1,42 @@
 package io.jopen.springboot.plugin.mongo.repository;
 
+import com.google.common.base.Preconditions;
+import com.mongodb.bulk.BulkWriteResult;
 import io.jopen.springboot.plugin.mongo.template.builder.AggregationBuilder;
+import org.bson.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.GroupOperation;
 import org.springframework.data.mongodb.core.aggregation.MatchOperation;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.mapreduce.MapReduceResults;
+import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
 import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.StreamUtils;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author maxuefeng
@@ -91,6 +106,122 @@ public class BaseRepositoryImpl<T, ID extends Serializable>
         return (Page<S>) page;
     }
 
+    @Override
+    public <S extends T> Stream<S> stream(Query query, int batchSize) {
+        // 不修改调用者的query
+        Query streamQuery = Query.of(query).cursorBatchSize(batchSize);
+        CloseableIterator<T> iterator = mongoOperations.stream(streamQuery, entityInformation.getJavaType());
+        return (Stream<S>) StreamUtils.createStreamFromIterator(iterator);
+    }
+
+    @Override
+    public <S extends T> Slice<S> slice(Query query, Pageable pageable) {
+        Query sliceQuery = Query.of(query).with(pageable);
+        if (pageable.isPaged()) {
+            sliceQuery.limit(pageable.getPageSize() + 1);
+        }
+        List<T> result = mongoOperations.find(sliceQuery, entityInformation.getJavaType());
+        boolean hasNext = pageable.isPaged() && result.size() > pageable.getPageSize();
+        if (hasNext) {
+            result = result.subList(0, pageable.getPageSize());
+        }
+        return (Slice<S>) new SliceImpl<>(result, pageable, hasNext);
+    }
+
+    @Override
+    public <S extends T> KeysetPage<S> seek(Query query, String keyProperty, Object afterKey, Sort.Direction direction, int size) {
+        Preconditions.checkArgument(size > 0, "size must be positive");
+        // 追加在已有排序之后的keyProperty排序不能保证翻页的连续性
+        Preconditions.checkArgument(query.getSortObject().isEmpty(),
+                "seek query must not be sorted, pages are ordered by %s", keyProperty);
+        Document filter = query.getQueryObject();
+        if (afterKey != null) {
+            Document after = (direction.isAscending()
+                    ? Criteria.where(keyProperty).gt(afterKey)
+                    : Criteria.where(keyProperty).lt(afterKey)).getCriteriaObject();
+            // 基础查询中可能已经有keyProperty上的条件  用$and组合  addCriteria同一个键会抛出异常
+            filter = filter.isEmpty() ? after : new Document("$and", Arrays.asList(filter, after));
+        }
+        Query seekQuery = new BasicQuery(filter, query.getFieldsObject())
+                .with(Sort.by(direction, keyProperty))
+                .limit(size + 1);
+        query.getCollation().ifPresent(seekQuery::collation);
+        if (query.getHint() != null) {
+            seekQuery.withHint(query.getHint());
+        }
+        seekQuery.setMeta(query.getMeta());
+
+        List<T> result = mongoOperations.find(seekQuery, entityInformation.getJavaType());
+        boolean hasNext = result.size() > size;
+        if (hasNext) {
+            result = result.subList(0, size);
+        }
+        Object nextKey = null;
+        if (!result.isEmpty()) {
+            MongoPersistentEntity<?> persistentEntity = mongoOperations.getConverter().getMappingContext()
+                    .getRequiredPersistentEntity(entityInformation.getJavaType());
+            PersistentPropertyAccessor accessor = persistentEntity.getPropertyAccessor(result.get(result.size() - 1));
+            nextKey = accessor.getProperty(persistentEntity.getRequiredPersistentProperty(keyProperty));
+        }
+        return new KeysetPage<>((List<S>) result, nextKey, hasNext);
+    }
+
+    @Override
+    public <S extends T> int bulkInsert(Iterable<S> entities, int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        int inserted = 0;
+        List<S> chunk = new ArrayList<>(chunkSize);
+        for (S entity : entities) {
+            chunk.add(entity);
+            if (chunk.size() == chunkSize) {
+                inserted += newBulk().insert(chunk).execute().getInsertedCount();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted += newBulk().insert(chunk).execute().getInsertedCount();
+        }
+        return inserted;
+    }
+
+    @Override
+    public <S extends T> int bulkSave(Iterable<S> entities, int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
+        int affected = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+        for (S entity : entities) {
+            if (bulk == null) {
+                bulk = newBulk();
+            }
+            ID id = entityInformation.getId(entity);
+            if (id == null) {
+                bulk.insert(entity);
+            } else {
+                bulk.replaceOne(Query.query(Criteria.where(entityInformation.getIdAttribute()).is(id)),
+                        entity, FindAndReplaceOptions.options().upsert());
+            }
+            if (++pending == chunkSize) {
+                affected += affected(bulk.execute());
+                bulk = null;
+                pending = 0;
+            }
+        }
+        if (bulk != null) {
+            affected += affected(bulk.execute());
+        }
+        return affected;
+    }
+
+    private BulkOperations newBulk() {
+        return mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                entityInformation.getJavaType(), entityInformation.getCollectionName());
+    }
+
+    private static int affected(BulkWriteResult result) {
+        return result.getInsertedCount() + result.getMatchedCount() + result.getUpserts().size();
+    }
+
     /**
      * @see AggregationBuilder
      */
@@ -3,6 +3,7 @@ package io.jopen.springboot.plugin.mongo.repository;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexInfo;
@@ -11,6 +12,10 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -48,10 +53,18 @@ public interface BaseService<ID, T> {
 
     <S extends T> List<S> list(Query query);
 
+    /**
+     * 基于数据库游标的流式查询  使用完毕后必须关闭Stream
+     */
     <S extends T> Stream<S> stream(Example<S> example);
 
+    /**
+     * 基于数据库游标的流式查询  使用完毕后必须关闭Stream
+     */
     <S extends T> Stream<S> stream(Query query);
 
+    <S extends T> Stream<S> stream(Query query, int batchSize);
+
     <S extends T> List<S> listSort(Example<S> example, Sort sort);
 
     <S extends T> List<S> listSort(Query query, Sort sort);
@@ -60,6 +73,18 @@ public interface BaseService<ID, T> {
 
     <S extends T> Page<S> page(Query query, Pageable pageable);
 
+    /**
+     * 不执行count的分页查询
+     */
+    <S extends T> Slice<S> slice(Query query, Pageable pageable);
+
+    /**
+     * 基于游标键的分页  不使用skip也不执行count
+     *
+     * @see BaseRepository#seek(Query, String, Object, Sort.Direction, int)
+     */
+    <S extends T> KeysetPage<S> seek(Query query, String keyProperty, Object afterKey, Sort.Direction direction, int size);
+
     <S extends T> long count(Example<S> example);
 
     <S extends T> long count(Query query);
@@ -80,6 +105,24 @@ public interface BaseService<ID, T> {
 
     <S extends T> List<S> insert(Iterable<S> entities);
 
+    /**
+     * 无序批量插入  批次大小使用默认配置
+     *
+     * @see BaseRepository#bulkInsert(Iterable, int)
+     */
+    <S extends T> int bulkInsert(Iterable<S> entities);
+
+    <S extends T> int bulkInsert(Iterable<S> entities, int chunkSize);
+
+    /**
+     * 无序批量保存(按id upsert)  批次大小使用默认配置
+     *
+     * @see BaseRepository#bulkSave(Iterable, int)
+     */
+    <S extends T> int bulkSave(Iterable<S> entities);
+
+    <S extends T> int bulkSave(Iterable<S> entities, int chunkSize);
+
     <S extends T> S save(S entity);
 
     <S extends T> Optional<S> findById(ID id);
@@ -108,6 +151,42 @@ public interface BaseService<ID, T> {
 
     <F extends GridFsObject> F findFileById(ID id);
 
+    /**
+     * 流式打开GridFS文件  不会把文件内容读入内存
+     *
+     * @param query 文件查询条件
+     * @return 文件不存在时返回null
+     */
+    GridFsStreamObject openFile(Query query);
+
+    GridFsStreamObject openFileById(String fileId);
+
+    /**
+     * 区间读取  根据offset直接定位到所在chunk  不会读取之前的chunk
+     *
+     * @param fileId 文件id
+     * @param offset 起始字节位置
+     * @param length 读取的最大字节数
+     * @return 调用方负责关闭
+     */
+    InputStream openFileRange(String fileId, long offset, long length) throws IOException;
+
+    /**
+     * 将文件内容直接写入输出流(例如 HttpServletResponse#getOutputStream)
+     *
+     * @return 写入的字节数
+     */
+    long transferFile(String fileId, OutputStream out) throws IOException;
+
+    long transferFile(String fileId, WritableByteChannel channel) throws IOException;
+
+    /**
+     * 流式上传  按chunk写入GridFS
+     *
+     * @return 文件id
+     */
+    String storeFile(InputStream content, String filename, String contentType, org.bson.Document metadata);
+
     /**
      * 索引管理
      *
@@ -1,17 +1,20 @@
 package io.jopen.springboot.plugin.mongo.repository;
 
-import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.data.mongodb.core.mapreduce.MapReduceResults;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
 import org.springframework.data.repository.NoRepositoryBean;
@@ -19,7 +22,9 @@ import org.springframework.util.StreamUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -40,6 +45,16 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
     @Autowired
     private GridFsTemplate gridFsTemplate;
 
+    /**
+     * 流式查询时每批次从游标拉取的文档数量
+     */
+    private int streamBatchSize = 1000;
+
+    /**
+     * 批量写入时每次提交的文档数量
+     */
+    private int bulkChunkSize = 1000;
+
     @Override
     public <S extends T> Optional<S> findOne(Example<S> example) {
         return this.repository.findOne(example);
@@ -52,10 +67,7 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
 
     @Override
     public <S extends T> Stream<S> stream(Example<S> example) {
-        Iterable<S> iterable = this.list(example);
-        Collection<S> entities = Lists.newArrayList();
-        iterable.iterator().forEachRemaining(entities::add);
-        return entities.stream();
+        return this.stream(new Query(new Criteria().alike(example)));
     }
 
     @Override
@@ -113,6 +125,26 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
         return this.repository.insert(entities);
     }
 
+    @Override
+    public <S extends T> int bulkInsert(Iterable<S> entities) {
+        return this.bulkInsert(entities, this.bulkChunkSize);
+    }
+
+    @Override
+    public <S extends T> int bulkInsert(Iterable<S> entities, int chunkSize) {
+        return this.repository.bulkInsert(entities, chunkSize);
+    }
+
+    @Override
+    public <S extends T> int bulkSave(Iterable<S> entities) {
+        return this.bulkSave(entities, this.bulkChunkSize);
+    }
+
+    @Override
+    public <S extends T> int bulkSave(Iterable<S> entities, int chunkSize) {
+        return this.repository.bulkSave(entities, chunkSize);
+    }
+
     @Override
     public <S extends T> S save(S entity) {
         return repository.save(entity);
@@ -175,10 +207,12 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
 
     @Override
     public <S extends T> Stream<S> stream(Query query) {
-        Iterable<T> list = this.list(query);
-        Collection<T> objects = new ArrayList<>();
-        list.forEach(objects::add);
-        return (Stream<S>) objects.stream();
+        return this.stream(query, this.streamBatchSize);
+    }
+
+    @Override
+    public <S extends T> Stream<S> stream(Query query, int batchSize) {
+        return this.repository.stream(query, batchSize);
     }
 
     @Override
@@ -191,6 +225,16 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
         return this.repository.page(query, pageable);
     }
 
+    @Override
+    public <S extends T> Slice<S> slice(Query query, Pageable pageable) {
+        return this.repository.slice(query, pageable);
+    }
+
+    @Override
+    public <S extends T> KeysetPage<S> seek(Query query, String keyProperty, Object afterKey, Sort.Direction direction, int size) {
+        return this.repository.seek(query, keyProperty, afterKey, direction, size);
+    }
+
     @Override
     public <S extends T> long count(Query query) {
         return this.repository.count(query);
@@ -231,6 +275,66 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
         return convertGridFsFileToGridFsObject(gridFSFile);
     }
 
+    @Override
+    public GridFsStreamObject openFile(Query query) {
+        GridFSFile gridFSFile = this.gridFsTemplate.findOne(query);
+        if (gridFSFile == null) {
+            return null;
+        }
+        GridFsResource resource = this.gridFsTemplate.getResource(gridFSFile);
+        return new GridFsStreamObject(gridFSFile, resource::getInputStream);
+    }
+
+    @Override
+    public GridFsStreamObject openFileById(String fileId) {
+        return this.openFile(fileIdQuery(fileId));
+    }
+
+    @Override
+    public InputStream openFileRange(String fileId, long offset, long length) throws IOException {
+        GridFsStreamObject file = requireFile(fileId);
+        InputStream in = file.getInputStream();
+        // GridFSDownloadStream#skip 根据 offset / chunkSize 重新定位游标  跳过的chunk不会被拉取
+        long skipped = in.skip(offset);
+        if (skipped < offset && offset < file.getLength()) {
+            ByteStreams.skipFully(in, offset - skipped);
+        }
+        return ByteStreams.limit(in, length);
+    }
+
+    @Override
+    public long transferFile(String fileId, OutputStream out) throws IOException {
+        try (GridFsStreamObject file = requireFile(fileId)) {
+            return file.transferTo(out);
+        }
+    }
+
+    @Override
+    public long transferFile(String fileId, WritableByteChannel channel) throws IOException {
+        try (GridFsStreamObject file = requireFile(fileId)) {
+            return file.transferTo(channel);
+        }
+    }
+
+    @Override
+    public String storeFile(InputStream content, String filename, String contentType, org.bson.Document metadata) {
+        ObjectId id = this.gridFsTemplate.store(content, filename, contentType, metadata);
+        return id.toHexString();
+    }
+
+    private GridFsStreamObject requireFile(String fileId) throws IOException {
+        GridFsStreamObject file = this.openFileById(fileId);
+        if (file == null) {
+            throw new IOException("file not found: " + fileId);
+        }
+        return file;
+    }
+
+    private static Query fileIdQuery(String fileId) {
+        Object id = ObjectId.isValid(fileId) ? new ObjectId(fileId) : fileId;
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
     private <F extends GridFsObject> F convertGridFsFileToGridFsObject(GridFSFile gridFSFile) {
         InputStream inputStream = Optional.ofNullable(gridFSFile)
                 .map(f -> gridFsTemplate.getResource(gridFSFile))
@@ -277,4 +381,12 @@ public class BaseServiceImpl<ID extends Serializable, T, R extends BaseRepositor
     public List<IndexInfo> getIndexInfo() {
         return this.repository.getIndexInfo();
     }
+
+    public void setStreamBatchSize(int streamBatchSize) {
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    public void setBulkChunkSize(int bulkChunkSize) {
+        this.bulkChunkSize = bulkChunkSize;
+    }
 }
@@ -18,6 +18,8 @@ import java.util.Date;
 @Getter
 @Setter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class GridFsObject implements java.io.Serializable {
 
     @Id
@@ -32,5 +34,6 @@ public class GridFsObject implements java.io.Serializable {
     protected org.bson.Document extraElements;
 
     // 避免序列化字段
+    // 大文件请使用 GridFsStreamObject 流式读取  避免整个文件驻留内存
     protected transient byte[] fileBytes;
 }
@@ -0,0 +1,106 @@
+package io.jopen.springboot.plugin.mongo.repository;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 流式的GridFS文件对象  文件内容不会加载到内存
+ * <p>
+ * 输入流在第一次调用 {@link #getInputStream()} 时才打开  之后按chunk从服务端读取
+ * 使用完毕后必须调用 {@link #close()} 释放服务端游标
+ *
+ * @author maxuefeng
+ * @see GridFsObject
+ * @see BaseService#openFile(org.springframework.data.mongodb.core.query.Query)
+ * @since 2020/2/9
+ */
+public class GridFsStreamObject extends GridFsObject implements Closeable {
+
+    /**
+     * 延迟打开输入流
+     */
+    @FunctionalInterface
+    public interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private final transient StreamOpener opener;
+
+    private transient InputStream inputStream;
+
+    public GridFsStreamObject(GridFSFile file, StreamOpener opener) {
+        super(String.valueOf(file.getId().isObjectId() ? file.getObjectId().toHexString() : file.getId()),
+                file.getFilename(),
+                file.getLength(),
+                file.getChunkSize(),
+                file.getUploadDate(),
+                file.getMD5(),
+                file.getMetadata(),
+                file.getExtraElements(),
+                null);
+        this.opener = opener;
+    }
+
+    public synchronized InputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = opener.open();
+        }
+        return inputStream;
+    }
+
+    /**
+     * 以chunk大小的缓冲区将文件内容写入输出流(例如 HttpServletResponse#getOutputStream)
+     *
+     * @return 写入的字节数
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        InputStream in = getInputStream();
+        byte[] buffer = new byte[bufferSize()];
+        long transferred = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            transferred += n;
+        }
+        return transferred;
+    }
+
+    /**
+     * @return 写入的字节数
+     * @see #transferTo(OutputStream)
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        InputStream in = getInputStream();
+        byte[] buffer = new byte[bufferSize()];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long transferred = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            byteBuffer.clear().limit(n);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+            transferred += n;
+        }
+        return transferred;
+    }
+
+    private int bufferSize() {
+        // 与chunk对齐  每次读取最多触发一次chunk拉取
+        return chunkSize > 0 ? chunkSize : 255 * 1024;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+            inputStream = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.jopen.springboot.plugin.mongo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 基于游标键(keyset/seek)的分页结果  不使用skip  也不执行count
+ * <p>
+ * 下一页请求时将 {@link #getNextKey()} 作为 afterKey 传入即可
+ *
+ * @author maxuefeng
+ * @see BaseRepository#seek(org.springframework.data.mongodb.core.query.Query, String, Object, org.springframework.data.domain.Sort.Direction, int)
+ * @since 2020/2/9
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KeysetPage<S> {
+
+    private final List<S> content;
+
+    /**
+     * 当前页最后一条记录的键值  没有数据时为null
+     */
+    private final Object nextKey;
+
+    private final boolean hasNext;
+}
@@ -8,10 +8,7 @@ import org.springframework.data.mongodb.core.CollectionCallback;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
 import java.beans.PropertyDescriptor;
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
@@ -39,26 +36,24 @@ public class Builder<T> {
     MongoTemplate mongoTemplate;
 
     /**
-     * 缓存数据
-     *
-     * @see com.google.common.collect.MapMaker
-     * @see com.google.common.cache.CacheBuilder
+     * 已解析的字段名缓存  key为(实体类, lambda合成类)  由QueryBuilder/UpdateBuilder/AggregationBuilder共享
+     * <p>
+     * lambda合成类的数量与代码中的调用点数量一致  是有界的  因此使用强引用缓存
      */
-    private static final ConcurrentHashMap<Class<?>, WeakReference<SerializedLambda>> SF_CACHE = new ConcurrentHashMap<>();
-
-    // Cache<Object, Object> cache = CacheBuilder.newBuilder().weakKeys().build();
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, String>> COLUMN_CACHE = new ConcurrentHashMap<>();
 
     @NonNull
     Function<SFunction<T, ?>, String> produceValName = sFunction -> {
-        WeakReference<SerializedLambda> weakReference = SF_CACHE.get(sFunction.getClass());
-        SerializedLambda serializedLambda = Optional.ofNullable(weakReference)
-                .map(Reference::get)
-                .orElseGet(() -> {
-                    SerializedLambda lambda = SerializedLambda.resolve(sFunction);
-                    SF_CACHE.put(sFunction.getClass(), new WeakReference<>(lambda));
-                    return lambda;
-                });
-        return this.resolve(serializedLambda);
+        ConcurrentHashMap<Class<?>, String> columns = COLUMN_CACHE.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>());
+        String column = columns.get(sFunction.getClass());
+        if (column == null) {
+            column = this.resolve(SerializedLambda.resolve(sFunction));
+            // 解析失败的结果不缓存
+            if (column != null) {
+                columns.putIfAbsent(sFunction.getClass(), column);
+            }
+        }
+        return column;
     };
 
 
@@ -4,6 +4,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.springframework.util.SerializationUtils;
 
 import java.io.*;
+import java.lang.reflect.Method;
 
 /**
  * @author maxuefeng
@@ -25,7 +26,8 @@ public class SerializedLambda implements Serializable {
     private Object[] capturedArgs;
 
     /**
-     * 通过反序列化转换 lambda 表达式，该方法只能序列化 lambda 表达式，不能序列化接口实现或者正常非 lambda 写法的对象
+     * 解析 lambda 表达式，优先直接调用合成类的 writeReplace 方法获取 {@link java.lang.invoke.SerializedLambda}，
+     * 失败时退回到序列化/反序列化的方式
      *
      * @param lambda lambda对象
      * @return 返回解析后的 SerializedLambda
@@ -34,6 +36,37 @@ public class SerializedLambda implements Serializable {
         if (!lambda.getClass().isSynthetic()) {
             throw new RuntimeException("该方法仅能传入 lambda 表达式产生的合成类");
         }
+        try {
+            Method writeReplace = lambda.getClass().getDeclaredMethod("writeReplace");
+            writeReplace.setAccessible(true);
+            return from((java.lang.invoke.SerializedLambda) writeReplace.invoke(lambda));
+        } catch (Exception | LinkageError ignored) {
+            return resolveBySerialization(lambda);
+        }
+    }
+
+    private static SerializedLambda from(java.lang.invoke.SerializedLambda lambda) {
+        SerializedLambda result = new SerializedLambda();
+        result.functionalInterfaceClass = lambda.getFunctionalInterfaceClass();
+        result.functionalInterfaceMethodName = lambda.getFunctionalInterfaceMethodName();
+        result.functionalInterfaceMethodSignature = lambda.getFunctionalInterfaceMethodSignature();
+        result.implClass = lambda.getImplClass();
+        result.implMethodName = lambda.getImplMethodName();
+        result.implMethodSignature = lambda.getImplMethodSignature();
+        result.implMethodKind = lambda.getImplMethodKind();
+        result.instantiatedMethodType = lambda.getInstantiatedMethodType();
+        Object[] capturedArgs = new Object[lambda.getCapturedArgCount()];
+        for (int i = 0; i < capturedArgs.length; i++) {
+            capturedArgs[i] = lambda.getCapturedArg(i);
+        }
+        result.capturedArgs = capturedArgs;
+        return result;
+    }
+
+    /**
+     * 通过反序列化转换 lambda 表达式，该方法只能序列化 lambda 表达式，不能序列化接口实现或者正常非 lambda 写法的对象
+     */
+    private static SerializedLambda resolveBySerialization(@NonNull SFunction lambda) {
         try (ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(SerializationUtils.serialize(lambda))) {
             @Override
             protected Class<?> resolveClass(ObjectStreamClass objectStreamClass) throws IOException, ClassNotFoundException {
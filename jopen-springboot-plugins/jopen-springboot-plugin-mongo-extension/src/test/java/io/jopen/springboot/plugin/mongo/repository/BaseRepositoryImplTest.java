@@ -0,0 +1,199 @@
+package io.jopen.springboot.plugin.mongo.repository;
+
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
+import org.springframework.data.util.CloseableIterator;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 用{@link Proxy}模拟{@link MongoOperations}  记录实际执行的Query  不需要MongoDB
+ *
+ * @author maxuefeng
+ * @see BaseRepositoryImpl
+ */
+public class BaseRepositoryImplTest {
+
+    static class Person {
+
+        @Id
+        String id;
+
+        int age;
+
+        Person(String id, int age) {
+            this.id = id;
+            this.age = age;
+        }
+    }
+
+    /**
+     * 每次find或stream执行的Query
+     */
+    private final List<Query> executed = new ArrayList<>();
+
+    /**
+     * find和stream返回的结果
+     */
+    private List<Person> results = new ArrayList<>();
+
+    private boolean iteratorClosed;
+
+    @SuppressWarnings("unchecked")
+    private BaseRepositoryImpl<Person, String> repository() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        MongoConverter converter = (MongoConverter) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoConverter.class}, (proxy, method, args) -> {
+                    if ("getMappingContext".equals(method.getName())) {
+                        return mappingContext;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        MongoOperations operations = (MongoOperations) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoOperations.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "find":
+                            executed.add((Query) args[0]);
+                            return new ArrayList<>(results);
+                        case "stream":
+                            executed.add((Query) args[0]);
+                            return iterator(results.iterator());
+                        case "getConverter":
+                            return converter;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        MongoEntityInformation<Person, String> entityInformation = (MongoEntityInformation<Person, String>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{MongoEntityInformation.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getJavaType":
+                            return Person.class;
+                        case "getCollectionName":
+                            return "person";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return new BaseRepositoryImpl<>(entityInformation, operations);
+    }
+
+    private CloseableIterator<Person> iterator(Iterator<Person> people) {
+        return new CloseableIterator<Person>() {
+            @Override
+            public boolean hasNext() {
+                return people.hasNext();
+            }
+
+            @Override
+            public Person next() {
+                return people.next();
+            }
+
+            @Override
+            public void close() {
+                iteratorClosed = true;
+            }
+        };
+    }
+
+    private static List<Person> people(int count) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            people.add(new Person("p" + i, 20 + i));
+        }
+        return people;
+    }
+
+    @Test
+    public void testSeekCombinesKeyCriterionWithQuery() {
+        results = people(3);
+        // 基础查询已经有id上的条件
+        Query query = Query.query(Criteria.where("id").gte("a").and("age").gt(18));
+        Document original = query.getQueryObject();
+
+        KeysetPage<Person> page = repository().seek(query, "id", "c", Sort.Direction.ASC, 2);
+
+        Query seekQuery = executed.get(0);
+        Assert.assertEquals(new Document("$and", Arrays.asList(original, new Document("id", new Document("$gt", "c")))),
+                seekQuery.getQueryObject());
+        Assert.assertEquals(new Document("id", 1), seekQuery.getSortObject());
+        Assert.assertEquals(3, seekQuery.getLimit());
+
+        Assert.assertEquals(2, page.getContent().size());
+        Assert.assertTrue(page.isHasNext());
+        Assert.assertEquals("p1", page.getNextKey());
+        // 调用者的query没有被修改
+        Assert.assertEquals(original, query.getQueryObject());
+        Assert.assertEquals(0, query.getLimit());
+    }
+
+    @Test
+    public void testSeekFirstPageDescending() {
+        results = people(1);
+        Query query = Query.query(Criteria.where("age").gt(18));
+
+        KeysetPage<Person> page = repository().seek(query, "id", null, Sort.Direction.DESC, 2);
+
+        Query seekQuery = executed.get(0);
+        Assert.assertEquals(query.getQueryObject(), seekQuery.getQueryObject());
+        Assert.assertEquals(new Document("id", -1), seekQuery.getSortObject());
+        Assert.assertFalse(page.isHasNext());
+        Assert.assertEquals("p0", page.getNextKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekRejectsSortedQuery() {
+        repository().seek(new Query().with(Sort.by("age")), "id", null, Sort.Direction.ASC, 10);
+    }
+
+    @Test
+    public void testSliceDoesNotModifyQuery() {
+        results = people(3);
+        Query query = Query.query(Criteria.where("age").gt(18));
+
+        Slice<Person> slice = repository().slice(query, PageRequest.of(1, 2));
+
+        Query sliceQuery = executed.get(0);
+        Assert.assertEquals(2, sliceQuery.getSkip());
+        Assert.assertEquals(3, sliceQuery.getLimit());
+        Assert.assertEquals(2, slice.getContent().size());
+        Assert.assertTrue(slice.hasNext());
+
+        Assert.assertEquals(0, query.getSkip());
+        Assert.assertEquals(0, query.getLimit());
+    }
+
+    @Test
+    public void testStreamDoesNotModifyQuery() {
+        results = people(5);
+        Query query = Query.query(Criteria.where("age").gt(18));
+
+        List<String> ids;
+        try (Stream<Person> stream = repository().stream(query, 50)) {
+            ids = stream.map(person -> person.id).collect(Collectors.toList());
+        }
+
+        Assert.assertEquals(Arrays.asList("p0", "p1", "p2", "p3", "p4"), ids);
+        Assert.assertTrue(iteratorClosed);
+        Assert.assertEquals(Integer.valueOf(50), executed.get(0).getMeta().getCursorBatchSize());
+        Assert.assertNull(query.getMeta().getCursorBatchSize());
+    }
+}